@@ -50,6 +50,10 @@ public class Context {
    * The path to the folder, relative to the root, used to compute rewritten image url.
    */
   private String aggregatedFolderPath;
+  /**
+   * The type of the group currently post processed.
+   */
+  private ResourceType postProcessedType;
 
 
   /**
@@ -213,6 +217,24 @@ public class Context {
   }
 
 
+  /**
+   * @return the type of the group currently post processed or null if no group is post processed.
+   */
+  public ResourceType getPostProcessedType() {
+    return this.postProcessedType;
+  }
+
+  /**
+   * Post processors are not aware of the resource they process. This field allows a post processor to find out the
+   * type of the merged content, for instance in order to avoid parsing css as javascript.
+   *
+   * @param postProcessedType the type of the group currently post processed.
+   */
+  public void setPostProcessedType(final ResourceType postProcessedType) {
+    this.postProcessedType = postProcessedType;
+  }
+
+
   /**
    * Perform context clean-up.
    */
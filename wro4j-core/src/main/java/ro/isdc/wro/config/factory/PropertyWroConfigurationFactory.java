@@ -49,11 +49,54 @@ public class PropertyWroConfigurationFactory
       config.setHeader(valueAsString(properties.get(ConfigConstants.header.name())));
       config.setCacheGzippedContent(valueAsBoolean(properties.get(ConfigConstants.cacheGzippedContent.name()), false));
       config.setParallelPreprocessing(valueAsBoolean(properties.get(ConfigConstants.parallelPreprocessing.name()), false));
+      config.setParallelPostprocessing(valueAsBoolean(properties.get(ConfigConstants.parallelPostprocessing.name()), false));
+      config.setEnginePoolMaxActive((int) valueAsLong(properties.get(ConfigConstants.enginePoolMaxActive.name()),
+        config.getEnginePoolMaxActive()));
+      config.setEnginePoolMaxIdle((int) valueAsLong(properties.get(ConfigConstants.enginePoolMaxIdle.name()),
+        config.getEnginePoolMaxIdle()));
+      config.setEnginePoolMaxWait(valueAsLong(properties.get(ConfigConstants.enginePoolMaxWait.name()),
+        config.getEnginePoolMaxWait()));
+      final Object exhaustedAction = properties.get(ConfigConstants.enginePoolExhaustedAction.name());
+      if (exhaustedAction != null) {
+        config.setEnginePoolExhaustedAction(valueAsString(exhaustedAction));
+      }
+      config.setEnginePoolPrewarm((int) valueAsLong(properties.get(ConfigConstants.enginePoolPrewarm.name()),
+        config.getEnginePoolPrewarm()));
+      setEnginePoolSettings(config);
+      final Object processorCacheDirectory = properties.get(ConfigConstants.processorCacheDirectory.name());
+      if (processorCacheDirectory != null) {
+        config.setProcessorCacheDirectory(valueAsString(processorCacheDirectory).trim());
+      }
+      config.setProcessorCacheSize((int) valueAsLong(properties.get(ConfigConstants.processorCacheSize.name()),
+        config.getProcessorCacheSize()));
+      config.setProcessorCacheDirectorySize((int) valueAsLong(
+        properties.get(ConfigConstants.processorCacheDirectorySize.name()), config.getProcessorCacheDirectorySize()));
+      config.setReadStaticResourcesFromDisk(valueAsBoolean(
+        properties.get(ConfigConstants.readStaticResourcesFromDisk.name()), false));
     }
     LOG.debug("WroConfiguration created: {}", config);
     return config;
   }
 
+  /**
+   * Sets the engine pool settings of individual pools, ex: enginePoolMaxActive.lessCss.
+   */
+  private void setEnginePoolSettings(final WroConfiguration config) {
+    final ConfigConstants[] settings = new ConfigConstants[] {
+      ConfigConstants.enginePoolMaxActive, ConfigConstants.enginePoolMaxIdle, ConfigConstants.enginePoolMaxWait,
+      ConfigConstants.enginePoolExhaustedAction, ConfigConstants.enginePoolPrewarm
+    };
+    for (final Object key : properties.keySet()) {
+      final String name = String.valueOf(key);
+      for (final ConfigConstants setting : settings) {
+        if (name.startsWith(setting.name() + ".")) {
+          final String poolName = name.substring(setting.name().length() + 1);
+          config.setEnginePoolSetting(setting, poolName, valueAsString(properties.get(key)).trim());
+        }
+      }
+    }
+  }
+
   private long valueAsLong(final Object object, final long defaultValue) {
     if (object == null) {
       return defaultValue;
@@ -39,6 +39,49 @@ public enum ConfigConstants {
    * When true, will run in parallel pre processing of multiple resources. In theory this should improve the performance.
    */
   parallelPreprocessing,
+  /**
+   * When true, post processors marked as resource-local will process each resource of a group in parallel.
+   */
+  parallelPostprocessing,
+  /**
+   * Maximum number of engines (ex: less, linters) created by an engine pool. Can be set for a single pool by
+   * suffixing the name with the name of the pool, ex: enginePoolMaxActive.lessCss.
+   */
+  enginePoolMaxActive,
+  /**
+   * Maximum number of idle engines kept by an engine pool.
+   */
+  enginePoolMaxIdle,
+  /**
+   * Milliseconds to wait for an engine when an engine pool is exhausted.
+   */
+  enginePoolMaxWait,
+  /**
+   * What an exhausted engine pool does: block, fail or grow.
+   */
+  enginePoolExhaustedAction,
+  /**
+   * Number of engines created in background when an engine pool is initialized.
+   */
+  enginePoolPrewarm,
+  /**
+   * Private folder where the output of expensive processors is stored. When not set, the outputs are kept in memory
+   * only.
+   */
+  processorCacheDirectory,
+  /**
+   * Maximum number of processor outputs kept in memory.
+   */
+  processorCacheSize,
+  /**
+   * Maximum number of processor outputs stored in the processorCacheDirectory.
+   */
+  processorCacheDirectorySize,
+  /**
+   * When true, the static resources of the exploded web application are read directly from the file system, skipping
+   * the servlet filters mapped to them.
+   */
+  readStaticResourcesFromDisk,
   /**
    * When this flag is enabled, the raw processed content will be gzipped only the first time and all subsequent
    * requests will use the cached gzipped content. Otherwise, the gzip operation will be performed for each request.
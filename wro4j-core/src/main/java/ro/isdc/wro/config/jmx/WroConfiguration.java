@@ -7,6 +7,8 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
@@ -34,6 +36,10 @@ public final class WroConfiguration
    * Default encoding to use.
    */
   private static final String DEFAULT_ENCODING = "UTF-8";
+  /**
+   * Default size of engine pools.
+   */
+  private static final int DEFAULT_ENGINE_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
   /**
    * How often to run a thread responsible for refreshing the cache.
    */
@@ -96,6 +102,60 @@ public final class WroConfiguration
    * By default this flag is false, because this feature is experimental.
    */
   private boolean parallelPreprocessing = false;
+  /**
+   * When true, post processors marked as resource-local will process each resource of a group in parallel. By default
+   * this flag is false, because this feature is experimental.
+   */
+  private boolean parallelPostprocessing = false;
+  /**
+   * Maximum number of engines (ex: less, linters) created by an engine pool. By default it is the number of available
+   * processors, but at least 2.
+   */
+  private int enginePoolMaxActive = DEFAULT_ENGINE_POOL_SIZE;
+  /**
+   * Maximum number of idle engines kept by an engine pool. Idle engines exceeding this number are destroyed.
+   */
+  private int enginePoolMaxIdle = DEFAULT_ENGINE_POOL_SIZE;
+  /**
+   * Milliseconds to wait for an engine when the engine pool is exhausted and the exhausted action is block.
+   */
+  private long enginePoolMaxWait = 5000L;
+  /**
+   * What an exhausted engine pool does when an engine is requested: block (wait at most enginePoolMaxWait milliseconds),
+   * fail or grow.
+   */
+  private String enginePoolExhaustedAction = "block";
+  /**
+   * Number of engines created in background when an engine pool is initialized.
+   */
+  private int enginePoolPrewarm = 0;
+  /**
+   * Settings of individual engine pools, overriding the settings above. The key is the name of the setting followed by
+   * a dot and the name of the pool, ex: enginePoolMaxActive.lessCss.
+   */
+  private final Map<String, String> enginePoolOverrides = new ConcurrentHashMap<String, String>();
+  /**
+   * Folder where the output of expensive processors (ex: less, closure compiler) is stored, so that it survives
+   * restarts. The folder should be private to the user running the application, since the stored outputs are served
+   * without being validated. It is created readable and writable by its owner only. When null or empty, the outputs
+   * are kept in memory only.
+   */
+  private String processorCacheDirectory;
+  /**
+   * Maximum number of processor outputs kept in memory.
+   */
+  private int processorCacheSize = 500;
+  /**
+   * Maximum number of processor outputs stored in the processorCacheDirectory. When exceeded, the least recently used
+   * outputs are deleted.
+   */
+  private int processorCacheDirectorySize = 10000;
+  /**
+   * When true, the static resources (js, css, images) of the exploded web application are read directly from the file
+   * system instead of being dispatched to the servlet container. The servlet filters mapped to these resources are
+   * then skipped, this is why this flag is false by default.
+   */
+  private boolean readStaticResourcesFromDisk = false;
   /**
    * Listeners for the change of cache & model period properties.
    */
@@ -431,6 +491,211 @@ public final class WroConfiguration
   }
 
 
+  /**
+   * @return the parallelPostprocessing
+   */
+  public boolean isParallelPostprocessing() {
+    return this.parallelPostprocessing;
+  }
+
+
+  /**
+   * @param parallelPostprocessing the parallelPostprocessing to set
+   */
+  public void setParallelPostprocessing(final boolean parallelPostprocessing) {
+    this.parallelPostprocessing = parallelPostprocessing;
+  }
+
+
+  /**
+   * @return the enginePoolMaxActive
+   */
+  public int getEnginePoolMaxActive() {
+    return this.enginePoolMaxActive;
+  }
+
+
+  /**
+   * @param enginePoolMaxActive the enginePoolMaxActive to set
+   */
+  public void setEnginePoolMaxActive(final int enginePoolMaxActive) {
+    this.enginePoolMaxActive = enginePoolMaxActive;
+  }
+
+
+  /**
+   * @return the enginePoolMaxIdle
+   */
+  public int getEnginePoolMaxIdle() {
+    return this.enginePoolMaxIdle;
+  }
+
+
+  /**
+   * @param enginePoolMaxIdle the enginePoolMaxIdle to set
+   */
+  public void setEnginePoolMaxIdle(final int enginePoolMaxIdle) {
+    this.enginePoolMaxIdle = enginePoolMaxIdle;
+  }
+
+
+  /**
+   * @return the enginePoolMaxWait
+   */
+  public long getEnginePoolMaxWait() {
+    return this.enginePoolMaxWait;
+  }
+
+
+  /**
+   * @param enginePoolMaxWait the enginePoolMaxWait to set
+   */
+  public void setEnginePoolMaxWait(final long enginePoolMaxWait) {
+    this.enginePoolMaxWait = enginePoolMaxWait;
+  }
+
+
+  /**
+   * @return the enginePoolExhaustedAction
+   */
+  public String getEnginePoolExhaustedAction() {
+    return this.enginePoolExhaustedAction;
+  }
+
+
+  /**
+   * @param enginePoolExhaustedAction the enginePoolExhaustedAction to set (block, fail or grow).
+   */
+  public void setEnginePoolExhaustedAction(final String enginePoolExhaustedAction) {
+    this.enginePoolExhaustedAction = enginePoolExhaustedAction;
+  }
+
+
+  /**
+   * @return the enginePoolPrewarm
+   */
+  public int getEnginePoolPrewarm() {
+    return this.enginePoolPrewarm;
+  }
+
+
+  /**
+   * @param enginePoolPrewarm the enginePoolPrewarm to set
+   */
+  public void setEnginePoolPrewarm(final int enginePoolPrewarm) {
+    this.enginePoolPrewarm = enginePoolPrewarm;
+  }
+
+
+  /**
+   * @return the processorCacheDirectory
+   */
+  public String getProcessorCacheDirectory() {
+    return this.processorCacheDirectory;
+  }
+
+
+  /**
+   * @param processorCacheDirectory the processorCacheDirectory to set
+   */
+  public void setProcessorCacheDirectory(final String processorCacheDirectory) {
+    this.processorCacheDirectory = processorCacheDirectory;
+  }
+
+
+  /**
+   * @return the processorCacheSize
+   */
+  public int getProcessorCacheSize() {
+    return this.processorCacheSize;
+  }
+
+
+  /**
+   * @param processorCacheSize the processorCacheSize to set
+   */
+  public void setProcessorCacheSize(final int processorCacheSize) {
+    this.processorCacheSize = processorCacheSize;
+  }
+
+
+  /**
+   * @return the processorCacheDirectorySize
+   */
+  public int getProcessorCacheDirectorySize() {
+    return this.processorCacheDirectorySize;
+  }
+
+
+  /**
+   * @param processorCacheDirectorySize the processorCacheDirectorySize to set
+   */
+  public void setProcessorCacheDirectorySize(final int processorCacheDirectorySize) {
+    this.processorCacheDirectorySize = processorCacheDirectorySize;
+  }
+
+
+  /**
+   * @return the readStaticResourcesFromDisk
+   */
+  public boolean isReadStaticResourcesFromDisk() {
+    return this.readStaticResourcesFromDisk;
+  }
+
+
+  /**
+   * @param readStaticResourcesFromDisk the readStaticResourcesFromDisk to set
+   */
+  public void setReadStaticResourcesFromDisk(final boolean readStaticResourcesFromDisk) {
+    this.readStaticResourcesFromDisk = readStaticResourcesFromDisk;
+  }
+
+
+  /**
+   * Overrides an engine pool setting for a single pool.
+   *
+   * @param setting the engine pool setting to override, ex: {@link ConfigConstants#enginePoolMaxActive}.
+   * @param poolName the name of the pool, usually the alias of the processor using it.
+   * @param value of the setting.
+   */
+  public void setEnginePoolSetting(final ConfigConstants setting, final String poolName, final String value) {
+    final String key = setting.name() + "." + poolName;
+    if (value == null) {
+      enginePoolOverrides.remove(key);
+    } else {
+      enginePoolOverrides.put(key, value);
+    }
+  }
+
+
+  /**
+   * @param setting an engine pool setting, ex: {@link ConfigConstants#enginePoolMaxActive}.
+   * @param poolName the name of the pool.
+   * @return the value of the setting for the pool with provided name, or the value used by all the pools if it is not
+   *         overridden.
+   */
+  public String getEnginePoolSetting(final ConfigConstants setting, final String poolName) {
+    final String value = poolName == null ? null : enginePoolOverrides.get(setting.name() + "." + poolName);
+    if (value != null) {
+      return value;
+    }
+    switch (setting) {
+      case enginePoolMaxActive:
+        return String.valueOf(enginePoolMaxActive);
+      case enginePoolMaxIdle:
+        return String.valueOf(enginePoolMaxIdle);
+      case enginePoolMaxWait:
+        return String.valueOf(enginePoolMaxWait);
+      case enginePoolExhaustedAction:
+        return enginePoolExhaustedAction;
+      case enginePoolPrewarm:
+        return String.valueOf(enginePoolPrewarm);
+      default:
+        throw new IllegalArgumentException(setting + " is not an engine pool setting");
+    }
+  }
+
+
   /**
    * {@inheritDoc}
    */
@@ -16,6 +16,7 @@ import ro.isdc.wro.cache.ContentHashEntry;
 import ro.isdc.wro.model.WroModel;
 import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.processor.support.AllowedUrlRegistry;
 
 
 /**
@@ -41,32 +42,49 @@ public final class ReloadCacheRunnable
         // invoke cacheChangeCallback
         wroManagerReference.get().cacheChangeCallback.propertyChange(null);
       }
-      final WroModel model = wroManagerReference.get().modelFactory.create();
-      // process groups & put update cache
-      final Collection<Group> groups = model.getGroups();
-      // update cache for all resources
-      for (final Group group : groups) {
-        for (final ResourceType resourceType : ResourceType.values()) {
-          if (group.hasResourcesOfType(resourceType)) {
-            final Collection<Group> groupAsList = new HashSet<Group>();
-            groupAsList.add(group);
-            // TODO check if request parameter can be fetched here without errors.
-            // groupExtractor.isMinimized(Context.get().getRequest())
-            final Boolean[] minimizeValues = new Boolean[] { true, false };
-            for (final boolean minimize : minimizeValues) {
-              //stop processing if the current thread is interrupted
-              if (Thread.interrupted()) {
-                LOG.debug("ReloadCacheRunnable was interrupted - stop processing!");
-                throw new InterruptedException();
+      // the proxy resources are located again when requested
+      wroManagerReference.get().getProxyResourceCache().clearMutable();
+      // the allowed urls are rebuilt with the bundles, the previous ones remain allowed until the reload is complete
+      final AllowedUrlRegistry allowedUrls = wroManagerReference.get().getAllowedUrls();
+      allowedUrls.startGeneration();
+      boolean completed = false;
+      try {
+        final WroModel model = wroManagerReference.get().modelFactory.create();
+        // process groups & put update cache
+        final Collection<Group> groups = model.getGroups();
+        // update cache for all resources
+        for (final Group group : groups) {
+          for (final ResourceType resourceType : ResourceType.values()) {
+            if (group.hasResourcesOfType(resourceType)) {
+              final Collection<Group> groupAsList = new HashSet<Group>();
+              groupAsList.add(group);
+              // TODO check if request parameter can be fetched here without errors.
+              // groupExtractor.isMinimized(Context.get().getRequest())
+              final Boolean[] minimizeValues = new Boolean[] { true, false };
+              for (final boolean minimize : minimizeValues) {
+                //stop processing if the current thread is interrupted
+                if (Thread.interrupted()) {
+                  LOG.debug("ReloadCacheRunnable was interrupted - stop processing!");
+                  throw new InterruptedException();
+                }
+                final String content = wroManagerReference.get().getGroupsProcessor().process(group, resourceType,
+                  minimize);
+                final CacheEntry cacheEntry = new CacheEntry(group.getName(), resourceType, minimize);
+                final ContentHashEntry contentHashEntry = wroManagerReference.get().getContentHashEntryByContent(
+                  content);
+                wroManagerReference.get().cacheStrategy.put(cacheEntry, contentHashEntry);
               }
-              final String content = wroManagerReference.get().getGroupsProcessor().process(group, resourceType,
-                minimize);
-              final CacheEntry cacheEntry = new CacheEntry(group.getName(), resourceType, minimize);
-              final ContentHashEntry contentHashEntry = wroManagerReference.get().getContentHashEntryByContent(content);
-              wroManagerReference.get().cacheStrategy.put(cacheEntry, contentHashEntry);
             }
           }
         }
+        completed = true;
+      } finally {
+        // the previous urls are kept if the bundles could not be all processed again
+        if (completed) {
+          allowedUrls.completeGeneration();
+        } else {
+          allowedUrls.abortGeneration();
+        }
       }
     } catch (final InterruptedException e) {
       // Catch all exception in order to avoid situation when scheduler runs out of threads.
@@ -6,9 +6,12 @@ package ro.isdc.wro.manager;
 import java.beans.PropertyChangeListener;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
 
+import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -38,9 +41,14 @@ import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.group.processor.GroupsProcessor;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.locator.support.CachingHttpClient;
+import ro.isdc.wro.model.resource.locator.support.DynamicResourceCache;
+import ro.isdc.wro.model.resource.locator.support.ProxyResourceCache;
+import ro.isdc.wro.model.resource.locator.wildcard.JarIndexCache;
 import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
 import ro.isdc.wro.model.resource.processor.impl.css.CssUrlRewritingProcessor;
+import ro.isdc.wro.model.resource.processor.support.AllowedUrlRegistry;
 import ro.isdc.wro.model.resource.util.HashBuilder;
 import ro.isdc.wro.model.resource.util.NamingStrategy;
 import ro.isdc.wro.util.DestroyableLazyInitializer;
@@ -58,6 +66,28 @@ import ro.isdc.wro.util.WroUtil;
 public class WroManager
   implements WroConfigurationChangeListener, CacheChangeCallbackAware {
   private static final Logger LOG = LoggerFactory.getLogger(WroManager.class);
+  /**
+   * Cache-Control value used for the proxy resources requested with their current version.
+   */
+  private static final String VERSIONED_CACHE_CONTROL_VALUE = "public, max-age=315360000";
+  /**
+   * Content types of the proxy resources, used when the servlet container doesn't know the extension.
+   */
+  private static final Map<String, String> PROXY_CONTENT_TYPES = new HashMap<String, String>();
+  static {
+    PROXY_CONTENT_TYPES.put("png", "image/png");
+    PROXY_CONTENT_TYPES.put("gif", "image/gif");
+    PROXY_CONTENT_TYPES.put("jpg", "image/jpeg");
+    PROXY_CONTENT_TYPES.put("jpeg", "image/jpeg");
+    PROXY_CONTENT_TYPES.put("svg", "image/svg+xml");
+    PROXY_CONTENT_TYPES.put("ico", "image/x-icon");
+    PROXY_CONTENT_TYPES.put("woff", "application/font-woff");
+    PROXY_CONTENT_TYPES.put("ttf", "application/x-font-ttf");
+    PROXY_CONTENT_TYPES.put("otf", "application/x-font-opentype");
+    PROXY_CONTENT_TYPES.put("eot", "application/vnd.ms-fontobject");
+    PROXY_CONTENT_TYPES.put("css", ResourceType.CSS.getContentType());
+    PROXY_CONTENT_TYPES.put("js", ResourceType.JS.getContentType());
+  }
   /**
    * ResourcesModel factory.
    */
@@ -97,6 +127,19 @@ public class WroManager
    */
   @Inject
   private GroupsProcessor groupsProcessor;
+  /**
+   * Holds the content and the hash of the proxy resources.
+   */
+  private final ProxyResourceCache proxyResourceCache = new ProxyResourceCache(ProxyResourceCache.DEFAULT_MAX_SIZE);
+  /**
+   * The url's which can be served through the wroResources proxy, added by the css url rewriting processor.
+   */
+  private final AllowedUrlRegistry allowedUrls = new AllowedUrlRegistry();
+  /**
+   * Holds the output of the dynamic resources located by dispatching the request.
+   */
+  private final DynamicResourceCache dynamicResourceCache = new DynamicResourceCache(
+    DynamicResourceCache.DEFAULT_MAX_SIZE);
 
 
   public WroManager() {
@@ -129,7 +172,7 @@ public class WroManager
 
     validate();
     if (isProxyResourceRequest(request)) {
-      serveProxyResourceRequest(request, response.getOutputStream());
+      serveProxyResourceRequest(request, response);
     } else {
       serveProcessedBundle(request, response);
     }
@@ -312,28 +355,71 @@ public class WroManager
 
 
   /**
-   * Serve images and other external resources referred by bundled resources.
+   * Serve images and other external resources referred by bundled resources. The content is served from the
+   * {@link ProxyResourceCache} and its hash is used as ETag. When the request contains the current version of the
+   * resource (added by {@link CssUrlRewritingProcessor}), the response can be cached forever.
    *
    * @param request {@link HttpServletRequest} object.
-   * @param outputStream where the stream will be written.
+   * @param response {@link HttpServletResponse} where the content will be written.
    * @throws IOException if no stream could be resolved.
    */
-  private void serveProxyResourceRequest(final HttpServletRequest request, final OutputStream outputStream)
+  private void serveProxyResourceRequest(final HttpServletRequest request, final HttpServletResponse response)
     throws IOException {
     final String resourceId = request.getParameter(CssUrlRewritingProcessor.PARAM_RESOURCE_ID);
     LOG.debug("locating stream for resourceId: {}", resourceId);
-    final CssUrlRewritingProcessor processor = ProcessorsUtils.findPreProcessorByClass(CssUrlRewritingProcessor.class,
-      processorsFactory.getPreProcessors());
-    if (processor != null && !processor.isUriAllowed(resourceId)) {
+    final boolean urlsRewritten = ProcessorsUtils.findPreProcessorByClass(CssUrlRewritingProcessor.class,
+      processorsFactory.getPreProcessors()) != null;
+    if (urlsRewritten && !allowedUrls.contains(resourceId)) {
       throw new UnauthorizedRequestException("Unauthorized resource request detected! " + request.getRequestURI());
     }
-    final InputStream is = uriLocatorFactory.locate(resourceId);
-    if (is == null) {
-      throw new WroRuntimeException("Cannot process request with uri: " + request.getRequestURI());
+    final ProxyResourceCache.Entry entry;
+    try {
+      entry = proxyResourceCache.get(resourceId, uriLocatorFactory, !Context.get().getConfig().isDisableCache());
+    } catch (final IOException e) {
+      throw new WroRuntimeException("Cannot process request with uri: " + request.getRequestURI(), e);
+    }
+    final String etagValue = String.format("\"%s\"", entry.getHash());
+    response.setHeader(HttpHeader.ETAG.toString(), etagValue);
+    final String version = request.getParameter(CssUrlRewritingProcessor.PARAM_VERSION);
+    if (version != null) {
+      if (version.equals(entry.getHash()) && !Context.get().getConfig().isDebug()) {
+        final Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.YEAR, 1);
+        response.setHeader(HttpHeader.CACHE_CONTROL.toString(), VERSIONED_CACHE_CONTROL_VALUE);
+        response.setDateHeader(HttpHeader.EXPIRES.toString(), cal.getTimeInMillis());
+      } else {
+        // an outdated version must not be cached under its url
+        WroUtil.addNoCacheHeaders(response);
+      }
+    }
+    if (etagValue.equals(request.getHeader(HttpHeader.IF_NONE_MATCH.toString()))) {
+      LOG.debug("ETag hash detected: {}. Sending {} status code", etagValue, HttpServletResponse.SC_NOT_MODIFIED);
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+    final String contentType = getProxyContentType(resourceId);
+    if (contentType != null) {
+      response.setContentType(contentType);
+    }
+    response.setContentLength(entry.getContent().length);
+    final OutputStream outputStream = response.getOutputStream();
+    try {
+      outputStream.write(entry.getContent());
+    } finally {
+      IOUtils.closeQuietly(outputStream);
     }
-    IOUtils.copy(is, outputStream);
-    IOUtils.closeQuietly(is);
-    IOUtils.closeQuietly(outputStream);
+  }
+
+
+  /**
+   * @return the content type of the proxy resource, using the mime mapping of the servlet container if available, or
+   *         null if the type is not known.
+   */
+  private String getProxyContentType(final String resourceId) {
+    final String path = StringUtils.substringBefore(StringUtils.substringBefore(resourceId, "?"), "#");
+    final ServletContext servletContext = Context.get().getServletContext();
+    final String contentType = servletContext != null ? servletContext.getMimeType(path) : null;
+    return contentType != null ? contentType : PROXY_CONTENT_TYPES.get(FilenameUtils.getExtension(path).toLowerCase());
   }
 
 
@@ -345,6 +431,9 @@ public class WroManager
     cacheSchedulerHelper.scheduleWithPeriod(period);
     // flush the cache by destroying it.
     cacheStrategy.clear();
+    proxyResourceCache.clearMutable();
+    // the dynamic resources are executed again when the cache is flushed explicitly
+    dynamicResourceCache.clear();
   }
 
 
@@ -367,6 +456,16 @@ public class WroManager
       modelSchedulerHelper.destroy();
       cacheStrategy.destroy();
       modelFactory.destroy();
+      proxyResourceCache.clear();
+      dynamicResourceCache.clear();
+      CachingHttpClient.getDefault().clear();
+      JarIndexCache.getDefault().clear();
+      if (groupsProcessor != null) {
+        groupsProcessor.destroy();
+      }
+      if (processorsFactory != null) {
+        ProcessorsUtils.destroy(processorsFactory.getPreProcessors(), processorsFactory.getPostProcessors());
+      }
     } catch (final Exception e) {
       LOG.error("Exception occured during manager destroy!!!");
     } finally {
@@ -443,10 +542,35 @@ public class WroManager
   public WroManager setHashBuilder(final HashBuilder contentDigester) {
     Validate.notNull(contentDigester);
     this.hashBuilder = contentDigester;
+    proxyResourceCache.setHashBuilder(contentDigester);
     return this;
   }
 
 
+  /**
+   * @return the cache of the resources served through the wroResources proxy.
+   */
+  public ProxyResourceCache getProxyResourceCache() {
+    return proxyResourceCache;
+  }
+
+
+  /**
+   * @return the registry of the url's which can be served through the wroResources proxy.
+   */
+  public AllowedUrlRegistry getAllowedUrls() {
+    return allowedUrls;
+  }
+
+
+  /**
+   * @return the cache of the dynamic resources output, where the dynamic resources which can be cached are configured.
+   */
+  public DynamicResourceCache getDynamicResourceCache() {
+    return dynamicResourceCache;
+  }
+
+
   /**
    * @return the modelFactory
    */
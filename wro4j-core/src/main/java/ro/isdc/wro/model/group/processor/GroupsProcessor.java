@@ -10,13 +10,20 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.config.Context;
 import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.Resource;
@@ -25,6 +32,7 @@ import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
 import ro.isdc.wro.util.StopWatch;
+import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -43,6 +51,10 @@ public class GroupsProcessor {
    */
   @Inject
   private transient PreProcessorExecutor preProcessorExecutor;
+  /**
+   * Used to run resource-local post processors in parallel.
+   */
+  private transient ExecutorService executor;
 
   /**
    * {@inheritDoc}
@@ -59,13 +71,13 @@ public class GroupsProcessor {
     final List<Resource> filteredResources = getFilteredResources(group, type);
     try {
       stopWatch.stop();
-      stopWatch.start("pre process and merge");
-      // Merge
-      final String result = preProcessorExecutor.processAndMerge(filteredResources, minimize);
+      stopWatch.start("pre process");
+      // the resources are merged after post processing, allowing resource-local post processors to run in parallel
+      final List<String> contents = preProcessorExecutor.process(filteredResources, minimize);
       stopWatch.stop();
       stopWatch.start("post process");
       // postProcessing
-      final String postProcessedResult = applyPostProcessors(type, result, minimize);
+      final String postProcessedResult = applyPostProcessors(type, contents, minimize);
       stopWatch.stop();
       LOG.debug(stopWatch.prettyPrint());
       return postProcessedResult;
@@ -79,13 +91,14 @@ public class GroupsProcessor {
    * Perform postProcessing.
    *
    * @param resourceType the type of the resources to process. This value will never be null.
-   * @param content the merged content of all resources which were pre-processed.
+   * @param contents the content of each resource which was pre-processed.
    * @param minimize whether minimize aware post processor must be applied.
-   * @return the post processed contents.
+   * @return the post processed and merged contents.
    */
-  private String applyPostProcessors(final ResourceType resourceType, final String content, final boolean minimize)
+  private String applyPostProcessors(final ResourceType resourceType, final List<String> contents,
+    final boolean minimize)
     throws IOException {
-    Validate.notNull(content);
+    Validate.notNull(contents);
     final Collection<ResourcePostProcessor> allPostProcessors = processorsFactory.getPostProcessors();
     if (allPostProcessors.isEmpty() && processorsFactory.getPreProcessors().isEmpty()) {
       LOG.warn("No processors defined. Please, check if your configuration is correct.");
@@ -96,37 +109,162 @@ public class GroupsProcessor {
       processors = ProcessorsUtils.getMinimizeFreeProcessors(processors);
     }
     LOG.debug("postProcessors: {}", processors);
-    final String output = applyPostProcessors(processors, content);
-    return output;
+    final Context context = Context.get();
+    final ResourceType previousType = context.getPostProcessedType();
+    context.setPostProcessedType(resourceType);
+    try {
+      return applyPostProcessors(processors, contents);
+    } finally {
+      context.setPostProcessedType(previousType);
+    }
   }
 
 
   /**
-   * Apply resourcePostProcessors.
+   * Apply resourcePostProcessors. When parallel post processing is enabled, consecutive resource-local processors are
+   * applied on each resource content in parallel. The contents are merged before applying any other processor.
    *
    * @param processors a collection of processors to apply on the content from the supplied writer.
-   * @param content to process with all postProcessors.
-   * @return the post processed content.
+   * @param contents the content of each resource to process with all postProcessors.
+   * @return the post processed and merged content.
    */
-  private String applyPostProcessors(final Collection<ResourcePostProcessor> processors, final String content)
+  private String applyPostProcessors(final Collection<ResourcePostProcessor> processors, final List<String> contents)
     throws IOException {
-    if (processors.isEmpty()) {
-      return content;
-    }
-    Reader input = new StringReader(content.toString());
-    Writer output = null;
+    final boolean parallel = Context.get().getConfig().isParallelPostprocessing() && endWithLineTerminator(contents);
+    List<String> pieces = contents;
+    final List<ResourcePostProcessor> localProcessors = new ArrayList<ResourcePostProcessor>();
     final StopWatch stopWatch = new StopWatch();
     for (final ResourcePostProcessor processor : processors) {
+      if (parallel && pieces.size() > 1 && ProcessorsUtils.isResourceLocalProcessor(processor)) {
+        localProcessors.add(processor);
+        continue;
+      }
+      if (!localProcessors.isEmpty()) {
+        stopWatch.start("Using in parallel " + localProcessors);
+        pieces = applyInParallel(localProcessors, pieces);
+        localProcessors.clear();
+        stopWatch.stop();
+      }
       stopWatch.start("Using " + processor.getClass().getSimpleName());
-      output = new StringWriter();
-      processor.process(input, output);
-      input = new StringReader(output.toString());
+      pieces = Collections.singletonList(applyPostProcessor(processor, merge(pieces)));
+      stopWatch.stop();
+    }
+    if (!localProcessors.isEmpty()) {
+      stopWatch.start("Using in parallel " + localProcessors);
+      pieces = applyInParallel(localProcessors, pieces);
       stopWatch.stop();
     }
     LOG.debug(stopWatch.prettyPrint());
+    return merge(pieces);
+  }
+
+
+  /**
+   * @return true if all the contents, except the last one, end with a line terminator. Only such contents can be
+   *         processed separately by resource-local processors.
+   */
+  private boolean endWithLineTerminator(final List<String> contents) {
+    for (int i = 0; i < contents.size() - 1; i++) {
+      if (!contents.get(i).endsWith("\n")) {
+        LOG.debug("Resource content not ending with a line terminator, post processing the merged content");
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  private String applyPostProcessor(final ResourcePostProcessor processor, final String content)
+    throws IOException {
+    final Writer output = new StringWriter();
+    processor.process(new StringReader(content), output);
     return output.toString();
   }
 
+
+  private String merge(final List<String> contents) {
+    if (contents.size() == 1) {
+      return contents.get(0);
+    }
+    final StringBuilder result = new StringBuilder();
+    for (final String content : contents) {
+      result.append(content);
+    }
+    return result.toString();
+  }
+
+
+  /**
+   * Applies the processors on each content in parallel.
+   *
+   * @return the processed contents, in the same order as the provided contents.
+   */
+  private List<String> applyInParallel(final List<ResourcePostProcessor> processors, final List<String> contents)
+    throws IOException {
+    // the context is not inherited by the pooled threads
+    final Context context = Context.get();
+    final List<Future<String>> futures = new ArrayList<Future<String>>();
+    for (final String content : contents) {
+      futures.add(getExecutorService().submit(new Callable<String>() {
+        public String call()
+          throws Exception {
+          Context.set(context, context.getConfig());
+          try {
+            String result = content;
+            for (final ResourcePostProcessor processor : processors) {
+              result = applyPostProcessor(processor, result);
+            }
+            return result;
+          } finally {
+            Context.unset();
+          }
+        }
+      }));
+    }
+    final List<String> result = new ArrayList<String>(contents.size());
+    for (final Future<String> future : futures) {
+      try {
+        result.add(future.get());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new WroRuntimeException("Interrupted while post processing", e);
+      } catch (final ExecutionException e) {
+        // propagate original cause
+        final Throwable cause = e.getCause();
+        if (cause instanceof WroRuntimeException) {
+          throw (WroRuntimeException)cause;
+        } else if (cause instanceof IOException) {
+          throw (IOException)cause;
+        } else {
+          throw new WroRuntimeException("", cause);
+        }
+      }
+    }
+    return result;
+  }
+
+
+  /**
+   * Releases the threads used for parallel post processing.
+   */
+  public synchronized void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+
+  private synchronized ExecutorService getExecutorService() {
+    if (executor == null) {
+      // use at most the number of available processors (true parallelism)
+      final int threadPoolSize = Runtime.getRuntime().availableProcessors();
+      executor = Executors.newFixedThreadPool(threadPoolSize,
+        WroUtil.createDaemonThreadFactory("parallelPostprocessing"));
+    }
+    return executor;
+  }
+
   /**
    * @param groups list of groups where to search resources to filter.
    * @param type of resources to collect.
@@ -17,7 +17,10 @@ import ro.isdc.wro.manager.WroManager;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.locator.factory.InjectorUriLocatorFactoryDecorator;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.locator.support.DynamicResourceCache;
+import ro.isdc.wro.model.resource.locator.support.ProxyResourceCache;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
+import ro.isdc.wro.model.resource.processor.support.AllowedUrlRegistry;
 import ro.isdc.wro.model.resource.util.NamingStrategy;
 
 
@@ -142,6 +145,18 @@ public final class Injector {
         field.set(object, wroManager.getNamingStrategy());
         return accept = true;
       }
+      if (ProxyResourceCache.class.isAssignableFrom(field.getType())) {
+        field.set(object, wroManager.getProxyResourceCache());
+        return accept = true;
+      }
+      if (DynamicResourceCache.class.isAssignableFrom(field.getType())) {
+        field.set(object, wroManager.getDynamicResourceCache());
+        return accept = true;
+      }
+      if (AllowedUrlRegistry.class.isAssignableFrom(field.getType())) {
+        field.set(object, wroManager.getAllowedUrls());
+        return accept = true;
+      }
       if (GroupsProcessor.class.isAssignableFrom(field.getType())) {
         field.set(object, groupsProcessor);
         inject(groupsProcessor);
@@ -8,11 +8,15 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BOMInputStream;
@@ -26,6 +30,10 @@ import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.locator.ResourceVolatility;
+import ro.isdc.wro.model.resource.locator.UriLocator;
+import ro.isdc.wro.model.resource.locator.VolatilityAware;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
 import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
@@ -39,6 +47,10 @@ import ro.isdc.wro.util.WroUtil;
  * String.
  * <p>
  * This is useful when you want to preProcess a resource which is not a part of the model (css import use-case).
+ * <p>
+ * The preprocessed content of the {@link ResourceVolatility#IMMUTABLE} js resources (ex: packed in a jar) is computed
+ * only once, so that reloading the cache doesn't process them again. The css resources are always processed, since
+ * their processors depend on the request (ex: url rewriting) and on other resources (ex: css import).
  *
  * @author Alex Objelean
  */
@@ -49,6 +61,24 @@ public final class PreProcessorExecutor {
   @Inject
   private ProcessorsFactory processorsFactory;
   private ExecutorService executor;
+  /**
+   * The minimize flag of the resource preprocessed by the current thread.
+   */
+  private final ThreadLocal<Boolean> minimizeHolder = new ThreadLocal<Boolean>();
+  /**
+   * The maximum number of stored preprocessed contents of immutable resources.
+   */
+  private static final int MAX_IMMUTABLE_CONTENTS = 1000;
+  /**
+   * The preprocessed contents of immutable resources, by uri and minimize flags.
+   */
+  private final Map<String, String> immutableContents = Collections.synchronizedMap(new LinkedHashMap<String, String>(
+    16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+      return size() > MAX_IMMUTABLE_CONTENTS;
+    }
+  });
 
   /**
    * Apply preProcessors on resources and merge them.
@@ -59,10 +89,28 @@ public final class PreProcessorExecutor {
    * @throws IOException if IO error occurs while merging.
    */
   public String processAndMerge(final List<Resource> resources, final boolean minimize)
+    throws IOException {
+    final StringBuilder result = new StringBuilder();
+    for (final String content : process(resources, minimize)) {
+      result.append(content);
+    }
+    return result.toString();
+  }
+
+
+  /**
+   * Apply preProcessors on resources without merging them.
+   *
+   * @param resources what are the resources to process.
+   * @param minimize whether minimize aware processors must be applied or not.
+   * @return preProcessed content of each resource, in the same order as the resources.
+   * @throws IOException if IO error occurs while processing.
+   */
+  public List<String> process(final List<Resource> resources, final boolean minimize)
     throws IOException {
     Validate.notNull(resources);
 
-    final StringBuffer result = new StringBuffer();
+    final List<String> result = new ArrayList<String>(resources.size());
 
     final boolean isParallel = Context.get().getConfig().isParallelPreprocessing();
     final int availableProcessors = Runtime.getRuntime().availableProcessors();
@@ -85,7 +133,7 @@ public final class PreProcessorExecutor {
 
       for (final Future<String> future : futures) {
         try {
-          result.append(future.get());
+          result.add(future.get());
         } catch (final Exception e) {
           // propagate original cause
           final Throwable cause = e.getCause();
@@ -101,10 +149,10 @@ public final class PreProcessorExecutor {
     } else {
       for (final Resource resource : resources) {
         LOG.debug("\tmerging resource: {}", resource);
-        result.append(processSingleResource(resource, resources, minimize));
+        result.add(processSingleResource(resource, resources, minimize));
       }
     }
-    return result.toString();
+    return result;
   }
 
   private ExecutorService getExecutorService() {
@@ -136,7 +184,55 @@ public final class PreProcessorExecutor {
     if (!minimize) {
       processors = ProcessorsUtils.getMinimizeFreeProcessors(processors);
     }
-    return applyPreProcessors(resource, resources, processors);
+    final String immutableKey = isImmutable(resource)
+      ? resource.getUri() + "|" + minimize + "|" + resource.isMinimize()
+      : null;
+    if (immutableKey != null) {
+      final String content = immutableContents.get(immutableKey);
+      if (content != null) {
+        LOG.debug("Using the preprocessed content of immutable resource: {}", resource);
+        return content;
+      }
+    }
+    final Boolean previousMinimize = minimizeHolder.get();
+    minimizeHolder.set(minimize);
+    try {
+      final AtomicBoolean complete = new AtomicBoolean(true);
+      final String content = applyPreProcessors(resource, resources, processors, complete);
+      // a content obtained by ignoring a failure must not be reused
+      if (immutableKey != null && complete.get()) {
+        immutableContents.put(immutableKey, content);
+      }
+      return content;
+    } finally {
+      minimizeHolder.set(previousMinimize);
+    }
+  }
+
+
+  /**
+   * @return true if the resource is a js resource which cannot change.
+   */
+  private boolean isImmutable(final Resource resource) {
+    if (resource.getType() != ResourceType.JS) {
+      return false;
+    }
+    final UriLocator uriLocator = uriLocatorFactory.getInstance(resource.getUri());
+    return uriLocator instanceof VolatilityAware
+      && ((VolatilityAware) uriLocator).getVolatility(resource.getUri()) == ResourceVolatility.IMMUTABLE;
+  }
+
+
+  /**
+   * Allows preProcessors which process other resources (ex: css import) to use the same minimize flag as the resource
+   * they are applied on.
+   *
+   * @return the minimize flag of the resource being preprocessed by the calling thread or true if the calling thread
+   *         does not preprocess any resource.
+   */
+  public boolean isMinimize() {
+    final Boolean minimize = minimizeHolder.get();
+    return minimize == null ? true : minimize;
   }
 
 
@@ -148,12 +244,14 @@ public final class PreProcessorExecutor {
    * @param resource the {@link Resource} on which processors will be applied
    * @param resources the list of all resources to be processed in this context.
    * @param processors the list of processor to apply on the resource.
+   * @param complete set to false if the resource could not be located or a processor failed and the failure was
+   *        ignored.
    */
   private String applyPreProcessors(final Resource resource, final List<Resource> resources,
-    final Collection<ResourcePreProcessor> processors)
+    final Collection<ResourcePreProcessor> processors, final AtomicBoolean complete)
     throws IOException {
     LOG.debug("applying preProcessors: {}", processors);
-    String resourceContent = getResourceContent(resource, resources);
+    String resourceContent = getResourceContent(resource, resources, complete);
     if (processors.isEmpty()) {
       return resourceContent;
     }
@@ -163,7 +261,7 @@ public final class PreProcessorExecutor {
       stopWatch.start("Using " + processor.getClass().getSimpleName());
       writer = new StringWriter();
       // skip minimize validation if resource doesn't want to be minimized
-      final boolean applyProcessor = resource.isMinimize() || !processor.getClass().isAnnotationPresent(Minimize.class);
+      final boolean applyProcessor = resource.isMinimize() || !ProcessorsUtils.isMinimizeAwareProcessor(processor);
       if (applyProcessor) {
         LOG.debug("\tPreProcessing - {}", processor.getClass().getSimpleName());
         final Reader reader = new StringReader(resourceContent);
@@ -173,6 +271,7 @@ public final class PreProcessorExecutor {
           if (!Context.get().getConfig().isIgnoreMissingResources()) {
             throw e;
           }
+          complete.set(false);
         }
       } else {
         writer.write(resourceContent);
@@ -190,8 +289,10 @@ public final class PreProcessorExecutor {
    * @return a Reader for the provided resource.
    * @param resource {@link Resource} which content to return.
    * @param resources the list of all resources processed in this context, used for duplicate resource detection.
+   * @param complete set to false if the resource could not be located and the failure was ignored.
    */
-  private String getResourceContent(final Resource resource, final List<Resource> resources)
+  private String getResourceContent(final Resource resource, final List<Resource> resources,
+    final AtomicBoolean complete)
     throws IOException {
     final WroConfiguration config = Context.get().getConfig();
     try {
@@ -202,6 +303,7 @@ public final class PreProcessorExecutor {
     } catch (final IOException e) {
       LOG.warn("Invalid resource found: " + resource);
       if (config.isIgnoreMissingResources()) {
+        complete.set(false);
         return StringUtils.EMPTY;
       } else {
         LOG.error("Cannot ignore the missing resource:  " + resource);
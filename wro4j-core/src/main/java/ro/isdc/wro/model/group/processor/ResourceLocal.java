@@ -0,0 +1,28 @@
+/*
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.group.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Used to identify post processors which are resource-local: processing a concatenation of resources produces exactly
+ * the same result as the concatenation of the results of processing each resource, as long as each resource ends with
+ * a line terminator. When parallel post processing is enabled, the merged content is split along resource boundaries
+ * for these processors and the pieces are processed in parallel. Minimizers usually are not resource-local, because
+ * the whitespaces they emit depend on the surrounding content.
+ * <p/>
+ * This annotation is inherited, because classes extending a resource-local processor usually keep this characteristic.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+@Inherited
+public @interface ResourceLocal {
+}
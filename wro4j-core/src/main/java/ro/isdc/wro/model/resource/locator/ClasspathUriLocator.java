@@ -3,12 +3,17 @@
  */
 package ro.isdc.wro.model.resource.locator;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,12 +26,17 @@ import ro.isdc.wro.util.StringUtils;
 
 /**
  * Implementation of the {@link UriLocator} that is able to read a resource from a classpath.
+ * <p/>
+ * The resources packed in a jar cannot change while the application is running, so they are
+ * {@link ResourceVolatility#IMMUTABLE} and their content is read only once. The total size of the stored contents is
+ * bounded: the least recently used contents are discarded first.
  *
  * @author Alex Objelean
  * @created Created on Nov 6, 2008
  */
 public class ClasspathUriLocator
-    extends WildcardUriLocatorSupport {
+    extends WildcardUriLocatorSupport
+    implements VolatilityAware {
   /**
    * Logger for this class.
    */
@@ -35,6 +45,32 @@ public class ClasspathUriLocator
    * Prefix of the resource uri used to check if the resource can be read by this {@link UriLocator} implementation.
    */
   public static final String PREFIX = "classpath:";
+  /**
+   * The maximum size (in bytes) of the stored contents of the resources packed in jars.
+   */
+  private static final long MAX_CONTENTS_SIZE = 10 * 1024 * 1024;
+  /**
+   * A content larger than this (in bytes) is not stored.
+   */
+  private static final int MAX_CONTENT_SIZE = 1024 * 1024;
+  /**
+   * The contents of the resources packed in jars, by location.
+   */
+  private final Map<String, JarContent> jarContents = new LinkedHashMap<String, JarContent>(16, 0.75f, true);
+  private long jarContentsSize;
+
+  /**
+   * The content of a resource packed in a jar, valid only for the class loader which located it.
+   */
+  private static final class JarContent {
+    private final ClassLoader classLoader;
+    private final byte[] content;
+
+    private JarContent(final ClassLoader classLoader, final byte[] content) {
+      this.classLoader = classLoader;
+      this.content = content;
+    }
+  }
 
   /**
    * {@inheritDoc}
@@ -67,11 +103,80 @@ public class ClasspathUriLocator
     if (getWildcardStreamLocator().hasWildcard(location)) {
       return locateWildcardStream(uri, location);
     }
-    final InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(location);
-    if (is == null) {
+    final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    final byte[] stored = getJarContent(classLoader, location);
+    if (stored != null) {
+      LOG.debug("Using the stored content of {}", uri);
+      return new ByteArrayInputStream(stored);
+    }
+    final URL url = classLoader.getResource(location);
+    if (url == null) {
       throw new IOException("Couldn't get InputStream from this resource: " + uri);
     }
-    return is;
+    final InputStream is = url.openStream();
+    if (!isJar(url)) {
+      return is;
+    }
+    final byte[] content;
+    try {
+      content = IOUtils.toByteArray(is);
+    } finally {
+      is.close();
+    }
+    putJarContent(location, new JarContent(classLoader, content));
+    return new ByteArrayInputStream(content);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The resources packed in a jar are {@link ResourceVolatility#IMMUTABLE}. The resources located using a wildcard and
+   * the resources of the class folders are {@link ResourceVolatility#MUTABLE}.
+   */
+  public ResourceVolatility getVolatility(final String uri) {
+    Validate.notNull(uri);
+    final String location = StringUtils.cleanPath(uri.replaceFirst(PREFIX, "")).trim();
+    if (getWildcardStreamLocator().hasWildcard(location)) {
+      return ResourceVolatility.MUTABLE;
+    }
+    final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (getJarContent(classLoader, location) != null) {
+      return ResourceVolatility.IMMUTABLE;
+    }
+    final URL url = classLoader.getResource(location);
+    return url != null && isJar(url) ? ResourceVolatility.IMMUTABLE : ResourceVolatility.MUTABLE;
+  }
+
+  private boolean isJar(final URL url) {
+    return "jar".equals(url.getProtocol());
+  }
+
+  private byte[] getJarContent(final ClassLoader classLoader, final String location) {
+    synchronized (jarContents) {
+      final JarContent jarContent = jarContents.get(location);
+      return jarContent != null && jarContent.classLoader == classLoader ? jarContent.content : null;
+    }
+  }
+
+  /**
+   * Stores the content, discarding the least recently used contents if the maximum size is exceeded.
+   */
+  private void putJarContent(final String location, final JarContent jarContent) {
+    if (jarContent.content.length > MAX_CONTENT_SIZE) {
+      return;
+    }
+    synchronized (jarContents) {
+      final JarContent previous = jarContents.put(location, jarContent);
+      if (previous != null) {
+        jarContentsSize -= previous.content.length;
+      }
+      jarContentsSize += jarContent.content.length;
+      final Iterator<JarContent> iterator = jarContents.values().iterator();
+      while (jarContentsSize > MAX_CONTENTS_SIZE && iterator.hasNext()) {
+        jarContentsSize -= iterator.next().content.length;
+        iterator.remove();
+      }
+    }
   }
 
   /**
@@ -12,6 +12,7 @@ import java.io.PrintWriter;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import javax.servlet.RequestDispatcher;
@@ -29,17 +30,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.http.DelegatingServletOutputStream;
+import ro.isdc.wro.model.resource.locator.support.DynamicResourceCache;
 import ro.isdc.wro.util.WroUtil;
 
 
 /**
- * A strategy which use ByteArray IO Streams and dispatch the request to a given location.
+ * A strategy which use ByteArray IO Streams and dispatch the request to a given location. The output of the dispatched
+ * locations can be stored in a {@link DynamicResourceCache}, which allows the groups to be reprocessed without executing
+ * the dynamic resources again.
  *
  * @author Alex Objelean
  */
 public final class DispatcherStreamLocator {
   private static final Logger LOG = LoggerFactory.getLogger(DispatcherStreamLocator.class);
+  /**
+   * The maximum number of concurrent http requests sent to the application itself, when the location cannot be
+   * dispatched (outside of the request cycle).
+   */
+  private static final int MAX_SELF_REQUESTS = 4;
+  /**
+   * Bounds the http requests sent to the application, shared by all the locators, so that the background reloads
+   * cannot hold more threads of the server.
+   */
+  private static final Semaphore SELF_REQUESTS = new Semaphore(MAX_SELF_REQUESTS, true);
+  /**
+   * Stores the output of the dispatched locations, null if the outputs must not be stored.
+   */
+  private DynamicResourceCache dynamicResourceCache;
 
   /**
    * When using JBoss Portal and it has some funny quirks...actually a portal application have several small web
@@ -55,6 +74,14 @@ public final class DispatcherStreamLocator {
     throws IOException {
     Validate.notNull(request);
     Validate.notNull(response);
+    final boolean cacheable = dynamicResourceCache != null && location != null && isCacheEnabled();
+    if (cacheable) {
+      final byte[] cached = dynamicResourceCache.get(location);
+      if (cached != null) {
+        LOG.debug("Using cached output of location: {}", location);
+        return new ByteArrayInputStream(cached);
+      }
+    }
     // where to write the bytes of the stream
     final ByteArrayOutputStream os = new ByteArrayOutputStream();
     boolean warnOnEmptyStream = false;
@@ -71,17 +98,14 @@ public final class DispatcherStreamLocator {
         final String servletContextPath = request.getRequestURL().toString().replace(request.getServletPath(), "");
 
         final String absolutePath = servletContextPath + location;
-        final URL url = new URL(absolutePath);
-        final URLConnection conn = url.openConnection();
-        // setting these timeouts ensures the client does not deadlock indefinitely
-        // when the server has problems.
-        //TimeUnit.MILLISECONDS.con
         final int timeout = (int) TimeUnit.MILLISECONDS.convert(Context.get().getConfig().getConnectionTimeout(),
           TimeUnit.SECONDS);
         LOG.debug("Computed timeout milliseconds: {}", timeout);
-        conn.setConnectTimeout(timeout);
-        conn.setReadTimeout(timeout);
-        return conn.getInputStream();
+        final byte[] content = getContent(new URL(absolutePath), timeout);
+        if (cacheable) {
+          dynamicResourceCache.put(location, content);
+        }
+        return new ByteArrayInputStream(content);
       }
       // Wrap request
       final ServletRequest wrappedRequest = getWrappedServletRequest(request, location);
@@ -96,6 +120,13 @@ public final class DispatcherStreamLocator {
       // written.
       wrappedResponse.getWriter().flush();
       os.close();
+      if (cacheable && os.size() > 0) {
+        dynamicResourceCache.put(location, os.toByteArray());
+      }
+    } catch (final InterruptedException e) {
+      // preserve the interrupted status, allowing the reload of the cache to stop
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while retrieving the location " + location);
     } catch (final Exception e) {
       // Not only servletException can be thrown, also dispatch.include can throw NPE when the scheduler runs outside
       // of the request cycle, thus connection is unavailable. This is caused mostly when invalid resources are
@@ -115,6 +146,67 @@ public final class DispatcherStreamLocator {
   }
 
 
+  private boolean isCacheEnabled() {
+    final WroConfiguration config = Context.isContextSet() ? Context.get().getConfig() : null;
+    return config != null && !config.isDisableCache();
+  }
+
+
+  /**
+   * Reads the content of the url, waiting for at most the timeout if the maximum number of concurrent requests is
+   * reached.
+   *
+   * @param url of the resource served by the application.
+   * @param timeout in milliseconds, used also as connect and read timeout.
+   */
+  private byte[] getContent(final URL url, final int timeout)
+    throws IOException, InterruptedException {
+    if (!SELF_REQUESTS.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+      throw new IOException("Too many concurrent requests, cannot retrieve " + url);
+    }
+    try {
+      final URLConnection connection = url.openConnection();
+      // setting these timeouts ensures the client does not deadlock indefinitely when the server has problems.
+      connection.setConnectTimeout(timeout);
+      connection.setReadTimeout(timeout);
+      connection.setUseCaches(false);
+      if (connection instanceof HttpURLConnection) {
+        final HttpURLConnection httpConnection = (HttpURLConnection) connection;
+        final int status = httpConnection.getResponseCode();
+        if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+          // read the error in order to allow the connection to be reused
+          final InputStream error = httpConnection.getErrorStream();
+          if (error != null) {
+            IOUtils.toByteArray(error);
+            IOUtils.closeQuietly(error);
+          }
+          throw new IOException("Cannot retrieve " + url + ", server responded with status: " + status);
+        }
+      }
+      final InputStream input = connection.getInputStream();
+      try {
+        // read the whole content, releasing the connection to the keep-alive pool
+        return IOUtils.toByteArray(input);
+      } finally {
+        IOUtils.closeQuietly(input);
+      }
+    } finally {
+      SELF_REQUESTS.release();
+    }
+  }
+
+
+  /**
+   * @param dynamicResourceCache the cache of the dispatched locations output to set, null if the outputs must not be
+   *        stored.
+   * @return this instance.
+   */
+  public DispatcherStreamLocator setDynamicResourceCache(final DynamicResourceCache dynamicResourceCache) {
+    this.dynamicResourceCache = dynamicResourceCache;
+    return this;
+  }
+
+
   /**
    * Build a wrapped servlet request which will be used for dispatching.
    */
@@ -0,0 +1,22 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator;
+
+/**
+ * Describes how the content of a located resource can change while the application is running.
+ */
+public enum ResourceVolatility {
+  /**
+   * The content cannot change (ex: a classpath resource packed in a jar), so it can be read and processed only once.
+   */
+  IMMUTABLE,
+  /**
+   * The content can change at any time (ex: a file of an exploded folder or of the servlet context).
+   */
+  MUTABLE,
+  /**
+   * The content is valid for a limited time (ex: a remote resource, revalidated when its freshness lifetime expires).
+   */
+  EXPIRING
+}
@@ -3,20 +3,34 @@
  */
 package ro.isdc.wro.model.resource.locator;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.model.group.Inject;
+import ro.isdc.wro.model.resource.locator.support.DynamicResourceCache;
 import ro.isdc.wro.model.resource.locator.wildcard.WildcardUriLocatorSupport;
 import ro.isdc.wro.model.transformer.WildcardExpanderModelTransformer.NoMoreAttemptsIOException;
 import ro.isdc.wro.util.WroUtil;
@@ -26,12 +40,19 @@ import ro.isdc.wro.util.WroUtil;
  * UriLocator capable to read the resources relative to servlet context. The resource reader will attempt to locate a
  * physic resource under the servlet context and if the resource does not exist, will try to use requestDispatcher. This
  * kind of resources will be accepted if their prefix is '/'.
+ * <p/>
+ * When {@link WroConfiguration#isReadStaticResourcesFromDisk()} is enabled, the static resources (having an extension
+ * like js, css or an image extension, without a query string) which exist in the exploded web application are read
+ * directly from the file system, avoiding the overhead of dispatching a request (but skipping the servlet filters).
+ * The classification of each uri (static or dynamic) is remembered for a bounded number of uri's, except for the uri's
+ * of missing files, which can be created later.
  *
  * @author Alex Objelean
  * @created Created on Nov 10, 2008
  */
 public class ServletContextUriLocator
-  extends WildcardUriLocatorSupport {
+  extends WildcardUriLocatorSupport
+  implements VolatilityAware {
   /**
    * Logger for this class.
    */
@@ -46,9 +67,37 @@ public class ServletContextUriLocator
    */
   private static final String PROTECTED_PREFIX = "/WEB-INF/";
   /**
-   * Locates a stream using request dispatcher.
+   * Extensions of the resources which can be read directly from the file system.
    */
-  private final DispatcherStreamLocator dispatcherStreamLocator = new DispatcherStreamLocator();
+  private static final Set<String> STATIC_EXTENSIONS = new HashSet<String>(Arrays.asList("js", "css", "png", "gif",
+    "jpg", "jpeg", "svg"));
+  /**
+   * The maximum number of uri's whose classification is remembered.
+   */
+  private static final int CACHE_SIZE = 1000;
+  /**
+   * Marks the uri's which must be located using the dispatcher.
+   */
+  private static final File DYNAMIC = new File("");
+  /**
+   * Stores the output of the dynamic resources, injected with the cache of the manager. The outputs are not stored when
+   * the locator is not injected.
+   */
+  @Inject
+  private DynamicResourceCache dynamicResourceCache;
+  /**
+   * The file of each static uri or {@link #DYNAMIC}, least recently used are discarded first.
+   */
+  private final Map<String, File> staticFiles = new LinkedHashMap<String, File>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, File> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+  /**
+   * The servlet context used to classify the remembered uri's.
+   */
+  private ServletContext classifiedContext;
 
   /**
    * {@inheritDoc}
@@ -79,6 +128,15 @@ public class ServletContextUriLocator
     return WroUtil.startsWithIgnoreCase(uri, PROTECTED_PREFIX);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The resources of the servlet context can be changed at any time, so they are {@link ResourceVolatility#MUTABLE}.
+   */
+  public ResourceVolatility getVolatility(final String uri) {
+    return ResourceVolatility.MUTABLE;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -116,6 +174,18 @@ public class ServletContextUriLocator
         + "\".\n Trying to locate the stream without the wildcard.");
     }
 
+    final File staticFile = servletContext != null && Context.get().getConfig().isReadStaticResourcesFromDisk()
+      ? getStaticFile(servletContext, uri)
+      : null;
+    if (staticFile != null) {
+      try {
+        return readFile(staticFile);
+      } catch (final IOException e) {
+        LOG.debug("Cannot read static file {}, using the dispatcher", staticFile);
+        forgetStaticFile(uri);
+      }
+    }
+
     // first attempt
     final HttpServletRequest request = Context.get().getRequest();
     final HttpServletResponse response = Context.get().getResponse();
@@ -123,7 +193,8 @@ public class ServletContextUriLocator
     // jsp resources (if such exist). Switching the order would cause jsp to not be interpreted by the container.
     InputStream inputStream = null;
     try {
-      inputStream = dispatcherStreamLocator.getInputStream(request, response, uri);
+      inputStream = new DispatcherStreamLocator().setDynamicResourceCache(dynamicResourceCache).getInputStream(request,
+        response, uri);
     } catch (final IOException e) {
       LOG.debug("retrieving servletContext stream for uri: {}", uri);
       inputStream = servletContext.getResourceAsStream(uri);
@@ -134,4 +205,72 @@ public class ServletContextUriLocator
     }
     return inputStream;
   }
+
+
+  /**
+   * @return the file of a static resource or null if the resource must be located using the dispatcher.
+   */
+  private File getStaticFile(final ServletContext servletContext, final String uri) {
+    synchronized (staticFiles) {
+      if (servletContext != classifiedContext) {
+        staticFiles.clear();
+        classifiedContext = servletContext;
+      }
+      File file = staticFiles.get(uri);
+      if (file == null) {
+        file = classify(servletContext, uri);
+        if (file == null) {
+          // the file can be created later, don't remember it
+          return null;
+        }
+        staticFiles.put(uri, file);
+      }
+      return file == DYNAMIC ? null : file;
+    }
+  }
+
+
+  private void forgetStaticFile(final String uri) {
+    synchronized (staticFiles) {
+      staticFiles.remove(uri);
+    }
+  }
+
+
+  /**
+   * @return the file of the uri if it is a static resource existing in the exploded web application, null if the file
+   *         of a static resource does not exist or {@link #DYNAMIC} otherwise (ex: jsp, servlet, resource located in a
+   *         jar).
+   */
+  private File classify(final ServletContext servletContext, final String uri) {
+    if (uri.indexOf('?') >= 0 || uri.indexOf('#') >= 0
+      || !STATIC_EXTENSIONS.contains(FilenameUtils.getExtension(uri).toLowerCase(Locale.ENGLISH))) {
+      return DYNAMIC;
+    }
+    final String realPath = servletContext.getRealPath(uri);
+    if (realPath != null) {
+      final File file = new File(realPath);
+      return file.isFile() ? file : null;
+    }
+    return DYNAMIC;
+  }
+
+
+  /**
+   * Reads the content of the file using a {@link FileChannel}, closing the file before returning.
+   */
+  private InputStream readFile(final File file)
+    throws IOException {
+    final FileInputStream input = new FileInputStream(file);
+    try {
+      final FileChannel channel = input.getChannel();
+      final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        // read until the buffer is full or the end of file is reached.
+      }
+      return new ByteArrayInputStream(buffer.array(), 0, buffer.position());
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+  }
 }
@@ -10,27 +10,53 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.model.resource.locator.support.CachingHttpClient;
 import ro.isdc.wro.model.resource.locator.wildcard.WildcardUriLocatorSupport;
 
 
 /**
  * UriLocator capable to read the resources from some URL. Usually, this uriLocator will be the last in the chain of
- * uriLocators.
+ * uriLocators. The http(s) resources are retrieved using a {@link CachingHttpClient}, which avoids downloading again
+ * the unchanged resources.
  *
  * @author Alex Objelean
  * @created Created on Nov 10, 2008
  */
-public class UrlUriLocator extends WildcardUriLocatorSupport {
+public class UrlUriLocator extends WildcardUriLocatorSupport implements VolatilityAware {
   /**
    * Logger for this class.
    */
   private static final Logger LOG = LoggerFactory.getLogger(UrlUriLocator.class);
+  /**
+   * The maximum number of protocols whose support is remembered.
+   */
+  private static final int MAX_CACHED_PROTOCOLS = 100;
+  /**
+   * Remembers if a protocol is supported or not, in order to check it only once.
+   */
+  private static final Map<String, Boolean> SUPPORTED_PROTOCOLS = new ConcurrentHashMap<String, Boolean>();
+  /**
+   * The default read timeout in milliseconds. Larger than the connection timeout, since retrieving a large resource
+   * from a slow server can take a while.
+   */
+  public static final int DEFAULT_READ_TIMEOUT = 60000;
+  /**
+   * Retrieves the http(s) resources, revalidating the previously retrieved contents.
+   */
+  private CachingHttpClient httpClient = CachingHttpClient.getDefault();
+  private int readTimeout = DEFAULT_READ_TIMEOUT;
 
 
   /**
@@ -41,6 +67,25 @@ public class UrlUriLocator extends WildcardUriLocatorSupport {
   }
 
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The remote (http, https) resources are {@link ResourceVolatility#EXPIRING}, the resources packed in a jar are
+   * {@link ResourceVolatility#IMMUTABLE} and the others (ex: files) are {@link ResourceVolatility#MUTABLE}.
+   */
+  public ResourceVolatility getVolatility(final String uri) {
+    Validate.notNull(uri);
+    final String protocol = getProtocol(uri);
+    if (getWildcardStreamLocator().hasWildcard(uri) || protocol == null) {
+      return ResourceVolatility.MUTABLE;
+    }
+    if ("http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol)) {
+      return ResourceVolatility.EXPIRING;
+    }
+    return "jar".equalsIgnoreCase(protocol) ? ResourceVolatility.IMMUTABLE : ResourceVolatility.MUTABLE;
+  }
+
+
   /**
    * Check if a uri is a URL resource.
    *
@@ -48,6 +93,12 @@ public class UrlUriLocator extends WildcardUriLocatorSupport {
    * @return true if the uri is a URL resource.
    */
   public static boolean isValid(final String uri) {
+    // avoid the cost of an exception for the uri's which are obviously not url's (ex: /path, classpath:path, data:...),
+    // which are the most of the checked uri's.
+    final String protocol = getProtocol(uri);
+    if (protocol == null || !isSupportedProtocol(protocol)) {
+      return false;
+    }
     // if creation of URL object doesn't throw an exception, the uri can be
     // accepted.
     try {
@@ -59,6 +110,70 @@ public class UrlUriLocator extends WildcardUriLocatorSupport {
   }
 
 
+  /**
+   * Finds the protocol of the uri the same way {@link URL#URL(String)} does.
+   *
+   * @return the protocol of the uri or null if it has no protocol.
+   */
+  private static String getProtocol(final String uri) {
+    int start = 0;
+    int limit = uri.length();
+    while (limit > 0 && uri.charAt(limit - 1) <= ' ') {
+      limit--;
+    }
+    while (start < limit && uri.charAt(start) <= ' ') {
+      start++;
+    }
+    if (uri.regionMatches(true, start, "url:", 0, 4)) {
+      start += 4;
+    }
+    for (int i = start; i < limit; i++) {
+      final char c = uri.charAt(i);
+      if (c == '/') {
+        return null;
+      }
+      if (c == ':') {
+        return isValidProtocol(uri, start, i) ? uri.substring(start, i).toLowerCase(Locale.ENGLISH) : null;
+      }
+    }
+    return null;
+  }
+
+
+  private static boolean isValidProtocol(final String uri, final int start, final int end) {
+    if (end == start || !Character.isLetter(uri.charAt(start))) {
+      return false;
+    }
+    for (int i = start + 1; i < end; i++) {
+      final char c = uri.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '.' && c != '+' && c != '-') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  /**
+   * @return true if a {@link URL} can be created for the protocol (a handler exists for it).
+   */
+  private static boolean isSupportedProtocol(final String protocol) {
+    Boolean supported = SUPPORTED_PROTOCOLS.get(protocol);
+    if (supported == null) {
+      try {
+        new URL(protocol, "", "");
+        supported = Boolean.TRUE;
+      } catch (final MalformedURLException e) {
+        supported = Boolean.FALSE;
+      }
+      if (SUPPORTED_PROTOCOLS.size() < MAX_CACHED_PROTOCOLS) {
+        SUPPORTED_PROTOCOLS.put(protocol, supported);
+      }
+    }
+    return supported.booleanValue();
+  }
+
+
   /**
    * {@inheritDoc}
    */
@@ -71,9 +186,39 @@ public class UrlUriLocator extends WildcardUriLocatorSupport {
       return getWildcardStreamLocator().locateStream(uri, new File(url.getFile()));
     }
     final URL url = new URL(uri);
+    if ("http".equals(url.getProtocol()) || "https".equals(url.getProtocol())) {
+      return httpClient.get(url, getConnectionTimeout(), readTimeout);
+    }
     final URLConnection con = url.openConnection();
     // sets the "UseCaches" flag to <code>false</code>, mainly to avoid jar file locking on Windows.
     con.setUseCaches(false);
     return new BufferedInputStream(con.getInputStream());
   }
+
+
+  /**
+   * @return the connection timeout in milliseconds, configured by {@link WroConfiguration#getConnectionTimeout()}.
+   */
+  private int getConnectionTimeout() {
+    final WroConfiguration config = Context.isContextSet() ? Context.get().getConfig() : new WroConfiguration();
+    return (int) TimeUnit.MILLISECONDS.convert(config.getConnectionTimeout(), TimeUnit.SECONDS);
+  }
+
+
+  /**
+   * @param httpClient used to retrieve the http(s) resources.
+   */
+  public void setHttpClient(final CachingHttpClient httpClient) {
+    Validate.notNull(httpClient);
+    this.httpClient = httpClient;
+  }
+
+
+  /**
+   * @param readTimeout the timeout in milliseconds for reading the http(s) resources, 0 meaning no timeout.
+   */
+  public void setReadTimeout(final int readTimeout) {
+    Validate.isTrue(readTimeout >= 0, "The timeout cannot be negative");
+    this.readTimeout = readTimeout;
+  }
 }
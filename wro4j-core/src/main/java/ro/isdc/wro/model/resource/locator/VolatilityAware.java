@@ -0,0 +1,16 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator;
+
+/**
+ * Implemented by the {@link UriLocator}'s which know how the located resources can change. The resources located by
+ * other locators are considered {@link ResourceVolatility#MUTABLE}.
+ */
+public interface VolatilityAware {
+  /**
+   * @param uri of a resource accepted by this locator.
+   * @return how the content of the resource can change.
+   */
+  ResourceVolatility getVolatility(String uri);
+}
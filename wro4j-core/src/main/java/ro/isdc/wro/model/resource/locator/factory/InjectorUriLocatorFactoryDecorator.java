@@ -3,12 +3,15 @@
  */
 package ro.isdc.wro.model.resource.locator.factory;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import ro.isdc.wro.model.group.processor.Injector;
 import ro.isdc.wro.model.resource.locator.UriLocator;
 
 /**
  * Decorator for {@link UriLocatorFactory} responsible for processing @Inject annotations of locators provided by
- * decorated factory.
+ * decorated factory. Each locator is injected only once, the first time it is provided.
  *
  * @author Alex Objelean
  * @created 21 Nov 2010
@@ -16,6 +19,10 @@ import ro.isdc.wro.model.resource.locator.UriLocator;
 public class InjectorUriLocatorFactoryDecorator
   extends UriLocatorFactoryDecorator {
   private final Injector injector;
+  /**
+   * The locators already injected (compared by identity).
+   */
+  private final Map<UriLocator, Boolean> injectedLocators = new IdentityHashMap<UriLocator, Boolean>();
 
   public InjectorUriLocatorFactoryDecorator(final UriLocatorFactory uriLocatorFactory, final Injector injector) {
     super(uriLocatorFactory);
@@ -33,7 +40,12 @@ public class InjectorUriLocatorFactoryDecorator
     final UriLocator uriLocator = super.getInstance(uri);
     //TODO shouldn't we throw exception here?
     if (uriLocator != null) {
-      injector.inject(uriLocator);
+      synchronized (injectedLocators) {
+        if (!injectedLocators.containsKey(uriLocator)) {
+          injector.inject(uriLocator);
+          injectedLocators.put(uriLocator, Boolean.TRUE);
+        }
+      }
     }
     return uriLocator;
   }
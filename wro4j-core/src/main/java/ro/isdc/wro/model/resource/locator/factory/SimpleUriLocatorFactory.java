@@ -3,9 +3,11 @@
  */
 package ro.isdc.wro.model.resource.locator.factory;
 
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import ro.isdc.wro.model.resource.locator.UriLocator;
 
@@ -13,12 +15,34 @@ import ro.isdc.wro.model.resource.locator.UriLocator;
 /**
  * Holds a list of uri locators. The uriLocator will be created based on the first
  * uriLocator from the supplied list which will accept the url.
+ * <p/>
+ * The locator found for an uri is remembered (for a bounded number of uri's), since the same uri's are located over and
+ * over (for each processed group, import or data uri). This assumes that {@link UriLocator#accept(String)} depends only
+ * on the uri.
  *
  * @author Alex Objelean
  * @created Created on Nov 4, 2008
  */
 public class SimpleUriLocatorFactory extends AbstractUriLocatorFactory {
-  private final List<UriLocator> uriLocators = new ArrayList<UriLocator>();
+  /**
+   * The maximum number of uri's whose locator is remembered.
+   */
+  private static final int CACHE_SIZE = 1000;
+  /**
+   * Longer uri's (ex: data uri's) are not remembered, in order to not retain too much memory.
+   */
+  private static final int MAX_CACHED_URI_LENGTH = 512;
+  private final List<UriLocator> uriLocators = new CopyOnWriteArrayList<UriLocator>();
+  /**
+   * The locator found for each uri, least recently used are discarded first.
+   */
+  private final Map<String, UriLocator> locatorsByUri = Collections.synchronizedMap(
+    new LinkedHashMap<String, UriLocator>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, UriLocator> eldest) {
+        return size() > CACHE_SIZE;
+      }
+    });
 
   /**
    * @param uri to handle by the locator.
@@ -26,8 +50,18 @@ public class SimpleUriLocatorFactory extends AbstractUriLocatorFactory {
    *         found.
    */
   public UriLocator getInstance(final String uri) {
+    final boolean cacheable = uri != null && uri.length() <= MAX_CACHED_URI_LENGTH;
+    if (cacheable) {
+      final UriLocator uriLocator = locatorsByUri.get(uri);
+      if (uriLocator != null) {
+        return uriLocator;
+      }
+    }
     for (final UriLocator uriLocator : uriLocators) {
       if (uriLocator.accept(uri)) {
+        if (cacheable) {
+          locatorsByUri.put(uri, uriLocator);
+        }
         return uriLocator;
       }
     }
@@ -0,0 +1,221 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Retrieves the content of http(s) url's, keeping the retrieved contents in memory together with their validators
+ * (ETag and Last-Modified headers). When a content is requested again, it is revalidated using a conditional request,
+ * so that an unchanged content is not downloaded again (the server responds with 304 Not Modified). A content whose
+ * Cache-Control max-age is not expired is returned without any request.
+ * <p/>
+ * The responses are always read entirely and the streams closed, allowing the jvm to reuse the (keep-alive) connections.
+ * The total size of the stored contents is bounded: the least recently used contents are discarded first.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class CachingHttpClient {
+  private static final Logger LOG = LoggerFactory.getLogger(CachingHttpClient.class);
+  /**
+   * The default maximum size (in bytes) of the stored contents.
+   */
+  public static final long DEFAULT_MAX_SIZE = 20 * 1024 * 1024;
+  /**
+   * Shared by all locators which are not configured to use another client, allowing a locator created after a reload
+   * to revalidate the contents retrieved by the previous one. Cleared when a
+   * {@link ro.isdc.wro.manager.WroManager} is destroyed.
+   */
+  private static final CachingHttpClient DEFAULT = new CachingHttpClient(DEFAULT_MAX_SIZE);
+  private final long maxSize;
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private long size;
+
+  /**
+   * A retrieved content with its validators.
+   */
+  private static final class Entry {
+    private final byte[] content;
+    private final String etag;
+    private final String lastModified;
+    /**
+     * The time until the content can be used without revalidation.
+     */
+    private final long expires;
+
+    private Entry(final byte[] content, final String etag, final String lastModified, final long expires) {
+      this.content = content;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.expires = expires;
+    }
+  }
+
+  /**
+   * @param maxSize the maximum size (in bytes) of the stored contents.
+   */
+  public CachingHttpClient(final long maxSize) {
+    Validate.isTrue(maxSize >= 0, "The size cannot be negative");
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return the client used by default by {@link ro.isdc.wro.model.resource.locator.UrlUriLocator}.
+   */
+  public static CachingHttpClient getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @param url a http or https url.
+   * @param connectTimeout the connect timeout in milliseconds.
+   * @param readTimeout the read timeout in milliseconds.
+   * @return the content of the url.
+   * @throws IOException if the content cannot be retrieved or the server responds with an error.
+   */
+  public InputStream get(final URL url, final int connectTimeout, final int readTimeout)
+    throws IOException {
+    Validate.notNull(url);
+    final String key = url.toExternalForm();
+    final Entry cached = getEntry(key);
+    final long now = System.currentTimeMillis();
+    if (cached != null && now < cached.expires) {
+      LOG.debug("Using fresh content of {}", key);
+      return new ByteArrayInputStream(cached.content);
+    }
+    final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setConnectTimeout(connectTimeout);
+    connection.setReadTimeout(readTimeout);
+    // the contents are cached by this client
+    connection.setUseCaches(false);
+    if (cached != null) {
+      if (cached.etag != null) {
+        connection.setRequestProperty("If-None-Match", cached.etag);
+      }
+      if (cached.lastModified != null) {
+        connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+      }
+    }
+    final int status = connection.getResponseCode();
+    if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+      // read the error in order to allow the connection to be reused
+      final InputStream error = connection.getErrorStream();
+      if (error != null) {
+        IOUtils.toByteArray(error);
+        IOUtils.closeQuietly(error);
+      }
+      throw new IOException("Cannot retrieve " + key + ", server responded with status: " + status);
+    }
+    final InputStream input = connection.getInputStream();
+    final byte[] content;
+    try {
+      content = IOUtils.toByteArray(input);
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+    if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+      LOG.debug("Content of {} not modified", key);
+      store(key, new Entry(cached.content, getHeader(connection, "ETag", cached.etag), getHeader(connection,
+        "Last-Modified", cached.lastModified), getExpires(connection, now)));
+      return new ByteArrayInputStream(cached.content);
+    }
+    final String cacheControl = connection.getHeaderField("Cache-Control");
+    if (cacheControl == null || !cacheControl.toLowerCase(Locale.ENGLISH).contains("no-store")) {
+      store(key, new Entry(content, connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"),
+        getExpires(connection, now)));
+    }
+    return new ByteArrayInputStream(content);
+  }
+
+  private String getHeader(final HttpURLConnection connection, final String name, final String defaultValue) {
+    final String value = connection.getHeaderField(name);
+    return value == null ? defaultValue : value;
+  }
+
+  /**
+   * @return the time until the content can be used without revalidation, computed using the max-age directive of the
+   *         Cache-Control header. The no-cache and no-store directives take precedence over max-age, wherever they
+   *         appear.
+   */
+  private long getExpires(final HttpURLConnection connection, final long now) {
+    final String cacheControl = connection.getHeaderField("Cache-Control");
+    if (cacheControl == null) {
+      return now;
+    }
+    final String[] directives = cacheControl.toLowerCase(Locale.ENGLISH).split(",");
+    for (final String directive : directives) {
+      final String value = directive.trim();
+      if (value.equals("no-cache") || value.equals("no-store")) {
+        return now;
+      }
+    }
+    for (final String directive : directives) {
+      final String value = directive.trim();
+      if (value.startsWith("max-age=")) {
+        try {
+          return now + 1000L * Long.parseLong(value.substring("max-age=".length()).trim());
+        } catch (final NumberFormatException e) {
+          LOG.debug("Invalid max-age: {}", value);
+        }
+      }
+    }
+    return now;
+  }
+
+  private synchronized Entry getEntry(final String key) {
+    return entries.get(key);
+  }
+
+  /**
+   * Stores the entry, discarding the least recently used entries if the maximum size is exceeded. A content which
+   * cannot be revalidated and is not fresh is not stored.
+   */
+  private synchronized void store(final String key, final Entry entry) {
+    final Entry previous = entries.remove(key);
+    if (previous != null) {
+      size -= previous.content.length;
+    }
+    final boolean useful = entry.etag != null || entry.lastModified != null
+      || entry.expires > System.currentTimeMillis();
+    if (!useful || entry.content.length > maxSize) {
+      return;
+    }
+    entries.put(key, entry);
+    size += entry.content.length;
+    final Iterator<Entry> iterator = entries.values().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      size -= iterator.next().content.length;
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Removes all the stored contents.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  /**
+   * @return the total size (in bytes) of the stored contents.
+   */
+  public synchronized long size() {
+    return size;
+  }
+}
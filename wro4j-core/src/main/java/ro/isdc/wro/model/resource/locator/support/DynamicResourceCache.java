@@ -0,0 +1,151 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator.support;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Stores the output of the dynamic resources (ex: jsp or servlet generated i18n bundles or configuration scripts)
+ * located by {@link ro.isdc.wro.model.resource.locator.DispatcherStreamLocator}, so that reprocessing a group doesn't
+ * execute them again. Since the output of a dynamic resource can depend on the request (ex: on the locale of the user),
+ * only the outputs of the resources configured as cacheable, using {@link #setTimeToLive(String, long)}, are stored.
+ * An output is used for the time to live of its resource and can be invalidated explicitly (ex: when the messages of an
+ * i18n bundle are changed) using {@link #invalidate(String)}.
+ * <p/>
+ * The total size of the stored outputs is bounded: the least recently used outputs are discarded first.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class DynamicResourceCache {
+  private static final Logger LOG = LoggerFactory.getLogger(DynamicResourceCache.class);
+  /**
+   * The default maximum size (in bytes) of the stored outputs.
+   */
+  public static final long DEFAULT_MAX_SIZE = 5 * 1024 * 1024;
+  private final long maxSize;
+  private final Map<String, Long> timeToLiveByLocation = new ConcurrentHashMap<String, Long>();
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private long size;
+
+  /**
+   * An output and the time when it expires.
+   */
+  private static final class Entry {
+    private final byte[] content;
+    private final long expires;
+
+    private Entry(final byte[] content, final long expires) {
+      this.content = content;
+      this.expires = expires;
+    }
+  }
+
+  /**
+   * @param maxSize the maximum size (in bytes) of the stored outputs.
+   */
+  public DynamicResourceCache(final long maxSize) {
+    Validate.isTrue(maxSize >= 0, "The size cannot be negative");
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Configures the time to live of the output of a resource and invalidates its stored output. The output of a resource
+   * must be cached only if it is the same for all the requests.
+   *
+   * @param location of the dynamic resource.
+   * @param timeToLive in milliseconds, 0 if the output must not be cached.
+   */
+  public void setTimeToLive(final String location, final long timeToLive) {
+    Validate.notNull(location);
+    Validate.isTrue(timeToLive >= 0, "The time to live cannot be negative");
+    timeToLiveByLocation.put(location, timeToLive);
+    invalidate(location);
+  }
+
+  /**
+   * @param location of the dynamic resource.
+   * @return the stored output or null if there is no output which is not expired.
+   */
+  public synchronized byte[] get(final String location) {
+    final Entry entry = entries.get(location);
+    if (entry == null) {
+      return null;
+    }
+    if (System.currentTimeMillis() >= entry.expires) {
+      remove(location);
+      return null;
+    }
+    return entry.content;
+  }
+
+  /**
+   * Stores the output of a resource, unless it has no time to live configured or its time to live is 0.
+   *
+   * @param location of the dynamic resource.
+   * @param content the output, which must not be changed.
+   */
+  public void put(final String location, final byte[] content) {
+    Validate.notNull(location);
+    Validate.notNull(content);
+    final Long timeToLive = timeToLiveByLocation.get(location);
+    if (timeToLive == null || timeToLive == 0 || content.length > maxSize) {
+      return;
+    }
+    LOG.debug("Caching the output of {} for {}ms", location, timeToLive);
+    store(location, new Entry(content, System.currentTimeMillis() + timeToLive));
+  }
+
+  /**
+   * Stores the entry, discarding the least recently used entries if the maximum size is exceeded.
+   */
+  private synchronized void store(final String location, final Entry entry) {
+    remove(location);
+    entries.put(location, entry);
+    size += entry.content.length;
+    final Iterator<Entry> iterator = entries.values().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      size -= iterator.next().content.length;
+      iterator.remove();
+    }
+  }
+
+  private void remove(final String location) {
+    final Entry previous = entries.remove(location);
+    if (previous != null) {
+      size -= previous.content.length;
+    }
+  }
+
+  /**
+   * Discards the output of a resource, which will be executed again when located.
+   *
+   * @param location of the dynamic resource.
+   */
+  public synchronized void invalidate(final String location) {
+    remove(location);
+  }
+
+  /**
+   * Discards all the stored outputs.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  /**
+   * @return the total size (in bytes) of the stored outputs.
+   */
+  public synchronized long size() {
+    return size;
+  }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.model.resource.locator.ResourceVolatility;
+import ro.isdc.wro.model.resource.locator.UriLocator;
+import ro.isdc.wro.model.resource.locator.VolatilityAware;
+import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.util.HashBuilder;
+import ro.isdc.wro.model.resource.util.SHA1HashBuilder;
+
+
+/**
+ * Stores the content and the hash of the resources served through the wroResources proxy (images and fonts referred
+ * by the css resources), so that a proxied resource is located only once and can be fingerprinted. The
+ * {@link ResourceVolatility#IMMUTABLE} resources (ex: packed in a jar) are kept until they are discarded because of the
+ * size limit, the others are discarded by {@link #clearMutable()} when the cache is reloaded.
+ * <p/>
+ * The total size of the stored contents is bounded: the least recently used contents are discarded first.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class ProxyResourceCache {
+  private static final Logger LOG = LoggerFactory.getLogger(ProxyResourceCache.class);
+  /**
+   * The default maximum size (in bytes) of the stored contents.
+   */
+  public static final long DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+  /**
+   * A content larger than this (in bytes) is not stored.
+   */
+  private static final int MAX_ENTRY_SIZE = 1024 * 1024;
+  private volatile HashBuilder hashBuilder = new SHA1HashBuilder();
+  private final long maxSize;
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private long size;
+
+  /**
+   * The content of a located resource and its hash.
+   */
+  public static final class Entry {
+    private final byte[] content;
+    private final String hash;
+    private final boolean immutable;
+
+    private Entry(final byte[] content, final String hash, final boolean immutable) {
+      this.content = content;
+      this.hash = hash;
+      this.immutable = immutable;
+    }
+
+    /**
+     * @return the content, which must not be changed.
+     */
+    public byte[] getContent() {
+      return content;
+    }
+
+    /**
+     * @return the hash of the content.
+     */
+    public String getHash() {
+      return hash;
+    }
+  }
+
+  /**
+   * @param maxSize the maximum size (in bytes) of the stored contents.
+   */
+  public ProxyResourceCache(final long maxSize) {
+    Validate.isTrue(maxSize >= 0, "The size cannot be negative");
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Changes the {@link HashBuilder} used to compute the hash of the contents, discarding the stored contents.
+   *
+   * @param hashBuilder used to compute the hash of the contents.
+   */
+  public synchronized void setHashBuilder(final HashBuilder hashBuilder) {
+    Validate.notNull(hashBuilder);
+    this.hashBuilder = hashBuilder;
+    clear();
+  }
+
+  /**
+   * @param resourceUri of the resource. The query and the fragment of the uri (ex: font.eot?#iefix) are ignored.
+   * @param uriLocatorFactory used to locate the resource if its content is not stored.
+   * @param store whether the located content should be stored.
+   * @return the content of the resource and its hash.
+   * @throws IOException if the resource cannot be located.
+   */
+  public Entry get(final String resourceUri, final UriLocatorFactory uriLocatorFactory, final boolean store)
+    throws IOException {
+    Validate.notNull(resourceUri);
+    Validate.notNull(uriLocatorFactory);
+    final String uri = StringUtils.substringBefore(StringUtils.substringBefore(resourceUri, "?"), "#");
+    synchronized (this) {
+      final Entry entry = entries.get(uri);
+      if (entry != null) {
+        return entry;
+      }
+    }
+    final InputStream is = uriLocatorFactory.locate(uri);
+    if (is == null) {
+      throw new IOException("Cannot locate the resource: " + uri);
+    }
+    final byte[] content;
+    try {
+      content = IOUtils.toByteArray(is);
+    } finally {
+      IOUtils.closeQuietly(is);
+    }
+    final Entry entry = new Entry(content, hashBuilder.getHash(new ByteArrayInputStream(content)),
+      isImmutable(uri, uriLocatorFactory));
+    if (store && content.length <= MAX_ENTRY_SIZE) {
+      put(uri, entry);
+    }
+    LOG.debug("Located proxy resource {} with hash {}", uri, entry.hash);
+    return entry;
+  }
+
+  private boolean isImmutable(final String uri, final UriLocatorFactory uriLocatorFactory) {
+    final UriLocator uriLocator = uriLocatorFactory.getInstance(uri);
+    return uriLocator instanceof VolatilityAware
+      && ((VolatilityAware) uriLocator).getVolatility(uri) == ResourceVolatility.IMMUTABLE;
+  }
+
+  /**
+   * Stores the entry, discarding the least recently used entries if the maximum size is exceeded.
+   */
+  private synchronized void put(final String uri, final Entry entry) {
+    final Entry previous = entries.put(uri, entry);
+    if (previous != null) {
+      size -= previous.content.length;
+    }
+    size += entry.content.length;
+    final Iterator<Entry> iterator = entries.values().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      size -= iterator.next().content.length;
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Discards the contents of the resources which can change, keeping the {@link ResourceVolatility#IMMUTABLE} ones.
+   */
+  public synchronized void clearMutable() {
+    final Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      final Entry entry = iterator.next();
+      if (!entry.immutable) {
+        size -= entry.content.length;
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Discards all the stored contents.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  /**
+   * @return the total size (in bytes) of the stored contents.
+   */
+  public synchronized long size() {
+    return size;
+  }
+}
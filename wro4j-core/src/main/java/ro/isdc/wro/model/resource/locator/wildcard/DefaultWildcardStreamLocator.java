@@ -4,14 +4,17 @@
 package ro.isdc.wro.model.resource.locator.wildcard;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -19,7 +22,6 @@ import java.util.TreeSet;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.filefilter.FalseFileFilter;
 import org.apache.commons.io.filefilter.IOFileFilter;
 import org.apache.commons.io.filefilter.TrueFileFilter;
@@ -28,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.util.Transformer;
+import ro.isdc.wro.util.io.LazyInputStream;
 
 
 /**
@@ -52,9 +55,64 @@ public class DefaultWildcardStreamLocator
    */
   private static final String WILDCARD_REGEX = "^(?:(?!http))(.)*[\\*\\?]+(.)*";
   /**
-   * Responsible for expanding wildcards, in other words for replacing one wildcard with a set of associated files.
+   * The maximum number of remembered wildcard expansions.
    */
-  private Transformer<Collection<File>> wildcardExpanderHandler;
+  private static final int MAX_CACHED_EXPANSIONS = 200;
+  /**
+   * A folder modified more recently than this (in milliseconds) before being walked may be modified again without its
+   * last modified time being changed (the resolution of the file system timestamps can be one or two seconds), so the
+   * expansion is not remembered.
+   */
+  private static final long TIMESTAMP_RESOLUTION = 2000;
+  /**
+   * The files found for a wildcard and the folders walked to find them, used to detect when the wildcard must be
+   * expanded again.
+   */
+  private static final class Expansion {
+    private final List<File> files;
+    private final List<File> allFiles;
+    private final File[] folders;
+    private final long[] lastModified;
+
+    private Expansion(final Collection<File> files, final Collection<File> allFiles, final Map<File, Long> folders) {
+      this.files = new ArrayList<File>(files);
+      this.allFiles = new ArrayList<File>(allFiles);
+      this.folders = folders.keySet().toArray(new File[folders.size()]);
+      this.lastModified = new long[this.folders.length];
+      int i = 0;
+      for (final Long time : folders.values()) {
+        lastModified[i++] = time;
+      }
+    }
+
+    /**
+     * @return true if a file was added to or removed from one of the walked folders.
+     */
+    private boolean isStale() {
+      for (int i = 0; i < folders.length; i++) {
+        if (folders[i].lastModified() != lastModified[i]) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+  /**
+   * Responsible for expanding wildcards, in other words for replacing one wildcard with a set of associated files. The
+   * handler is associated with the thread which sets it, allowing several threads to expand wildcards concurrently.
+   */
+  private final ThreadLocal<Transformer<Collection<File>>> wildcardExpanderHandler =
+    new ThreadLocal<Transformer<Collection<File>>>();
+  /**
+   * The wildcard expansions, by folder and uri.
+   */
+  private final Map<String, Expansion> expansions = Collections.synchronizedMap(new LinkedHashMap<String, Expansion>(
+    16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, Expansion> eldest) {
+      return size() > MAX_CACHED_EXPANSIONS;
+    }
+  });
   /**
    * Creates a WildcardStream locator which doesn't care about detecting duplicate resources.
    */
@@ -70,17 +128,23 @@ public class DefaultWildcardStreamLocator
 
   /**
    * {@inheritDoc}
+   * <p/>
+   * The matched files are read one after the other, only when the returned stream is consumed.
    */
   public InputStream locateStream(final String uri, final File folder)
       throws IOException {
     final Collection<File> files = findMatchedFiles(uri, folder);
-    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final List<InputStream> streams = new ArrayList<InputStream>(files.size());
     for (final File file : files) {
-      final InputStream is = new FileInputStream(file);
-      IOUtils.copy(is, out);
-      is.close();
+      streams.add(new LazyInputStream() {
+        @Override
+        protected InputStream openStream()
+          throws IOException {
+          return new FileInputStream(file);
+        }
+      });
     }
-    return new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
+    return new BufferedInputStream(new SequenceInputStream(Collections.enumeration(streams)));
   }
 
   /**
@@ -100,6 +164,35 @@ public class DefaultWildcardStreamLocator
       throw new IOException("No wildcard detected for the uri: " + uri);
     }
 
+    final String key = folder.getPath() + "|" + uri;
+    Expansion expansion = expansions.get(key);
+    if (expansion == null || expansion.isStale()) {
+      expansion = expand(uri, folder);
+      if (expansion.lastModified.length > 0) {
+        expansions.put(key, expansion);
+      } else {
+        expansions.remove(key);
+      }
+    } else {
+      LOG.debug("Reusing the files found for {} inside {}", uri, folder.getPath());
+    }
+    final Collection<File> files = Collections.unmodifiableList(expansion.files);
+    if (files.isEmpty()) {
+      LOG.warn("No files found inside the {} for wildcard: {}", folder.getPath(), FilenameUtils.getName(uri));
+    }
+    handleFoundResources(files);
+    //trigger wildcardExpander processing
+    handleFoundAllFiles(new ArrayList<File>(expansion.allFiles));
+    return files;
+  }
+
+  /**
+   * Walks the folder in order to find the files matching the wildcard.
+   *
+   * @return the found files. If one of the walked folders was modified too recently to detect its next modification,
+   *         the returned expansion has no walked folder and must not be remembered.
+   */
+  private Expansion expand(final String uri, final File folder) {
     final String wildcard = FilenameUtils.getName(uri);
     LOG.debug("uri: {}", uri);
     LOG.debug("folder: {}", folder.getPath());
@@ -137,18 +230,30 @@ public class DefaultWildcardStreamLocator
         return accept;
       }
     };
-    FileUtils.listFiles(folder, fileFilter, getFolderFilter(wildcard));
+    final long now = System.currentTimeMillis();
+    // the walked folders and their last modified time
+    final Map<File, Long> folders = new LinkedHashMap<File, Long>();
+    folders.put(folder, folder.lastModified());
+    final IOFileFilter folderFilter = new IOFileFilterDecorator(getFolderFilter(wildcard)) {
+      @Override
+      public boolean accept(final File file) {
+        final boolean accept = super.accept(file);
+        if (accept && file.isDirectory()) {
+          folders.put(file, file.lastModified());
+        }
+        return accept;
+      }
+    };
+    FileUtils.listFiles(folder, fileFilter, folderFilter);
 
     LOG.debug("map files: {}", uriToFileMap.keySet());
-
-    final Collection<File> files = uriToFileMap.values();
-    if (files.isEmpty()) {
-      LOG.warn("No files found inside the {} for wildcard: {}", folder.getPath(), wildcard);
+    for (final Long lastModified : folders.values()) {
+      if (now - lastModified < TIMESTAMP_RESOLUTION) {
+        folders.clear();
+        break;
+      }
     }
-    handleFoundResources(files);
-    //trigger wildcardExpander processing
-    handleFoundAllFiles(allFiles);
-    return files;
+    return new Expansion(uriToFileMap.values(), allFiles, folders);
   }
 
 
@@ -157,10 +262,11 @@ public class DefaultWildcardStreamLocator
    *
    * @param files a collection of found files after the wildcard has beed applied on the searched folder.
    */
-  private void handleFoundAllFiles(final Set<File> allFiles) throws IOException {
-    if (wildcardExpanderHandler != null) {
+  private void handleFoundAllFiles(final Collection<File> allFiles) throws IOException {
+    final Transformer<Collection<File>> handler = wildcardExpanderHandler.get();
+    if (handler != null) {
       try {
-        wildcardExpanderHandler.transform(allFiles);
+        handler.transform(allFiles);
       } catch (final Exception e) {
         //preserve exception type if the exception is already an IOException
         if (e instanceof IOException) {
@@ -193,8 +299,14 @@ public class DefaultWildcardStreamLocator
 
   /**
    * {@inheritDoc}
+   * <p/>
+   * The handler is used only for the wildcards located by the current thread. Setting a null handler removes it.
    */
   public void setWildcardExpanderHandler(final Transformer<Collection<File>> handler) {
-    this.wildcardExpanderHandler = handler;
+    if (handler == null) {
+      wildcardExpanderHandler.remove();
+    } else {
+      wildcardExpanderHandler.set(handler);
+    }
   }
 }
@@ -0,0 +1,231 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator.wildcard;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.util.ObjectFactory;
+import ro.isdc.wro.util.io.LazyInputStream;
+
+
+/**
+ * Keeps the jar files used to locate wildcard resources open, together with an index of their entries, so that the
+ * entries of a jar are enumerated only once instead of once per located wildcard. An index is rebuilt when the jar is
+ * modified. The number of indexed jars is bounded: the least recently used indexes are discarded first. The jar file of
+ * a discarded index is closed once all the entry streams obtained from it are closed.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class JarIndexCache {
+  private static final Logger LOG = LoggerFactory.getLogger(JarIndexCache.class);
+  /**
+   * The default maximum number of open jars.
+   */
+  public static final int DEFAULT_SIZE = 50;
+  /**
+   * The maximum number of folders whose entries are remembered by an index.
+   */
+  private static final int MAX_INDEXED_FOLDERS = 100;
+  /**
+   * Shared by all locators which are not configured to use another cache, so that a jar is opened only once, even
+   * after a reload. Cleared when a {@link ro.isdc.wro.manager.WroManager} is destroyed.
+   */
+  private static final JarIndexCache DEFAULT = new JarIndexCache(DEFAULT_SIZE);
+  private final Map<String, JarIndex> indexes;
+
+  /**
+   * The entries of an open jar file.
+   */
+  public static final class JarIndex {
+    private final JarFile jarFile;
+    private final long lastModified;
+    private final long length;
+    /**
+     * All the entries, in the order of the jar.
+     */
+    private final List<JarEntry> entries;
+    private final Map<String, List<JarEntry>> entriesByFolder = new ConcurrentHashMap<String, List<JarEntry>>();
+    /**
+     * The number of entry streams which are not closed yet.
+     */
+    private int openStreams;
+    private boolean discarded;
+
+    private JarIndex(final JarFile jarFile, final File file) {
+      this.jarFile = jarFile;
+      this.lastModified = file.lastModified();
+      this.length = file.length();
+      final List<JarEntry> list = new ArrayList<JarEntry>();
+      final Enumeration<JarEntry> enumeration = jarFile.entries();
+      while (enumeration.hasMoreElements()) {
+        list.add(enumeration.nextElement());
+      }
+      entries = Collections.unmodifiableList(list);
+    }
+
+    private boolean isStale(final File file) {
+      return lastModified != file.lastModified() || length != file.length();
+    }
+
+    /**
+     * @param folder the path of a folder inside the jar (ending with '/') or empty string for all the entries.
+     * @return the entries located (at any depth) inside the folder, in the order of the jar.
+     */
+    public List<JarEntry> getEntries(final String folder) {
+      Validate.notNull(folder);
+      List<JarEntry> found = entriesByFolder.get(folder);
+      if (found == null) {
+        found = new ArrayList<JarEntry>();
+        for (final JarEntry entry : entries) {
+          if (entry.getName().startsWith(folder)) {
+            found.add(entry);
+          }
+        }
+        found = Collections.unmodifiableList(found);
+        if (entriesByFolder.size() < MAX_INDEXED_FOLDERS) {
+          entriesByFolder.put(folder, found);
+        }
+      }
+      return found;
+    }
+
+    /**
+     * @return the stream of the entry, opened only when it is first read. The stream must be closed by the caller: the
+     *         jar file is kept open until then, even if the index is discarded meanwhile.
+     */
+    public InputStream getInputStream(final JarEntry entry) {
+      acquire();
+      return new LazyInputStream() {
+        private boolean released;
+
+        @Override
+        protected InputStream openStream()
+          throws IOException {
+          return jarFile.getInputStream(entry);
+        }
+
+        @Override
+        public void close()
+          throws IOException {
+          try {
+            super.close();
+          } finally {
+            if (!released) {
+              released = true;
+              release();
+            }
+          }
+        }
+      };
+    }
+
+    private synchronized void acquire() {
+      openStreams++;
+    }
+
+    private synchronized void release() {
+      openStreams--;
+      if (discarded && openStreams == 0) {
+        close();
+      }
+    }
+
+    /**
+     * Closes the jar file now if no entry stream is open, or when the last one is closed otherwise.
+     */
+    private synchronized void discard() {
+      discarded = true;
+      if (openStreams == 0) {
+        close();
+      }
+    }
+
+    private void close() {
+      try {
+        jarFile.close();
+      } catch (final IOException e) {
+        LOG.debug("Cannot close jar file {}", jarFile.getName());
+      }
+    }
+  }
+
+  /**
+   * @param maxSize the maximum number of open jars.
+   */
+  public JarIndexCache(final int maxSize) {
+    Validate.isTrue(maxSize > 0, "The size must be positive");
+    indexes = new LinkedHashMap<String, JarIndex>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, JarIndex> eldest) {
+        if (size() > maxSize) {
+          eldest.getValue().discard();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @return the cache used by default by {@link JarWildcardStreamLocator}.
+   */
+  public static JarIndexCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @param file the jar file.
+   * @param jarFileFactory opens the jar file when the jar is not indexed yet or was modified.
+   * @return the index of the jar.
+   */
+  public synchronized JarIndex getIndex(final File file, final ObjectFactory<JarFile> jarFileFactory) {
+    Validate.notNull(file);
+    Validate.notNull(jarFileFactory);
+    final String key = file.getAbsolutePath();
+    JarIndex index = indexes.get(key);
+    if (index != null && index.isStale(file)) {
+      LOG.debug("Jar modified, rebuilding the index of {}", file);
+      indexes.remove(key);
+      index.discard();
+      index = null;
+    }
+    if (index == null) {
+      index = new JarIndex(jarFileFactory.create(), file);
+      indexes.put(key, index);
+    }
+    return index;
+  }
+
+  /**
+   * Discards all the indexes, closing their jars once the entry streams obtained from them are closed.
+   */
+  public synchronized void clear() {
+    for (final JarIndex index : indexes.values()) {
+      index.discard();
+    }
+    indexes.clear();
+  }
+
+  /**
+   * @return the number of indexed jars.
+   */
+  public synchronized int size() {
+    return indexes.size();
+  }
+}
@@ -1,25 +1,26 @@
 package ro.isdc.wro.model.resource.locator.wildcard;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Enumeration;
+import java.util.Collections;
 import java.util.List;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.model.resource.locator.ClasspathUriLocator;
+import ro.isdc.wro.model.resource.locator.wildcard.JarIndexCache.JarIndex;
+import ro.isdc.wro.util.ObjectFactory;
 
 
 /**
@@ -39,10 +40,20 @@ import ro.isdc.wro.model.resource.locator.ClasspathUriLocator;
  */
 public class JarWildcardStreamLocator extends DefaultWildcardStreamLocator {
   private static final Logger LOG = LoggerFactory.getLogger(JarWildcardStreamLocator.class);
+  private JarIndexCache jarIndexCache = JarIndexCache.getDefault();
 
   public JarWildcardStreamLocator() {
   }
 
+  /**
+   * @param jarIndexCache the cache holding the open jars and the index of their entries. By default, a cache shared by
+   *        all locators is used.
+   */
+  public void setJarIndexCache(final JarIndexCache jarIndexCache) {
+    Validate.notNull(jarIndexCache);
+    this.jarIndexCache = jarIndexCache;
+  }
+
   /**
    * Finds the specified URI pattern inside a JAR file. If the specified file isn't a valid JAR default strategy will be
    * used instead.
@@ -109,7 +120,8 @@ public class JarWildcardStreamLocator extends DefaultWildcardStreamLocator {
 
   /**
    * Finds the specified wildcard-URI resource(s) inside a JAR file and returns an {@link InputStream} to read a bundle
-   * of matching resources.
+   * of matching resources. The entries of the jar are indexed once (until the jar is modified) and the matching entries
+   * are read only when the returned stream is consumed.
    *
    * @param uri Resource(s) URI to match. It cannot be null or empty.
    * @param jarPath A valid JAR file. It cannot be null.
@@ -128,21 +140,17 @@ public class JarWildcardStreamLocator extends DefaultWildcardStreamLocator {
       classPath = StringUtils.substringAfter(classPath, ClasspathUriLocator.PREFIX);
     }
 
-    final JarFile file = open(jarPath);
-
-    final Enumeration<JarEntry> entries = file.entries();
-    final ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-    while (entries.hasMoreElements()) {
-      final JarEntry entry = entries.nextElement();
-
-      if (entry.getName().startsWith(classPath) && accept(entry, wildcard)) {
-        final InputStream is = file.getInputStream(entry);
-        IOUtils.copy(is, out);
-        is.close();
+    final JarIndex index = jarIndexCache.getIndex(jarPath, new ObjectFactory<JarFile>() {
+      public JarFile create() {
+        return open(jarPath);
+      }
+    });
+    final List<InputStream> streams = new ArrayList<InputStream>();
+    for (final JarEntry entry : index.getEntries(classPath)) {
+      if (accept(entry, wildcard)) {
+        streams.add(index.getInputStream(entry));
       }
     }
-
-    return new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
+    return new BufferedInputStream(new SequenceInputStream(Collections.enumeration(streams)));
   }
 }
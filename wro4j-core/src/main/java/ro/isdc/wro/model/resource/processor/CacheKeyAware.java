@@ -0,0 +1,23 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor;
+
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.processor.impl.CachingProcessorDecorator;
+
+
+/**
+ * Implemented by deterministic processors whose output can be cached by {@link CachingProcessorDecorator}. The output
+ * of such processor must depend only on the processed content and on the settings described by the cache key.
+ *
+ * @since 1.4.2
+ */
+public interface CacheKeyAware {
+  /**
+   * @param resource the processed resource or null when the processor is used as a post processor.
+   * @return a description of all the settings (options, externs, engine version, etc) the output depends on when
+   *         processing the provided resource. Subclasses adding settings must include them in the key.
+   */
+  String getCacheKey(Resource resource);
+}
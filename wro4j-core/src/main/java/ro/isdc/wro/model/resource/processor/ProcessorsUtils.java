@@ -9,14 +9,18 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import org.apache.commons.lang3.Validate;
 
 import ro.isdc.wro.model.group.processor.Minimize;
+import ro.isdc.wro.model.group.processor.ResourceLocal;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.impl.CachingProcessorDecorator;
+import ro.isdc.wro.model.resource.processor.impl.LazyProcessorDecorator;
 import ro.isdc.wro.model.resource.processor.impl.MultiLineCommentStripperProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.ConformColorsCssProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssCompressorProcessor;
@@ -30,6 +34,7 @@ import ro.isdc.wro.model.resource.processor.impl.css.JawrCssMinifierProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.VariablizeColorsCssProcessor;
 import ro.isdc.wro.model.resource.processor.impl.js.JSMinProcessor;
 import ro.isdc.wro.model.resource.processor.impl.js.SemicolonAppenderPreProcessor;
+import ro.isdc.wro.util.Destroyable;
 
 /**
  * Contains divers utility methods applied on processors.
@@ -49,7 +54,7 @@ public class ProcessorsUtils {
   public static <T> Collection<T> getMinimizeFreeProcessors(final Collection<T> processors) {
     final Collection<T> result = new ArrayList<T>();
     for (final T processor : processors) {
-      if (!processor.getClass().isAnnotationPresent(Minimize.class)) {
+      if (!isMinimizeAwareProcessor(processor)) {
         result.add(processor);
       }
     }
@@ -63,6 +68,32 @@ public class ProcessorsUtils {
     return processor.getClass().isAnnotationPresent(Minimize.class);
   }
 
+  /**
+   * @return true if the processor is annotated with {@link ResourceLocal}. The decorators which do not change the output
+   *         of the decorated processor ({@link LazyProcessorDecorator} and {@link CachingProcessorDecorator}) are
+   *         looked through.
+   */
+  public static <T> boolean isResourceLocalProcessor(final T processor) {
+    return getTransparentlyDecoratedProcessor(processor).getClass().isAnnotationPresent(ResourceLocal.class);
+  }
+
+  /**
+   * @return the processor decorated by the provided processor through decorators which do not change its output, or
+   *         the provided processor if it is not such a decorator.
+   */
+  private static Object getTransparentlyDecoratedProcessor(final Object processor) {
+    Object result = processor;
+    while (true) {
+      if (result instanceof LazyProcessorDecorator) {
+        result = ((LazyProcessorDecorator) result).getDecoratedProcessor();
+      } else if (result instanceof CachingProcessorDecorator) {
+        result = ((CachingProcessorDecorator) result).getDecoratedProcessor();
+      } else {
+        return result;
+      }
+    }
+  }
+
   public static <T> SupportedResourceType getSupportedResourceType(final T processor) {
     SupportedResourceType supportedType = processor.getClass().getAnnotation(SupportedResourceType.class);
     /**
@@ -129,6 +160,22 @@ public class ProcessorsUtils {
     };
   }
 
+  /**
+   * Destroys the processors implementing {@link Destroyable}. A processor found several times is destroyed once.
+   *
+   * @param processors the processors to destroy.
+   */
+  public static void destroy(final Collection<?>... processors) {
+    final Map<Object, Boolean> destroyed = new IdentityHashMap<Object, Boolean>();
+    for (final Collection<?> collection : processors) {
+      for (final Object processor : collection) {
+        if (processor instanceof Destroyable && destroyed.put(processor, Boolean.TRUE) == null) {
+          ((Destroyable) processor).destroy();
+        }
+      }
+    }
+  }
+
   /**
    * @return preProcessor of type processorClass if any found or null otherwise.
    */
@@ -12,7 +12,7 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.model.group.processor.Minimize;
+import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 
@@ -88,7 +88,7 @@ public class SimpleProcessorsFactory
    * Add a {@link ResourcePostProcessor}.
    */
   public SimpleProcessorsFactory addPostProcessor(final ResourcePostProcessor processor) {
-    if (processor.getClass().isAnnotationPresent(Minimize.class)) {
+    if (ProcessorsUtils.isMinimizeAwareProcessor(processor)) {
       //TODO move large messages to properties file
       LOG.warn("It is recommended to add minimize aware processors to " +
           "pre processors instead of post processor, otherwise you " +
@@ -6,6 +6,7 @@ package ro.isdc.wro.model.resource.processor.impl;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.Collections;
 
 import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.processor.MinimizeAware;
@@ -13,6 +14,7 @@ import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.model.resource.processor.SupportedResourceTypeAware;
+import ro.isdc.wro.util.Destroyable;
 
 
 /**
@@ -23,7 +25,7 @@ import ro.isdc.wro.model.resource.processor.SupportedResourceTypeAware;
  * @since 1.4.1
  */
 public abstract class AbstractProcessorDecorator
-  implements ResourcePreProcessor, ResourcePostProcessor, SupportedResourceTypeAware, MinimizeAware {
+  implements ResourcePreProcessor, ResourcePostProcessor, SupportedResourceTypeAware, MinimizeAware, Destroyable {
   /**
    * Decorated processor.
    */
@@ -54,7 +56,7 @@ public abstract class AbstractProcessorDecorator
   /**
    * @return the decoratedProcessor
    */
-  protected final ResourcePreProcessor getDecoratedProcessor() {
+  public final ResourcePreProcessor getDecoratedProcessor() {
     return decoratedProcessor;
   }
 
@@ -65,4 +67,11 @@ public abstract class AbstractProcessorDecorator
     throws IOException {
     process(null, reader, writer);
   }
+
+  /**
+   * Destroys the decorated processor.
+   */
+  public void destroy() {
+    ProcessorsUtils.destroy(Collections.singleton(decoratedProcessor));
+  }
 }
@@ -0,0 +1,166 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.processor.CacheKeyAware;
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.support.ProcessorOutputCache;
+
+
+/**
+ * Caches the output of a deterministic processor (ex: less, closure compiler), whose output depends only on the
+ * processed content and on its settings. Only the processors implementing {@link CacheKeyAware} are cached, since they
+ * describe all the settings their output depends on. The output is stored in a {@link ProcessorOutputCache} under the
+ * hash of the processed content, of the processor class and version and of its cache key, so the decorated processor is
+ * not invoked at all for a content processed before. Additional options can be provided using
+ * {@link #setOptions(String)}. Usage example:
+ * <p/>
+ * <code>
+ * CachingProcessorDecorator.decorate(new LessCssProcessor());
+ * </code>
+ * <p/>
+ * When no cache is set, the cache configured by the {@link WroConfiguration} of the current {@link Context} is used.
+ */
+public class CachingProcessorDecorator
+  extends AbstractProcessorDecorator {
+  private static final Logger LOG = LoggerFactory.getLogger(CachingProcessorDecorator.class);
+  private static final String ENCODING = "UTF-8";
+  /**
+   * The processor used to compute the identity (the post processors are decorated using an adapter).
+   */
+  private final Object processor;
+  private String options = "";
+  private volatile ProcessorOutputCache cache;
+
+  private CachingProcessorDecorator(final ResourcePreProcessor preProcessor) {
+    super(preProcessor);
+    processor = preProcessor;
+  }
+
+  private CachingProcessorDecorator(final ResourcePostProcessor postProcessor) {
+    super(postProcessor);
+    processor = postProcessor;
+  }
+
+  public static CachingProcessorDecorator decorate(final ResourcePreProcessor preProcessor) {
+    Validate.notNull(preProcessor);
+    return new CachingProcessorDecorator(preProcessor);
+  }
+
+  public static CachingProcessorDecorator decorate(final ResourcePostProcessor postProcessor) {
+    Validate.notNull(postProcessor);
+    return new CachingProcessorDecorator(postProcessor);
+  }
+
+  /**
+   * @param options of the decorated processor, which are not detected automatically.
+   */
+  public CachingProcessorDecorator setOptions(final String options) {
+    Validate.notNull(options);
+    this.options = options;
+    return this;
+  }
+
+  /**
+   * @param cache where the outputs are stored.
+   */
+  public CachingProcessorDecorator setCache(final ProcessorOutputCache cache) {
+    Validate.notNull(cache);
+    this.cache = cache;
+    return this;
+  }
+
+  private ProcessorOutputCache getCache() {
+    if (cache == null) {
+      cache = ProcessorOutputCache.forConfiguration(Context.isContextSet()
+        ? Context.get().getConfig()
+        : new WroConfiguration());
+    }
+    return cache;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void process(final Resource resource, final Reader reader, final Writer writer)
+    throws IOException {
+    if (!(processor instanceof CacheKeyAware)) {
+      LOG.debug("{} does not provide a cache key, its output is not cached", processor.getClass().getName());
+      getDecoratedProcessor().process(resource, reader, writer);
+      return;
+    }
+    try {
+      final String content = IOUtils.toString(reader);
+      final String key = getKey(resource, content);
+      String result = getCache().get(key);
+      if (result == null) {
+        final Writer processedWriter = new StringWriter();
+        getDecoratedProcessor().process(resource, new StringReader(content), processedWriter);
+        result = processedWriter.toString();
+        // processors usually leave the content unchanged when they fail, such a result shouldn't be persisted.
+        if (!result.equals(content)) {
+          getCache().put(key, result);
+        }
+      } else {
+        LOG.debug("Using cached output of {}", processor.getClass().getSimpleName());
+      }
+      writer.write(result);
+    } finally {
+      reader.close();
+      writer.close();
+    }
+  }
+
+  /**
+   * @return the hash of the processor identity and of the content.
+   */
+  private String getKey(final Resource resource, final String content) {
+    final String identity = getIdentity(resource);
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      digest.update(identity.getBytes(ENCODING));
+      digest.update((byte) 0);
+      digest.update(content.getBytes(ENCODING));
+      return new BigInteger(1, digest.digest()).toString(16);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new WroRuntimeException("Cannot compute the hash of processed content", e);
+    } catch (final IOException e) {
+      throw new WroRuntimeException("Cannot compute the hash of processed content", e);
+    }
+  }
+
+  /**
+   * @return a description of the processor, including its class, version, the cache key it provides for the resource
+   *         and the options of this decorator.
+   */
+  private String getIdentity(final Resource resource) {
+    final StringBuilder sb = new StringBuilder(processor.getClass().getName());
+    final Package pkg = processor.getClass().getPackage();
+    if (pkg != null && pkg.getImplementationVersion() != null) {
+      sb.append("@").append(pkg.getImplementationVersion());
+    }
+    sb.append(";key=").append(((CacheKeyAware) processor).getCacheKey(resource));
+    sb.append(";options=").append(options);
+    return sb.toString();
+  }
+}
@@ -7,12 +7,11 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 
-import org.apache.commons.io.IOUtils;
-
+import ro.isdc.wro.model.group.processor.ResourceLocal;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
-import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.model.resource.processor.support.CommentStripper;
 
 
 /**
@@ -21,6 +20,7 @@ import ro.isdc.wro.util.WroUtil;
  * @author Alex Objelean
  * @created Created on Nov 28, 2008
  */
+@ResourceLocal
 public class CommentStripperProcessor
   implements ResourcePreProcessor, ResourcePostProcessor {
   /**
@@ -29,13 +29,7 @@ public class CommentStripperProcessor
   public void process(final Resource resource, final Reader reader, final Writer writer)
     throws IOException {
     try {
-      final String content = IOUtils.toString(reader);
-      // apply single line comment stripper processor first
-      String result = SingleLineCommentStripperProcessor.PATTERN.matcher(content).replaceAll("");
-      // apply multi line comment stripper processor after
-      result = MultiLineCommentStripperProcessor.PATTERN.matcher(result).replaceAll("");
-      result = WroUtil.EMTPY_LINE_PATTERN.matcher(result).replaceAll("");
-      writer.write(result);
+      new CommentStripper(CommentStripper.isJavaScript(resource), true, true).strip(reader, writer);
     } finally {
       reader.close();
       writer.close();
@@ -0,0 +1,124 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+
+import org.apache.commons.lang3.Validate;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.MinimizeAware;
+import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.SupportedResourceTypeAware;
+import ro.isdc.wro.util.Destroyable;
+import ro.isdc.wro.util.ObjectFactory;
+
+
+/**
+ * Defers the creation of a processor until it is used for the first time. Useful for registering processors which are
+ * expensive to create (ex: the processors using a rhino or a compiler) under an alias, when only some of the registered
+ * processors are actually used. Usage example:
+ * <p/>
+ * <code>
+ * map.put(LessCssProcessor.ALIAS, LazyProcessorDecorator.decorate(new ObjectFactory&lt;ResourcePreProcessor&gt;() {
+ *   public ResourcePreProcessor create() {
+ *     return new LessCssProcessor();
+ *   }
+ * }));
+ * </code>
+ * <p/>
+ * The processor is created by the provided factory only once, even if it is used by several threads. Since the
+ * {@link SupportedResourceType} and the {@link MinimizeAware} attributes are inherited from the decorated processor,
+ * asking for them also creates the processor.
+ */
+public class LazyProcessorDecorator
+  implements ResourcePreProcessor, ResourcePostProcessor, SupportedResourceTypeAware, MinimizeAware, Destroyable {
+  private final ObjectFactory<? extends ResourcePreProcessor> processorFactory;
+  private volatile ResourcePreProcessor processor;
+
+  private LazyProcessorDecorator(final ObjectFactory<? extends ResourcePreProcessor> processorFactory) {
+    this.processorFactory = processorFactory;
+  }
+
+  /**
+   * @param processorFactory creates the decorated processor when it is used for the first time.
+   */
+  public static LazyProcessorDecorator decorate(final ObjectFactory<? extends ResourcePreProcessor> processorFactory) {
+    Validate.notNull(processorFactory);
+    return new LazyProcessorDecorator(processorFactory);
+  }
+
+  /**
+   * @return the decorated processor, created if this is the first time it is used.
+   */
+  public final ResourcePreProcessor getDecoratedProcessor() {
+    ResourcePreProcessor result = processor;
+    if (result == null) {
+      synchronized (this) {
+        result = processor;
+        if (result == null) {
+          result = processorFactory.create();
+          if (result == null) {
+            throw new WroRuntimeException("The processor factory " + processorFactory + " created a null processor");
+          }
+          processor = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return true if the decorated processor was already created.
+   */
+  public final boolean isInitialized() {
+    return processor != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public SupportedResourceType getSupportedResourceType() {
+    return ProcessorsUtils.getSupportedResourceType(getDecoratedProcessor());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isMinimize() {
+    return ProcessorsUtils.isMinimizeAwareProcessor(getDecoratedProcessor());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void process(final Resource resource, final Reader reader, final Writer writer)
+    throws IOException {
+    getDecoratedProcessor().process(resource, reader, writer);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void process(final Reader reader, final Writer writer)
+    throws IOException {
+    process(null, reader, writer);
+  }
+
+  /**
+   * Destroys the decorated processor, if it was created.
+   */
+  public void destroy() {
+    if (processor != null) {
+      ProcessorsUtils.destroy(Collections.singleton(processor));
+    }
+  }
+}
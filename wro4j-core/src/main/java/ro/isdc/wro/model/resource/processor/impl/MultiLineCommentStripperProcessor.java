@@ -6,14 +6,12 @@ package ro.isdc.wro.model.resource.processor.impl;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
-import java.util.regex.Pattern;
-
-import org.apache.commons.io.IOUtils;
 
+import ro.isdc.wro.model.group.processor.ResourceLocal;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
-import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.model.resource.processor.support.CommentStripper;
 
 
 /**
@@ -22,12 +20,9 @@ import ro.isdc.wro.util.WroUtil;
  * @author Alex Objelean
  * @created Created on Nov 28, 2008
  */
+@ResourceLocal
 public class MultiLineCommentStripperProcessor
   implements ResourcePreProcessor, ResourcePostProcessor {
-  /**
-   * Pattern containing a regex matching multiline comments & empty new lines.
-   */
-  public static final Pattern PATTERN = Pattern.compile("(?ims)[\\t ]*/\\*.*?\\*/[\\r\\n]?");
   public static final String ALIAS = "multilineStripper";
 
 
@@ -37,10 +32,7 @@ public class MultiLineCommentStripperProcessor
   public void process(final Resource resource, final Reader source, final Writer destination)
     throws IOException {
     try {
-      final String content = IOUtils.toString(source);
-      String result = PATTERN.matcher(content).replaceAll("");
-      result = WroUtil.EMTPY_LINE_PATTERN.matcher(result).replaceAll("");
-      destination.write(result);
+      new CommentStripper(CommentStripper.isJavaScript(resource), false, true).strip(source, destination);
     } finally {
       source.close();
       destination.close();
@@ -6,14 +6,12 @@ package ro.isdc.wro.model.resource.processor.impl;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
-import java.util.regex.Pattern;
-
-import org.apache.commons.io.IOUtils;
 
+import ro.isdc.wro.model.group.processor.ResourceLocal;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
-import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.model.resource.processor.support.CommentStripper;
 
 
 /**
@@ -23,12 +21,9 @@ import ro.isdc.wro.util.WroUtil;
  * @author Alex Objelean
  * @created Created on Nov 28, 2008
  */
+@ResourceLocal
 public class SingleLineCommentStripperProcessor
   implements ResourcePreProcessor, ResourcePostProcessor {
-  /**
-   * Pattern containing a regex matching singleline comments & preceding empty spaces & tabs.
-   */
-  public static final Pattern PATTERN = Pattern.compile("[\\t ]*//.*?$", Pattern.MULTILINE);
 
 
   /**
@@ -37,10 +32,7 @@ public class SingleLineCommentStripperProcessor
   public void process(final Resource resource, final Reader reader, final Writer writer)
     throws IOException {
     try {
-      final String content = IOUtils.toString(reader);
-      String result = PATTERN.matcher(content).replaceAll("");
-      result = WroUtil.EMTPY_LINE_PATTERN.matcher(result).replaceAll("");
-      writer.write(result);
+      new CommentStripper(CommentStripper.isJavaScript(resource), true, false).strip(reader, writer);
     } finally {
       reader.close();
       writer.close();
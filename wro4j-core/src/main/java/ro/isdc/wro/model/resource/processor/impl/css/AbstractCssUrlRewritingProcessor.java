@@ -6,12 +6,9 @@ package ro.isdc.wro.model.resource.processor.impl.css;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +19,9 @@ import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.locator.UrlUriLocator;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.support.CssTokenTransformer;
+import ro.isdc.wro.model.resource.processor.support.CssTokenizer;
+import ro.isdc.wro.model.resource.processor.support.CssTokenizer.TokenType;
 import ro.isdc.wro.model.resource.processor.support.DataUriGenerator;
 
 
@@ -36,15 +36,6 @@ public abstract class AbstractCssUrlRewritingProcessor
   implements ResourcePreProcessor, ResourcePostProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(AbstractCssUrlRewritingProcessor.class);
 
-  /**
-   * Pattern used to identify the placeholders where the url rewriting will be performed.
-   */
-  private static final String PATTERN_PATH = "url\\s*\\((\\s*['\"]?((?:.*?|\\s*?))['\"]?\\s*)\\)|src\\s*=\\s*['\"]((?:.|\\s)*?)['\"]";
-  /**
-   * Compiled pattern.
-   */
-  protected static final Pattern PATTERN = Pattern.compile(PATTERN_PATH, Pattern.CASE_INSENSITIVE);
-
   /**
    * {@inheritDoc}
    */
@@ -87,27 +78,37 @@ public abstract class AbstractCssUrlRewritingProcessor
    * @return parsed css.
    */
   private String parseCss(final String cssContent, final String cssUri) {
-    final Matcher matcher = PATTERN.matcher(cssContent);
-    final StringBuffer sb = new StringBuffer();
-    while (matcher.find()) {
-      final String oldMatch = matcher.group();
-
-      final String urlGroup = matcher.group(3) != null ? matcher.group(3) : matcher.group(2);
-      LOG.debug("urlGroup: {}", urlGroup);
-      //use urlContent to get rid of trailing spaces inside the url() construction
-      final String urlContent = matcher.group(1) != null ? matcher.group(1) : urlGroup;
-
-      Validate.notNull(urlGroup);
-      if (isReplaceNeeded(urlGroup)) {
+    return CssTokenizer.transform(cssContent, createUrlTransformer(cssUri));
+  }
+
+
+  /**
+   * Creates a {@link CssTokenTransformer} which rewrites the urls found inside the css. It can be fused with other
+   * transformers in order to process the css in a single pass.
+   *
+   * @param cssUri Uri of the css to parse.
+   * @return the transformer handling url tokens.
+   */
+  public final CssTokenTransformer createUrlTransformer(final String cssUri) {
+    return new CssTokenTransformer() {
+      public boolean transform(final CssTokenizer tokenizer, final StringBuilder out) {
+        final TokenType type = tokenizer.getType();
+        if (type != TokenType.URL && type != TokenType.SRC) {
+          return false;
+        }
+        final String urlGroup = tokenizer.getValue();
+        LOG.debug("urlGroup: {}", urlGroup);
+        if (!isReplaceNeeded(urlGroup)) {
+          return false;
+        }
         final String replacedUrl = replaceImageUrl(cssUri, urlGroup);
-        LOG.debug("replaced old Url: [{}] with: [{}].", urlContent, StringUtils.abbreviate(replacedUrl, 40));
-        final String newReplacement = oldMatch.replace(urlContent, replacedUrl);
+        LOG.debug("replaced old Url: [{}] with: [{}].", urlGroup, StringUtils.abbreviate(replacedUrl, 40));
+        // the content (containing trailing spaces & quotes inside the url() construction) is replaced
+        tokenizer.appendWithContent(out, replacedUrl);
         onUrlReplaced(replacedUrl);
-        matcher.appendReplacement(sb, newReplacement);
+        return true;
       }
-    }
-    matcher.appendTail(sb);
-    return sb.toString();
+    };
   }
 
 
@@ -4,14 +4,21 @@
 package ro.isdc.wro.model.resource.processor.impl.css;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.cache.impl.LruMemoryCacheStrategy;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
 import ro.isdc.wro.model.resource.processor.support.DataUriGenerator;
@@ -33,7 +40,11 @@ public class CssDataUriPreProcessor
   /**
    * The size limit. Images larger than this limit won't be transformed (due to IE8 limitation).
    */
-  private static final int SIZE_LIMIT = 32 * 1024;;
+  private static final int SIZE_LIMIT = 32 * 1024;
+  /**
+   * Maximum number of generated dataUri's kept in the cache.
+   */
+  private static final int CACHE_SIZE = 256;
   /**
    * Generates dataUri based on inputStream of the url's found inside the css resource.
    */
@@ -43,6 +54,23 @@ public class CssDataUriPreProcessor
    */
   @Inject
   private UriLocatorFactory uriLocatorFactory;
+  /**
+   * Generated dataUri's, keyed by the image location and the fingerprint of its content. The same image is usually
+   * referred by many stylesheets, thus it is encoded only once, as long as its content does not change.
+   */
+  private final LruMemoryCacheStrategy<String, String> dataUriCache = new LruMemoryCacheStrategy<String, String>(
+    CACHE_SIZE);
+  /**
+   * Outcome of the images already checked during the current processing pass, keyed by image location. An image
+   * referred several times by the same stylesheet is read and fingerprinted only once. An empty value means that the url
+   * is not replaced. Cleared when the processing is completed.
+   */
+  private final Map<String, String> processedImages = new ConcurrentHashMap<String, String>();
+  /**
+   * True if a subclass overrides the legacy {@link #replaceWithDataUri(String)} method, which then has to be invoked
+   * with the encoded dataUri.
+   */
+  private final boolean legacyReplaceDecision = isLegacyReplaceDecision();
 
   /**
    * Replace provided url with the new url if needed.
@@ -72,8 +100,8 @@ public class CssDataUriPreProcessor
     }
     String result = imageUrl;
     try {
-      final String dataUri = getDataUriGenerator().generateDataURI(uriLocatorFactory.locate(fullPath), fileName);
-      if (replaceWithDataUri(dataUri)) {
+      final String dataUri = getDataUri(fullPath, fileName);
+      if (dataUri != null) {
         result = dataUri;
         LOG.debug("dataUri replacement: {}", StringUtils.abbreviate(dataUri, 30));
       }
@@ -83,6 +111,53 @@ public class CssDataUriPreProcessor
     return result;
   }
 
+  /**
+   * @return the dataUri of the image located at fullPath or null if the image should not be replaced.
+   */
+  private String getDataUri(final String fullPath, final String fileName)
+    throws IOException {
+    final String processed = processedImages.get(fullPath);
+    if (processed != null) {
+      LOG.debug("image {} already checked during this processing", fullPath);
+      return processed.length() == 0 ? null : processed;
+    }
+    final String dataUri = computeDataUri(fullPath, fileName);
+    processedImages.put(fullPath, dataUri == null ? "" : dataUri);
+    return dataUri;
+  }
+
+  private String computeDataUri(final String fullPath, final String fileName)
+    throws IOException {
+    final InputStream inputStream = uriLocatorFactory.locate(fullPath);
+    final byte[] bytes;
+    try {
+      bytes = IOUtils.toByteArray(inputStream);
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+    // the size is known before encoding, no need to encode images exceeding the limit.
+    final long dataUriLength = getDataUriGenerator().getDataUriLength(bytes.length, fileName);
+    if (!replaceWithDataUri(dataUriLength)) {
+      return null;
+    }
+    final CRC32 checksum = new CRC32();
+    checksum.update(bytes);
+    final String cacheKey = fullPath + "#" + Long.toHexString(checksum.getValue());
+    String dataUri = dataUriCache.get(cacheKey);
+    if (dataUri == null) {
+      final StringWriter writer = new StringWriter((int) dataUriLength);
+      getDataUriGenerator().generateDataURI(bytes, writer, fileName);
+      dataUri = writer.toString();
+      dataUriCache.put(cacheKey, dataUri);
+    } else {
+      LOG.debug("dataUri of {} found in cache", fullPath);
+    }
+    if (legacyReplaceDecision && !replaceWithDataUri(dataUri)) {
+      return null;
+    }
+    return dataUri;
+  }
+
   private DataUriGenerator getDataUriGenerator() {
     if (dataUriGenerator == null) {
       dataUriGenerator = new DataUriGenerator();
@@ -91,19 +166,52 @@ public class CssDataUriPreProcessor
   }
 
   /**
-   * Decides whether the computed dataUri should replace the image url. It is useful when you want to limit the dataUri size.
-   * By default the size of dataUri is limited to 32KB (because IE8 has a 32KB limitation).
+   * Decides whether the dataUri should replace the image url. It is useful when you want to limit the dataUri size. By
+   * default the size of dataUri is limited to 32KB (because IE8 has a 32KB limitation).
    *
-   * @param dataUri base64 encoded stream.
+   * @param dataUriSize the size in bytes of the dataUri, computed before encoding the image.
    * @return true if dataUri should replace original image url.
    */
-  protected boolean replaceWithDataUri(final String dataUri) throws UnsupportedEncodingException {
-    final byte[] bytes = dataUri.getBytes("UTF8");
-    final boolean exceedLimit = bytes.length >= SIZE_LIMIT;
-    LOG.debug("dataUri size: {}KB, limit exceeded: {}", bytes.length/1024, exceedLimit);
+  protected boolean replaceWithDataUri(final long dataUriSize) {
+    final boolean exceedLimit = dataUriSize >= SIZE_LIMIT;
+    LOG.debug("dataUri size: {}KB, limit exceeded: {}", dataUriSize / 1024, exceedLimit);
     return !exceedLimit;
   }
 
+  /**
+   * Decides whether the dataUri should replace the image url, based on the encoded dataUri. Still invoked when
+   * overridden, but it requires the image to be encoded before the decision is taken.
+   *
+   * @param dataUri the encoded dataUri.
+   * @return true if dataUri should replace original image url.
+   * @deprecated override {@link #replaceWithDataUri(long)} instead, which is invoked before the image is encoded.
+   */
+  @Deprecated
+  protected boolean replaceWithDataUri(final String dataUri)
+    throws UnsupportedEncodingException {
+    return replaceWithDataUri(dataUri.getBytes("UTF8").length);
+  }
+
+  private boolean isLegacyReplaceDecision() {
+    for (Class<?> type = getClass(); type != CssDataUriPreProcessor.class; type = type.getSuperclass()) {
+      try {
+        type.getDeclaredMethod("replaceWithDataUri", String.class);
+        return true;
+      } catch (final NoSuchMethodException e) {
+        // continue with the superclass
+      }
+    }
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void onProcessCompleted() {
+    processedImages.clear();
+  }
+
   /**
    * {@inheritDoc}
    */
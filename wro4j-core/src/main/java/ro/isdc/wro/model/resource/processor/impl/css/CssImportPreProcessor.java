@@ -7,9 +7,10 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
@@ -17,14 +18,15 @@ import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.config.Context;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.group.processor.PreProcessorExecutor;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
-import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.support.CssImportGraph;
+import ro.isdc.wro.model.resource.processor.support.CssTokenizer;
+import ro.isdc.wro.model.resource.processor.support.CssTokenizer.TokenType;
 import ro.isdc.wro.util.StringUtils;
 
 
@@ -32,6 +34,12 @@ import ro.isdc.wro.util.StringUtils;
  * CssImport Processor responsible for handling css <code>@import</code> statement. It is implemented as both:
  * preProcessor & postProcessor. It is necessary because preProcessor is responsible for updating model with found
  * imported resources, while post processor removes import occurrences.
+ * <p/>
+ * The resources imported by each stylesheet are recorded in a {@link CssImportGraph}, which finds the stylesheets
+ * depending on a partial. The processed content of a partial is not cached, since it depends on more than the partial
+ * itself (ex: the aggregated folder used to rewrite urls or the referred images). The imports of a stylesheet are
+ * assembled for each stylesheet, so that a resource imported more than once (directly or not) is included only the
+ * first time.
  *
  * @author Alex Objelean
  */
@@ -40,19 +48,28 @@ public class CssImportPreProcessor
   implements ResourcePreProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(CssImportPreProcessor.class);
   public static final String ALIAS = "cssImport";
-  /**
-   * Contains a {@link UriLocatorFactory} reference injected externally.
-   */
-  @Inject
-  private UriLocatorFactory uriLocatorFactory;
   @Inject
   private PreProcessorExecutor preProcessorExecutor;
+  private final CssImportGraph importGraph = new CssImportGraph();
   /**
-   * List of processed resources, useful for detecting deep recursion.
+   * The state of the stylesheet processed by the current thread. Imported resources are processed by the same thread,
+   * while the stylesheet is processed.
    */
-  private final List<Resource> processed = new ArrayList<Resource>();
-  /** The url pattern */
-  private static final Pattern PATTERN = Pattern.compile("@import\\s*(?:url\\()?[\"']?([^\"')]+)[\"')]?\\)?;?", Pattern.CASE_INSENSITIVE);
+  private final ThreadLocal<ProcessingPass> currentPass = new ThreadLocal<ProcessingPass>();
+
+  /**
+   * Holds the state of processing a single stylesheet along with all the resources it imports.
+   */
+  private static class ProcessingPass {
+    /**
+     * Uri's of resources already included in the result, useful to skip duplicate imports.
+     */
+    private final Set<String> included = new HashSet<String>();
+    /**
+     * Uri's of the resources currently being imported, useful for detecting deep recursion.
+     */
+    private final List<String> importChain = new ArrayList<String>();
+  }
 
   /**
    * {@inheritDoc}
@@ -61,9 +78,19 @@ public class CssImportPreProcessor
     throws IOException {
     validate();
     try {
-      final String result = parseCss(resource, reader);
-      writer.write(result);
-      processed.clear();
+      final ProcessingPass pass = currentPass.get();
+      if (pass == null) {
+        final ProcessingPass newPass = new ProcessingPass();
+        currentPass.set(newPass);
+        try {
+          writer.write(parseCss(resource, reader, newPass));
+        } finally {
+          currentPass.remove();
+        }
+      } else {
+        // an imported resource: its imports are included by the stylesheet importing it
+        writer.write(parseOwnCss(resource, reader));
+      }
     } finally {
       reader.close();
       writer.close();
@@ -74,72 +101,120 @@ public class CssImportPreProcessor
    * Checks if required fields were injected.
    */
   private void validate() {
-    Validate.notNull(uriLocatorFactory);
     Validate.notNull(preProcessorExecutor);
   }
 
 
+  /**
+   * @return the graph of imported resources, useful to find which stylesheets depend on a changed partial.
+   */
+  public CssImportGraph getImportGraph() {
+    return importGraph;
+  }
+
+
   /**
    * @param resource {@link Resource} to process.
    * @param reader Reader for processed resource.
    * @return css content with all imports processed.
    */
-  private String parseCss(final Resource resource, final Reader reader)
+  private String parseCss(final Resource resource, final Reader reader, final ProcessingPass pass)
+    throws IOException {
+    final String css = parseOwnCss(resource, reader);
+    pass.included.add(resource.getUri());
+    pass.importChain.add(resource.getUri());
+    final boolean minimize = preProcessorExecutor.isMinimize();
+    final StringBuilder sb = new StringBuilder();
+    appendImports(resource.getUri(), minimize, pass, sb);
+    sb.append(css);
+    return sb.toString();
+  }
+
+
+  /**
+   * Records the resources imported by the resource in the import graph.
+   *
+   * @return the css content of the resource without import statements.
+   */
+  private String parseOwnCss(final Resource resource, final Reader reader)
     throws IOException {
-    if (processed.contains(resource)) {
-      LOG.warn("Recursive import detected: " + resource);
-      return "";
+    final StringBuilder css = new StringBuilder();
+    final List<Resource> importsCollector = new ArrayList<Resource>();
+    parseImports(resource, IOUtils.toString(reader), css, importsCollector);
+    final List<String> importUris = new ArrayList<String>();
+    for (final Resource importedResource : importsCollector) {
+      importUris.add(importedResource.getUri());
     }
-    processed.add(resource);
-    final StringBuffer sb = new StringBuffer();
-    final List<Resource> importsCollector = getImportedResources(resource);
-    // for now, minimize always
-    // TODO: find a way to get minimize property dynamically.
-    //groupExtractor.isMinimized(Context.get().getRequest())
-    sb.append(preProcessorExecutor.processAndMerge(importsCollector, true));
+    importGraph.setImports(resource.getUri(), importUris);
     if (!importsCollector.isEmpty()) {
       LOG.debug("Imported resources found : {}", importsCollector.size());
     }
-    sb.append(IOUtils.toString(reader));
     LOG.debug("importsCollector: {}", importsCollector);
-    return removeImportStatements(sb.toString());
+    return css.toString();
   }
 
 
   /**
-   * Removes all @import statements for css.
+   * Appends the processed content of the resources imported by the resource with provided uri, each imported resource
+   * being preceded by the resources it imports.
    */
-  private String removeImportStatements(final String content) {
-    final Matcher m = PATTERN.matcher(content);
-    final StringBuffer sb = new StringBuffer();
-    while (m.find()) {
-      // add and check if already exist
-      m.appendReplacement(sb, "");
+  private void appendImports(final String uri, final boolean minimize, final ProcessingPass pass,
+    final StringBuilder sb)
+    throws IOException {
+    for (final String importUri : importGraph.getImports(uri)) {
+      if (pass.importChain.contains(importUri)) {
+        LOG.warn("Recursive import detected: " + importUri);
+        continue;
+      }
+      if (!pass.included.add(importUri)) {
+        LOG.debug("Resource already imported: {}", importUri);
+        continue;
+      }
+      final String content = getImportedContent(Resource.create(importUri, ResourceType.CSS), minimize);
+      pass.importChain.add(importUri);
+      try {
+        appendImports(importUri, minimize, pass, sb);
+      } finally {
+        pass.importChain.remove(pass.importChain.size() - 1);
+      }
+      sb.append(content);
     }
-    m.appendTail(sb);
-    return sb.toString();
   }
 
+
   /**
-   * Find a set of imported resources inside a given resource.
+   * @return the preprocessed content of the imported resource, without the content of the resources it imports.
    */
-  private List<Resource> getImportedResources(final Resource resource)
+  private String getImportedContent(final Resource importedResource, final boolean minimize)
     throws IOException {
-    // it should be sorted
-    final List<Resource> imports = new ArrayList<Resource>();
-    final String css = IOUtils.toString(uriLocatorFactory.locate(resource.getUri()),
-      Context.get().getConfig().getEncoding());
-    final Matcher m = PATTERN.matcher(css);
-    while (m.find()) {
-      final Resource importedResource = buildImportedResource(resource, m.group(1));
-      // check if already exist
-      if (imports.contains(importedResource)) {
-        LOG.warn("Duplicate imported resource: " + importedResource);
+    return preProcessorExecutor.processAndMerge(Collections.singletonList(importedResource), minimize);
+  }
+
+
+  /**
+   * Tokenize the css once, collecting the imported resources and removing all @import statements.
+   *
+   * @param resource the {@link Resource} containing the css.
+   * @param css the content to parse.
+   * @param cssWithoutImports collects the css content without @import statements.
+   * @param imports collects the found imported resources.
+   */
+  private void parseImports(final Resource resource, final String css, final StringBuilder cssWithoutImports,
+    final List<Resource> imports) {
+    final CssTokenizer tokenizer = new CssTokenizer(css);
+    while (tokenizer.next() != null) {
+      if (tokenizer.getType() == TokenType.IMPORT) {
+        final Resource importedResource = buildImportedResource(resource, tokenizer.getValue());
+        // check if already exist
+        if (imports.contains(importedResource)) {
+          LOG.warn("Duplicate imported resource: " + importedResource);
+        } else {
+          imports.add(importedResource);
+        }
       } else {
-        imports.add(importedResource);
+        tokenizer.appendTo(cssWithoutImports);
       }
     }
-    return imports;
   }
 
 
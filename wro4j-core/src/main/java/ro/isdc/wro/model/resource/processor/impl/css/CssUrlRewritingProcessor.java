@@ -6,9 +6,7 @@ package ro.isdc.wro.model.resource.processor.impl.css;
 import static ro.isdc.wro.util.StringUtils.cleanPath;
 
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -17,10 +15,14 @@ import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.locator.ClasspathUriLocator;
 import ro.isdc.wro.model.resource.locator.ServletContextUriLocator;
 import ro.isdc.wro.model.resource.locator.UriLocator;
 import ro.isdc.wro.model.resource.locator.UrlUriLocator;
+import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.locator.support.ProxyResourceCache;
+import ro.isdc.wro.model.resource.processor.support.AllowedUrlRegistry;
 
 
 /**
@@ -102,6 +104,9 @@ import ro.isdc.wro.model.resource.locator.UrlUriLocator;
  * </tr>
  * </tbody>
  * </table>
+ * <p>
+ * When the proxied resource can be located, its hash is added to the [WRO-PREFIX] url as the version parameter (ex:
+ * [WRO-PREFIX]?v=[HASH]&id=/WEB-INF/1.jpg), allowing the browser to cache it forever.
  *
  * @author Alex Objelean
  * @created Nov 19, 2008
@@ -119,14 +124,25 @@ public class CssUrlRewritingProcessor extends AbstractCssUrlRewritingProcessor {
    */
   public static final String PARAM_RESOURCE_ID = "id";
   /**
-   * A set of allowed url's.
+   * The name of the parameter containing the hash of the proxied resource.
+   */
+  public static final String PARAM_VERSION = "v";
+  private static final Pattern PATTERN_VERSION = Pattern.compile("\\?" + PARAM_VERSION + "=[^&]*&");
+  /**
+   * The allowed url's, rebuilt each time the cache is reloaded. Injected with the registry of the manager, a processor
+   * used outside of a manager having its own registry.
    */
-  private final Set<String> allowedUrls = Collections.synchronizedSet(new HashSet<String>());
+  @Inject
+  private AllowedUrlRegistry allowedUrls = new AllowedUrlRegistry();
   /**
    * Prefix of the path to the overwritten image url. This will be of the following type: "../" or "../.." depending on
    * the depth of the aggregatedFolderPath.
    */
   private String aggregatedPathPrefix;
+  @Inject
+  private UriLocatorFactory uriLocatorFactory;
+  @Inject
+  private ProxyResourceCache proxyResourceCache;
 
 
   /**
@@ -155,7 +171,11 @@ public class CssUrlRewritingProcessor extends AbstractCssUrlRewritingProcessor {
    */
   @Override
   protected void onUrlReplaced(final String replacedUrl) {
-    final String allowedUrl = StringUtils.removeStart(replacedUrl, getUrlPrefix());
+    final String urlPrefix = getUrlPrefix();
+    String allowedUrl = replacedUrl;
+    if (replacedUrl.startsWith(StringUtils.substringBefore(urlPrefix, "?"))) {
+      allowedUrl = StringUtils.removeStart(PATTERN_VERSION.matcher(replacedUrl).replaceFirst("?"), urlPrefix);
+    }
     LOG.debug("adding allowed url: {}", allowedUrl);
     allowedUrls.add(allowedUrl);
   }
@@ -176,7 +196,7 @@ public class CssUrlRewritingProcessor extends AbstractCssUrlRewritingProcessor {
       }
       // Treat WEB-INF special case
       if (ServletContextUriLocator.isProtectedResource(cssUri)) {
-        return getUrlPrefix() + computeNewImageLocation(cssUri, imageUrl);
+        return getProxyUrl(computeNewImageLocation(cssUri, imageUrl));
       }
       // ensure the folder path is set
       setAggregatedFolderPath(Context.get().getAggregatedFolderPath());
@@ -187,12 +207,43 @@ public class CssUrlRewritingProcessor extends AbstractCssUrlRewritingProcessor {
       return computeNewImageLocation(cssUri, imageUrl);
     }
     if (ClasspathUriLocator.isValid(cssUri)) {
-      return getUrlPrefix() + computeNewImageLocation(cssUri, imageUrl);
+      return getProxyUrl(computeNewImageLocation(cssUri, imageUrl));
     }
     throw new WroRuntimeException("Could not replace imageUrl: " + imageUrl + ", contained at location: " + cssUri);
   }
 
 
+  /**
+   * @param location of the proxied resource.
+   * @return the url serving the resource through the wro filter, containing the hash of the resource if it can be
+   *         located. The id parameter remains the last one, since the location may contain a query or a fragment.
+   */
+  private String getProxyUrl(final String location) {
+    final String urlPrefix = getUrlPrefix();
+    final String hash = getProxyResourceHash(location);
+    if (hash == null) {
+      return urlPrefix + location;
+    }
+    return StringUtils.replaceOnce(urlPrefix, "?", "?" + PARAM_VERSION + "=" + hash + "&") + location;
+  }
+
+
+  /**
+   * @return the hash of the proxied resource or null if it cannot be computed.
+   */
+  private String getProxyResourceHash(final String location) {
+    if (uriLocatorFactory == null || proxyResourceCache == null) {
+      return null;
+    }
+    try {
+      return proxyResourceCache.get(location, uriLocatorFactory, !Context.get().getConfig().isDisableCache()).getHash();
+    } catch (final Exception e) {
+      LOG.debug("Cannot compute the hash of " + location, e);
+      return null;
+    }
+  }
+
+
   /**
    * @return the path to be prefixed after css aggregation. This depends on the aggregated css destination folder. This
    *         is a fix for the following issue: {@link http://code.google.com/p/wro4j/issues/detail?id=259}
@@ -263,6 +314,14 @@ public class CssUrlRewritingProcessor extends AbstractCssUrlRewritingProcessor {
   }
 
 
+  /**
+   * @return the registry of the url's which can be served through the wroResources proxy.
+   */
+  public final AllowedUrlRegistry getAllowedUrls() {
+    return allowedUrls;
+  }
+
+
   /**
    * This method has protected modifier in order to be accessed by unit test class.
    *
@@ -6,10 +6,10 @@ package ro.isdc.wro.model.resource.processor.impl.css;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -20,6 +20,8 @@ import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.support.CssTokenizer;
+import ro.isdc.wro.model.resource.processor.support.CssTokenizer.TokenType;
 
 
 /**
@@ -37,65 +39,54 @@ public class CssVariablesProcessor
   private static final Logger LOG = LoggerFactory.getLogger(CssVariablesProcessor.class);
   public static final String ALIAS = "cssVariables";
   /**
-   * Pattern used to find variables definition. For instance:<br/>
-   * <code>
-   *
-   * @variables { var1: white; var2: #fff; } </code>
-   */
-  private static final String REGEX_VARIABLES_DEFINITION = "@variables\\s*\\{(.*?)\\}";
-  /**
-   * Pattern used to parse variables body & to extract mapping between variable & its value. For instance:<br/>
+   * Extract variables map from variables body. For instance:<br/>
    * <code>
    *   corporateLogo: url(test.png);
    *   mainBackground: yellow;
    * </code>
-   */
-  private static final String REGEX_VARIABLES_BODY = "([^:\\s]*)\\s*:\\s*(.+?);";
-  /**
-   * Pattern used to parse variables body & to extract mapping between variable & its value. For instance:<br/>
-   * <code>
-   *   var(corporateLogo);
-   * </code>
-   */
-  private static final String REGEX_VARIABLE_HOLDER = "var\\s*\\((.+?)\\)";
-
-  /**
-   * Compiled pattern for REGEX_VARIABLES_DEFINITION regex.
-   */
-  private static final Pattern PATTERN_VARIABLES_DEFINITION = Pattern.compile(REGEX_VARIABLES_DEFINITION, Pattern.CASE_INSENSITIVE
-    | Pattern.DOTALL);
-  /**
-   * Compiled pattern for REGEX_VARIABLES_BODY pattern.
-   */
-  private static final Pattern PATTERN_VARIABLES_BODY = Pattern.compile(REGEX_VARIABLES_BODY, Pattern.CASE_INSENSITIVE);
-  /**
-   * Compiled pattern for REGEX_VARIABLE_HOLDER pattern.
-   */
-  private static final Pattern PATTERN_VARIABLE_HOLDER = Pattern.compile(REGEX_VARIABLE_HOLDER, Pattern.CASE_INSENSITIVE);
-
-
-  /**
-   * Extract variables map from variables body.
    *
    * @param variablesBody string containing variables mappings.
    * @return map with extracted variables.
    */
   private Map<String, String> extractVariables(final String variablesBody) {
     final Map<String, String> map = new HashMap<String, String>();
-    final Matcher m = PATTERN_VARIABLES_BODY.matcher(variablesBody);
     LOG.debug("parsing variables body");
-    while (m.find()) {
-      final String key = m.group(1);
-      final String value = m.group(2);
-      if (map.containsKey(key)) {
-        LOG.warn("A duplicate variable name found with name: {} and value: {}.", key, value);
+    int declarationStart = 0;
+    int depth = 0;
+    for (int i = 0; i <= variablesBody.length(); i++) {
+      final char c = i < variablesBody.length() ? variablesBody.charAt(i) : ';';
+      if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == ';' && depth <= 0) {
+        addVariable(map, variablesBody.substring(declarationStart, i));
+        declarationStart = i + 1;
+        depth = 0;
       }
-      map.put(key, value);
     }
     return map;
   }
 
 
+  /**
+   * Adds to the map the variable defined by a declaration of the following form: <code>name: value</code>.
+   */
+  private void addVariable(final Map<String, String> map, final String declaration) {
+    final int colonIndex = declaration.indexOf(':');
+    if (colonIndex > 0) {
+      final String key = declaration.substring(0, colonIndex).trim();
+      final String value = declaration.substring(colonIndex + 1).trim();
+      if (key.length() > 0 && value.length() > 0) {
+        if (map.containsKey(key)) {
+          LOG.warn("A duplicate variable name found with name: {} and value: {}.", key, value);
+        }
+        map.put(key, value);
+      }
+    }
+  }
+
+
   /**
    * {@inheritDoc}
    */
@@ -122,53 +113,64 @@ public class CssVariablesProcessor
 
 
   /**
-   * Parse css, find all defined variables & replace them.
+   * Parse css, find all defined variables & replace them. The css is tokenized once: the variables definitions (<code>
+   * @variables { var1: white; var2: #fff; }</code>) are collected and removed, while the positions of variable holders
+   * (<code>var(var1)</code>) are remembered and replaced at the end, because a variable can be used before it is
+   * defined.
    *
    * @param css to parse.
    */
   private String parseCss(final String css) {
     // map containing variables & their values
     final Map<String, String> map = new HashMap<String, String>();
-    final StringBuffer sb = new StringBuffer();
-    final Matcher m = PATTERN_VARIABLES_DEFINITION.matcher(css);
-    while (m.find()) {
-      final String variablesBody = m.group(1);
-      // LOG.debug("variables body: " + variablesBody);
-      // extract variables
-      map.putAll(extractVariables(variablesBody));
-      // remove variables definition
-      m.appendReplacement(sb, "");
+    final StringBuilder sb = new StringBuilder(css.length());
+    // variable holders to replace: pairs of (index in sb, variable name)
+    final List<Integer> holderIndexes = new ArrayList<Integer>();
+    final List<String> holderNames = new ArrayList<String>();
+    final CssTokenizer tokenizer = new CssTokenizer(css);
+    while (tokenizer.next() != null) {
+      if (tokenizer.getType() == TokenType.VARIABLES) {
+        map.putAll(extractVariables(tokenizer.getValue()));
+      } else if (tokenizer.getType() == TokenType.VAR) {
+        holderIndexes.add(sb.length());
+        holderNames.add(tokenizer.getValue());
+        tokenizer.appendTo(sb);
+      } else {
+        tokenizer.appendTo(sb);
+      }
     }
-    m.appendTail(sb);
-
-    final String result = replaceVariables(sb.toString(), map);
-    // LOG.debug("replaced variables: " + result);
-    return result;
+    return replaceVariables(sb, holderIndexes, holderNames, map);
   }
 
 
   /**
    * Replace variables from css with provided variables map.
    *
-   * @param cleanCss used to replace variable placeholders.
+   * @param css containing variable holders.
+   * @param holderIndexes the indexes of variable holders inside the css.
+   * @param holderNames names of the variables used by each holder.
    * @param variables map of variables used for substitution.
    * @return css with all variables replaced.
    */
-  private String replaceVariables(final String css, final Map<String, String> variables) {
-    final StringBuffer sb = new StringBuffer();
-    final Matcher m = PATTERN_VARIABLE_HOLDER.matcher(css);
-    while (m.find()) {
-      final String oldMatch = m.group();
-      final String variableName = m.group(1);
+  private String replaceVariables(final StringBuilder css, final List<Integer> holderIndexes,
+    final List<String> holderNames, final Map<String, String> variables) {
+    final StringBuilder sb = new StringBuilder(css.length());
+    int lastIndex = 0;
+    for (int i = 0; i < holderIndexes.size(); i++) {
+      final int holderStart = holderIndexes.get(i);
+      final int holderEnd = css.indexOf(")", holderStart) + 1;
+      final String variableName = holderNames.get(i);
       final String variableValue = variables.get(variableName);
+      sb.append(css, lastIndex, holderStart);
       if (variableValue != null) {
-        final String newReplacement = oldMatch.replace(oldMatch, variableValue);
-        m.appendReplacement(sb, newReplacement.trim());
+        sb.append(variableValue);
       } else {
         LOG.warn("No variable with name " + variableName + " was found!");
+        sb.append(css, holderStart, holderEnd);
       }
+      lastIndex = holderEnd;
     }
-    m.appendTail(sb);
+    sb.append(css, lastIndex, css.length());
     return sb.toString();
   }
 }
@@ -45,6 +45,7 @@ public class DuplicatesAwareCssDataUriPreProcessor
    */
   @Override
   protected void onProcessCompleted() {
+    super.onProcessCompleted();
     imageUrls.clear();
   }
 }
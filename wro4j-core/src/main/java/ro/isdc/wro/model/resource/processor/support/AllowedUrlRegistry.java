@@ -0,0 +1,255 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Holds the urls which can be served through the wroResources proxy (the urls rewritten by the css url rewriting
+ * processor). The urls are stored per generation: a generation is started before all the bundles are processed again
+ * (when the cache is reloaded) and completed after, replacing the urls of the previous generation. This way, the urls
+ * which are no longer referred by the bundles are discarded and the registry doesn't grow for the lifetime of the
+ * application.
+ * <p/>
+ * The urls of a completed generation are stored in an immutable prefix tree of path segments (each distinct segment is
+ * stored once), which can be read without locking. The urls added since are kept in a concurrent set, which is merged
+ * into the tree when it becomes large.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class AllowedUrlRegistry {
+  private static final Logger LOG = LoggerFactory.getLogger(AllowedUrlRegistry.class);
+  /**
+   * The maximum number of urls added since the tree was built, before being merged into the tree.
+   */
+  private static final int MAX_PENDING = 256;
+  private static final char SEPARATOR = '/';
+  private volatile Node tree = Node.EMPTY;
+  private volatile Map<String, Boolean> pending = new ConcurrentHashMap<String, Boolean>();
+  /**
+   * The urls added since the current generation was started, null if no generation is started.
+   */
+  private Set<String> generation;
+
+  /**
+   * A node of the prefix tree, holding the sorted path segments which follow it.
+   */
+  private static final class Node {
+    private static final Node EMPTY = new Node(new String[0], new Node[0], false);
+    private final String[] segments;
+    private final Node[] children;
+    /**
+     * True if the path to this node is an url.
+     */
+    private final boolean terminal;
+
+    private Node(final String[] segments, final Node[] children, final boolean terminal) {
+      this.segments = segments;
+      this.children = children;
+      this.terminal = terminal;
+    }
+
+    private Node getChild(final String url, final int start, final int end) {
+      int low = 0;
+      int high = segments.length - 1;
+      while (low <= high) {
+        final int middle = (low + high) >>> 1;
+        final int comparison = compare(segments[middle], url, start, end);
+        if (comparison < 0) {
+          low = middle + 1;
+        } else if (comparison > 0) {
+          high = middle - 1;
+        } else {
+          return children[middle];
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Compares the segment with a region of the url, like {@link String#compareTo(String)} does.
+     */
+    private static int compare(final String segment, final String url, final int start, final int end) {
+      final int length = Math.min(segment.length(), end - start);
+      for (int i = 0; i < length; i++) {
+        final int difference = segment.charAt(i) - url.charAt(start + i);
+        if (difference != 0) {
+          return difference;
+        }
+      }
+      return segment.length() - (end - start);
+    }
+
+    private void collect(final String prefix, final Collection<String> urls) {
+      if (terminal) {
+        urls.add(prefix);
+      }
+      for (int i = 0; i < segments.length; i++) {
+        children[i].collect(prefix == null ? segments[i] : prefix + SEPARATOR + segments[i], urls);
+      }
+    }
+  }
+
+  /**
+   * @param url to check.
+   * @return true if the url was added to the current or to the previous generation.
+   */
+  public boolean contains(final String url) {
+    if (url == null) {
+      return false;
+    }
+    return contains(tree, url) || pending.containsKey(url);
+  }
+
+  private static boolean contains(final Node tree, final String url) {
+    Node node = tree;
+    int start = 0;
+    while (node != null) {
+      final int end = url.indexOf(SEPARATOR, start);
+      node = node.getChild(url, start, end < 0 ? url.length() : end);
+      if (end < 0) {
+        return node != null && node.terminal;
+      }
+      start = end + 1;
+    }
+    return false;
+  }
+
+  /**
+   * Allows the provided url.
+   *
+   * @param url to add.
+   */
+  public void add(final String url) {
+    Validate.notNull(url);
+    final boolean known = contains(tree, url);
+    synchronized (this) {
+      if (generation != null) {
+        generation.add(url);
+      }
+      if (!known && pending.put(url, Boolean.TRUE) == null && pending.size() > MAX_PENDING) {
+        final Set<String> urls = toSet(tree);
+        urls.addAll(pending.keySet());
+        publish(urls);
+      }
+    }
+  }
+
+  /**
+   * Starts a new generation: the urls added from now on replace the current urls when
+   * {@link #completeGeneration()} is called. The current urls remain allowed until then, since the bundles referring
+   * them are still served. Starting a generation again discards the urls added to the previous unfinished generation.
+   */
+  public synchronized void startGeneration() {
+    generation = new HashSet<String>();
+  }
+
+  /**
+   * Replaces the current urls with the urls added since {@link #startGeneration()} was called. Does nothing if no
+   * generation is started.
+   */
+  public synchronized void completeGeneration() {
+    if (generation != null) {
+      LOG.debug("Completed generation of {} allowed urls", generation.size());
+      publish(generation);
+      generation = null;
+    }
+  }
+
+  /**
+   * Discards the urls added since {@link #startGeneration()} was called, keeping the current urls. Useful when the
+   * bundles could not be all processed again. Does nothing if no generation is started.
+   */
+  public synchronized void abortGeneration() {
+    if (generation != null) {
+      LOG.debug("Aborted generation of {} allowed urls", generation.size());
+      generation = null;
+    }
+  }
+
+  /**
+   * @return the number of allowed urls.
+   */
+  public int size() {
+    return toSet(tree).size() + pending.size();
+  }
+
+  /**
+   * Builds the tree of the provided urls and clears the pending urls. Must be called while holding the lock.
+   */
+  private void publish(final Collection<String> urls) {
+    final Map<String, String> segmentPool = new HashMap<String, String>();
+    final Node root = build(urls, segmentPool);
+    tree = root;
+    pending = new ConcurrentHashMap<String, Boolean>();
+  }
+
+  /**
+   * @param urls which have the same prefix, without this prefix.
+   */
+  private static Node build(final Collection<String> urls, final Map<String, String> segmentPool) {
+    boolean terminal = false;
+    final TreeMap<String, List<String>> suffixesBySegment = new TreeMap<String, List<String>>();
+    for (final String url : urls) {
+      if (url == null) {
+        terminal = true;
+        continue;
+      }
+      final int index = url.indexOf(SEPARATOR);
+      final String segment = index < 0 ? url : url.substring(0, index);
+      List<String> suffixes = suffixesBySegment.get(segment);
+      if (suffixes == null) {
+        suffixes = new ArrayList<String>();
+        suffixesBySegment.put(segment, suffixes);
+      }
+      suffixes.add(index < 0 ? null : url.substring(index + 1));
+    }
+    final String[] segments = new String[suffixesBySegment.size()];
+    final Node[] children = new Node[segments.length];
+    int i = 0;
+    for (final Map.Entry<String, List<String>> entry : suffixesBySegment.entrySet()) {
+      segments[i] = intern(entry.getKey(), segmentPool);
+      children[i++] = build(entry.getValue(), segmentPool);
+    }
+    return segments.length == 0 && !terminal ? Node.EMPTY : new Node(segments, children, terminal);
+  }
+
+  private static String intern(final String segment, final Map<String, String> segmentPool) {
+    final String interned = segmentPool.get(segment);
+    if (interned != null) {
+      return interned;
+    }
+    segmentPool.put(segment, segment);
+    return segment;
+  }
+
+  private static Set<String> toSet(final Node tree) {
+    final Set<String> urls = new HashSet<String>();
+    tree.collect(null, urls);
+    return urls;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    final Set<String> urls = toSet(tree);
+    urls.addAll(pending.keySet());
+    return urls.toString();
+  }
+}
@@ -0,0 +1,374 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.apache.commons.lang3.Validate;
+
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+
+
+/**
+ * A character level state machine which removes comments from javascript or css content. Unlike regular expressions,
+ * it is aware of string literals (and regular expression literals for javascript), so their content is never
+ * corrupted. The content is processed in a single linear pass over a reusable <code>char[]</code> buffer, thus it can
+ * stream content of any size.
+ * <p/>
+ * Besides removing comments, the stripper also removes the whitespaces preceding a removed comment and all blank
+ * lines. A removed comment separating two identifiers is replaced with a space, so the code keeps its meaning.
+ * <p/>
+ * This class is not thread-safe, create a new instance for each content to strip.
+ */
+public class CommentStripper {
+  private static final int BUFFER_SIZE = 8 * 1024;
+  /**
+   * Characters after which a slash starts a regular expression literal instead of a division.
+   */
+  private static final String REGEX_PRECEDING_CHARS = "(,=:[!&|?{};+-*%<>~^";
+  /**
+   * Keywords after which a slash starts a regular expression literal.
+   */
+  private static final String[] REGEX_PRECEDING_KEYWORDS = {
+    "return", "typeof", "instanceof", "in", "of", "new", "delete", "void", "throw", "case", "do", "else"
+  };
+
+  private static final int CODE = 0;
+  private static final int SLASH = 1;
+  private static final int LINE_COMMENT = 2;
+  private static final int BLOCK_COMMENT = 3;
+  private static final int BLOCK_COMMENT_STAR = 4;
+  private static final int STRING = 5;
+  private static final int REGEX = 6;
+  private static final int REGEX_CLASS = 7;
+
+  private final boolean javaScript;
+  private final boolean stripLineComments;
+  private final boolean stripBlockComments;
+
+  private int state = CODE;
+  /**
+   * The quote character of the current string literal.
+   */
+  private char quote;
+  /**
+   * True if the previous character was a backslash inside a string or regular expression literal.
+   */
+  private boolean escaped;
+  /**
+   * The last non whitespace character of the code (comments excluded).
+   */
+  private char lastSignificant;
+  /**
+   * The last identifier of the code, valid only when {@link #lastSignificant} is an identifier character.
+   */
+  private final StringBuilder lastWord = new StringBuilder();
+  /**
+   * True if a whitespace or a comment was found after {@link #lastWord}, thus the next identifier character starts a
+   * new word.
+   */
+  private boolean wordEnded;
+  /**
+   * True if the comment currently scanned is kept in the output.
+   */
+  private boolean keepComment;
+  /**
+   * True if a removed block comment was preceded by an identifier character. If the next code character is also an
+   * identifier character, a space must be inserted between them.
+   */
+  private boolean separatorNeeded;
+  /**
+   * Output of the current line. Kept in order to remove the whitespaces preceding a removed comment and the blank lines.
+   */
+  private final StringBuilder line = new StringBuilder();
+
+
+  /**
+   * @param javaScript true if the content is javascript, false for css. Css has no single line comments and no regular
+   *        expression literals.
+   * @param stripLineComments true if <code>// ...</code> comments should be removed.
+   * @param stripBlockComments true if <code>/* ... *&#47;</code> comments should be removed.
+   */
+  public CommentStripper(final boolean javaScript, final boolean stripLineComments, final boolean stripBlockComments) {
+    this.javaScript = javaScript;
+    this.stripLineComments = stripLineComments;
+    this.stripBlockComments = stripBlockComments;
+  }
+
+
+  /**
+   * @return true if the resource should be treated as javascript. When the resource is unknown (the processor is used
+   *         as a post processor), the type of the post processed group is used. If that is unknown too, javascript is
+   *         assumed.
+   */
+  public static boolean isJavaScript(final Resource resource) {
+    if (resource != null) {
+      return resource.getType() != ResourceType.CSS;
+    }
+    return !Context.isContextSet() || Context.get().getPostProcessedType() != ResourceType.CSS;
+  }
+
+
+  /**
+   * Strips the comments from provided content.
+   */
+  public String strip(final String content)
+    throws IOException {
+    final StringWriter writer = new StringWriter(content.length());
+    strip(new StringReader(content), writer);
+    return writer.toString();
+  }
+
+
+  /**
+   * Strips the comments from the content read from the reader and writes the result to the writer. Neither the reader
+   * nor the writer are closed.
+   */
+  public void strip(final Reader reader, final Writer writer)
+    throws IOException {
+    Validate.notNull(reader);
+    Validate.notNull(writer);
+    final char[] buffer = new char[BUFFER_SIZE];
+    int read;
+    while ((read = reader.read(buffer)) != -1) {
+      for (int i = 0; i < read; i++) {
+        accept(buffer[i], writer);
+      }
+    }
+    finish(writer);
+  }
+
+
+  /**
+   * Process a single character.
+   */
+  private void accept(final char c, final Writer writer)
+    throws IOException {
+    switch (state) {
+      case CODE:
+        acceptCode(c, writer);
+        break;
+      case SLASH:
+        acceptSlash(c, writer);
+        break;
+      case LINE_COMMENT:
+        if (c == '\r' || c == '\n') {
+          state = CODE;
+          acceptCode(c, writer);
+        } else {
+          emitComment(c);
+        }
+        break;
+      case BLOCK_COMMENT:
+        emitComment(c);
+        if (c == '*') {
+          state = BLOCK_COMMENT_STAR;
+        }
+        break;
+      case BLOCK_COMMENT_STAR:
+        emitComment(c);
+        if (c == '/') {
+          state = CODE;
+          separatorNeeded = !keepComment && line.length() > 0 && isIdentifierChar(line.charAt(line.length() - 1));
+        } else if (c != '*') {
+          state = BLOCK_COMMENT;
+        }
+        break;
+      case STRING:
+        emit(c, writer);
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == quote || c == '\n') {
+          // an unterminated string ends at the end of line
+          state = CODE;
+          lastSignificant = quote;
+        }
+        break;
+      case REGEX:
+        emit(c, writer);
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == '[') {
+          state = REGEX_CLASS;
+        } else if (c == '/' || c == '\n') {
+          state = CODE;
+          // the regular expression is an operand, like a string
+          lastSignificant = '"';
+        }
+        break;
+      case REGEX_CLASS:
+        emit(c, writer);
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == ']') {
+          state = REGEX;
+        } else if (c == '\n') {
+          state = CODE;
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unknown state: " + state);
+    }
+  }
+
+
+  private void acceptCode(final char c, final Writer writer)
+    throws IOException {
+    if (separatorNeeded) {
+      separatorNeeded = false;
+      if (isIdentifierChar(c)) {
+        emit(' ', writer);
+      }
+    }
+    if (c == '/') {
+      state = SLASH;
+      return;
+    }
+    if (c == '"' || c == '\'') {
+      state = STRING;
+      quote = c;
+      escaped = false;
+    }
+    updateLastSignificant(c);
+    emit(c, writer);
+  }
+
+
+  /**
+   * Decide what the previously found slash starts.
+   */
+  private void acceptSlash(final char c, final Writer writer)
+    throws IOException {
+    if (c == '*') {
+      state = BLOCK_COMMENT;
+      startComment(stripBlockComments);
+      emitComment('/');
+      emitComment(c);
+    } else if (c == '/' && javaScript) {
+      state = LINE_COMMENT;
+      startComment(stripLineComments);
+      emitComment('/');
+      emitComment(c);
+    } else {
+      if (javaScript && isRegexAllowed()) {
+        emit('/', writer);
+        state = REGEX;
+        escaped = false;
+        // the current character is the first character of the regular expression
+        accept(c, writer);
+      } else {
+        state = CODE;
+        updateLastSignificant('/');
+        emit('/', writer);
+        accept(c, writer);
+      }
+    }
+  }
+
+
+  private void startComment(final boolean strip) {
+    keepComment = !strip;
+    wordEnded = true;
+    if (strip) {
+      // remove whitespaces preceding the comment
+      int length = line.length();
+      while (length > 0 && (line.charAt(length - 1) == ' ' || line.charAt(length - 1) == '\t')) {
+        length--;
+      }
+      line.setLength(length);
+    }
+  }
+
+
+  private boolean isRegexAllowed() {
+    if (lastSignificant == 0 || REGEX_PRECEDING_CHARS.indexOf(lastSignificant) >= 0) {
+      return true;
+    }
+    if (isIdentifierChar(lastSignificant)) {
+      for (final String keyword : REGEX_PRECEDING_KEYWORDS) {
+        if (keyword.contentEquals(lastWord)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+
+  private void updateLastSignificant(final char c) {
+    if (Character.isWhitespace(c)) {
+      wordEnded = true;
+      return;
+    }
+    if (isIdentifierChar(c)) {
+      if (wordEnded || !isIdentifierChar(lastSignificant)) {
+        lastWord.setLength(0);
+      }
+      lastWord.append(c);
+    }
+    wordEnded = false;
+    lastSignificant = c;
+  }
+
+
+  private static boolean isIdentifierChar(final char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+  }
+
+
+  private void emitComment(final char c) {
+    if (keepComment) {
+      line.append(c);
+    }
+  }
+
+
+  /**
+   * Adds a character to the current line. When the line is complete it is written, unless it is blank.
+   */
+  private void emit(final char c, final Writer writer)
+    throws IOException {
+    line.append(c);
+    if (c == '\n') {
+      if (!isBlank(line)) {
+        writer.append(line);
+      }
+      line.setLength(0);
+    }
+  }
+
+
+  private static boolean isBlank(final CharSequence line) {
+    for (int i = 0; i < line.length(); i++) {
+      final char c = line.charAt(i);
+      if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  private void finish(final Writer writer)
+    throws IOException {
+    if (state == SLASH) {
+      line.append('/');
+    }
+    writer.append(line);
+    line.setLength(0);
+    state = CODE;
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.Validate;
+
+
+/**
+ * Holds the dependency graph of css resources created by <code>@import</code> statements. The graph finds the
+ * stylesheets depending on an imported resource (partial), that is, importing it directly or not.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class CssImportGraph {
+  /**
+   * Nodes of the graph, keyed by resource uri.
+   */
+  private final Map<String, Node> nodes = new HashMap<String, Node>();
+  /**
+   * Uri's of the resources importing directly a resource, keyed by the uri of the imported resource.
+   */
+  private final Map<String, Set<String>> importedBy = new HashMap<String, Set<String>>();
+
+  /**
+   * A resource of the graph.
+   */
+  private static class Node {
+    private List<String> imports = Collections.emptyList();
+  }
+
+  private Node getOrCreateNode(final String uri) {
+    Node node = nodes.get(uri);
+    if (node == null) {
+      node = new Node();
+      nodes.put(uri, node);
+    }
+    return node;
+  }
+
+  /**
+   * Records the resources imported directly by a css resource.
+   *
+   * @param uri of the css resource.
+   * @param imports uri's of imported resources, in import order.
+   */
+  public synchronized void setImports(final String uri, final List<String> imports) {
+    Validate.notNull(uri);
+    Validate.notNull(imports);
+    final Node node = getOrCreateNode(uri);
+    if (!node.imports.equals(imports)) {
+      for (final String importUri : node.imports) {
+        final Set<String> importers = importedBy.get(importUri);
+        importers.remove(uri);
+        if (importers.isEmpty()) {
+          importedBy.remove(importUri);
+        }
+      }
+      node.imports = Collections.unmodifiableList(new ArrayList<String>(imports));
+      for (final String importUri : node.imports) {
+        Set<String> importers = importedBy.get(importUri);
+        if (importers == null) {
+          importers = new HashSet<String>();
+          importedBy.put(importUri, importers);
+        }
+        importers.add(uri);
+      }
+    }
+  }
+
+  /**
+   * @return the uri's of resources imported directly by the resource with provided uri.
+   */
+  public synchronized List<String> getImports(final String uri) {
+    final Node node = nodes.get(uri);
+    return node == null ? Collections.<String>emptyList() : node.imports;
+  }
+
+  /**
+   * Finds all the resources depending on the resource with provided uri, that is, all the resources importing it
+   * directly or through other imported resources.
+   *
+   * @param uri of the resource (usually a partial).
+   * @return uri's of dependent resources.
+   */
+  public synchronized Set<String> getDependents(final String uri) {
+    final Set<String> dependents = collectDependents(uri);
+    dependents.remove(uri);
+    return dependents;
+  }
+
+  /**
+   * @return true if the resource imports itself, directly or through other imported resources.
+   */
+  public synchronized boolean isRecursive(final String uri) {
+    return collectDependents(uri).contains(uri);
+  }
+
+  private Set<String> collectDependents(final String uri) {
+    final Set<String> dependents = new LinkedHashSet<String>();
+    final List<String> toVisit = new ArrayList<String>();
+    toVisit.add(uri);
+    while (!toVisit.isEmpty()) {
+      final String current = toVisit.remove(toVisit.size() - 1);
+      final Set<String> importers = importedBy.get(current);
+      if (importers != null) {
+        for (final String importer : importers) {
+          if (dependents.add(importer)) {
+            toVisit.add(importer);
+          }
+        }
+      }
+    }
+    return dependents;
+  }
+
+  /**
+   * Removes all the nodes of the graph.
+   */
+  public synchronized void clear() {
+    nodes.clear();
+    importedBy.clear();
+  }
+}
@@ -0,0 +1,19 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+/**
+ * Rewrites tokens produced by {@link CssTokenizer}. Several transformers can be fused into a single tokenization pass
+ * using {@link CssTokenizer#transform(String, CssTokenTransformer...)}.
+ */
+public interface CssTokenTransformer {
+  /**
+   * Handle the current token of the tokenizer.
+   *
+   * @param tokenizer positioned on the token to transform.
+   * @param out where the transformed token should be written.
+   * @return true if the token was handled (and written to out), false if the token should be left unchanged.
+   */
+  boolean transform(CssTokenizer tokenizer, StringBuilder out);
+}
@@ -0,0 +1,588 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import org.apache.commons.lang3.Validate;
+
+
+/**
+ * A hand-written pull tokenizer for css content. It scans the content exactly once and splits it into a stream of
+ * tokens which are interesting for css processors (comments, strings, <code>url(..)</code>, <code>src='..'</code>,
+ * <code>@import</code>, <code>@variables {..}</code> and <code>var(..)</code>). Everything else is reported as
+ * {@link TokenType#TEXT}. No objects are created per token: the current token is described by offsets in the scanned
+ * buffer.
+ * <p/>
+ * The tokenizer never backtracks more than the length of a failed token candidate, so the scan is linear even for
+ * malformed input (unterminated strings, comments or <code>url(</code> constructions).
+ * <p/>
+ * This class is not thread-safe, create a new instance for each content to scan.
+ */
+public final class CssTokenizer {
+  /**
+   * Types of tokens produced by the tokenizer.
+   */
+  public static enum TokenType {
+    /**
+     * Any content which is not recognized as one of the other types.
+     */
+    TEXT,
+    /**
+     * A <code>/* .. *&#47;</code> comment.
+     */
+    COMMENT,
+    /**
+     * A single or double quoted string. The value excludes the quotes.
+     */
+    STRING,
+    /**
+     * <code>url(..)</code> construction. The content is everything between parenthesis, the value is the url itself
+     * (without whitespaces and quotes).
+     */
+    URL,
+    /**
+     * <code>src='..'</code> attribute used by IE filters. Both the content and the value are everything between the
+     * quotes.
+     */
+    SRC,
+    /**
+     * <code>@import</code> statement, including the terminating semicolon. The value is the imported url.
+     */
+    IMPORT,
+    /**
+     * <code>@variables { .. }</code> block. The value is the body of the block.
+     */
+    VARIABLES,
+    /**
+     * <code>var(..)</code> variable holder. The value is the name of the variable.
+     */
+    VAR
+  }
+
+  private final char[] chars;
+  private final int length;
+  /**
+   * Position where the next token starts.
+   */
+  private int pos;
+  private TokenType type;
+  private int start;
+  private int end;
+  private int contentStart;
+  private int contentEnd;
+  private int valueStart;
+  private int valueEnd;
+  /**
+   * The lowest position from which a closing curly brace is known to be missing. Avoids rescanning the same content
+   * when several unterminated <code>@variables</code> blocks are found.
+   */
+  private int noClosingBraceFrom = Integer.MAX_VALUE;
+  /**
+   * A special token found while scanning a text token. It is kept in order to avoid scanning it twice.
+   */
+  private TokenType pendingType;
+  private int pendingStart;
+  private int pendingEnd;
+  private int pendingContentStart;
+  private int pendingContentEnd;
+  private int pendingValueStart;
+  private int pendingValueEnd;
+
+
+  /**
+   * @param css the content to tokenize.
+   */
+  public CssTokenizer(final String css) {
+    this(css.toCharArray());
+  }
+
+
+  /**
+   * @param chars the content to tokenize. The array is not copied and must not be changed during tokenization.
+   */
+  public CssTokenizer(final char[] chars) {
+    Validate.notNull(chars);
+    this.chars = chars;
+    this.length = chars.length;
+  }
+
+
+  /**
+   * Tokenize the css and apply all transformers in a single pass. For each token, the transformers are asked in
+   * order to handle it; the first one which handles the token is responsible for writing it. Tokens not handled by any
+   * transformer are copied unchanged.
+   *
+   * @param css to transform.
+   * @param transformers used to rewrite the tokens.
+   * @return the transformed css.
+   */
+  public static String transform(final String css, final CssTokenTransformer... transformers) {
+    final CssTokenizer tokenizer = new CssTokenizer(css);
+    final StringBuilder out = new StringBuilder(css.length());
+    while (tokenizer.next() != null) {
+      boolean handled = false;
+      for (int i = 0; i < transformers.length && !handled; i++) {
+        handled = transformers[i].transform(tokenizer, out);
+      }
+      if (!handled) {
+        tokenizer.appendTo(out);
+      }
+    }
+    return out.toString();
+  }
+
+
+  /**
+   * Advance to the next token.
+   *
+   * @return the type of the found token or null if the end of content is reached.
+   */
+  public TokenType next() {
+    if (pendingType != null) {
+      start = pendingStart;
+      setToken(pendingType, pendingEnd, pendingContentStart, pendingContentEnd, pendingValueStart, pendingValueEnd);
+      pendingType = null;
+    } else if (pos >= length) {
+      type = null;
+      start = end = length;
+      return null;
+    } else {
+      start = pos;
+      if (!scanSpecialToken(pos)) {
+        scanText();
+      }
+    }
+    pos = end;
+    return type;
+  }
+
+
+  /**
+   * Consume text until a special token starts. The found special token is remembered and returned by the next call
+   * of {@link #next()}.
+   */
+  private void scanText() {
+    final int textStart = pos;
+    int i = pos + 1;
+    while (i < length && !isSpecialTokenStart(i)) {
+      i++;
+    }
+    if (i < length) {
+      pendingType = type;
+      pendingStart = i;
+      pendingEnd = end;
+      pendingContentStart = contentStart;
+      pendingContentEnd = contentEnd;
+      pendingValueStart = valueStart;
+      pendingValueEnd = valueEnd;
+    }
+    start = textStart;
+    setToken(TokenType.TEXT, i, textStart, i, textStart, i);
+  }
+
+
+  /**
+   * @return type of the current token or null if the tokenization is not started or finished.
+   */
+  public TokenType getType() {
+    return type;
+  }
+
+
+  /**
+   * @return index of the first character of the current token.
+   */
+  public int getStart() {
+    return start;
+  }
+
+
+  /**
+   * @return index after the last character of the current token.
+   */
+  public int getEnd() {
+    return end;
+  }
+
+
+  /**
+   * @return index where the content (ex: everything between the parenthesis of an url) of the current token starts.
+   */
+  public int getContentStart() {
+    return contentStart;
+  }
+
+
+  /**
+   * @return index where the content of the current token ends.
+   */
+  public int getContentEnd() {
+    return contentEnd;
+  }
+
+
+  /**
+   * @return index where the value (ex: the url without quotes) of the current token starts.
+   */
+  public int getValueStart() {
+    return valueStart;
+  }
+
+
+  /**
+   * @return index where the value of the current token ends.
+   */
+  public int getValueEnd() {
+    return valueEnd;
+  }
+
+
+  /**
+   * @return the full text of the current token.
+   */
+  public String getText() {
+    return new String(chars, start, end - start);
+  }
+
+
+  /**
+   * @return the value of the current token.
+   */
+  public String getValue() {
+    return new String(chars, valueStart, valueEnd - valueStart);
+  }
+
+
+  /**
+   * @param index of the character to return.
+   * @return the character at the provided index or 0 if the index is outside of scanned content.
+   */
+  public char charAt(final int index) {
+    return index >= 0 && index < length ? chars[index] : 0;
+  }
+
+
+  /**
+   * Appends the current token unchanged.
+   */
+  public void appendTo(final StringBuilder out) {
+    out.append(chars, start, end - start);
+  }
+
+
+  /**
+   * Appends the current token, replacing its content with provided replacement. Useful for url rewriting, where only
+   * the content between parenthesis or quotes is changed.
+   */
+  public void appendWithContent(final StringBuilder out, final String replacement) {
+    out.append(chars, start, contentStart - start);
+    out.append(replacement);
+    out.append(chars, contentEnd, end - contentEnd);
+  }
+
+
+  /**
+   * Appends a range of the scanned content.
+   */
+  public void appendRange(final StringBuilder out, final int from, final int to) {
+    out.append(chars, from, to - from);
+  }
+
+
+  private void setToken(final TokenType type, final int end, final int contentStart, final int contentEnd,
+    final int valueStart, final int valueEnd) {
+    this.type = type;
+    this.end = end;
+    this.contentStart = contentStart;
+    this.contentEnd = contentEnd;
+    this.valueStart = valueStart;
+    this.valueEnd = valueEnd;
+  }
+
+
+  /**
+   * Quick check performed for each text character. Only few characters can start a special token, for all others no
+   * further check is done.
+   */
+  private boolean isSpecialTokenStart(final int i) {
+    switch (chars[i]) {
+      case '/':
+      case '"':
+      case '\'':
+      case '@':
+      case 'u':
+      case 'U':
+      case 's':
+      case 'S':
+      case 'v':
+      case 'V':
+        return scanSpecialToken(i);
+      default:
+        return false;
+    }
+  }
+
+
+  /**
+   * Tries to scan a special token starting at provided index. When successful, the token fields are updated.
+   *
+   * @return true if a special token was found at provided index.
+   */
+  private boolean scanSpecialToken(final int i) {
+    final char c = chars[i];
+    switch (c) {
+      case '/':
+        return scanComment(i);
+      case '"':
+      case '\'':
+        return scanString(i);
+      case '@':
+        return scanImport(i) || scanVariables(i);
+      case 'u':
+      case 'U':
+        return isIdentifierBoundary(i) && scanUrl(i);
+      case 's':
+      case 'S':
+        return isIdentifierBoundary(i) && scanSrc(i);
+      case 'v':
+      case 'V':
+        return isIdentifierBoundary(i) && scanVar(i);
+      default:
+        return false;
+    }
+  }
+
+
+  private boolean scanComment(final int i) {
+    if (charAt(i + 1) != '*') {
+      return false;
+    }
+    int j = i + 2;
+    while (j < length && !(chars[j] == '*' && charAt(j + 1) == '/')) {
+      j++;
+    }
+    // unterminated comment consumes everything till the end
+    final int tokenEnd = j < length ? j + 2 : length;
+    setToken(TokenType.COMMENT, tokenEnd, i + 2, j, i + 2, j);
+    return true;
+  }
+
+
+  private boolean scanString(final int i) {
+    final int closing = findStringEnd(i);
+    // unterminated strings end at the line end
+    final int tokenEnd = closing < length && chars[closing] == chars[i] ? closing + 1 : closing;
+    setToken(TokenType.STRING, tokenEnd, i + 1, closing, i + 1, closing);
+    return true;
+  }
+
+
+  /**
+   * @param i index of the opening quote.
+   * @return the index of the closing quote or of the character terminating an unterminated string (new line or end of
+   *         content).
+   */
+  private int findStringEnd(final int i) {
+    final char quote = chars[i];
+    int j = i + 1;
+    while (j < length) {
+      final char c = chars[j];
+      if (c == quote || c == '\n' || c == '\r') {
+        return j;
+      }
+      j += c == '\\' ? 2 : 1;
+    }
+    return length;
+  }
+
+
+  private boolean scanUrl(final int i) {
+    if (!regionMatches(i, "url")) {
+      return false;
+    }
+    int j = skipWhitespaces(i + 3);
+    if (charAt(j) != '(') {
+      return false;
+    }
+    final int cStart = j + 1;
+    j = skipWhitespaces(cStart);
+    int vStart = j;
+    int vEnd;
+    final char c = charAt(j);
+    if (c == '"' || c == '\'') {
+      vEnd = findStringEnd(j);
+      if (charAt(vEnd) != c) {
+        return false;
+      }
+      vStart++;
+      j = skipWhitespaces(vEnd + 1);
+    } else {
+      // unquoted url ends at the first whitespace or closing parenthesis
+      while (j < length && chars[j] != ')' && !Character.isWhitespace(chars[j])) {
+        final char current = chars[j];
+        if (current == '(' || current == '"' || current == '\'') {
+          return false;
+        }
+        j++;
+      }
+      vEnd = j;
+      j = skipWhitespaces(j);
+    }
+    if (charAt(j) != ')') {
+      return false;
+    }
+    setToken(TokenType.URL, j + 1, cStart, j, vStart, vEnd);
+    return true;
+  }
+
+
+  private boolean scanSrc(final int i) {
+    if (!regionMatches(i, "src")) {
+      return false;
+    }
+    int j = skipWhitespaces(i + 3);
+    if (charAt(j) != '=') {
+      return false;
+    }
+    j = skipWhitespaces(j + 1);
+    final char quote = charAt(j);
+    if (quote != '"' && quote != '\'') {
+      return false;
+    }
+    final int closing = findStringEnd(j);
+    if (charAt(closing) != quote) {
+      return false;
+    }
+    setToken(TokenType.SRC, closing + 1, j + 1, closing, j + 1, closing);
+    return true;
+  }
+
+
+  private boolean scanImport(final int i) {
+    if (!regionMatches(i + 1, "import")) {
+      return false;
+    }
+    int j = skipWhitespaces(i + 7);
+    int vStart;
+    int vEnd;
+    final char c = charAt(j);
+    if (c == '"' || c == '\'') {
+      vEnd = findStringEnd(j);
+      if (charAt(vEnd) != c) {
+        return false;
+      }
+      vStart = j + 1;
+      j = vEnd + 1;
+    } else if (scanUrl(j)) {
+      vStart = valueStart;
+      vEnd = valueEnd;
+      j = end;
+    } else {
+      return false;
+    }
+    // consume media list (if any) and the terminating semicolon
+    while (j < length && chars[j] != ';' && chars[j] != '{' && chars[j] != '}') {
+      j++;
+    }
+    if (charAt(j) == ';') {
+      j++;
+    }
+    setToken(TokenType.IMPORT, j, vStart, vEnd, vStart, vEnd);
+    return true;
+  }
+
+
+  private boolean scanVariables(final int i) {
+    if (!regionMatches(i + 1, "variables")) {
+      return false;
+    }
+    final int j = skipWhitespaces(i + 10);
+    if (charAt(j) != '{' || j >= noClosingBraceFrom) {
+      return false;
+    }
+    int k = j + 1;
+    while (k < length && chars[k] != '}') {
+      k++;
+    }
+    if (k == length) {
+      noClosingBraceFrom = j;
+      return false;
+    }
+    setToken(TokenType.VARIABLES, k + 1, j + 1, k, j + 1, k);
+    return true;
+  }
+
+
+  private boolean scanVar(final int i) {
+    if (!regionMatches(i, "var")) {
+      return false;
+    }
+    final int j = skipWhitespaces(i + 3);
+    if (charAt(j) != '(') {
+      return false;
+    }
+    int k = j + 1;
+    // a variable name cannot span multiple lines or declarations
+    while (k < length && chars[k] != ')') {
+      final char c = chars[k];
+      if (c == '(' || c == ';' || c == '{' || c == '}' || c == '\n' || c == '\r' || c == '"' || c == '\'') {
+        return false;
+      }
+      k++;
+    }
+    if (k == length) {
+      return false;
+    }
+    int vStart = j + 1;
+    int vEnd = k;
+    while (vStart < vEnd && Character.isWhitespace(chars[vStart])) {
+      vStart++;
+    }
+    while (vEnd > vStart && Character.isWhitespace(chars[vEnd - 1])) {
+      vEnd--;
+    }
+    if (vStart == vEnd) {
+      return false;
+    }
+    setToken(TokenType.VAR, k + 1, j + 1, k, vStart, vEnd);
+    return true;
+  }
+
+
+  /**
+   * @return true if the character at provided index is not part of a longer identifier (ex: <code>myurl(</code>).
+   */
+  private boolean isIdentifierBoundary(final int i) {
+    if (i == 0) {
+      return true;
+    }
+    final char previous = chars[i - 1];
+    return !(Character.isLetterOrDigit(previous) || previous == '-' || previous == '_');
+  }
+
+
+  /**
+   * Case insensitive check of the provided lower case keyword.
+   */
+  private boolean regionMatches(final int i, final String keyword) {
+    final int keywordLength = keyword.length();
+    if (i + keywordLength > length) {
+      return false;
+    }
+    for (int k = 0; k < keywordLength; k++) {
+      if (Character.toLowerCase(chars[i + k]) != keyword.charAt(k)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  private int skipWhitespaces(final int from) {
+    int j = from;
+    while (j < length && Character.isWhitespace(chars[j])) {
+      j++;
+    }
+    return j;
+  }
+}
@@ -87,7 +87,7 @@ public class DataUriGenerator {
     // verify MIME type and charset
     mimeType = getMimeType(fileName, mimeType);
     // actually write
-    generateDataURI(bytes, out, mimeType);
+    writeDataURI(bytes, out, mimeType);
   }
 
   /**
@@ -98,30 +98,51 @@ public class DataUriGenerator {
     generateDataURI(inputStream, out, fileName, null);
   }
 
+  /**
+   * Generates the dataUri of already read bytes, with the type guessed from the fileName. The encoded content is
+   * streamed directly to the writer.
+   *
+   * @param bytes the content to encode.
+   * @param out Where to output the data URI.
+   * @param fileName used to guess the MIME type.
+   * @throws IOException if the MIME type cannot be determined or the writer fails.
+   */
+  public void generateDataURI(final byte[] bytes, final Writer out, final String fileName)
+    throws IOException {
+    writeDataURI(bytes, out, getMimeType(fileName, null));
+  }
 
   /**
-   * Generates a data URI from a byte array and outputs to the given writer.
+   * Computes the length of the dataUri which would be generated for a content of provided size, without actually
+   * encoding it. Since the dataUri contains only ASCII characters, this is also its size in bytes.
+   *
+   * @param byteCount the size of the content to encode.
+   * @param fileName used to guess the MIME type.
+   * @return the number of characters of the generated dataUri.
+   * @throws IOException if the MIME type cannot be determined.
+   */
+  public long getDataUriLength(final long byteCount, final String fileName)
+    throws IOException {
+    return getPrefix(getMimeType(fileName, null)).length() + Base64.encodedLength(byteCount);
+  }
+
+  private String getPrefix(final String mimeType) {
+    return DATA_URI_PREFIX + mimeType + ";base64,";
+  }
+
+  /**
+   * Generates a data URI from a byte array and outputs to the given writer. The Base64 encoded content is written
+   * directly to the writer, without intermediate copies.
    *
    * @param bytes The array of bytes to output to the data URI.
    * @param out Where to output the data URI.
    * @param mimeType The MIME type to specify in the data URI.
    * @throws java.io.IOException
    */
-  private void generateDataURI(final byte[] bytes, final Writer out, final String mimeType)
+  private void writeDataURI(final byte[] bytes, final Writer out, final String mimeType)
     throws IOException {
-    // create the output
-    final StringBuffer buffer = new StringBuffer();
-    buffer.append(DATA_URI_PREFIX);
-
-    // add MIME type
-    buffer.append(mimeType);
-
-    // output base64-encoding
-    buffer.append(";base64,");
-    buffer.append(Base64.encodeBytes(bytes));
-
-    // output to writer
-    out.write(buffer.toString());
+    out.write(getPrefix(mimeType));
+    Base64.encode(bytes, 0, bytes.length, out);
   }
 
 
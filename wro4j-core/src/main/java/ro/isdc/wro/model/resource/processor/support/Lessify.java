@@ -23,6 +23,8 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import ro.isdc.wro.model.resource.processor.support.CssTokenizer.TokenType;
+
 
 /**
  * Transforms colors from long format in a shorter one.
@@ -31,7 +33,15 @@ import java.util.regex.Pattern;
  */
 public class Lessify {
   private static final Pattern PATTERN_COLOR = Pattern.compile("#[0-9a-fA-F]{3,6}[^0-9a-fA-F]");
-  private static final Pattern PATTERN_WORD_COLOR = Pattern.compile(getGiantCssColorRegex());
+  /**
+   * Named colors indexed by lower case name.
+   */
+  private static final Map<String, CssColors> COLORS_BY_NAME = new HashMap<String, CssColors>();
+  static {
+    for (final CssColors color : CssColors.values()) {
+      COLORS_BY_NAME.put(color.name().toLowerCase(), color);
+    }
+  }
 
 
   public String variablizeColors(String css) {
@@ -65,23 +75,89 @@ public class Lessify {
   }
 
 
-  public String conformColors(String css) {
-    Matcher m = PATTERN_COLOR.matcher(css);
-    final Map<String, String> colGroup = new HashMap<String, String>();
-    while (m.find()) {
-      final String color = m.group().substring(1, m.group().length() - 1);
-      colGroup.put(m.group(), conformColor(color));
-    }
-    m = PATTERN_WORD_COLOR.matcher(css);
-    while (m.find()) {
-      final String color = m.group().substring(1, m.group().length() - 1);
-      colGroup.put(m.group(), "#" + conformColor(color));
-    }
-    // conform all
-    for (final String col : colGroup.keySet()) {
-      css = css.replace(col, col.charAt(0) + colGroup.get(col) + col.charAt(col.length() - 1));
+  /**
+   * Transforms all colors used in declaration values to #rrggbb format. The css is tokenized, thus colors from comments,
+   * strings, urls or selectors (ex: <code>#fade</code>) are left unchanged.
+   */
+  public String conformColors(final String css) {
+    return CssTokenizer.transform(css, new ConformColorsTransformer());
+  }
+
+
+  /**
+   * Rewrites the colors found in text tokens. Keeps track of the curly braces depth in order to process only
+   * declaration values.
+   */
+  private class ConformColorsTransformer
+    implements CssTokenTransformer {
+    private int depth;
+    private boolean inValue;
+
+    public boolean transform(final CssTokenizer tokenizer, final StringBuilder out) {
+      if (tokenizer.getType() != TokenType.TEXT) {
+        return false;
+      }
+      final int end = tokenizer.getEnd();
+      int i = tokenizer.getStart();
+      while (i < end) {
+        final char c = tokenizer.charAt(i);
+        if (c == '{') {
+          depth++;
+          inValue = false;
+        } else if (c == '}') {
+          depth = Math.max(0, depth - 1);
+          inValue = false;
+        } else if (c == ';') {
+          inValue = false;
+        } else if (c == ':' && depth > 0) {
+          inValue = true;
+        } else if (inValue && c == '#') {
+          int j = i + 1;
+          while (j < end && isHexDigit(tokenizer.charAt(j))) {
+            j++;
+          }
+          final int hexLength = j - i - 1;
+          if (hexLength >= 3 && hexLength <= 6 && tokenizer.charAt(j) != 0) {
+            final StringBuilder color = new StringBuilder();
+            tokenizer.appendRange(color, i + 1, j);
+            out.append('#').append(conformColor(color.toString()));
+            i = j;
+            continue;
+          }
+        } else if (inValue && Character.isLetter(c) && isColorNameBoundary(tokenizer.charAt(i - 1), ':')) {
+          int j = i + 1;
+          while (j < end && Character.isLetter(tokenizer.charAt(j))) {
+            j++;
+          }
+          final StringBuilder word = new StringBuilder();
+          tokenizer.appendRange(word, i, j);
+          final CssColors namedColor = COLORS_BY_NAME.get(word.toString().toLowerCase());
+          if (namedColor != null && isColorNameBoundary(tokenizer.charAt(j), ';')) {
+            out.append('#').append(namedColor.getColorAsHexString().toLowerCase());
+          } else {
+            out.append(word);
+          }
+          i = j;
+          continue;
+        }
+        out.append(c);
+        i++;
+      }
+      return true;
     }
-    return css;
+  }
+
+
+  private static boolean isHexDigit(final char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+
+  /**
+   * @return true if the character is a whitespace or the provided separator.
+   */
+  private static boolean isColorNameBoundary(final char c, final char separator) {
+    return c == separator || Character.isWhitespace(c);
   }
 
 
@@ -114,28 +190,4 @@ public class Lessify {
     }
     return result.toString();
   }
-
-
-  private static String getGiantCssColorRegex() {
-    final StringBuffer sb = new StringBuffer("");
-    boolean first = true;
-    for (final CssColors col : CssColors.values()) {
-      if (!first)
-        sb.append("|");
-      sb.append("(").append(buildRegexForCssColor(col)).append(")");
-      first = false;
-    }
-    return sb.toString();
-  }
-
-
-  private static String buildRegexForCssColor(final CssColors col) {
-    final StringBuffer sb = new StringBuffer("[\\s\\n\\r\\:]");
-    for (int n = 0; n < col.name().length(); n++) {
-      sb.append("[").append(Character.toLowerCase(col.name().charAt(n))).append(
-        Character.toUpperCase(col.name().charAt(n))).append("]");
-    }
-    sb.append("[\\s\\n\\r;]");
-    return sb.toString();
-  }
 }
@@ -0,0 +1,288 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.impl.LruMemoryCacheStrategy;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+
+
+/**
+ * Stores the output of processors, keyed by a content hash. The outputs are kept in a bounded memory tier and,
+ * optionally, in a folder (one file per key) which survives restarts. Since the stored outputs are served without being
+ * validated, the folder must be private: it is created readable and writable by its owner only. The number of stored
+ * files is bounded too, the least recently used ones being deleted when the limit is exceeded. Since a key identifies
+ * the content, a stored file is never changed: it is written in a temporary file first and renamed, so that concurrent
+ * readers never see a partially written output.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class ProcessorOutputCache
+  implements CacheStrategy<String, String> {
+  private static final Logger LOG = LoggerFactory.getLogger(ProcessorOutputCache.class);
+  private static final String ENCODING = "UTF-8";
+  private static final String TEMP_SUFFIX = ".tmp";
+  /**
+   * Default maximum number of outputs stored in the folder.
+   */
+  private static final int DEFAULT_DIRECTORY_SIZE = 10000;
+  /**
+   * Instances created for a configuration, keyed by folder and size, shared by all the processors.
+   */
+  private static final Map<String, ProcessorOutputCache> INSTANCES = new ConcurrentHashMap<String, ProcessorOutputCache>();
+  /**
+   * Null if outputs are not persisted.
+   */
+  private final File directory;
+  /**
+   * Null if outputs are not kept in memory.
+   */
+  private final CacheStrategy<String, String> memoryCache;
+  /**
+   * Maximum number of outputs stored in the folder.
+   */
+  private final int directorySize;
+  /**
+   * Number of outputs stored in the folder, -1 until the folder is scanned.
+   */
+  private int storedCount = -1;
+
+
+  /**
+   * @param directory where outputs are persisted or null if they should be kept in memory only.
+   * @param size maximum number of outputs kept in memory. When 0, outputs are not kept in memory.
+   */
+  public ProcessorOutputCache(final File directory, final int size) {
+    this(directory, size, DEFAULT_DIRECTORY_SIZE);
+  }
+
+
+  /**
+   * @param directory where outputs are persisted or null if they should be kept in memory only.
+   * @param size maximum number of outputs kept in memory. When 0, outputs are not kept in memory.
+   * @param directorySize maximum number of outputs persisted in the directory.
+   */
+  public ProcessorOutputCache(final File directory, final int size, final int directorySize) {
+    Validate.isTrue(size >= 0, "Size cannot be negative");
+    Validate.isTrue(directorySize > 0, "Directory size must be positive");
+    this.directory = directory;
+    this.memoryCache = size > 0 ? new LruMemoryCacheStrategy<String, String>(size) : null;
+    this.directorySize = directorySize;
+  }
+
+
+  /**
+   * @return the cache using the settings of the provided configuration. The same instance is returned for the same
+   *         settings.
+   */
+  public static ProcessorOutputCache forConfiguration(final WroConfiguration config) {
+    Validate.notNull(config);
+    final File directory = getDirectory(config.getProcessorCacheDirectory());
+    final String key = directory + "|" + config.getProcessorCacheSize() + "|" + config.getProcessorCacheDirectorySize();
+    ProcessorOutputCache cache = INSTANCES.get(key);
+    if (cache == null) {
+      synchronized (INSTANCES) {
+        cache = INSTANCES.get(key);
+        if (cache == null) {
+          cache = new ProcessorOutputCache(directory, config.getProcessorCacheSize(),
+            config.getProcessorCacheDirectorySize());
+          LOG.debug("Processor output cache created in: {}", directory);
+          INSTANCES.put(key, cache);
+        }
+      }
+    }
+    return cache;
+  }
+
+
+  private static File getDirectory(final String name) {
+    return StringUtils.isBlank(name) ? null : new File(name);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public String get(final String key) {
+    Validate.notNull(key);
+    String value = memoryCache == null ? null : memoryCache.get(key);
+    if (value == null && directory != null) {
+      final File file = getFile(key);
+      if (file.isFile()) {
+        try {
+          value = FileUtils.readFileToString(file, ENCODING);
+          // the modification time is used to find the least recently used outputs
+          file.setLastModified(System.currentTimeMillis());
+          if (memoryCache != null) {
+            memoryCache.put(key, value);
+          }
+        } catch (final IOException e) {
+          LOG.debug("Cannot read processor output from: " + file, e);
+        }
+      }
+    }
+    return value;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void put(final String key, final String value) {
+    Validate.notNull(key);
+    Validate.notNull(value);
+    if (memoryCache != null) {
+      memoryCache.put(key, value);
+    }
+    if (directory != null) {
+      final File file = getFile(key);
+      if (!file.isFile() && write(file, value)) {
+        onStored();
+      }
+    }
+  }
+
+
+  /**
+   * Deletes the least recently used outputs when the folder contains too many outputs. A quarter of the outputs is
+   * deleted at once, so that the folder is not scanned after each write.
+   */
+  private synchronized void onStored() {
+    if (storedCount < 0) {
+      storedCount = listStoredFiles().size();
+    } else {
+      storedCount++;
+    }
+    if (storedCount > directorySize) {
+      final List<File> files = listStoredFiles();
+      Collections.sort(files, new Comparator<File>() {
+        public int compare(final File first, final File second) {
+          final long difference = first.lastModified() - second.lastModified();
+          return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+        }
+      });
+      final int toDelete = files.size() - directorySize * 3 / 4;
+      for (int i = 0; i < toDelete; i++) {
+        files.get(i).delete();
+      }
+      storedCount = listStoredFiles().size();
+      LOG.debug("Deleted least recently used processor outputs, {} outputs left in: {}", storedCount, directory);
+    }
+  }
+
+
+  private List<File> listStoredFiles() {
+    final List<File> files = new ArrayList<File>();
+    final File[] folders = directory.listFiles();
+    if (folders != null) {
+      for (final File folder : folders) {
+        final File[] children = folder.isDirectory() ? folder.listFiles() : null;
+        if (children != null) {
+          for (final File child : children) {
+            if (child.isFile() && !child.getName().endsWith(TEMP_SUFFIX)) {
+              files.add(child);
+            }
+          }
+        }
+      }
+    }
+    return files;
+  }
+
+
+  /**
+   * @return true if the file was written.
+   */
+  private boolean write(final File file, final String value) {
+    File temp = null;
+    try {
+      createPrivateFolder(directory);
+      createPrivateFolder(file.getParentFile());
+      temp = File.createTempFile(file.getName(), TEMP_SUFFIX, file.getParentFile());
+      FileUtils.writeStringToFile(temp, value, ENCODING);
+      // the file could be written meanwhile by other thread, which is fine since the content is the same
+      if (!temp.renameTo(file) && !file.isFile()) {
+        throw new IOException("Cannot rename " + temp + " to " + file);
+      }
+      return true;
+    } catch (final IOException e) {
+      LOG.warn("Cannot persist processor output in: " + file, e);
+      return false;
+    } finally {
+      if (temp != null && temp.exists()) {
+        temp.delete();
+      }
+    }
+  }
+
+
+  /**
+   * Creates the folder, if it doesn't exist, readable, writable and executable by its owner only.
+   */
+  private void createPrivateFolder(final File folder)
+    throws IOException {
+    if (!folder.isDirectory()) {
+      if (!folder.mkdirs() && !folder.isDirectory()) {
+        throw new IOException("Cannot create folder: " + folder);
+      }
+      // revoke the permissions of everybody, then grant them to the owner
+      final boolean restricted = folder.setReadable(false, false) && folder.setReadable(true, true)
+        && folder.setWritable(false, false) && folder.setWritable(true, true) && folder.setExecutable(false, false)
+        && folder.setExecutable(true, true);
+      if (!restricted) {
+        LOG.warn("Cannot restrict the permissions of the processor cache folder: {}", folder);
+      }
+    }
+  }
+
+
+  /**
+   * The outputs are grouped in sub folders named by the first two characters of the key, to avoid huge folders.
+   */
+  private File getFile(final String key) {
+    final String folder = key.length() > 2 ? key.substring(0, 2) : "_";
+    return new File(new File(directory, folder), key);
+  }
+
+
+  /**
+   * @return the folder where outputs are persisted or null if they are kept in memory only.
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+
+  /**
+   * Clears the memory tier. The persisted outputs are kept, since they are still valid.
+   */
+  public void clear() {
+    if (memoryCache != null) {
+      memoryCache.clear();
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void destroy() {
+    clear();
+  }
+}
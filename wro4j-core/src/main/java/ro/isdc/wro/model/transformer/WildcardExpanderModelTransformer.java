@@ -5,15 +5,28 @@ package ro.isdc.wro.model.transformer;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.config.Context;
 import ro.isdc.wro.model.WroModel;
 import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.group.Inject;
@@ -25,6 +38,7 @@ import ro.isdc.wro.model.resource.locator.wildcard.WildcardExpandedHandlerAware;
 import ro.isdc.wro.model.resource.locator.wildcard.WildcardStreamLocator;
 import ro.isdc.wro.model.resource.locator.wildcard.WildcardUriLocatorSupport;
 import ro.isdc.wro.util.Transformer;
+import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -72,47 +86,206 @@ public class WildcardExpanderModelTransformer
     }
   }
 
+  /**
+   * The result of expanding a wildcard resource.
+   */
+  private static final class Expansion {
+    private final String baseNameFolder;
+    private final Collection<File> files;
+
+    private Expansion(final String baseNameFolder, final Collection<File> files) {
+      this.baseNameFolder = baseNameFolder;
+      this.files = files;
+    }
+  }
+
   /**
    * {@inheritDoc}
+   * <p/>
+   * Each distinct wildcard uri is expanded only once (even if used by several groups) and the base folder is computed
+   * only once for all the wildcards of the same folder. The wildcards are expanded in parallel, the model is changed
+   * only after all of them are expanded.
    */
   public WroModel transform(final WroModel input) {
     final WroModel model = input;
 
+    // the wildcard resources, by uri
+    final Map<String, Resource> wildcardResources = new LinkedHashMap<String, Resource>();
     for (final Group group : model.getGroups()) {
-      final List<Resource> resources = group.getResources();
-      for (final Resource resource : resources) {
-        final UriLocator uriLocator = uriLocatorFactory.getInstance(resource.getUri());
+      for (final Resource resource : group.getResources()) {
+        if (!wildcardResources.containsKey(resource.getUri()) && getExpandedHandler(resource.getUri()) != null) {
+          wildcardResources.put(resource.getUri(), resource);
+        }
+      }
+    }
+    if (wildcardResources.isEmpty()) {
+      LOG.debug("No wildcard to expand");
+      return model;
+    }
 
-        if (uriLocator instanceof WildcardUriLocatorSupport) {
-          final WildcardStreamLocator wildcardStreamLocator = ((WildcardUriLocatorSupport)uriLocator).getWildcardStreamLocator();
+    // the resources used to compute the base folders, by folder
+    final Map<String, Resource> folderResources = new LinkedHashMap<String, Resource>();
+    for (final Resource resource : wildcardResources.values()) {
+      final String folder = FilenameUtils.getFullPath(resource.getUri());
+      if (!folderResources.containsKey(folder)) {
+        folderResources.put(folder, resource);
+      }
+    }
+    final List<Callable<String>> baseNameFolderTasks = new ArrayList<Callable<String>>();
+    for (final Resource resource : folderResources.values()) {
+      baseNameFolderTasks.add(new Callable<String>() {
+        public String call() {
+          final String baseNameFolder = computeBaseNameFolder(resource,
+            uriLocatorFactory.getInstance(resource.getUri()), getExpandedHandler(resource.getUri()));
+          LOG.debug("baseNameFolder: {}", baseNameFolder);
+          return baseNameFolder;
+        }
+      });
+    }
+    final Map<String, String> baseNameFolders = new HashMap<String, String>();
+    final Iterator<String> baseNameFolderIterator = invokeAll(baseNameFolderTasks).iterator();
+    for (final String folder : folderResources.keySet()) {
+      baseNameFolders.put(folder, baseNameFolderIterator.next());
+    }
 
-          //TODO should we probably handle the situation when wildcard is present, but the implementation is not expandedHandledAware?
-          if (wildcardStreamLocator.hasWildcard(resource.getUri())
-            && wildcardStreamLocator instanceof WildcardExpandedHandlerAware) {
+    final List<Callable<Expansion>> expansionTasks = new ArrayList<Callable<Expansion>>();
+    for (final Resource resource : wildcardResources.values()) {
+      final String baseNameFolder = baseNameFolders.get(FilenameUtils.getFullPath(resource.getUri()));
+      expansionTasks.add(new Callable<Expansion>() {
+        public Expansion call() {
+          return expand(resource, baseNameFolder);
+        }
+      });
+    }
+    final Map<String, Expansion> expansions = new HashMap<String, Expansion>();
+    final Iterator<Expansion> expansionIterator = invokeAll(expansionTasks).iterator();
+    for (final String uri : wildcardResources.keySet()) {
+      expansions.put(uri, expansionIterator.next());
+    }
 
-            final WildcardExpandedHandlerAware expandedHandler = (WildcardExpandedHandlerAware)wildcardStreamLocator;
-            LOG.debug("Expanding resource: {}", resource.getUri());
+    for (final Group group : model.getGroups()) {
+      for (final Resource resource : group.getResources()) {
+        final Expansion expansion = expansions.get(resource.getUri());
+        if (expansion != null) {
+          try {
+            createExpanderHandler(group, resource, expansion.baseNameFolder).transform(expansion.files);
+          } catch (final Exception e) {
+            throw new WroRuntimeException("Cannot expand the resource: " + resource, e);
+          }
+        }
+      }
+    }
+    LOG.debug("Transformed model: {}", model);
+    return model;
+  }
 
-            final String baseNameFolder = computeBaseNameFolder(resource, uriLocator, expandedHandler);
-            LOG.debug("baseNameFolder: {}", baseNameFolder);
+  /**
+   * @return the handler of the stream locator used to locate the uri, if it supports wildcard expansion and the uri
+   *         contains a wildcard, or null otherwise.
+   */
+  private WildcardExpandedHandlerAware getExpandedHandler(final String uri) {
+    final UriLocator uriLocator = uriLocatorFactory.getInstance(uri);
+    if (uriLocator instanceof WildcardUriLocatorSupport) {
+      final WildcardStreamLocator wildcardStreamLocator = ((WildcardUriLocatorSupport)uriLocator).getWildcardStreamLocator();
+      //TODO should we probably handle the situation when wildcard is present, but the implementation is not expandedHandledAware?
+      if (wildcardStreamLocator.hasWildcard(uri) && wildcardStreamLocator instanceof WildcardExpandedHandlerAware) {
+        return (WildcardExpandedHandlerAware)wildcardStreamLocator;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the files matching the wildcard of a resource, without reading them.
+   *
+   * @return the found files or null if the wildcard could not be expanded, in which case the resource is left
+   *         unchanged.
+   */
+  private Expansion expand(final Resource resource, final String baseNameFolder) {
+    LOG.debug("Expanding resource: {}", resource.getUri());
+    final WildcardExpandedHandlerAware expandedHandler = getExpandedHandler(resource.getUri());
+    final List<Collection<File>> found = new ArrayList<Collection<File>>(1);
+    expandedHandler.setWildcardExpanderHandler(new Transformer<Collection<File>>() {
+      public Collection<File> transform(final Collection<File> files) {
+        found.add(files);
+        return null;
+      }
+    });
+    InputStream stream = null;
+    try {
+      // trigger the wildcard replacement, the stream is never read
+      stream = uriLocatorFactory.getInstance(resource.getUri()).locate(resource.getUri());
+    } catch (final IOException e) {
+      // log only
+      LOG.warn("[FAIL] problem while trying to expand wildcard for the following resource uri: {}", resource.getUri());
+    } finally {
+      IOUtils.closeQuietly(stream);
+      // remove the handler, it is not needed anymore
+      expandedHandler.setWildcardExpanderHandler(null);
+    }
+    return found.isEmpty() ? null : new Expansion(baseNameFolder, found.get(0));
+  }
 
-            expandedHandler.setWildcardExpanderHandler(createExpanderHandler(group, resource, baseNameFolder));
+  /**
+   * Invokes the tasks in parallel, using at most one thread per available processor.
+   *
+   * @return the results, in the order of the tasks.
+   */
+  private <T> List<T> invokeAll(final List<Callable<T>> tasks) {
+    final List<T> results = new ArrayList<T>(tasks.size());
+    final int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+    if (threads <= 1) {
+      for (final Callable<T> task : tasks) {
+        try {
+          results.add(task.call());
+        } catch (final RuntimeException e) {
+          throw e;
+        } catch (final Exception e) {
+          throw new WroRuntimeException("Wildcard expansion failed", e);
+        }
+      }
+      return results;
+    }
+    // the context is not inherited by the pooled threads
+    final Context context = Context.isContextSet() ? Context.get() : null;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads,
+      WroUtil.createDaemonThreadFactory("wildcardExpander"));
+    try {
+      final List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+      for (final Callable<T> task : tasks) {
+        futures.add(executor.submit(new Callable<T>() {
+          public T call()
+            throws Exception {
+            if (context != null) {
+              Context.set(context, context.getConfig());
+            }
             try {
-              // trigger the wildcard replacement
-              uriLocator.locate(resource.getUri());
-            } catch (final IOException e) {
-              // log only
-              LOG.warn("[FAIL] problem while trying to expand wildcard for the following resource uri: {}", resource.getUri());
+              return task.call();
             } finally {
-              // remove the handler, it is not needed anymore
-              expandedHandler.setWildcardExpanderHandler(null);
+              Context.unset();
             }
           }
+        }));
+      }
+      for (final Future<T> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new WroRuntimeException("Interrupted while expanding wildcards", e);
+        } catch (final ExecutionException e) {
+          // propagate original cause
+          final Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException)cause;
+          }
+          throw new WroRuntimeException("Wildcard expansion failed", cause);
         }
       }
+      return results;
+    } finally {
+      executor.shutdownNow();
     }
-    LOG.debug("Transformed model: {}", model);
-    return model;
   }
 
 
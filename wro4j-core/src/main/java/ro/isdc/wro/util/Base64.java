@@ -507,6 +507,59 @@ public class Base64 {
   }
 
 
+  /**
+   * Computes the length of the Base64 encoded form of <var>rawLength</var> bytes, without line breaks. Useful to check
+   * size limits before actually encoding.
+   *
+   * @param rawLength number of bytes to encode.
+   * @return number of characters of the encoded data.
+   */
+  public static long encodedLength(final long rawLength) {
+    return (rawLength + 2) / 3 * 4;
+  }
+
+
+  /**
+   * Performs Base64 encoding on a range of the <code>source</code> array and writes the encoded characters directly to
+   * the <code>writer</code>, using a small reusable buffer. No intermediate encoded copy of the data is created. Does
+   * not GZip-compress data and does not break lines. The writer is not closed.
+   *
+   * @param source The data to convert
+   * @param off Offset in array where conversion should begin
+   * @param len Length of data to convert
+   * @param writer where the encoded data is written.
+   * @throws java.io.IOException if the writer fails.
+   */
+  public static void encode(final byte[] source, final int off, final int len, final java.io.Writer writer)
+    throws java.io.IOException {
+    if (source == null) {
+      throw new NullPointerException("Cannot serialize a null array.");
+    }
+    if (writer == null) {
+      throw new NullPointerException("Cannot write to a null writer.");
+    }
+    if (off < 0 || len < 0 || off + len > source.length) {
+      throw new IllegalArgumentException(String.format(
+        "Cannot have offset of %d and length of %d with array of length %d", off, len, source.length));
+    }
+    final byte[] enc4 = new byte[4];
+    final char[] buffer = new char[1024];
+    int position = 0;
+    final int end = off + len;
+    for (int i = off; i < end; i += 3) {
+      encode3to4(source, i, Math.min(3, end - i), enc4, 0, NO_OPTIONS);
+      for (int j = 0; j < 4; j++) {
+        buffer[position++] = (char)(enc4[j] & 0xFF);
+      }
+      if (position == buffer.length) {
+        writer.write(buffer, 0, position);
+        position = 0;
+      }
+    }
+    writer.write(buffer, 0, position);
+  }
+
+
   /**
    * Serializes an object and returns the Base64-encoded version of that serialized object.
    *
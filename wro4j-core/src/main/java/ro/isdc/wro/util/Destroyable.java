@@ -0,0 +1,18 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.util;
+
+/**
+ * Implemented by objects holding resources (threads, pools, MBeans, open files) which must be released when the
+ * {@link ro.isdc.wro.manager.WroManager} using them is taken out of service. The processors implementing this
+ * interface are destroyed by {@link ro.isdc.wro.manager.WroManager#destroy()}.
+ *
+ * @since 1.4.2
+ */
+public interface Destroyable {
+  /**
+   * Releases the resources held by this object. Can be invoked more than once.
+   */
+  void destroy();
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.util.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * An input stream which opens the stream it reads only when it is first read. Useful to concatenate several streams
+ * (using a {@link java.io.SequenceInputStream}) without opening all of them at once or loading them in memory.
+ */
+public abstract class LazyInputStream
+  extends InputStream {
+  private InputStream delegate;
+  private boolean closed;
+
+  /**
+   * @return the stream to read. Invoked at most once, when this stream is first read.
+   */
+  protected abstract InputStream openStream()
+    throws IOException;
+
+  private InputStream getDelegate()
+    throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (delegate == null) {
+      delegate = openStream();
+    }
+    return delegate;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read()
+    throws IOException {
+    return getDelegate().read();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read(final byte[] b, final int off, final int len)
+    throws IOException {
+    return getDelegate().read(b, off, len);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long skip(final long n)
+    throws IOException {
+    return getDelegate().skip(n);
+  }
+
+  /**
+   * @return 0 if the stream is not opened yet.
+   */
+  @Override
+  public int available()
+    throws IOException {
+    return delegate == null ? 0 : delegate.available();
+  }
+
+  /**
+   * Closes the stream only if it was opened.
+   */
+  @Override
+  public void close()
+    throws IOException {
+    closed = true;
+    if (delegate != null) {
+      delegate.close();
+    }
+  }
+}
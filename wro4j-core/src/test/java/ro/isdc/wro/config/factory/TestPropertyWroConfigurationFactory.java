@@ -49,6 +49,45 @@ public class TestPropertyWroConfigurationFactory {
     Assert.assertEquals(false, config.isParallelPreprocessing());
   }
 
+  @Test
+  public void shouldConfigureEnginePools() {
+    final Properties props = new Properties();
+    props.setProperty(ConfigConstants.enginePoolMaxActive.name(), "3");
+    props.setProperty(ConfigConstants.enginePoolMaxActive.name() + ".lessCss", "6");
+    props.setProperty(ConfigConstants.enginePoolExhaustedAction.name() + ".lessCss", "grow");
+    props.setProperty(ConfigConstants.enginePoolPrewarm.name(), "2");
+    factory.setProperties(props);
+    final WroConfiguration config = factory.create();
+    Assert.assertEquals(3, config.getEnginePoolMaxActive());
+    Assert.assertEquals(2, config.getEnginePoolPrewarm());
+    Assert.assertEquals("6", config.getEnginePoolSetting(ConfigConstants.enginePoolMaxActive, "lessCss"));
+    Assert.assertEquals("3", config.getEnginePoolSetting(ConfigConstants.enginePoolMaxActive, "cssLint"));
+    Assert.assertEquals("grow", config.getEnginePoolSetting(ConfigConstants.enginePoolExhaustedAction, "lessCss"));
+    Assert.assertEquals("block", config.getEnginePoolSetting(ConfigConstants.enginePoolExhaustedAction, "cssLint"));
+  }
+
+  @Test
+  public void shouldConfigureProcessorCache() {
+    final Properties props = new Properties();
+    props.setProperty(ConfigConstants.processorCacheDirectory.name(), " /var/cache/wro4j ");
+    props.setProperty(ConfigConstants.processorCacheSize.name(), "20");
+    props.setProperty(ConfigConstants.processorCacheDirectorySize.name(), "200");
+    factory.setProperties(props);
+    final WroConfiguration config = factory.create();
+    Assert.assertEquals("/var/cache/wro4j", config.getProcessorCacheDirectory());
+    Assert.assertEquals(20, config.getProcessorCacheSize());
+    Assert.assertEquals(200, config.getProcessorCacheDirectorySize());
+  }
+
+  @Test
+  public void shouldNotReadStaticResourcesFromDiskByDefault() {
+    Assert.assertFalse(factory.create().isReadStaticResourcesFromDisk());
+    final Properties props = new Properties();
+    props.setProperty(ConfigConstants.readStaticResourcesFromDisk.name(), "true");
+    factory.setProperties(props);
+    Assert.assertTrue(factory.create().isReadStaticResourcesFromDisk());
+  }
+
   @Test
   public void invalidBooleanFallbacksToFalse() {
     final Properties props = new Properties();
@@ -20,6 +20,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.WriterOutputStream;
 import org.junit.After;
 import org.junit.Before;
@@ -48,9 +49,11 @@ import ro.isdc.wro.model.group.GroupExtractor;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.factory.SimpleProcessorsFactory;
 import ro.isdc.wro.model.resource.processor.impl.css.CssUrlRewritingProcessor;
 import ro.isdc.wro.model.resource.util.CRC32HashBuilder;
 import ro.isdc.wro.model.resource.util.MD5HashBuilder;
+import ro.isdc.wro.model.resource.util.SHA1HashBuilder;
 import ro.isdc.wro.util.WroTestUtils;
 import ro.isdc.wro.util.io.UnclosableBufferedInputStream;
 
@@ -414,6 +417,71 @@ public class TestWroManager {
   }
 
 
+  /**
+   * @return the response of a proxy resource request.
+   */
+  private HttpServletResponse processProxyRequest(final String resourceId, final String version,
+    final String ifNoneMatch, final ByteArrayOutputStream out)
+    throws IOException {
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(request.getParameter(CssUrlRewritingProcessor.PARAM_RESOURCE_ID)).thenReturn(resourceId);
+    Mockito.when(request.getParameter(CssUrlRewritingProcessor.PARAM_VERSION)).thenReturn(version);
+    Mockito.when(request.getHeader(HttpHeader.IF_NONE_MATCH.toString())).thenReturn(ifNoneMatch);
+    Mockito.when(request.getRequestURI()).thenReturn(CssUrlRewritingProcessor.PATH_RESOURCES);
+    final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    Mockito.when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(out));
+    final WroConfiguration config = new WroConfiguration();
+    config.setDebug(false);
+    Context.set(Context.webContext(request, response, Mockito.mock(FilterConfig.class)), config);
+    manager.process();
+    return response;
+  }
+
+
+  @Test
+  public void shouldServeProxyResourceWithETagAndContentType()
+    throws Exception {
+    final BaseWroManagerFactory factory = new BaseWroManagerFactory();
+    factory.setProcessorsFactory(new SimpleProcessorsFactory());
+    manager = factory.create();
+    final String resourceId = "classpath:ro/isdc/wro/model/resource/processor/dataUri/test/btn_icons.png";
+    final byte[] content = IOUtils.toByteArray(getClass().getResourceAsStream(
+      "/ro/isdc/wro/model/resource/processor/dataUri/test/btn_icons.png"));
+    final String etag = "\"" + new SHA1HashBuilder().getHash(new ByteArrayInputStream(content)) + "\"";
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    HttpServletResponse response = processProxyRequest(resourceId, null, null, out);
+    Assert.assertTrue(Arrays.equals(content, out.toByteArray()));
+    Mockito.verify(response).setHeader(HttpHeader.ETAG.toString(), etag);
+    Mockito.verify(response).setContentType("image/png");
+    Mockito.verify(response, Mockito.never()).setHeader(Mockito.eq(HttpHeader.CACHE_CONTROL.toString()),
+      Mockito.anyString());
+    Assert.assertTrue(manager.getProxyResourceCache().size() > 0);
+
+    out = new ByteArrayOutputStream();
+    response = processProxyRequest(resourceId, null, etag, out);
+    Mockito.verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    Assert.assertEquals(0, out.size());
+  }
+
+
+  @Test
+  public void shouldCacheForeverOnlyTheCurrentVersionOfProxyResource()
+    throws Exception {
+    final BaseWroManagerFactory factory = new BaseWroManagerFactory();
+    factory.setProcessorsFactory(new SimpleProcessorsFactory());
+    manager = factory.create();
+    final String resourceId = "classpath:ro/isdc/wro/model/resource/processor/dataUri/test/btn_icons.png";
+    final String hash = manager.getProxyResourceCache().get(resourceId, manager.getUriLocatorFactory(), true).getHash();
+
+    HttpServletResponse response = processProxyRequest(resourceId, hash, null, new ByteArrayOutputStream());
+    Mockito.verify(response).setHeader(HttpHeader.CACHE_CONTROL.toString(), "public, max-age=315360000");
+
+    response = processProxyRequest(resourceId, "outdated", null, new ByteArrayOutputStream());
+    Mockito.verify(response).setHeader(HttpHeader.CACHE_CONTROL.toString(), "no-cache");
+  }
+
+
   @Test
   public void testCRC32Fingerprint()
     throws Exception {
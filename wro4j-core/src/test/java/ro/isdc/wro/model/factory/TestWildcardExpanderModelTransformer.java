@@ -4,10 +4,12 @@
  */
 package ro.isdc.wro.model.factory;
 
+import java.io.File;
 import java.util.List;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -27,6 +29,7 @@ import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.locator.ClasspathUriLocator;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
 import ro.isdc.wro.model.transformer.WildcardExpanderModelTransformer;
+import ro.isdc.wro.util.StopWatch;
 import ro.isdc.wro.util.WroUtil;
 
 /**
@@ -146,6 +149,54 @@ public class TestWildcardExpanderModelTransformer {
     Assert.assertEquals("07-jquery-impromptu.js", FilenameUtils.getName(resources.get(6).getUri()));
   }
 
+  @Test
+  public void shouldExpandWildcardUsedByManyGroups() {
+    final WroModel model = new WroModel();
+    final String uri = String.format(ClasspathUriLocator.PREFIX + "%s/expander/*.js", WroUtil.toPackageAsFolder(getClass()));
+    final String other = String.format(ClasspathUriLocator.PREFIX + "%s/expander/?cript1.js", WroUtil.toPackageAsFolder(getClass()));
+    model.addGroup(new Group("g1").addResource(Resource.create(uri, ResourceType.JS)));
+    model.addGroup(new Group("g2").addResource(Resource.create(other, ResourceType.JS)).addResource(
+      Resource.create(uri, ResourceType.JS)));
+
+    final WroModel changedModel = transformer.transform(model);
+    Assert.assertEquals(3, changedModel.getGroupByName("g1").getResources().size());
+    Assert.assertEquals(changedModel.getGroupByName("g1").getResources().get(0).getUri(),
+      changedModel.getGroupByName("g2").getResources().get(0).getUri());
+    Assert.assertEquals(3, changedModel.getGroupByName("g2").getResources().size());
+  }
+
+  @Test
+  public void shouldExpandManyWildcards()
+    throws Exception {
+    final File folder = File.createTempFile("expander", "");
+    folder.delete();
+    try {
+      final WroModel model = new WroModel();
+      for (int i = 0; i < 30; i++) {
+        final Group group = new Group("group" + i);
+        for (int j = 0; j < 10; j++) {
+          FileUtils.writeStringToFile(new File(folder, "f" + i + "/" + j + "/a.js"), "a");
+          FileUtils.writeStringToFile(new File(folder, "f" + i + "/" + j + "/b.js"), "b");
+          group.addResource(Resource.create(folder.toURI() + "f" + i + "/" + j + "/*.js", ResourceType.JS));
+        }
+        model.addGroup(group);
+      }
+      final StopWatch stopWatch = new StopWatch();
+      stopWatch.start("expand");
+      final WroModel changedModel = transformer.transform(model);
+      stopWatch.stop();
+      LOG.info("Expanded 300 wildcards in {}ms", stopWatch.getLastTaskTimeMillis());
+      for (int i = 0; i < 30; i++) {
+        final List<Resource> resources = changedModel.getGroupByName("group" + i).getResources();
+        Assert.assertEquals(20, resources.size());
+        Assert.assertEquals(folder.toURI() + "f" + i + "/0/a.js", resources.get(0).getUri());
+        Assert.assertEquals(folder.toURI() + "f" + i + "/9/b.js", resources.get(19).getUri());
+      }
+    } finally {
+      FileUtils.deleteQuietly(folder);
+    }
+  }
+
   @After
   public void tearDown() {
     Context.unset();
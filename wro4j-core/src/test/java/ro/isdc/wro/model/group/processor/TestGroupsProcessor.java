@@ -3,7 +3,40 @@
  */
 package ro.isdc.wro.model.group.processor;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.locator.UriLocator;
+import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+import ro.isdc.wro.model.resource.processor.factory.SimpleProcessorsFactory;
+import ro.isdc.wro.model.resource.processor.impl.CommentStripperProcessor;
+import ro.isdc.wro.model.resource.processor.impl.SingleLineCommentStripperProcessor;
+import ro.isdc.wro.model.resource.processor.impl.js.JSMinProcessor;
+import ro.isdc.wro.util.StopWatch;
 
 
 /**
@@ -13,8 +46,180 @@ import org.junit.Test;
  * @created Created on Jan 5, 2010
  */
 public class TestGroupsProcessor {
+  private static final Logger LOG = LoggerFactory.getLogger(TestGroupsProcessor.class);
+  private static final int RESOURCES_NUMBER = 8;
+  private String script;
+
+  @Before
+  public void setUp()
+    throws Exception {
+    Context.set(Context.standaloneContext());
+    script = StringUtils.repeat(
+      IOUtils.toString(getClass().getResourceAsStream("/ro/isdc/wro/model/resource/processor/jsmin/test/script1.js"))
+        + ";\n/* comment */\n", 400);
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+  }
+
+  /**
+   * @return a {@link GroupsProcessor} using the provided post processors and locating the same script for any uri.
+   */
+  private GroupsProcessor createGroupsProcessor(final ResourcePostProcessor... postProcessors) {
+    final SimpleProcessorsFactory processorsFactory = new SimpleProcessorsFactory();
+    for (final ResourcePostProcessor postProcessor : postProcessors) {
+      processorsFactory.addPostProcessor(postProcessor);
+    }
+    final BaseWroManagerFactory factory = new BaseWroManagerFactory();
+    factory.setProcessorsFactory(processorsFactory);
+    final UriLocator uriLocator = new UriLocator() {
+      public InputStream locate(final String uri)
+        throws IOException {
+        return new ByteArrayInputStream(("/* " + uri + " */\n" + script).getBytes());
+      }
+      public boolean accept(final String uri) {
+        return true;
+      }
+    };
+    factory.setUriLocatorFactory(new UriLocatorFactory() {
+      public InputStream locate(final String uri)
+        throws IOException {
+        return uriLocator.locate(uri);
+      }
+      public UriLocator getInstance(final String uri) {
+        return uriLocator;
+      }
+    });
+    final GroupsProcessor groupsProcessor = new GroupsProcessor();
+    new Injector(factory.create()).inject(groupsProcessor);
+    return groupsProcessor;
+  }
+
+  private Group createGroup() {
+    final List<Resource> resources = new ArrayList<Resource>();
+    for (int i = 0; i < RESOURCES_NUMBER; i++) {
+      resources.add(Resource.create("/script" + i + ".js", ResourceType.JS));
+    }
+    final Group group = new Group();
+    group.setResources(resources);
+    return group;
+  }
+
+  /**
+   * A post processor which is not resource-local, forcing the contents to be merged.
+   */
+  private ResourcePostProcessor createMergingProcessor() {
+    return new ResourcePostProcessor() {
+      public void process(final Reader reader, final Writer writer)
+        throws IOException {
+        IOUtils.copy(reader, writer);
+      }
+    };
+  }
+
+  /**
+   * A resource-local post processor counting its invocations.
+   */
+  @ResourceLocal
+  @SupportedResourceType(ResourceType.JS)
+  private static class CountingProcessor
+    implements ResourcePostProcessor {
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    public void process(final Reader reader, final Writer writer)
+      throws IOException {
+      invocations.incrementAndGet();
+      IOUtils.copy(reader, writer);
+    }
+  }
+
+  /**
+   * Compares the sequential & parallel post processing of a large bundle using resource-local processors followed by
+   * a minimizer applied on the merged content.
+   */
+  @Test
+  public void shouldProduceSameResultWhenPostProcessingInParallel() {
+    final GroupsProcessor groupsProcessor = createGroupsProcessor(new CommentStripperProcessor(),
+      new SingleLineCommentStripperProcessor(), new JSMinProcessor());
+    final StopWatch watch = new StopWatch();
+    watch.start("sequential");
+    final String sequentialResult = groupsProcessor.process(createGroup(), ResourceType.JS, true);
+    watch.stop();
+    Context.get().getConfig().setParallelPostprocessing(true);
+    watch.start("parallel");
+    final String parallelResult = groupsProcessor.process(createGroup(), ResourceType.JS, true);
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
+    Assert.assertEquals(sequentialResult, parallelResult);
+  }
+
+  /**
+   * JSMin is not resource-local (each minimized piece would start with a new line), so it always processes the merged
+   * content.
+   */
+  @Test
+  public void shouldApplyJsMinOnMergedContent() {
+    final String sequentialResult = createGroupsProcessor(new JSMinProcessor()).process(createGroup(), ResourceType.JS,
+      true);
+    Context.get().getConfig().setParallelPostprocessing(true);
+    final String parallelResult = createGroupsProcessor(new JSMinProcessor()).process(createGroup(), ResourceType.JS,
+      true);
+    Assert.assertEquals(sequentialResult, parallelResult);
+  }
+
+  @Test
+  public void shouldPostProcessEachResourceInParallel() {
+    Context.get().getConfig().setParallelPostprocessing(true);
+    final CountingProcessor countingProcessor = new CountingProcessor();
+    final GroupsProcessor groupsProcessor = createGroupsProcessor(new CommentStripperProcessor(), countingProcessor);
+    final String sequentialResult = createGroupsProcessor(createMergingProcessor(), new CommentStripperProcessor()).process(
+      createGroup(), ResourceType.JS, true);
+    final StopWatch watch = new StopWatch();
+    watch.start("parallel");
+    final String parallelResult = groupsProcessor.process(createGroup(), ResourceType.JS, true);
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
+    Assert.assertEquals(RESOURCES_NUMBER, countingProcessor.invocations.get());
+    Assert.assertEquals(sequentialResult, parallelResult);
+    groupsProcessor.destroy();
+  }
+
+  /**
+   * The contents are split only along line boundaries.
+   */
+  @Test
+  public void shouldPostProcessMergedContentWhenResourcesDoNotEndWithLineTerminator() {
+    Context.get().getConfig().setParallelPostprocessing(true);
+    script = "var a = 1; // comment";
+    final CountingProcessor countingProcessor = new CountingProcessor();
+    final String parallelResult = createGroupsProcessor(countingProcessor, new CommentStripperProcessor()).process(
+      createGroup(), ResourceType.JS, true);
+    Context.get().getConfig().setParallelPostprocessing(false);
+    final String sequentialResult = createGroupsProcessor(new CommentStripperProcessor()).process(createGroup(),
+      ResourceType.JS, true);
+    Assert.assertEquals(1, countingProcessor.invocations.get());
+    Assert.assertEquals(sequentialResult, parallelResult);
+  }
+
+  /**
+   * A post processor used on a css group must not mistake css urls for javascript regular expression literals.
+   */
   @Test
-  public void justPass() {}
+  public void shouldStripCommentsOfCssWhenPostProcessing() {
+    script = "a{background:url(/x.png)}/* c */b{color:red}\n";
+    final Group group = new Group();
+    group.setResources(Arrays.asList(Resource.create("/style1.css", ResourceType.CSS),
+      Resource.create("/style2.css", ResourceType.CSS)));
+    final String expected = "a{background:url(/x.png)}b{color:red}\na{background:url(/x.png)}b{color:red}\n";
+    Assert.assertEquals(expected,
+      createGroupsProcessor(new CommentStripperProcessor()).process(group, ResourceType.CSS, true));
+    Context.get().getConfig().setParallelPostprocessing(true);
+    Assert.assertEquals(expected,
+      createGroupsProcessor(new CommentStripperProcessor()).process(group, ResourceType.CSS, true));
+    Assert.assertNull(Context.get().getPostProcessedType());
+  }
 //  private GroupsProcessor groupsProcessor;
 //
 //  @Before
@@ -3,14 +3,21 @@
  */
 package ro.isdc.wro.model.group.processor;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -187,6 +194,78 @@ public class TestPreProcessorExecutor {
   }
 
 
+  @Test
+  public void shouldPreprocessImmutableJsResourcesOnlyOnce()
+    throws Exception {
+    final File jar = File.createTempFile("resources", ".jar");
+    try {
+      final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+      out.putNextEntry(new JarEntry("a.js"));
+      out.write("var a;".getBytes());
+      out.putNextEntry(new JarEntry("a.css"));
+      out.write("a {}".getBytes());
+      out.close();
+      final AtomicInteger count = new AtomicInteger();
+      initExecutor(new ResourcePreProcessor() {
+        public void process(final Resource resource, final Reader reader, final Writer writer)
+          throws IOException {
+          count.incrementAndGet();
+          IOUtils.copy(reader, writer);
+        }
+      });
+      final String jarUri = "jar:" + jar.toURI() + "!/";
+      final List<Resource> resources = Arrays.asList(Resource.create(jarUri + "a.js", ResourceType.JS),
+        Resource.create(jarUri + "a.css", ResourceType.CSS));
+      for (int i = 0; i < 3; i++) {
+        Assert.assertEquals("var a;a {}", executor.processAndMerge(resources, true));
+      }
+      // the css is processed each time
+      Assert.assertEquals(4, count.get());
+      executor.processAndMerge(resources, false);
+      Assert.assertEquals(6, count.get());
+    } finally {
+      FileUtils.deleteQuietly(jar);
+    }
+  }
+
+  @Test
+  public void shouldNotRememberIncompleteContentOfImmutableResources()
+    throws Exception {
+    final File jar = File.createTempFile("resources", ".jar");
+    try {
+      final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+      out.putNextEntry(new JarEntry("a.js"));
+      out.write("var a;".getBytes());
+      out.close();
+      final AtomicInteger count = new AtomicInteger();
+      initExecutor(new ResourcePreProcessor() {
+        public void process(final Resource resource, final Reader reader, final Writer writer)
+          throws IOException {
+          // the first processing fails after writing a partial output
+          if (count.incrementAndGet() == 1) {
+            writer.write("partial");
+            throw new IOException("processing failed");
+          }
+          IOUtils.copy(reader, writer);
+        }
+      });
+      Context.get().getConfig().setIgnoreMissingResources(true);
+      final String jarUri = "jar:" + jar.toURI() + "!/";
+      final List<Resource> resources = Arrays.asList(Resource.create(jarUri + "a.js", ResourceType.JS));
+      Assert.assertEquals("partial", executor.processAndMerge(resources, true));
+      Assert.assertEquals("var a;", executor.processAndMerge(resources, true));
+      Assert.assertEquals("var a;", executor.processAndMerge(resources, true));
+      Assert.assertEquals(2, count.get());
+      // a missing resource is located again each time
+      final List<Resource> missing = Arrays.asList(Resource.create(jarUri + "missing.js", ResourceType.JS));
+      executor.processAndMerge(missing, true);
+      executor.processAndMerge(missing, true);
+      Assert.assertEquals(4, count.get());
+    } finally {
+      FileUtils.deleteQuietly(jar);
+    }
+  }
+
   @After
   public void tearDown() {
     Context.unset();
@@ -4,9 +4,11 @@
 package ro.isdc.wro.model.resource.locator;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -89,4 +91,24 @@ public class TestClasspathUriLocator {
   public void resourceUnavailable() throws Exception {
     uriLocator.locate(createUri("123123.css"));
   }
+
+  @Test
+  public void shouldDetectResourcesPackedInJarsAsImmutable()
+      throws IOException {
+    final ClasspathUriLocator locator = new ClasspathUriLocator();
+    Assert.assertEquals(ResourceVolatility.IMMUTABLE, locator.getVolatility(createUri("org/junit/Test.class")));
+    Assert.assertEquals(ResourceVolatility.MUTABLE, locator.getVolatility(createUri("test.css")));
+    Assert.assertEquals(ResourceVolatility.MUTABLE, locator.getVolatility(createUri("ro/isdc/wro/http/*.merged")));
+    Assert.assertEquals(ResourceVolatility.MUTABLE, locator.getVolatility(createUri("notExisting.js")));
+  }
+
+  @Test
+  public void shouldReadResourcesPackedInJarsOnlyOnce()
+      throws IOException {
+    final String uri = createUri("org/junit/Test.class");
+    final byte[] expected = IOUtils.toByteArray(getClass().getClassLoader().getResourceAsStream("org/junit/Test.class"));
+    for (int i = 0; i < 3; i++) {
+      Assert.assertTrue(Arrays.equals(expected, IOUtils.toByteArray(uriLocator.locate(uri))));
+    }
+  }
 }
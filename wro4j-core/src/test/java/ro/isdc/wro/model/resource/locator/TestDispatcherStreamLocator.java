@@ -3,7 +3,9 @@
  */
 package ro.isdc.wro.model.resource.locator;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.http.HttpServletRequest;
@@ -11,6 +13,8 @@ import javax.servlet.http.HttpServletResponse;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -20,6 +24,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.resource.locator.support.DynamicResourceCache;
 
 
 /**
@@ -33,6 +38,7 @@ public class TestDispatcherStreamLocator {
   @Mock
   private HttpServletResponse mockResponse;
   private DispatcherStreamLocator locator;
+  private DynamicResourceCache cache;
 
   @Before
   public void setUp() {
@@ -40,7 +46,8 @@ public class TestDispatcherStreamLocator {
     Mockito.when(mockRequest.getRequestURL()).thenReturn(new StringBuffer("/resource.js"));
     Mockito.when(mockRequest.getServletPath()).thenReturn("");
     Context.set(Context.standaloneContext());
-    locator = new DispatcherStreamLocator();
+    cache = new DynamicResourceCache(DynamicResourceCache.DEFAULT_MAX_SIZE);
+    locator = new DispatcherStreamLocator().setDynamicResourceCache(cache);
   }
 
   @Test(expected = NullPointerException.class)
@@ -94,4 +101,87 @@ public class TestDispatcherStreamLocator {
     }).when(mockDispatcher).include(Mockito.any(HttpServletRequest.class), Mockito.any(HttpServletResponse.class));
     Assert.assertNotNull(locator.getInputStream(mockRequest, mockResponse, "/static/*.js"));
   }
+
+  @Test
+  public void shouldExecuteDynamicResourceOnlyOnceUntilInvalidated()
+      throws Exception {
+    final AtomicInteger includeCount = new AtomicInteger();
+    Mockito.when(mockRequest.getRequestDispatcher(Mockito.anyString())).thenReturn(mockDispatcher);
+    Mockito.doAnswer(new Answer<Void>() {
+      public Void answer(final InvocationOnMock invocation)
+          throws Throwable {
+        final HttpServletResponse response = (HttpServletResponse) invocation.getArguments()[1];
+        response.getWriter().write("var messages = " + includeCount.incrementAndGet() + ";");
+        return null;
+      }
+    }).when(mockDispatcher).include(Mockito.any(HttpServletRequest.class), Mockito.any(HttpServletResponse.class));
+    final String location = "/i18n/messages.jsp";
+    cache.setTimeToLive(location, 60000);
+    Assert.assertEquals("var messages = 1;", IOUtils.toString(locator.getInputStream(mockRequest, mockResponse,
+      location)));
+    Assert.assertEquals("var messages = 1;", IOUtils.toString(locator.getInputStream(mockRequest, mockResponse,
+      location)));
+    cache.invalidate(location);
+    Assert.assertEquals("var messages = 2;", IOUtils.toString(locator.getInputStream(mockRequest, mockResponse,
+      location)));
+    cache.setTimeToLive(location, 0);
+    locator.getInputStream(mockRequest, mockResponse, location);
+    Assert.assertEquals("var messages = 4;", IOUtils.toString(locator.getInputStream(mockRequest, mockResponse,
+      location)));
+  }
+
+  @Test
+  public void shouldExecuteDynamicResourceWithoutTimeToLiveEachTime()
+      throws Exception {
+    final AtomicInteger includeCount = new AtomicInteger();
+    Mockito.when(mockRequest.getRequestDispatcher(Mockito.anyString())).thenReturn(mockDispatcher);
+    Mockito.doAnswer(new Answer<Void>() {
+      public Void answer(final InvocationOnMock invocation)
+          throws Throwable {
+        final HttpServletResponse response = (HttpServletResponse) invocation.getArguments()[1];
+        response.getWriter().write("var locale = " + includeCount.incrementAndGet() + ";");
+        return null;
+      }
+    }).when(mockDispatcher).include(Mockito.any(HttpServletRequest.class), Mockito.any(HttpServletResponse.class));
+    final String location = "/i18n/locale.jsp";
+    Assert.assertEquals("var locale = 1;", IOUtils.toString(locator.getInputStream(mockRequest, mockResponse,
+      location)));
+    Assert.assertEquals("var locale = 2;", IOUtils.toString(locator.getInputStream(mockRequest, mockResponse,
+      location)));
+  }
+
+  @Test
+  public void shouldPreserveInterruptedStatusOfFallbackRequest()
+      throws Exception {
+    Mockito.when(mockRequest.getRequestURL()).thenReturn(new StringBuffer("http://localhost/app"));
+    Mockito.when(mockRequest.getServletPath()).thenReturn("/app");
+    Thread.currentThread().interrupt();
+    try {
+      locator.getInputStream(mockRequest, mockResponse, "/config.js");
+      Assert.fail("should be interrupted");
+    } catch (final IOException e) {
+      // expected
+    }
+    Assert.assertTrue(Thread.interrupted());
+  }
+
+  @Test
+  public void shouldCacheOutputOfFallbackRequest()
+      throws Exception {
+    final File folder = new File(FileUtils.getTempDirectory(), "dispatcherStreamLocator-" + System.nanoTime());
+    try {
+      final File file = new File(folder, "config.js");
+      FileUtils.writeStringToFile(file, "var config = 1;");
+      Mockito.when(mockRequest.getRequestURL()).thenReturn(new StringBuffer(folder.toURI().toString() + "app"));
+      Mockito.when(mockRequest.getServletPath()).thenReturn("/app");
+      cache.setTimeToLive("/config.js", 60000);
+      Assert.assertEquals("var config = 1;", IOUtils.toString(locator.getInputStream(mockRequest, mockResponse,
+        "/config.js")));
+      FileUtils.writeStringToFile(file, "var config = 2;");
+      Assert.assertEquals("var config = 1;", IOUtils.toString(locator.getInputStream(mockRequest, mockResponse,
+        "/config.js")));
+    } finally {
+      FileUtils.deleteQuietly(folder);
+    }
+  }
 }
@@ -3,6 +3,8 @@
  */
 package ro.isdc.wro.model.resource.locator;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -16,12 +18,18 @@ import javax.servlet.http.HttpServletResponse;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.util.StopWatch;
 
 
 /**
@@ -30,6 +38,7 @@ import ro.isdc.wro.config.Context;
  * @author Alex Objelean
  */
 public class TestServletContextUriLocator {
+  private static final Logger LOG = LoggerFactory.getLogger(TestServletContextUriLocator.class);
   private UriLocator locator;
 
 
@@ -37,6 +46,7 @@ public class TestServletContextUriLocator {
   public void initContext() {
     locator = new ServletContextUriLocator();
     final Context context = Mockito.mock(Context.class, Mockito.RETURNS_DEEP_STUBS);
+    Mockito.when(context.getConfig()).thenReturn(new WroConfiguration());
     Context.set(context);
   }
 
@@ -150,6 +160,131 @@ public class TestServletContextUriLocator {
     return is;
   }
 
+  /**
+   * @return a request dispatching to a dispatcher which writes the content of the file (like the default servlet does).
+   */
+  private HttpServletRequest mockRequestDispatchingTo(final File file) {
+    final RequestDispatcher requestDispatcher = new RequestDispatcher() {
+      public void include(final ServletRequest request, final ServletResponse response)
+          throws ServletException, IOException {
+        final InputStream input = new FileInputStream(file);
+        try {
+          IOUtils.copy(input, response.getOutputStream());
+        } finally {
+          input.close();
+        }
+      }
+
+      public void forward(final ServletRequest request, final ServletResponse response)
+          throws ServletException, IOException {
+        throw new UnsupportedOperationException();
+      }
+    };
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(Context.get().getRequest()).thenReturn(request);
+    Mockito.when(Context.get().getResponse()).thenReturn(Mockito.mock(HttpServletResponse.class));
+    Mockito.when(request.getRequestDispatcher(Mockito.anyString())).thenReturn(requestDispatcher);
+    return request;
+  }
+
+  private File getTestFile(final String name) {
+    return new File(getClass().getResource(name).getFile());
+  }
+
+  private void enableReadStaticResourcesFromDisk() {
+    Context.get().getConfig().setReadStaticResourcesFromDisk(true);
+  }
+
+  @Test
+  public void shouldUseDispatcherForStaticResourcesByDefault()
+    throws Exception {
+    final File file = getTestFile("1.css");
+    Mockito.when(Context.get().getServletContext().getRealPath("/default/1.css")).thenReturn(file.getPath());
+    final HttpServletRequest request = mockRequestDispatchingTo(file);
+    Assert.assertEquals(FileUtils.readFileToString(file), IOUtils.toString(locator.locate("/default/1.css")));
+    Mockito.verify(request).getRequestDispatcher("/default/1.css");
+  }
+
+  @Test
+  public void shouldReadStaticResourceFromFileSystem()
+    throws Exception {
+    enableReadStaticResourcesFromDisk();
+    final File file = getTestFile("1.css");
+    Mockito.when(Context.get().getServletContext().getRealPath("/static/1.css")).thenReturn(file.getPath());
+    final HttpServletRequest request = mockRequestDispatchingTo(file);
+    Assert.assertEquals(FileUtils.readFileToString(file), IOUtils.toString(locator.locate("/static/1.css")));
+    Assert.assertEquals(FileUtils.readFileToString(file), IOUtils.toString(locator.locate("/static/1.css")));
+    Mockito.verify(request, Mockito.never()).getRequestDispatcher(Mockito.anyString());
+    Mockito.verify(Context.get().getServletContext(), Mockito.times(1)).getRealPath("/static/1.css");
+  }
+
+  @Test
+  public void shouldUseDispatcherForDynamicResources()
+    throws Exception {
+    enableReadStaticResourcesFromDisk();
+    final File file = getTestFile("1.css");
+    Mockito.when(Context.get().getServletContext().getRealPath(Mockito.anyString())).thenReturn(file.getPath());
+    final HttpServletRequest request = mockRequestDispatchingTo(file);
+    locator.locate("/static/1.jsp");
+    locator.locate("/static/1.css?theme=blue");
+    Mockito.verify(request, Mockito.times(2)).getRequestDispatcher(Mockito.anyString());
+  }
+
+  @Test
+  public void shouldUseDispatcherWhenStaticResourceIsNotInFileSystem()
+    throws Exception {
+    enableReadStaticResourcesFromDisk();
+    final File file = getTestFile("1.css");
+    Mockito.when(Context.get().getServletContext().getRealPath(Mockito.anyString())).thenReturn(null);
+    final HttpServletRequest request = mockRequestDispatchingTo(file);
+    Assert.assertEquals(FileUtils.readFileToString(file), IOUtils.toString(locator.locate("/static/1.css")));
+    Mockito.verify(request).getRequestDispatcher("/static/1.css");
+  }
+
+  @Test
+  public void shouldNotRememberMissingStaticFile()
+    throws Exception {
+    enableReadStaticResourcesFromDisk();
+    final File file = getTestFile("1.css");
+    final File created = new File(FileUtils.getTempDirectory(), "wro4j-" + System.nanoTime() + ".css");
+    Mockito.when(Context.get().getServletContext().getRealPath("/static/created.css")).thenReturn(created.getPath());
+    final HttpServletRequest request = mockRequestDispatchingTo(file);
+    try {
+      locator.locate("/static/created.css");
+      FileUtils.writeStringToFile(created, "created");
+      Assert.assertEquals("created", IOUtils.toString(locator.locate("/static/created.css")));
+      Mockito.verify(request, Mockito.times(1)).getRequestDispatcher("/static/created.css");
+    } finally {
+      FileUtils.deleteQuietly(created);
+    }
+  }
+
+  @Test
+  public void shouldReadStaticResourcesFasterThanDispatcher()
+    throws Exception {
+    enableReadStaticResourcesFromDisk();
+    final File file = getTestFile("1.css");
+    Mockito.when(Context.get().getServletContext().getRealPath("/static/1.css")).thenReturn(file.getPath());
+    mockRequestDispatchingTo(file);
+    final UriLocator dynamicLocator = new ServletContextUriLocator();
+    final int iterations = 2000;
+    final StopWatch stopWatch = new StopWatch();
+    stopWatch.start("dispatcher");
+    for (int i = 0; i < iterations; i++) {
+      IOUtils.toString(dynamicLocator.locate("/static/1.css?i=" + i));
+    }
+    stopWatch.stop();
+    final long dispatcherTime = stopWatch.getLastTaskTimeMillis();
+    stopWatch.start("fileSystem");
+    for (int i = 0; i < iterations; i++) {
+      IOUtils.toString(locator.locate("/static/1.css"));
+    }
+    stopWatch.stop();
+    LOG.info("Locating {} times a static resource: dispatcher {}ms, file system {}ms", new Object[] {
+      iterations, dispatcherTime, stopWatch.getLastTaskTimeMillis()
+    });
+  }
+
   @After
   public void resetContext() {
     Context.unset();
@@ -7,6 +7,8 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 
+import junit.framework.Assert;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -38,6 +40,25 @@ public class TestUrlUriLocator {
     uriLocator.locate("/someInvalidUri.html");
   }
 
+  @Test
+  public void shouldAcceptSameUrisAsUrlConstructor() {
+    final String[] uris = {
+      "http://www.site.com/1.js", " HTTP://www.site.com/1.js ", "url:http://www.site.com/1.js", "file:/tmp/1.js",
+      "jar:file:/tmp/1.jar!/1.js", "ftp://site.com/1.js", "/1.js", "1.js", "classpath:1.js", "data:image/png;base64,ab",
+      "c:/dir/1.js", "", " ", ":", "#http://site.com", "h-t.t+p://site.com", "1http://site.com", "http://site.com:port/",
+      "url:", "dir/http://site.com"
+    };
+    for (final String uri : uris) {
+      boolean isUrl = true;
+      try {
+        new URL(uri);
+      } catch (final MalformedURLException e) {
+        isUrl = false;
+      }
+      Assert.assertEquals(uri, isUrl, uriLocator.accept(uri));
+    }
+  }
+
   @Test
   public void testValidUrl()
     throws IOException {
@@ -82,4 +103,14 @@ public class TestUrlUriLocator {
   public void testWildcardUsingInvalidResource() throws IOException {
     uriLocator.locate(createUri("http://www.google.com/*.js"));
   }
+
+  @Test
+  public void shouldDetectVolatilityByProtocol() {
+    final UrlUriLocator locator = new UrlUriLocator();
+    Assert.assertEquals(ResourceVolatility.EXPIRING, locator.getVolatility("http://www.site.com/a.js"));
+    Assert.assertEquals(ResourceVolatility.EXPIRING, locator.getVolatility("HTTPS://www.site.com/a.js"));
+    Assert.assertEquals(ResourceVolatility.IMMUTABLE, locator.getVolatility("jar:file:/lib/a.jar!/a.js"));
+    Assert.assertEquals(ResourceVolatility.MUTABLE, locator.getVolatility("file:/folder/a.js"));
+    Assert.assertEquals(ResourceVolatility.MUTABLE, locator.getVolatility("file:/folder/*.js"));
+  }
 }
@@ -0,0 +1,126 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator.factory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.group.Inject;
+import ro.isdc.wro.model.group.processor.Injector;
+import ro.isdc.wro.model.resource.locator.ClasspathUriLocator;
+import ro.isdc.wro.model.resource.locator.ServletContextUriLocator;
+import ro.isdc.wro.model.resource.locator.UriLocator;
+import ro.isdc.wro.model.resource.locator.UrlUriLocator;
+
+
+/**
+ * Test {@link SimpleUriLocatorFactory}.
+ */
+public class TestSimpleUriLocatorFactory {
+  /**
+   * Accepts the uri's having a prefix and counts the calls of {@link #accept(String)}.
+   */
+  private static class PrefixUriLocator
+    implements UriLocator {
+    private final String prefix;
+    private final AtomicInteger acceptCount = new AtomicInteger();
+    @Inject
+    private UriLocatorFactory uriLocatorFactory;
+
+    public PrefixUriLocator(final String prefix) {
+      this.prefix = prefix;
+    }
+
+    public boolean accept(final String uri) {
+      acceptCount.incrementAndGet();
+      return uri.startsWith(prefix);
+    }
+
+    public InputStream locate(final String uri)
+      throws IOException {
+      throw new IOException("not supported");
+    }
+  }
+
+  @Before
+  public void setUp() {
+    Context.set(Context.standaloneContext());
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+  }
+
+  @Test
+  public void shouldUseFirstAcceptingLocator() {
+    final PrefixUriLocator first = new PrefixUriLocator("/a");
+    final PrefixUriLocator second = new PrefixUriLocator("/");
+    final SimpleUriLocatorFactory factory = new SimpleUriLocatorFactory().addUriLocator(first, second);
+    Assert.assertSame(first, factory.getInstance("/a/1.js"));
+    Assert.assertSame(second, factory.getInstance("/b/1.js"));
+    Assert.assertNull(factory.getInstance("b/1.js"));
+  }
+
+  @Test
+  public void shouldRememberLocatorOfUri() {
+    final PrefixUriLocator locator = new PrefixUriLocator("/");
+    final SimpleUriLocatorFactory factory = new SimpleUriLocatorFactory().addUriLocator(locator);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertSame(locator, factory.getInstance("/1.js"));
+    }
+    Assert.assertEquals(1, locator.acceptCount.get());
+  }
+
+  @Test
+  public void shouldFindLocatorOfUriHandledByAddedLocator() {
+    final SimpleUriLocatorFactory factory = new SimpleUriLocatorFactory().addUriLocator(new PrefixUriLocator("/"));
+    Assert.assertNull(factory.getInstance("classpath:1.js"));
+    final PrefixUriLocator added = new PrefixUriLocator("classpath:");
+    factory.addUriLocator(added);
+    Assert.assertSame(added, factory.getInstance("classpath:1.js"));
+  }
+
+  @Test
+  public void shouldInjectLocatorOnlyOnce() {
+    final PrefixUriLocator locator = new PrefixUriLocator("/");
+    final UriLocatorFactory factory = new InjectorUriLocatorFactoryDecorator(
+      new SimpleUriLocatorFactory().addUriLocator(locator), new Injector(new BaseWroManagerFactory().create()));
+    Assert.assertSame(locator, factory.getInstance("/1.js"));
+    Assert.assertNotNull(locator.uriLocatorFactory);
+    locator.uriLocatorFactory = null;
+    Assert.assertSame(locator, factory.getInstance("/2.js"));
+    Assert.assertNull(locator.uriLocatorFactory);
+  }
+
+  @Test
+  public void shouldChooseDefaultLocatorOfEachUri() {
+    final UriLocatorFactory factory = new DefaultUriLocatorFactory();
+    for (int i = 0; i < 2; i++) {
+      Assert.assertTrue(factory.getInstance("/static/js/script.js") instanceof ServletContextUriLocator);
+      Assert.assertTrue(factory.getInstance("classpath:ro/isdc/wro/style.css") instanceof ClasspathUriLocator);
+      Assert.assertTrue(factory.getInstance("http://www.site.com/style.css") instanceof UrlUriLocator);
+    }
+  }
+
+  @Test
+  public void shouldNotRememberLocatorOfLongUri() {
+    final PrefixUriLocator locator = new PrefixUriLocator("data:");
+    final SimpleUriLocatorFactory factory = new SimpleUriLocatorFactory().addUriLocator(locator);
+    final String uri = "data:" + StringUtils.repeat("a", 1000);
+    Assert.assertSame(locator, factory.getInstance(uri));
+    Assert.assertSame(locator, factory.getInstance(uri));
+    Assert.assertEquals(2, locator.acceptCount.get());
+  }
+}
@@ -0,0 +1,304 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator.support;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.resource.locator.UrlUriLocator;
+
+
+/**
+ * Test {@link CachingHttpClient} using a local http server which counts the requests.
+ */
+public class TestCachingHttpClient {
+  private static final int TIMEOUT = 5000;
+  private HttpServerStandIn server;
+  private CachingHttpClient client;
+
+  /**
+   * A minimal http server (supporting keep-alive connections) serving a single resource and counting the requests.
+   */
+  private static class HttpServerStandIn
+    implements Runnable {
+    private final ServerSocket serverSocket;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+    private volatile String content = "alert(1);";
+    private volatile String etag;
+    private volatile String lastModified;
+    private volatile String cacheControl;
+    private volatile int status = 200;
+    private volatile boolean respond = true;
+
+    public HttpServerStandIn()
+      throws IOException {
+      serverSocket = new ServerSocket(0);
+      final Thread thread = new Thread(this, "httpServerStandIn");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    public URL getUrl()
+      throws IOException {
+      return new URL("http://localhost:" + serverSocket.getLocalPort() + "/script.js");
+    }
+
+    public void run() {
+      while (!serverSocket.isClosed()) {
+        try {
+          final Socket socket = serverSocket.accept();
+          connectionCount.incrementAndGet();
+          final Thread thread = new Thread() {
+            @Override
+            public void run() {
+              serve(socket);
+            }
+          };
+          thread.setDaemon(true);
+          thread.start();
+        } catch (final IOException e) {
+          return;
+        }
+      }
+    }
+
+    private void serve(final Socket socket) {
+      try {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+        final OutputStream output = socket.getOutputStream();
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+          final Map<String, String> headers = new HashMap<String, String>();
+          for (String header = reader.readLine(); header != null && header.length() > 0; header = reader.readLine()) {
+            final int index = header.indexOf(':');
+            headers.put(header.substring(0, index).toLowerCase(), header.substring(index + 1).trim());
+          }
+          requestCount.incrementAndGet();
+          if (!respond) {
+            continue;
+          }
+          final boolean notModified = status == 200
+            && ((etag != null && etag.equals(headers.get("if-none-match")))
+              || (lastModified != null && lastModified.equals(headers.get("if-modified-since"))));
+          final byte[] body = notModified ? new byte[0] : content.getBytes("UTF-8");
+          final StringBuilder response = new StringBuilder("HTTP/1.1 ");
+          if (notModified) {
+            notModifiedCount.incrementAndGet();
+            response.append("304 Not Modified\r\n");
+          } else {
+            response.append(status).append(" Status\r\n");
+            response.append("Content-Length: ").append(body.length).append("\r\n");
+          }
+          appendHeader(response, "ETag", etag);
+          appendHeader(response, "Last-Modified", lastModified);
+          appendHeader(response, "Cache-Control", cacheControl);
+          response.append("\r\n");
+          output.write(response.toString().getBytes("UTF-8"));
+          output.write(body);
+          output.flush();
+        }
+      } catch (final IOException e) {
+        // connection closed
+      } finally {
+        IOUtils.closeQuietly(socket);
+      }
+    }
+
+    private void appendHeader(final StringBuilder response, final String name, final String value) {
+      if (value != null) {
+        response.append(name).append(": ").append(value).append("\r\n");
+      }
+    }
+
+    public void stop() {
+      IOUtils.closeQuietly(serverSocket);
+    }
+  }
+
+  @Before
+  public void setUp()
+    throws Exception {
+    server = new HttpServerStandIn();
+    client = new CachingHttpClient(CachingHttpClient.DEFAULT_MAX_SIZE);
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+    Context.unset();
+  }
+
+  private String get()
+    throws IOException {
+    return IOUtils.toString(client.get(server.getUrl(), TIMEOUT, TIMEOUT), "UTF-8");
+  }
+
+  @Test
+  public void shouldRevalidateUsingETag()
+    throws Exception {
+    server.etag = "\"v1\"";
+    Assert.assertEquals("alert(1);", get());
+    Assert.assertEquals("alert(1);", get());
+    Assert.assertEquals("alert(1);", get());
+    Assert.assertEquals(3, server.requestCount.get());
+    Assert.assertEquals(2, server.notModifiedCount.get());
+  }
+
+  @Test
+  public void shouldRevalidateUsingLastModified()
+    throws Exception {
+    server.lastModified = "Tue, 18 Oct 2011 10:00:00 GMT";
+    Assert.assertEquals("alert(1);", get());
+    Assert.assertEquals("alert(1);", get());
+    Assert.assertEquals(1, server.notModifiedCount.get());
+  }
+
+  @Test
+  public void shouldDownloadChangedContent()
+    throws Exception {
+    server.etag = "\"v1\"";
+    get();
+    server.etag = "\"v2\"";
+    server.content = "alert(2);";
+    Assert.assertEquals("alert(2);", get());
+    Assert.assertEquals("alert(2);", get());
+    Assert.assertEquals(1, server.notModifiedCount.get());
+  }
+
+  @Test
+  public void shouldNotRevalidateFreshContent()
+    throws Exception {
+    server.etag = "\"v1\"";
+    server.cacheControl = "public, max-age=60";
+    get();
+    server.content = "alert(2);";
+    Assert.assertEquals("alert(1);", get());
+    Assert.assertEquals(1, server.requestCount.get());
+  }
+
+  @Test
+  public void shouldRevalidateWhenNoCache()
+    throws Exception {
+    server.etag = "\"v1\"";
+    server.cacheControl = "no-cache";
+    get();
+    get();
+    Assert.assertEquals(2, server.requestCount.get());
+    Assert.assertEquals(1, server.notModifiedCount.get());
+  }
+
+  @Test
+  public void shouldNotStoreContentWhenNoStore()
+    throws Exception {
+    server.etag = "\"v1\"";
+    server.cacheControl = "no-store";
+    get();
+    get();
+    Assert.assertEquals(0, server.notModifiedCount.get());
+    Assert.assertEquals(0, client.size());
+  }
+
+  @Test
+  public void shouldRevalidateWhenNoCacheFollowsMaxAge()
+    throws Exception {
+    server.etag = "\"v1\"";
+    server.cacheControl = "max-age=60, no-cache";
+    get();
+    get();
+    Assert.assertEquals(2, server.requestCount.get());
+    Assert.assertEquals(1, server.notModifiedCount.get());
+  }
+
+  @Test
+  public void shouldNotStoreContentWhenNoStoreFollowsMaxAge()
+    throws Exception {
+    server.cacheControl = "max-age=60, no-store";
+    get();
+    get();
+    Assert.assertEquals(2, server.requestCount.get());
+    Assert.assertEquals(0, client.size());
+  }
+
+  @Test
+  public void shouldNotStoreContentWithoutValidators()
+    throws Exception {
+    get();
+    get();
+    Assert.assertEquals(2, server.requestCount.get());
+    Assert.assertEquals(0, client.size());
+  }
+
+  @Test
+  public void shouldDiscardContentsExceedingMaxSize()
+    throws Exception {
+    client = new CachingHttpClient(5);
+    server.etag = "\"v1\"";
+    get();
+    get();
+    Assert.assertEquals(0, server.notModifiedCount.get());
+    Assert.assertEquals(0, client.size());
+  }
+
+  @Test
+  public void shouldReuseConnections()
+    throws Exception {
+    server.etag = "\"v1\"";
+    for (int i = 0; i < 10; i++) {
+      get();
+    }
+    Assert.assertEquals(10, server.requestCount.get());
+    Assert.assertTrue(server.connectionCount.get() < 10);
+  }
+
+  @Test(expected = IOException.class)
+  public void cannotGetContentWhenServerRespondsWithError()
+    throws Exception {
+    server.status = 404;
+    get();
+  }
+
+  @Test
+  public void shouldApplyReadTimeout()
+    throws Exception {
+    server.respond = false;
+    final UrlUriLocator locator = new UrlUriLocator();
+    locator.setHttpClient(client);
+    locator.setReadTimeout(1000);
+    try {
+      locator.locate(server.getUrl().toString());
+      Assert.fail("should time out");
+    } catch (final SocketTimeoutException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void shouldBeUsedByUrlUriLocator()
+    throws Exception {
+    server.etag = "\"v1\"";
+    final UrlUriLocator locator = new UrlUriLocator();
+    locator.setHttpClient(client);
+    Assert.assertEquals("alert(1);", IOUtils.toString(locator.locate(server.getUrl().toString()), "UTF-8"));
+    Assert.assertEquals("alert(1);", IOUtils.toString(locator.locate(server.getUrl().toString()), "UTF-8"));
+    Assert.assertEquals(1, server.notModifiedCount.get());
+  }
+}
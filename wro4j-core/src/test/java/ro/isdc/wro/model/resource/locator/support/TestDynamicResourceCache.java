@@ -0,0 +1,88 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator.support;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Test {@link DynamicResourceCache}.
+ */
+public class TestDynamicResourceCache {
+  @Test
+  public void shouldStoreOutputForTimeToLive()
+    throws Exception {
+    final DynamicResourceCache cache = new DynamicResourceCache(DynamicResourceCache.DEFAULT_MAX_SIZE);
+    cache.setTimeToLive("/messages.jsp", 50);
+    cache.put("/messages.jsp", "a".getBytes());
+    Assert.assertEquals("a", new String(cache.get("/messages.jsp")));
+    Assert.assertEquals(1, cache.size());
+    Thread.sleep(100);
+    Assert.assertNull(cache.get("/messages.jsp"));
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void shouldUseTimeToLiveOfResource()
+    throws Exception {
+    final DynamicResourceCache cache = new DynamicResourceCache(DynamicResourceCache.DEFAULT_MAX_SIZE);
+    cache.setTimeToLive("/config.jsp", 60000);
+    cache.put("/config.jsp", "a".getBytes());
+    cache.setTimeToLive("/config.jsp", 0);
+    Assert.assertNull(cache.get("/config.jsp"));
+    cache.put("/config.jsp", "a".getBytes());
+    Assert.assertNull(cache.get("/config.jsp"));
+
+    cache.setTimeToLive("/messages.jsp", 60000);
+    cache.put("/messages.jsp", "b".getBytes());
+    Thread.sleep(100);
+    Assert.assertEquals("b", new String(cache.get("/messages.jsp")));
+  }
+
+  @Test
+  public void shouldNotCacheResourcesWithoutTimeToLive() {
+    final DynamicResourceCache cache = new DynamicResourceCache(DynamicResourceCache.DEFAULT_MAX_SIZE);
+    cache.put("/messages.jsp", "a".getBytes());
+    Assert.assertNull(cache.get("/messages.jsp"));
+    cache.setTimeToLive("/messages.jsp", 60000);
+    cache.put("/messages.jsp", "a".getBytes());
+    Assert.assertNotNull(cache.get("/messages.jsp"));
+  }
+
+  @Test
+  public void shouldInvalidateOutput() {
+    final DynamicResourceCache cache = new DynamicResourceCache(DynamicResourceCache.DEFAULT_MAX_SIZE);
+    cache.setTimeToLive("/a.jsp", 60000);
+    cache.setTimeToLive("/b.jsp", 60000);
+    cache.put("/a.jsp", "a".getBytes());
+    cache.put("/b.jsp", "b".getBytes());
+    cache.invalidate("/a.jsp");
+    Assert.assertNull(cache.get("/a.jsp"));
+    Assert.assertNotNull(cache.get("/b.jsp"));
+    cache.clear();
+    Assert.assertNull(cache.get("/b.jsp"));
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void shouldDiscardLeastRecentlyUsedOutputs() {
+    final DynamicResourceCache cache = new DynamicResourceCache(10);
+    for (final String location : new String[] { "/a.jsp", "/b.jsp", "/c.jsp", "/d.jsp" }) {
+      cache.setTimeToLive(location, 60000);
+    }
+    cache.put("/a.jsp", "aaaa".getBytes());
+    cache.put("/b.jsp", "bbbb".getBytes());
+    cache.get("/a.jsp");
+    cache.put("/c.jsp", "cccc".getBytes());
+    Assert.assertEquals(8, cache.size());
+    Assert.assertNotNull(cache.get("/a.jsp"));
+    Assert.assertNull(cache.get("/b.jsp"));
+    // an output larger than the cache is not stored
+    cache.put("/d.jsp", "ddddddddddd".getBytes());
+    Assert.assertNull(cache.get("/d.jsp"));
+    Assert.assertEquals(8, cache.size());
+  }
+}
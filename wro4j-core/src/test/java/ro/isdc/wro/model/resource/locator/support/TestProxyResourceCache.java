@@ -0,0 +1,134 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.locator.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.model.resource.locator.ResourceVolatility;
+import ro.isdc.wro.model.resource.locator.UriLocator;
+import ro.isdc.wro.model.resource.locator.VolatilityAware;
+import ro.isdc.wro.model.resource.locator.factory.SimpleUriLocatorFactory;
+import ro.isdc.wro.model.resource.util.CRC32HashBuilder;
+
+
+/**
+ * Test {@link ProxyResourceCache}.
+ */
+public class TestProxyResourceCache {
+  private CountingUriLocator locator;
+  private SimpleUriLocatorFactory uriLocatorFactory;
+
+  /**
+   * Serves the configured contents, counting the located resources. The resources starting with "jar:" are immutable.
+   */
+  private static class CountingUriLocator
+    implements UriLocator, VolatilityAware {
+    private final Map<String, String> contents = new HashMap<String, String>();
+    private int locateCount;
+
+    public InputStream locate(final String uri)
+      throws IOException {
+      locateCount++;
+      final String content = contents.get(uri);
+      if (content == null) {
+        throw new IOException("Missing resource: " + uri);
+      }
+      return new ByteArrayInputStream(content.getBytes());
+    }
+
+    public boolean accept(final String uri) {
+      return true;
+    }
+
+    public ResourceVolatility getVolatility(final String uri) {
+      return uri.startsWith("jar:") ? ResourceVolatility.IMMUTABLE : ResourceVolatility.MUTABLE;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    locator = new CountingUriLocator();
+    uriLocatorFactory = new SimpleUriLocatorFactory().addUriLocator(locator);
+  }
+
+  @Test
+  public void shouldLocateStoredResourceOnlyOnce()
+    throws Exception {
+    final ProxyResourceCache cache = new ProxyResourceCache(ProxyResourceCache.DEFAULT_MAX_SIZE);
+    locator.contents.put("/img.png", "image");
+    final ProxyResourceCache.Entry entry = cache.get("/img.png", uriLocatorFactory, true);
+    Assert.assertEquals("image", new String(entry.getContent()));
+    Assert.assertSame(entry, cache.get("/img.png?#iefix", uriLocatorFactory, true));
+    Assert.assertEquals(1, locator.locateCount);
+    Assert.assertEquals(5, cache.size());
+
+    cache.get("/img.png", uriLocatorFactory, false);
+    Assert.assertEquals(1, locator.locateCount);
+    cache.clear();
+    cache.get("/img.png", uriLocatorFactory, false);
+    cache.get("/img.png", uriLocatorFactory, false);
+    Assert.assertEquals(3, locator.locateCount);
+  }
+
+  @Test
+  public void shouldComputeHashWithConfiguredHashBuilder()
+    throws Exception {
+    final ProxyResourceCache cache = new ProxyResourceCache(ProxyResourceCache.DEFAULT_MAX_SIZE);
+    locator.contents.put("/img.png", "image");
+    final String hash = cache.get("/img.png", uriLocatorFactory, true).getHash();
+    cache.setHashBuilder(new CRC32HashBuilder());
+    Assert.assertEquals(0, cache.size());
+    final String crc32 = cache.get("/img.png", uriLocatorFactory, true).getHash();
+    Assert.assertEquals(new CRC32HashBuilder().getHash(new ByteArrayInputStream("image".getBytes())), crc32);
+    Assert.assertFalse(hash.equals(crc32));
+  }
+
+  @Test
+  public void shouldDiscardLeastRecentlyUsedContents()
+    throws Exception {
+    final ProxyResourceCache cache = new ProxyResourceCache(10);
+    locator.contents.put("/a", "aaaa");
+    locator.contents.put("/b", "bbbb");
+    locator.contents.put("/c", "cccc");
+    cache.get("/a", uriLocatorFactory, true);
+    cache.get("/b", uriLocatorFactory, true);
+    cache.get("/a", uriLocatorFactory, true);
+    cache.get("/c", uriLocatorFactory, true);
+    Assert.assertEquals(8, cache.size());
+    Assert.assertEquals(3, locator.locateCount);
+    cache.get("/a", uriLocatorFactory, true);
+    Assert.assertEquals(3, locator.locateCount);
+    cache.get("/b", uriLocatorFactory, true);
+    Assert.assertEquals(4, locator.locateCount);
+  }
+
+  @Test
+  public void shouldKeepImmutableContentsWhenClearingMutableOnes()
+    throws Exception {
+    final ProxyResourceCache cache = new ProxyResourceCache(ProxyResourceCache.DEFAULT_MAX_SIZE);
+    locator.contents.put("jar:file:/lib.jar!/img.png", "jar");
+    locator.contents.put("/img.png", "file");
+    cache.get("jar:file:/lib.jar!/img.png", uriLocatorFactory, true);
+    cache.get("/img.png", uriLocatorFactory, true);
+    cache.clearMutable();
+    Assert.assertEquals(3, cache.size());
+    cache.get("jar:file:/lib.jar!/img.png", uriLocatorFactory, true);
+    Assert.assertEquals(2, locator.locateCount);
+  }
+
+  @Test(expected = IOException.class)
+  public void cannotGetMissingResource()
+    throws Exception {
+    new ProxyResourceCache(ProxyResourceCache.DEFAULT_MAX_SIZE).get("/missing.png", uriLocatorFactory, true);
+  }
+}
@@ -5,12 +5,17 @@ package ro.isdc.wro.model.resource.locator.wildcard;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -23,10 +28,35 @@ import ro.isdc.wro.util.WroUtil;
  */
 public class TestDefaultWildcardStreamLocator {
   private WildcardStreamLocator locator;
+  private File folder;
 
   @Before
-  public void setUp() {
+  public void setUp() throws IOException {
     locator = new DefaultWildcardStreamLocator();
+    folder = File.createTempFile("wildcard", "");
+    folder.delete();
+    folder.mkdir();
+  }
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteQuietly(folder);
+  }
+
+  private String locate(final String uri) throws IOException {
+    final InputStream is = locator.locateStream(uri, folder);
+    try {
+      return IOUtils.toString(is);
+    } finally {
+      IOUtils.closeQuietly(is);
+    }
+  }
+
+  /**
+   * Pretends the folder was modified a while ago, so that the expansion of the wildcard can be remembered.
+   */
+  private void setOldLastModified(final File dir) {
+    dir.setLastModified(System.currentTimeMillis() - 60000);
   }
 
   @Test
@@ -126,4 +156,61 @@ public class TestDefaultWildcardStreamLocator {
     };
     uriLocator.locate("classpath:" + WroUtil.toPackageAsFolder(getClass()) + "/*.css");
   }
+
+  @Test
+  public void shouldConcatenateMatchedFilesInOrder() throws IOException {
+    FileUtils.writeStringToFile(new File(folder, "b.js"), "b;");
+    FileUtils.writeStringToFile(new File(folder, "a.js"), "a;");
+    FileUtils.writeStringToFile(new File(folder, "c.css"), "c");
+    FileUtils.writeStringToFile(new File(folder, "sub/d.js"), "d;");
+    Assert.assertEquals("a;b;", locate("/js/*.js"));
+    Assert.assertEquals("a;b;d;", locate("/js/**.js"));
+  }
+
+  @Test
+  public void shouldReadLargeFiles() throws IOException {
+    final String large = StringUtils.repeat("var a = 1;\n", 200000);
+    FileUtils.writeStringToFile(new File(folder, "a.js"), large);
+    FileUtils.writeStringToFile(new File(folder, "b.js"), "b;");
+    Assert.assertEquals(large + "b;", locate("/*.js"));
+  }
+
+  @Test
+  public void shouldOpenFilesOnlyWhenRead() throws IOException {
+    final File file = new File(folder, "a.js");
+    FileUtils.writeStringToFile(file, "a;");
+    final InputStream is = locator.locateStream("/*.js", folder);
+    FileUtils.writeStringToFile(file, "changed;");
+    Assert.assertEquals("changed;", IOUtils.toString(is));
+    is.close();
+  }
+
+  @Test
+  public void shouldReuseMatchedFilesUntilFolderIsModified() throws IOException {
+    final File sub = new File(folder, "sub");
+    FileUtils.writeStringToFile(new File(sub, "a.js"), "a;");
+    setOldLastModified(sub);
+    setOldLastModified(folder);
+    Assert.assertEquals("a;", locate("/**.js"));
+
+    final long lastModified = sub.lastModified();
+    FileUtils.writeStringToFile(new File(sub, "b.js"), "b;");
+    sub.setLastModified(lastModified);
+    // the content of the remembered files is still read
+    FileUtils.writeStringToFile(new File(sub, "a.js"), "a2;");
+    Assert.assertEquals("a2;", locate("/**.js"));
+
+    sub.setLastModified(lastModified - 10000);
+    Assert.assertEquals("a2;b;", locate("/**.js"));
+  }
+
+  @Test
+  public void shouldNotRememberRecentlyModifiedFolders() throws IOException {
+    FileUtils.writeStringToFile(new File(folder, "a.js"), "a;");
+    Assert.assertEquals("a;", locate("/*.js"));
+    final long lastModified = folder.lastModified();
+    FileUtils.writeStringToFile(new File(folder, "b.js"), "b;");
+    folder.setLastModified(lastModified);
+    Assert.assertEquals("a;b;", locate("/*.js"));
+  }
 }
@@ -2,18 +2,27 @@ package ro.isdc.wro.model.resource.locator.wildcard;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -38,6 +47,8 @@ public class TestJarWildcardStreamLocator {
   private final String jarFileName = "file:///home/test/myJar.jar!";
   @Mock
   private JarFile jarFile;
+  private File realJar;
+  private final AtomicInteger openCount = new AtomicInteger();
 
 
   public TestJarWildcardStreamLocator() {
@@ -61,6 +72,52 @@ public class TestJarWildcardStreamLocator {
         return jarFile;
       }
     };
+    jarStreamLocator.setJarIndexCache(new JarIndexCache(JarIndexCache.DEFAULT_SIZE));
+  }
+
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteQuietly(realJar);
+  }
+
+
+  private void createJar(final File file, final String... namesAndContents)
+    throws IOException {
+    final JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+    try {
+      for (int i = 0; i < namesAndContents.length; i += 2) {
+        out.putNextEntry(new JarEntry(namesAndContents[i]));
+        out.write(namesAndContents[i + 1].getBytes());
+        out.closeEntry();
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+
+  private JarWildcardStreamLocator createCountingLocator(final JarIndexCache cache) {
+    final JarWildcardStreamLocator locator = new JarWildcardStreamLocator() {
+      @Override
+      protected JarFile open(final File file) {
+        openCount.incrementAndGet();
+        return super.open(file);
+      }
+    };
+    locator.setJarIndexCache(cache);
+    return locator;
+  }
+
+
+  private String locate(final JarWildcardStreamLocator locator, final String uri, final File jar)
+    throws IOException {
+    final InputStream is = locator.locateStream(uri, new File("file:" + jar.getPath() + "!"));
+    try {
+      return IOUtils.toString(is);
+    } finally {
+      IOUtils.closeQuietly(is);
+    }
   }
 
 
@@ -95,4 +152,111 @@ public class TestJarWildcardStreamLocator {
     throws IOException {
     jarStreamLocator.locateStream("com/test/app/*.js", new File("test.jpg"));
   }
+
+
+  @Test
+  public void shouldConcatenateMatchingEntriesInJarOrder()
+    throws IOException {
+    realJar = File.createTempFile("wildcard", ".jar");
+    createJar(realJar, "com/test/b.js", "b;", "com/test/a.js", "a;", "com/test/a.css", "css", "com/test/sub/c.js", "c;",
+      "com/other/d.js", "d;");
+    final JarWildcardStreamLocator locator = createCountingLocator(new JarIndexCache(1));
+    assertEquals("b;a;c;", locate(locator, "classpath:com/test/*.js", realJar));
+    assertEquals("css", locate(locator, "com/test/*.css", realJar));
+  }
+
+
+  @Test
+  public void shouldOpenJarOnlyOnceUntilModified()
+    throws IOException {
+    realJar = File.createTempFile("wildcard", ".jar");
+    createJar(realJar, "com/test/a.js", "a;");
+    final JarIndexCache cache = new JarIndexCache(1);
+    final JarWildcardStreamLocator locator = createCountingLocator(cache);
+    for (int i = 0; i < 10; i++) {
+      assertEquals("a;", locate(locator, "com/test/*.js", realJar));
+    }
+    assertEquals(1, openCount.get());
+    assertEquals(1, cache.size());
+
+    final long lastModified = realJar.lastModified();
+    createJar(realJar, "com/test/a.js", "a;", "com/test/b.js", "b;");
+    realJar.setLastModified(lastModified - 10000);
+    assertEquals("a;b;", locate(locator, "com/test/*.js", realJar));
+    assertEquals(2, openCount.get());
+  }
+
+
+  @Test
+  public void shouldCloseLeastRecentlyUsedJars()
+    throws IOException {
+    realJar = File.createTempFile("wildcard", ".jar");
+    createJar(realJar, "com/test/a.js", "a;");
+    final File otherJar = File.createTempFile("wildcard", ".jar");
+    try {
+      createJar(otherJar, "com/test/b.js", "b;");
+      final JarIndexCache cache = new JarIndexCache(1);
+      final JarWildcardStreamLocator locator = createCountingLocator(cache);
+      assertEquals("a;", locate(locator, "com/test/*.js", realJar));
+      assertEquals("b;", locate(locator, "com/test/*.js", otherJar));
+      assertEquals("a;", locate(locator, "com/test/*.js", realJar));
+      assertEquals(1, cache.size());
+      assertEquals(3, openCount.get());
+      cache.clear();
+      assertEquals(0, cache.size());
+    } finally {
+      FileUtils.deleteQuietly(otherJar);
+    }
+  }
+
+
+  @Test
+  public void shouldCloseDiscardedJarOnlyWhenItsStreamsAreClosed()
+    throws IOException {
+    realJar = File.createTempFile("wildcard", ".jar");
+    createJar(realJar, "com/test/a.js", "a;");
+    final File otherJar = File.createTempFile("wildcard", ".jar");
+    try {
+      createJar(otherJar, "com/test/b.js", "b;");
+      final AtomicInteger closeCount = new AtomicInteger();
+      final JarWildcardStreamLocator locator = new JarWildcardStreamLocator() {
+        @Override
+        protected JarFile open(final File file) {
+          try {
+            return new JarFile(file) {
+              @Override
+              public void close()
+                throws IOException {
+                closeCount.incrementAndGet();
+                super.close();
+              }
+            };
+          } catch (final IOException e) {
+            throw new IllegalArgumentException(e);
+          }
+        }
+      };
+      locator.setJarIndexCache(new JarIndexCache(1));
+      final InputStream is = locator.locateStream("com/test/*.js", new File("file:" + realJar.getPath() + "!"));
+      // discards the index of the first jar while its stream is not read yet
+      assertEquals("b;", locate(locator, "com/test/*.js", otherJar));
+      assertEquals(0, closeCount.get());
+      assertEquals("a;", IOUtils.toString(is));
+      is.close();
+      assertEquals(1, closeCount.get());
+    } finally {
+      FileUtils.deleteQuietly(otherJar);
+    }
+  }
+
+
+  @Test
+  public void shouldReadEntriesOnlyWhenStreamIsConsumed()
+    throws IOException {
+    final InputStream is = jarStreamLocator.locateStream("com/test/app/*.js", new File(jarFileName));
+    verify(jarFile, never()).getInputStream(any(JarEntry.class));
+    assertEquals(testInfo, IOUtils.toString(is));
+    verify(jarFile, times(1)).getInputStream(any(JarEntry.class));
+    IOUtils.closeQuietly(is);
+  }
 }
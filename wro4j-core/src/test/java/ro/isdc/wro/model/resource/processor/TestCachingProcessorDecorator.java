@@ -0,0 +1,195 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.processor.impl.CachingProcessorDecorator;
+import ro.isdc.wro.model.resource.processor.impl.js.JSMinProcessor;
+import ro.isdc.wro.model.resource.processor.support.ProcessorOutputCache;
+
+
+/**
+ * Test {@link CachingProcessorDecorator}.
+ */
+public class TestCachingProcessorDecorator {
+  private File directory;
+
+  /**
+   * Upper cases the content and counts its invocations.
+   */
+  private static class CountingProcessor
+    implements ResourcePreProcessor, CacheKeyAware {
+    private final AtomicInteger invocations = new AtomicInteger();
+    private final String suffix;
+
+    CountingProcessor(final String suffix) {
+      this.suffix = suffix;
+    }
+
+    public void process(final Resource resource, final Reader reader, final Writer writer)
+      throws IOException {
+      invocations.incrementAndGet();
+      writer.write(IOUtils.toString(reader).toUpperCase() + suffix);
+    }
+
+    public String getCacheKey(final Resource resource) {
+      return suffix;
+    }
+  }
+
+  private interface CacheKeyAwareProcessor
+    extends ResourcePreProcessor, CacheKeyAware {
+  }
+
+  @Before
+  public void setUp()
+    throws Exception {
+    Context.set(Context.standaloneContext());
+    directory = File.createTempFile("wro4j", "cache");
+    directory.delete();
+  }
+
+  @After
+  public void tearDown()
+    throws Exception {
+    Context.unset();
+    FileUtils.deleteDirectory(directory);
+  }
+
+  private String process(final ResourcePreProcessor processor, final String content)
+    throws IOException {
+    final StringWriter writer = new StringWriter();
+    processor.process(null, new StringReader(content), writer);
+    return writer.toString();
+  }
+
+  @Test
+  public void shouldNotInvokeProcessorForCachedContent()
+    throws Exception {
+    final CountingProcessor processor = new CountingProcessor("");
+    final ResourcePreProcessor decorator = CachingProcessorDecorator.decorate(processor).setCache(
+      new ProcessorOutputCache(null, 10));
+    Assert.assertEquals("A", process(decorator, "a"));
+    Assert.assertEquals("A", process(decorator, "a"));
+    Assert.assertEquals("B", process(decorator, "b"));
+    Assert.assertEquals(2, processor.invocations.get());
+  }
+
+  @Test
+  public void shouldReusePersistedOutputAfterRestart()
+    throws Exception {
+    final CountingProcessor processor = new CountingProcessor("");
+    Assert.assertEquals("A", process(CachingProcessorDecorator.decorate(processor).setCache(
+      new ProcessorOutputCache(directory, 10)), "a"));
+    // another process, sharing the folder only
+    final CountingProcessor otherProcessor = new CountingProcessor("");
+    Assert.assertEquals("A", process(CachingProcessorDecorator.decorate(otherProcessor).setCache(
+      new ProcessorOutputCache(directory, 0)), "a"));
+    Assert.assertEquals(1, processor.invocations.get());
+    Assert.assertEquals(0, otherProcessor.invocations.get());
+  }
+
+  @Test
+  public void shouldNotShareOutputOfProcessorsWithDifferentOptions()
+    throws Exception {
+    final ProcessorOutputCache cache = new ProcessorOutputCache(directory, 10);
+    Assert.assertEquals("A1", process(CachingProcessorDecorator.decorate(new CountingProcessor("1")).setCache(cache),
+      "a"));
+    Assert.assertEquals("A2", process(CachingProcessorDecorator.decorate(new CountingProcessor("2")).setCache(cache),
+      "a"));
+    final CountingProcessor processor = new CountingProcessor("1");
+    Assert.assertEquals("A1", process(CachingProcessorDecorator.decorate(processor).setOptions("other").setCache(
+      cache), "a"));
+    Assert.assertEquals(1, processor.invocations.get());
+  }
+
+  @Test
+  public void shouldNotCacheUnchangedContent()
+    throws Exception {
+    final CountingProcessor processor = new CountingProcessor("");
+    final ResourcePreProcessor decorator = CachingProcessorDecorator.decorate(processor).setCache(
+      new ProcessorOutputCache(directory, 10));
+    process(decorator, "A");
+    process(decorator, "A");
+    Assert.assertEquals(2, processor.invocations.get());
+    Assert.assertFalse(directory.exists());
+  }
+
+  @Test
+  public void shouldUseCacheOfConfiguration()
+    throws Exception {
+    Context.get().getConfig().setProcessorCacheDirectory(directory.getPath());
+    final CountingProcessor processor = new CountingProcessor("");
+    process(CachingProcessorDecorator.decorate(processor), "content");
+    Assert.assertTrue(directory.isDirectory());
+    Assert.assertSame(ProcessorOutputCache.forConfiguration(Context.get().getConfig()),
+      ProcessorOutputCache.forConfiguration(Context.get().getConfig()));
+  }
+
+  @Test
+  public void shouldNotCacheProcessorWithoutCacheKey()
+    throws Exception {
+    final AtomicInteger invocations = new AtomicInteger();
+    final ResourcePreProcessor decorator = CachingProcessorDecorator.decorate(new ResourcePreProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+        throws IOException {
+        invocations.incrementAndGet();
+        writer.write(IOUtils.toString(reader).toUpperCase());
+      }
+    }).setCache(new ProcessorOutputCache(null, 10));
+    process(decorator, "a");
+    process(decorator, "a");
+    Assert.assertEquals(2, invocations.get());
+  }
+
+  @Test
+  public void shouldUseCacheKeyOfProcessedResource()
+    throws Exception {
+    final AtomicInteger invocations = new AtomicInteger();
+    final ResourcePreProcessor decorator = CachingProcessorDecorator.decorate(new CacheKeyAwareProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+        throws IOException {
+        invocations.incrementAndGet();
+        writer.write(IOUtils.toString(reader) + resource.getUri());
+      }
+
+      public String getCacheKey(final Resource resource) {
+        return resource.getUri();
+      }
+    }).setCache(new ProcessorOutputCache(null, 10));
+    final StringWriter writer = new StringWriter();
+    decorator.process(Resource.create("/a.js", ResourceType.JS), new StringReader("a"), writer);
+    decorator.process(Resource.create("/b.js", ResourceType.JS), new StringReader("a"), writer);
+    decorator.process(Resource.create("/a.js", ResourceType.JS), new StringReader("a"), writer);
+    Assert.assertEquals("a/a.jsa/b.jsa/a.js", writer.toString());
+    Assert.assertEquals(2, invocations.get());
+  }
+
+  @Test
+  public void shouldPreserveMinimizeAwareness() {
+    final ResourcePreProcessor decoratedProcessor = new JSMinProcessor();
+    final ResourcePreProcessor decorator = CachingProcessorDecorator.decorate(decoratedProcessor);
+    Assert.assertTrue(ProcessorsUtils.isMinimizeAwareProcessor(decorator));
+    Assert.assertTrue(ProcessorsUtils.getMinimizeFreeProcessors(Arrays.asList(decorator)).isEmpty());
+  }
+}
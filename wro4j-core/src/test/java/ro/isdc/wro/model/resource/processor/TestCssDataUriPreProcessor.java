@@ -4,11 +4,20 @@
 package ro.isdc.wro.model.resource.processor;
 
 import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import junit.framework.Assert;
+
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
 
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.impl.css.CssDataUriPreProcessor;
 import ro.isdc.wro.util.WroTestUtils;
 
@@ -39,4 +48,69 @@ public class TestCssDataUriPreProcessor {
     WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "css", processor);
   }
 
+  /**
+   * The same image referred many times is encoded once and every occurrence is replaced with the same dataUri.
+   */
+  @Test
+  public void shouldReplaceRepeatedImageWithSameDataUri()
+    throws Exception {
+    final String css = StringUtils.repeat(".a{background: url(btn_icons.png);}\n", 100)
+      + ".b{background: url(large.jpg);}";
+    final Resource resource = Resource.create("classpath:ro/isdc/wro/model/resource/processor/dataUri/test/a.css",
+      ResourceType.CSS);
+    final StringWriter writer = new StringWriter();
+    processor.process(resource, new StringReader(css), writer);
+    final String result = writer.toString();
+    Assert.assertEquals(100, StringUtils.countMatches(result, "url(data:image/png;base64,iVBORw0KGgo"));
+    Assert.assertEquals(1, StringUtils.countMatches(result, "url(large.jpg)"));
+    final StringWriter secondWriter = new StringWriter();
+    processor.process(resource, new StringReader(css), secondWriter);
+    Assert.assertEquals(result, secondWriter.toString());
+  }
+
+  /**
+   * An image referred many times by the same stylesheet is read and checked only once.
+   */
+  @Test
+  public void shouldCheckRepeatedImageOncePerProcessing()
+    throws Exception {
+    final AtomicInteger checks = new AtomicInteger();
+    processor = new CssDataUriPreProcessor() {
+      @Override
+      protected boolean replaceWithDataUri(final long dataUriSize) {
+        checks.incrementAndGet();
+        return super.replaceWithDataUri(dataUriSize);
+      }
+    };
+    WroTestUtils.initProcessor(processor);
+    final String css = StringUtils.repeat(".a{background: url(btn_icons.png);}\n", 100);
+    final Resource resource = Resource.create("classpath:ro/isdc/wro/model/resource/processor/dataUri/test/a.css",
+      ResourceType.CSS);
+    processor.process(resource, new StringReader(css), new StringWriter());
+    Assert.assertEquals(1, checks.get());
+    processor.process(resource, new StringReader(css), new StringWriter());
+    Assert.assertEquals(2, checks.get());
+  }
+
+  /**
+   * Subclasses overriding the legacy decision method are still honored.
+   */
+  @Test
+  public void shouldInvokeLegacyReplaceDecision()
+    throws Exception {
+    processor = new CssDataUriPreProcessor() {
+      @Override
+      protected boolean replaceWithDataUri(final String dataUri)
+        throws UnsupportedEncodingException {
+        return false;
+      }
+    };
+    WroTestUtils.initProcessor(processor);
+    final String css = ".a{background: url(btn_icons.png);}";
+    final Resource resource = Resource.create("classpath:ro/isdc/wro/model/resource/processor/dataUri/test/a.css",
+      ResourceType.CSS);
+    final StringWriter writer = new StringWriter();
+    processor.process(resource, new StringReader(css), writer);
+    Assert.assertEquals(css, writer.toString());
+  }
 }
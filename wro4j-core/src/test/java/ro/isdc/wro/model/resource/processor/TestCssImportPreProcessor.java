@@ -3,14 +3,36 @@
  */
 package ro.isdc.wro.model.resource.processor;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.net.URL;
 
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.manager.WroManager;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.group.processor.Injector;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.locator.UriLocator;
+import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.processor.factory.SimpleProcessorsFactory;
 import ro.isdc.wro.model.resource.processor.impl.css.CssImportPreProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.CssUrlRewritingProcessor;
+import ro.isdc.wro.model.resource.processor.support.AllowedUrlRegistry;
 import ro.isdc.wro.util.WroTestUtils;
 
 
@@ -20,7 +42,9 @@ import ro.isdc.wro.util.WroTestUtils;
  * @author Alex Objelean
  */
 public class TestCssImportPreProcessor {
-  private ResourcePreProcessor processor;
+  private CssImportPreProcessor processor;
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
   @Before
   public void setUp() {
@@ -39,4 +63,145 @@ public class TestCssImportPreProcessor {
     final File expectedFolder = new File(url.getFile(), "expected");
     WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "css", processor);
   }
+
+
+  /**
+   * The second processing reuses the import graph, which must produce the same result.
+   */
+  @Test
+  public void shouldProduceSameResultWhenImportsAreCached()
+      throws Exception {
+    testFromFolder();
+    testFromFolder();
+  }
+
+
+  @Test
+  public void shouldReportDependentsOfImportedResource()
+      throws Exception {
+    final File testFolder = new File(getClass().getResource("cssImport").getFile(), "test");
+    final File cssFile = new File(testFolder, "test1.css");
+    final String uri = "file:" + cssFile.getPath();
+    processor.process(Resource.create(uri, ResourceType.CSS), new FileReader(cssFile), new StringWriter());
+    final String importUri = "file:" + new File(testFolder, "css/import2.css").getPath();
+    Assert.assertTrue(processor.getImportGraph().getDependents(importUri).contains(uri));
+  }
+
+
+  /**
+   * A partial imported by two other partials (diamond) is included once, also when the import graph is reused, and a
+   * partial is complete when imported by another stylesheet.
+   */
+  @Test
+  public void shouldIncludeDiamondImportsOnceForEachStylesheet()
+      throws Exception {
+    final File folder = temporaryFolder.getRoot();
+    FileUtils.writeStringToFile(new File(folder, "base.css"), ".base{}");
+    FileUtils.writeStringToFile(new File(folder, "left.css"), "@import url(base.css);.left{}");
+    FileUtils.writeStringToFile(new File(folder, "right.css"), "@import url(base.css);.right{}");
+    final String root = "@import url(left.css);@import url(right.css);.root{}";
+    final String other = "@import url(right.css);.other{}";
+    for (int i = 0; i < 2; i++) {
+      final String result = process(new File(folder, "root.css"), root);
+      Assert.assertEquals(1, StringUtils.countMatches(result, ".base{}"));
+      Assert.assertTrue(result.indexOf(".base{}") < result.indexOf(".left{}"));
+      Assert.assertTrue(result.indexOf(".left{}") < result.indexOf(".right{}"));
+      Assert.assertTrue(result.indexOf(".right{}") < result.indexOf(".root{}"));
+      final String otherResult = process(new File(folder, "other.css"), other);
+      Assert.assertEquals(1, StringUtils.countMatches(otherResult, ".base{}"));
+      Assert.assertTrue(otherResult.indexOf(".base{}") < otherResult.indexOf(".right{}"));
+    }
+  }
+
+
+  /**
+   * The urls rewritten in a partial are allowed again by a new generation, when the import graph is reused.
+   */
+  @Test
+  public void shouldAllowUrlsOfPartialsAfterReload()
+      throws Exception {
+    final WroManager manager = createManagerRewritingUrls(new BaseWroManagerFactory());
+    final File folder = temporaryFolder.getRoot();
+    FileUtils.writeStringToFile(new File(folder, "partial.css"), ".partial{background: url(img.png);}");
+    final AllowedUrlRegistry allowedUrls = manager.getAllowedUrls();
+    allowedUrls.startGeneration();
+    process(new File(folder, "root.css"), "@import url(partial.css);.root{}");
+    allowedUrls.completeGeneration();
+    final String urls = allowedUrls.toString();
+    Assert.assertEquals(1, allowedUrls.size());
+    allowedUrls.startGeneration();
+    process(new File(folder, "root.css"), "@import url(partial.css);.root{}");
+    allowedUrls.completeGeneration();
+    Assert.assertEquals(urls, allowedUrls.toString());
+  }
+
+
+  /**
+   * The rewritten urls of a partial depend on the folder of the aggregated stylesheet, thus a partial imported by
+   * stylesheets served from different folders is processed for each of them.
+   */
+  @Test
+  public void shouldRewriteUrlsOfPartialForEachAggregatedFolder()
+      throws Exception {
+    final UriLocator uriLocator = new UriLocator() {
+      public InputStream locate(final String uri)
+        throws IOException {
+        return new ByteArrayInputStream(".partial{background:url(img.png);}".getBytes());
+      }
+
+      public boolean accept(final String uri) {
+        return true;
+      }
+    };
+    final BaseWroManagerFactory factory = new BaseWroManagerFactory();
+    factory.setUriLocatorFactory(new UriLocatorFactory() {
+      public InputStream locate(final String uri)
+        throws IOException {
+        return uriLocator.locate(uri);
+      }
+
+      public UriLocator getInstance(final String uri) {
+        return uriLocator;
+      }
+    });
+    createManagerRewritingUrls(factory);
+    final Resource resource = Resource.create("/css/root.css", ResourceType.CSS);
+    final String css = "@import url(partial.css);.root{}";
+    Context.get().setAggregatedFolderPath("wro");
+    StringWriter writer = new StringWriter();
+    processor.process(resource, new StringReader(css), writer);
+    Assert.assertTrue(writer.toString().contains("url(../css/img.png)"));
+    Context.get().setAggregatedFolderPath("static/wro");
+    writer = new StringWriter();
+    processor.process(resource, new StringReader(css), writer);
+    Assert.assertTrue(writer.toString().contains("url(../../css/img.png)"));
+  }
+
+
+  /**
+   * Injects the processor and a css url rewriting processor with a manager created by the provided factory.
+   */
+  private WroManager createManagerRewritingUrls(final BaseWroManagerFactory factory) {
+    final CssUrlRewritingProcessor urlRewritingProcessor = new CssUrlRewritingProcessor() {
+      @Override
+      protected String getUrlPrefix() {
+        return "[WRO-PREFIX]?id=";
+      }
+    };
+    factory.setProcessorsFactory(new SimpleProcessorsFactory().addPreProcessor(processor).addPreProcessor(
+      urlRewritingProcessor));
+    final WroManager manager = factory.create();
+    final Injector injector = new Injector(manager);
+    injector.inject(processor);
+    injector.inject(urlRewritingProcessor);
+    return manager;
+  }
+
+
+  private String process(final File file, final String css)
+      throws Exception {
+    final StringWriter writer = new StringWriter();
+    processor.process(Resource.create("file:" + file.getPath(), ResourceType.CSS), new StringReader(css), writer);
+    return writer.toString();
+  }
 }
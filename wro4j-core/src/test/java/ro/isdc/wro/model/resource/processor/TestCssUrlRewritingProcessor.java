@@ -5,6 +5,8 @@ package ro.isdc.wro.model.resource.processor;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.Writer;
 
 import junit.framework.Assert;
@@ -16,6 +18,7 @@ import org.mockito.Mockito;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.processor.impl.css.CssUrlRewritingProcessor;
+import ro.isdc.wro.model.resource.util.SHA1HashBuilder;
 import ro.isdc.wro.util.WroTestUtils;
 
 
@@ -159,4 +162,21 @@ public class TestCssUrlRewritingProcessor {
     Assert.assertFalse(processor.isUriAllowed("/WEB-INF/web.xml"));
     Assert.assertTrue(processor.isUriAllowed("classpath:folder/img.gif"));
   }
+
+
+  @Test
+  public void shouldAddHashOfProxiedResourceToUrl()
+    throws Exception {
+    WroTestUtils.initProcessor((ResourcePreProcessor) processor);
+    final String folder = "ro/isdc/wro/model/resource/processor/dataUri/test/";
+    final String hash = new SHA1HashBuilder().getHash(getClass().getResourceAsStream("/" + folder + "btn_icons.png"));
+    final StringWriter writer = new StringWriter();
+    processor.process(createMockResource("classpath:" + folder + "style.css"), new StringReader(
+      ".a {background: url(btn_icons.png);} .b {background: url(missing.png);}"), writer);
+    Assert.assertEquals(".a {background: url([WRO-PREFIX]?v=" + hash + "&id=classpath:" + folder
+      + "btn_icons.png);} .b {background: url([WRO-PREFIX]?id=classpath:" + folder + "missing.png);}",
+      writer.toString());
+    Assert.assertTrue(processor.isUriAllowed("classpath:" + folder + "btn_icons.png"));
+    Assert.assertTrue(processor.isUriAllowed("classpath:" + folder + "missing.png"));
+  }
 }
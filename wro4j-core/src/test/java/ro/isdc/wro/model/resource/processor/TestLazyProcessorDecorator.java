@@ -0,0 +1,97 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.processor.impl.LazyProcessorDecorator;
+import ro.isdc.wro.model.resource.processor.impl.css.CssUrlRewritingProcessor;
+import ro.isdc.wro.model.resource.processor.impl.js.JSMinProcessor;
+import ro.isdc.wro.util.ObjectFactory;
+import ro.isdc.wro.util.WroTestUtils;
+
+
+/**
+ * Test {@link LazyProcessorDecorator}.
+ */
+public class TestLazyProcessorDecorator {
+  private AtomicInteger createdCount;
+
+  @Before
+  public void setUp() {
+    Context.set(Context.standaloneContext());
+    createdCount = new AtomicInteger();
+  }
+
+  private LazyProcessorDecorator decorate(final ResourcePreProcessor processor) {
+    return LazyProcessorDecorator.decorate(new ObjectFactory<ResourcePreProcessor>() {
+      public ResourcePreProcessor create() {
+        createdCount.incrementAndGet();
+        return processor;
+      }
+    });
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void cannotDecorateNullFactory() {
+    LazyProcessorDecorator.decorate(null);
+  }
+
+  @Test
+  public void shouldNotCreateProcessorBeforeFirstUsage() {
+    final LazyProcessorDecorator processor = decorate(new JSMinProcessor());
+    Assert.assertFalse(processor.isInitialized());
+    Assert.assertEquals(0, createdCount.get());
+  }
+
+  @Test
+  public void shouldInheritAttributesOfDecoratedProcessor() {
+    Assert.assertEquals(ResourceType.JS, decorate(new JSMinProcessor()).getSupportedResourceType().value());
+    Assert.assertTrue(ProcessorsUtils.isMinimizeAwareProcessor(decorate(new JSMinProcessor())));
+    Assert.assertEquals(ResourceType.CSS, decorate(new CssUrlRewritingProcessor()).getSupportedResourceType().value());
+    Assert.assertFalse(ProcessorsUtils.isMinimizeAwareProcessor(decorate(new CssUrlRewritingProcessor())));
+  }
+
+  @Test
+  public void shouldProcessUsingDecoratedProcessor()
+    throws Exception {
+    final LazyProcessorDecorator processor = decorate(new JSMinProcessor());
+    final StringWriter expected = new StringWriter();
+    new JSMinProcessor().process(new StringReader("var a = 1;  // comment"), expected);
+    final StringWriter writer = new StringWriter();
+    processor.process(new StringReader("var a = 1;  // comment"), writer);
+    Assert.assertEquals(expected.toString(), writer.toString());
+    Assert.assertTrue(processor.isInitialized());
+  }
+
+  @Test
+  public void shouldCreateProcessorOnlyOnceWhenUsedConcurrently()
+    throws Exception {
+    final LazyProcessorDecorator processor = decorate(new JSMinProcessor());
+    WroTestUtils.runConcurrently(new Callable<Void>() {
+      public Void call()
+        throws Exception {
+        processor.process(new StringReader("var a = 1;"), new StringWriter());
+        return null;
+      }
+    });
+    Assert.assertEquals(1, createdCount.get());
+  }
+
+  @Test(expected = WroRuntimeException.class)
+  public void cannotUseNullProcessor() {
+    decorate(null).getSupportedResourceType();
+  }
+}
@@ -9,6 +9,7 @@ import java.io.Writer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
@@ -16,9 +17,14 @@ import org.junit.Test;
 
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.processor.impl.CachingProcessorDecorator;
+import ro.isdc.wro.model.resource.processor.impl.CommentStripperProcessor;
 import ro.isdc.wro.model.resource.processor.impl.CopyrightKeeperProcessorDecorator;
+import ro.isdc.wro.model.resource.processor.impl.LazyProcessorDecorator;
 import ro.isdc.wro.model.resource.processor.impl.css.CssMinProcessor;
 import ro.isdc.wro.model.resource.processor.impl.js.JSMinProcessor;
+import ro.isdc.wro.util.Destroyable;
+import ro.isdc.wro.util.ObjectFactory;
 
 
 /**
@@ -114,4 +120,68 @@ public class TestProcessorsUtils {
     output = ProcessorsUtils.getProcessorsByType(null, input);
     Assert.assertEquals(1, output.size());
   }
+
+  private static class DestroyableProcessor
+    implements ResourcePreProcessor, Destroyable {
+    private final AtomicInteger destroyCount = new AtomicInteger();
+
+    public void process(final Resource resource, final Reader reader, final Writer writer)
+      throws IOException {
+    }
+
+    public void destroy() {
+      destroyCount.incrementAndGet();
+    }
+  }
+
+  @Test
+  public void shouldDestroyDecoratedProcessorsOnce() {
+    final DestroyableProcessor processor = new DestroyableProcessor();
+    final ResourcePreProcessor decorated = CopyrightKeeperProcessorDecorator.decorate(processor);
+    ProcessorsUtils.destroy(Collections.singleton(decorated), Collections.singleton(decorated));
+    Assert.assertEquals(1, processor.destroyCount.get());
+  }
+
+  @Test
+  public void shouldNotCreateLazyProcessorWhenDestroyed() {
+    final DestroyableProcessor processor = new DestroyableProcessor();
+    final LazyProcessorDecorator lazyProcessor = LazyProcessorDecorator.decorate(
+      new ObjectFactory<ResourcePreProcessor>() {
+        public ResourcePreProcessor create() {
+          return processor;
+        }
+      });
+    ProcessorsUtils.destroy(Collections.singleton(lazyProcessor));
+    Assert.assertFalse(lazyProcessor.isInitialized());
+    lazyProcessor.getDecoratedProcessor();
+    ProcessorsUtils.destroy(Collections.singleton(lazyProcessor));
+    Assert.assertEquals(1, processor.destroyCount.get());
+  }
+
+  @Test
+  public void shouldDetectResourceLocalProcessorThroughDecorators() {
+    final LazyProcessorDecorator lazyProcessor = LazyProcessorDecorator.decorate(
+      new ObjectFactory<ResourcePreProcessor>() {
+        public ResourcePreProcessor create() {
+          return CachingProcessorDecorator.decorate((ResourcePreProcessor) new CommentStripperProcessor());
+        }
+      });
+    Assert.assertTrue(ProcessorsUtils.isResourceLocalProcessor(lazyProcessor));
+    Assert.assertFalse(ProcessorsUtils.isResourceLocalProcessor(CopyrightKeeperProcessorDecorator.decorate(
+      (ResourcePreProcessor) new CommentStripperProcessor())));
+    Assert.assertFalse(ProcessorsUtils.isResourceLocalProcessor(new JSMinProcessor()));
+  }
+
+  @Test
+  public void shouldDetectMinimizeProcessorThroughLazyDecorator() {
+    final LazyProcessorDecorator lazyProcessor = LazyProcessorDecorator.decorate(
+      new ObjectFactory<ResourcePreProcessor>() {
+        public ResourcePreProcessor create() {
+          return new JSMinProcessor();
+        }
+      });
+    Assert.assertTrue(ProcessorsUtils.isMinimizeAwareProcessor(lazyProcessor));
+    Assert.assertTrue(ProcessorsUtils.getMinimizeFreeProcessors(Arrays.<ResourcePreProcessor> asList(lazyProcessor))
+      .isEmpty());
+  }
 }
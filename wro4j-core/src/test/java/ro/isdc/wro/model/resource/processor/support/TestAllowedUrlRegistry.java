@@ -0,0 +1,116 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.util.StopWatch;
+
+
+/**
+ * Test {@link AllowedUrlRegistry}.
+ */
+public class TestAllowedUrlRegistry {
+  private static final Logger LOG = LoggerFactory.getLogger(TestAllowedUrlRegistry.class);
+  private AllowedUrlRegistry registry;
+
+  @Before
+  public void setUp() {
+    registry = new AllowedUrlRegistry();
+  }
+
+  @Test
+  public void shouldContainOnlyAddedUrls() {
+    registry.add("classpath:folder/img.gif");
+    registry.add("/WEB-INF/img/1.png");
+    Assert.assertTrue(registry.contains("classpath:folder/img.gif"));
+    Assert.assertTrue(registry.contains("/WEB-INF/img/1.png"));
+    Assert.assertFalse(registry.contains("classpath:folder"));
+    Assert.assertFalse(registry.contains("classpath:folder/img.gif/"));
+    Assert.assertFalse(registry.contains("/WEB-INF/web.xml"));
+    Assert.assertFalse(registry.contains(null));
+    Assert.assertEquals(2, registry.size());
+  }
+
+  @Test
+  public void shouldKeepUrlsWhenMergedIntoTree() {
+    for (int i = 0; i < 1000; i++) {
+      registry.add("/WEB-INF/img/" + (i % 10) + "/" + i + ".png");
+      registry.add("/WEB-INF/img/" + (i % 10) + "/" + i + ".png");
+    }
+    registry.add("");
+    registry.add("/");
+    Assert.assertEquals(1002, registry.size());
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertTrue(registry.contains("/WEB-INF/img/" + (i % 10) + "/" + i + ".png"));
+    }
+    Assert.assertTrue(registry.contains(""));
+    Assert.assertTrue(registry.contains("/"));
+    Assert.assertFalse(registry.contains("/WEB-INF/img/1/2.png"));
+    Assert.assertFalse(registry.contains("/WEB-INF/img"));
+  }
+
+  @Test
+  public void shouldReplaceUrlsWhenGenerationIsComplete() {
+    registry.add("/WEB-INF/old.png");
+    registry.add("/WEB-INF/kept.png");
+    registry.startGeneration();
+    registry.add("/WEB-INF/kept.png");
+    registry.add("/WEB-INF/new.png");
+    // the urls of the previous generation are allowed until the generation is complete
+    Assert.assertTrue(registry.contains("/WEB-INF/old.png"));
+    Assert.assertTrue(registry.contains("/WEB-INF/new.png"));
+    registry.completeGeneration();
+    Assert.assertFalse(registry.contains("/WEB-INF/old.png"));
+    Assert.assertTrue(registry.contains("/WEB-INF/kept.png"));
+    Assert.assertTrue(registry.contains("/WEB-INF/new.png"));
+    Assert.assertEquals(2, registry.size());
+    // completing without starting a generation has no effect
+    registry.completeGeneration();
+    Assert.assertEquals(2, registry.size());
+  }
+
+  @Test
+  public void shouldKeepUrlsWhenGenerationIsAborted() {
+    registry.add("/WEB-INF/old.png");
+    registry.startGeneration();
+    registry.add("/WEB-INF/new.png");
+    registry.abortGeneration();
+    // a later completion has no effect
+    registry.completeGeneration();
+    Assert.assertTrue(registry.contains("/WEB-INF/old.png"));
+    Assert.assertTrue(registry.contains("/WEB-INF/new.png"));
+  }
+
+  @Test
+  public void shouldNotGrowWhenSameUrlsAreAddedByEachGeneration() {
+    for (int generation = 0; generation < 100; generation++) {
+      registry.startGeneration();
+      for (int i = 0; i < 500; i++) {
+        registry.add("classpath:com/site/img/" + i + ".png");
+      }
+      registry.completeGeneration();
+    }
+    Assert.assertEquals(500, registry.size());
+  }
+
+  @Test
+  public void shouldLookupUrlsFast() {
+    for (int i = 0; i < 5000; i++) {
+      registry.add("classpath:com/site/theme" + (i % 20) + "/img/" + i + ".png");
+    }
+    final StopWatch stopWatch = new StopWatch();
+    stopWatch.start("lookup");
+    for (int i = 0; i < 100000; i++) {
+      Assert.assertTrue(registry.contains("classpath:com/site/theme" + (i % 20) + "/img/" + (i % 5000) + ".png"));
+    }
+    stopWatch.stop();
+    LOG.info("100000 lookups in {}ms", stopWatch.getLastTaskTimeMillis());
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.io.File;
+import java.net.URL;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.impl.CommentStripperProcessor;
+import ro.isdc.wro.util.StopWatch;
+import ro.isdc.wro.util.WroTestUtils;
+
+
+/**
+ * Test for {@link CommentStripper}. The correctness corpus contains string & regular expression literals which were
+ * corrupted by the regex based comment strippers.
+ */
+public class TestCommentStripper {
+  private static final Logger LOG = LoggerFactory.getLogger(TestCommentStripper.class);
+  /**
+   * Patterns used by comment stripper processors before the state machine was introduced.
+   */
+  private static final Pattern LEGACY_SINGLE_LINE_PATTERN = Pattern.compile("[\\t ]*//.*?$", Pattern.MULTILINE);
+  private static final Pattern LEGACY_MULTI_LINE_PATTERN = Pattern.compile("(?ims)[\\t ]*/\\*.*?\\*/[\\r\\n]?");
+  private static final Pattern LEGACY_EMPTY_LINE_PATTERN = Pattern.compile("^[\\t ]*$\\r?\\n", Pattern.MULTILINE);
+
+  @Test
+  public void shouldStripCommentsFromCorpus()
+    throws Exception {
+    final ResourcePreProcessor processor = new CommentStripperProcessor();
+    final URL url = getClass().getResource("commentStripper");
+    final File testFolder = new File(url.getFile(), "test");
+    final File expectedFolder = new File(url.getFile(), "expected");
+    WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "js", processor);
+    WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "css", processor);
+  }
+
+  @Test
+  public void shouldKeepLineCommentsWhenOnlyBlockCommentsAreStripped()
+    throws Exception {
+    Assert.assertEquals("a(); // b /* c */\nd();",
+      new CommentStripper(true, false, true).strip("a(); // b /* c */\n/* e */\nd();"));
+  }
+
+  @Test
+  public void shouldKeepBlockCommentsWhenOnlyLineCommentsAreStripped()
+    throws Exception {
+    Assert.assertEquals("/* a // b */\nc();\n", new CommentStripper(true, true, false).strip("/* a // b */\nc(); // d\n"));
+  }
+
+  @Test
+  public void shouldNotTreatDoubleSlashAsCommentInCss()
+    throws Exception {
+    Assert.assertEquals("a{background:url(//host/a.png)}",
+      new CommentStripper(false, true, true).strip("a{background:url(//host/a.png)}/* b */"));
+  }
+
+  @Test
+  public void shouldHandleUnterminatedConstructions()
+    throws Exception {
+    Assert.assertEquals("var a = 'b\n", new CommentStripper(true, true, true).strip("var a = 'b\n/* c"));
+    Assert.assertEquals("a /", new CommentStripper(true, true, true).strip("a /"));
+  }
+
+  @Test
+  public void shouldDetectRegexAfterKeywordsSeparatedByWhitespace()
+    throws Exception {
+    final String script = "function f(u) { if (!u) x(); else return /\\/\\//.test(u); }";
+    Assert.assertEquals(script, new CommentStripper(true, true, true).strip(script));
+    final String commented = "do/* a */return /\\/\\//.test(u);";
+    Assert.assertEquals("do return /\\/\\//.test(u);", new CommentStripper(true, true, true).strip(commented));
+  }
+
+  /**
+   * Compares the state machine with the legacy regular expressions on a multi megabyte script.
+   */
+  @Test
+  public void compareWithRegexOnLargeScript()
+    throws Exception {
+    final File corpus = new File(getClass().getResource("commentStripper/test/separators.js").getFile());
+    final String script = StringUtils.repeat(FileUtils.readFileToString(corpus), 50000);
+    final StopWatch watch = new StopWatch();
+    watch.start("regex");
+    String regexResult = LEGACY_SINGLE_LINE_PATTERN.matcher(script).replaceAll("");
+    regexResult = LEGACY_MULTI_LINE_PATTERN.matcher(regexResult).replaceAll("");
+    regexResult = LEGACY_EMPTY_LINE_PATTERN.matcher(regexResult).replaceAll("");
+    watch.stop();
+    watch.start("stateMachine");
+    final String result = new CommentStripper(true, true, true).strip(script);
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
+    Assert.assertTrue(result.length() > 0 && result.length() < regexResult.length() * 2);
+  }
+
+  /**
+   * Inputs which make backtracking regular expressions behave quadratically must be processed in linear time.
+   */
+  @Test
+  public void shouldStripPathologicalInputFast()
+    throws Exception {
+    final String[] inputs = new String[] {
+      "/*" + StringUtils.repeat(" ", 500000),
+      StringUtils.repeat("\t", 500000) + "/",
+      StringUtils.repeat("'a", 200000),
+      StringUtils.repeat("/", 500001)
+    };
+    for (final String input : inputs) {
+      final long start = System.currentTimeMillis();
+      new CommentStripper(true, true, true).strip(input);
+      final long elapsed = System.currentTimeMillis() - start;
+      Assert.assertTrue("Stripping " + StringUtils.abbreviate(input, 20) + " took " + elapsed + "ms", elapsed < 2000);
+    }
+  }
+}
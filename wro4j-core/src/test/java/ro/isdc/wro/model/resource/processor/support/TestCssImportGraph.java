@@ -0,0 +1,52 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Test for {@link CssImportGraph}.
+ */
+public class TestCssImportGraph {
+  private CssImportGraph graph;
+
+  @Before
+  public void setUp() {
+    graph = new CssImportGraph();
+    // a.css & b.css are bundles, both importing variables.css through mixins.css
+    graph.setImports("a.css", Arrays.asList("mixins.css", "reset.css"));
+    graph.setImports("b.css", Arrays.asList("mixins.css"));
+    graph.setImports("mixins.css", Arrays.asList("variables.css"));
+  }
+
+  @Test
+  public void shouldFindTransitiveDependents() {
+    Assert.assertEquals(Arrays.asList("mixins.css", "a.css", "b.css").size(),
+      graph.getDependents("variables.css").size());
+    Assert.assertTrue(graph.getDependents("variables.css").containsAll(Arrays.asList("mixins.css", "a.css", "b.css")));
+    Assert.assertEquals(Collections.singleton("a.css"), graph.getDependents("reset.css"));
+    Assert.assertTrue(graph.getDependents("a.css").isEmpty());
+  }
+
+  @Test
+  public void shouldUpdateDependentsWhenImportsChange() {
+    graph.setImports("b.css", Arrays.asList("reset.css"));
+    Assert.assertEquals(Collections.singleton("a.css"), graph.getDependents("mixins.css"));
+    Assert.assertTrue(graph.getDependents("reset.css").containsAll(Arrays.asList("a.css", "b.css")));
+  }
+
+  @Test
+  public void shouldDetectRecursiveImports() {
+    Assert.assertFalse(graph.isRecursive("mixins.css"));
+    graph.setImports("variables.css", Arrays.asList("a.css"));
+    Assert.assertTrue(graph.isRecursive("mixins.css"));
+  }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.model.resource.processor.support.CssTokenizer.TokenType;
+import ro.isdc.wro.util.StopWatch;
+
+
+/**
+ * Test for {@link CssTokenizer}. Besides correctness, it also checks that pathological inputs are tokenized in linear
+ * time and compares the tokenizer with the regular expression previously used for url rewriting.
+ */
+public class TestCssTokenizer {
+  private static final Logger LOG = LoggerFactory.getLogger(TestCssTokenizer.class);
+  /**
+   * The pattern used by url rewriting processors before the tokenizer was introduced.
+   */
+  private static final Pattern LEGACY_URL_PATTERN = Pattern.compile(
+    "url\\s*\\((\\s*['\"]?((?:.*?|\\s*?))['\"]?\\s*)\\)|src\\s*=\\s*['\"]((?:.|\\s)*?)['\"]", Pattern.CASE_INSENSITIVE);
+
+  private List<String> tokenize(final String css) {
+    final List<String> tokens = new ArrayList<String>();
+    final CssTokenizer tokenizer = new CssTokenizer(css);
+    while (tokenizer.next() != null) {
+      tokens.add(tokenizer.getType() + "[" + tokenizer.getText() + "]");
+    }
+    return tokens;
+  }
+
+  private String valueOfFirst(final String css, final TokenType type) {
+    final CssTokenizer tokenizer = new CssTokenizer(css);
+    while (tokenizer.next() != null) {
+      if (tokenizer.getType() == type) {
+        return tokenizer.getValue();
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void shouldProduceNoTokensForEmptyContent() {
+    Assert.assertTrue(tokenize("").isEmpty());
+  }
+
+  @Test
+  public void shouldSplitContentInTokens() {
+    Assert.assertEquals("[TEXT[a { background: ], URL[url( 'img.png' )], TEXT[; content: ], STRING[\"url(x)\"], "
+      + "TEXT[; } ], COMMENT[/* url(y) */]]",
+      tokenize("a { background: url( 'img.png' ); content: \"url(x)\"; } /* url(y) */").toString());
+  }
+
+  @Test
+  public void shouldReconstructOriginalContent() {
+    final String css = "@import url(a.css) screen;\n@variables {c: red;}\n.a{color:var(c);background:URL(\"b.png\")}"
+      + "\n.b{filter:progid:DXImageTransform.Microsoft.AlphaImageLoader(src='c.png')} /* unterminated";
+    Assert.assertEquals(css, CssTokenizer.transform(css));
+  }
+
+  @Test
+  public void shouldExtractUrlValues() {
+    Assert.assertEquals("img.png", valueOfFirst("a {background: url(img.png)}", TokenType.URL));
+    Assert.assertEquals("img.png", valueOfFirst("a {background: url(  \"img.png\"  )}", TokenType.URL));
+    Assert.assertEquals("a b.png", valueOfFirst("a {background: url('a b.png')}", TokenType.URL));
+    Assert.assertEquals(" c.png ", valueOfFirst("a {filter: x(src = ' c.png ')}", TokenType.SRC));
+  }
+
+  @Test
+  public void shouldNotDetectUrlInsideIdentifier() {
+    Assert.assertNull(valueOfFirst("a {background: myurl(img.png)}", TokenType.URL));
+  }
+
+  @Test
+  public void shouldExtractImportValues() {
+    Assert.assertEquals("a.css", valueOfFirst("@import url('a.css');", TokenType.IMPORT));
+    Assert.assertEquals("a.css", valueOfFirst("@import \"a.css\" screen;", TokenType.IMPORT));
+    Assert.assertEquals("[IMPORT[@IMPORT 'a.css';], TEXT[\nb{}]]", tokenize("@IMPORT 'a.css';\nb{}").toString());
+  }
+
+  @Test
+  public void shouldExtractVariables() {
+    Assert.assertEquals(" a: red; ", valueOfFirst("@variables { a: red; }", TokenType.VARIABLES));
+    Assert.assertEquals("a", valueOfFirst("b {color: var( a );}", TokenType.VAR));
+  }
+
+  @Test
+  public void shouldHandleUnterminatedConstructions() {
+    Assert.assertEquals("[STRING['abc], TEXT[\nd]]", tokenize("'abc\nd").toString());
+    Assert.assertEquals("[TEXT[a ], COMMENT[/* b]]", tokenize("a /* b").toString());
+    Assert.assertEquals("[TEXT[url(a b]]", tokenize("url(a b").toString());
+    Assert.assertEquals("[TEXT[@variables { a: b;]]", tokenize("@variables { a: b;").toString());
+  }
+
+  @Test
+  public void shouldApplyFusedTransformers() {
+    final CssTokenTransformer urlTransformer = new CssTokenTransformer() {
+      public boolean transform(final CssTokenizer tokenizer, final StringBuilder out) {
+        if (tokenizer.getType() == TokenType.URL) {
+          tokenizer.appendWithContent(out, "/root/" + tokenizer.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+    final CssTokenTransformer commentRemover = new CssTokenTransformer() {
+      public boolean transform(final CssTokenizer tokenizer, final StringBuilder out) {
+        return tokenizer.getType() == TokenType.COMMENT;
+      }
+    };
+    Assert.assertEquals("a {background: url(/root/b.png) }",
+      CssTokenizer.transform("a {background: url( 'b.png' ) /* c */}", urlTransformer, commentRemover));
+  }
+
+  /**
+   * Inputs which make backtracking regular expressions behave quadratically must be tokenized in linear time.
+   */
+  @Test
+  public void shouldTokenizePathologicalInputFast() {
+    final String[] inputs = new String[] {
+      "a{filter:x(src='" + StringUtils.repeat("a", 200000),
+      StringUtils.repeat("url(", 50000),
+      StringUtils.repeat("var(", 50000),
+      StringUtils.repeat("@variables {", 20000),
+      StringUtils.repeat("url('a", 20000),
+      StringUtils.repeat("/", 200000)
+    };
+    for (final String input : inputs) {
+      final long start = System.currentTimeMillis();
+      Assert.assertEquals(input, CssTokenizer.transform(input));
+      final long elapsed = System.currentTimeMillis() - start;
+      Assert.assertTrue("Tokenizing " + StringUtils.abbreviate(input, 20) + " took " + elapsed + "ms", elapsed < 2000);
+    }
+  }
+
+  /**
+   * Compares the tokenizer with the legacy regular expression on a large stylesheet. Both must find the same urls.
+   */
+  @Test
+  public void compareWithRegexOnLargeStylesheet()
+    throws Exception {
+    final String css = StringUtils.repeat(IOUtils.toString(getClass().getResourceAsStream("/cssUrlRewriting.css")),
+      2000);
+    final StopWatch watch = new StopWatch();
+    watch.start("regex");
+    int regexUrls = 0;
+    final Matcher matcher = LEGACY_URL_PATTERN.matcher(css);
+    while (matcher.find()) {
+      regexUrls++;
+    }
+    watch.stop();
+    watch.start("tokenizer");
+    int tokenizerUrls = 0;
+    final CssTokenizer tokenizer = new CssTokenizer(css);
+    TokenType type = null;
+    while ((type = tokenizer.next()) != null) {
+      if (type == TokenType.URL || type == TokenType.SRC) {
+        tokenizerUrls++;
+      }
+    }
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
+    Assert.assertEquals(regexUrls, tokenizerUrls);
+  }
+}
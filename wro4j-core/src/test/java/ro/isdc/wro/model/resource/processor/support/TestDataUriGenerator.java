@@ -3,11 +3,15 @@
  */
 package ro.isdc.wro.model.resource.processor.support;
 
+import java.io.StringWriter;
+
 import junit.framework.Assert;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
 import ro.isdc.wro.model.resource.processor.support.DataUriGenerator;
+import ro.isdc.wro.util.Base64;
 
 
 /**
@@ -25,4 +29,23 @@ public class TestDataUriGenerator {
       dataUriGenerator.generateDataURI(getClass().getResourceAsStream("../dataUri/test/btn_icons.png"), "btn_icons.png"));
 
   }
+
+  @Test
+  public void shouldComputeDataUriLengthBeforeEncoding()
+    throws Exception {
+    for (int size = 0; size < 10; size++) {
+      final StringWriter writer = new StringWriter();
+      dataUriGenerator.generateDataURI(new byte[size], writer, "a.gif");
+      Assert.assertEquals(writer.toString().length(), dataUriGenerator.getDataUriLength(size, "a.gif"));
+    }
+  }
+
+  @Test
+  public void shouldStreamSameContentAsBase64Encoding()
+    throws Exception {
+    final byte[] bytes = IOUtils.toByteArray(getClass().getResourceAsStream("../dataUri/test/large.jpg"));
+    final StringWriter writer = new StringWriter();
+    Base64.encode(bytes, 0, bytes.length, writer);
+    Assert.assertEquals(Base64.encodeBytes(bytes), writer.toString());
+  }
 }
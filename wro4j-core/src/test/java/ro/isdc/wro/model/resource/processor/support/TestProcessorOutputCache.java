@@ -0,0 +1,57 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.io.File;
+
+import junit.framework.Assert;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ro.isdc.wro.config.jmx.WroConfiguration;
+
+
+/**
+ * Test {@link ProcessorOutputCache}.
+ */
+public class TestProcessorOutputCache {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldKeepOutputsInMemoryByDefault() {
+    Assert.assertNull(ProcessorOutputCache.forConfiguration(new WroConfiguration()).getDirectory());
+  }
+
+  @Test
+  public void shouldPersistOutputsInPrivateFolder() {
+    final File directory = new File(temporaryFolder.getRoot(), "cache");
+    final ProcessorOutputCache cache = new ProcessorOutputCache(directory, 0);
+    cache.put("key", "value");
+    Assert.assertTrue(directory.isDirectory());
+    Assert.assertEquals("value", new ProcessorOutputCache(directory, 0).get("key"));
+    Assert.assertTrue(directory.canRead() && directory.canWrite());
+  }
+
+  @Test
+  public void shouldDeleteLeastRecentlyUsedOutputs() {
+    final File directory = new File(temporaryFolder.getRoot(), "cache");
+    final ProcessorOutputCache cache = new ProcessorOutputCache(directory, 0, 4);
+    final long now = System.currentTimeMillis();
+    for (int i = 1; i <= 4; i++) {
+      cache.put("key" + i, "value" + i);
+      new File(new File(directory, "ke"), "key" + i).setLastModified(now - (10 - i) * 60000);
+    }
+    // key1 becomes the most recently used
+    Assert.assertEquals("value1", cache.get("key1"));
+    cache.put("key5", "value5");
+    Assert.assertNull(cache.get("key2"));
+    Assert.assertNull(cache.get("key3"));
+    Assert.assertEquals("value1", cache.get("key1"));
+    Assert.assertEquals("value4", cache.get("key4"));
+    Assert.assertEquals("value5", cache.get("key5"));
+  }
+}
@@ -0,0 +1,7 @@
+var re = /\/\*.*?\*\//g;
+var re2 = /[/*]/;
+if (a / b > 1) {
+  return /https?:\/\//.test(url);
+}
+var x = a / 2 / 3;
+var y = (x) / 2; var z = typeof /a/;
@@ -0,0 +1,4 @@
+var url = "http://www.google.com/";
+var pattern = '/* not a comment */';
+var escaped = "quote \" // still a string";
+var single = 'it\'s // not a comment';
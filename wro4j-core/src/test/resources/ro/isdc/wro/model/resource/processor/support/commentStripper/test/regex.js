@@ -0,0 +1,7 @@
+var re = /\/\*.*?\*\//g; // strip comments
+var re2 = /[/*]/;
+if (a / b > 1) { /* division */
+  return /https?:\/\//.test(url);
+}
+var x = a / 2 / 3; // divisions
+var y = (x) / 2; /* c */ var z = typeof /a/;
@@ -0,0 +1,7 @@
+/**
+ * Documentation comment.
+ */
+function f() {
+  return/* value */x;
+}
+var a = b/**/c;
@@ -0,0 +1,6 @@
+// leading comment
+var url = "http://www.google.com/"; // a comment
+var pattern = '/* not a comment */';
+var escaped = "quote \" // still a string"; /* trailing */
+
+var single = 'it\'s // not a comment';
@@ -14,12 +14,9 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import java.util.StringTokenizer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.mozilla.javascript.CompilerEnvirons;
 import org.mozilla.javascript.ErrorReporter;
@@ -36,7 +33,8 @@ public class JavaScriptCompressor {
     static final ArrayList threes;
 
     static final Set builtin = new HashSet();
-    static final Map literals = new Hashtable();
+    // Indexed by token type, avoids boxing the type of each token when looking up its literal.
+    static final String[] literals = new String[Token1.LAST_TOKEN + 1];
     static final Set reserved = new HashSet();
 
     static {
@@ -96,92 +94,92 @@ public class JavaScriptCompressor {
         // (206,380 symbols per scope)
 
         // The following list comes from org/mozilla/javascript/Decompiler.java...
-        literals.put(new Integer(Token1.GET), "get ");
-        literals.put(new Integer(Token1.SET), "set ");
-        literals.put(new Integer(Token1.TRUE), "true");
-        literals.put(new Integer(Token1.FALSE), "false");
-        literals.put(new Integer(Token1.NULL), "null");
-        literals.put(new Integer(Token1.THIS), "this");
-        literals.put(new Integer(Token1.FUNCTION), "function");
-        literals.put(new Integer(Token1.COMMA), ",");
-        literals.put(new Integer(Token1.LC), "{");
-        literals.put(new Integer(Token1.RC), "}");
-        literals.put(new Integer(Token1.LP), "(");
-        literals.put(new Integer(Token1.RP), ")");
-        literals.put(new Integer(Token1.LB), "[");
-        literals.put(new Integer(Token1.RB), "]");
-        literals.put(new Integer(Token1.DOT), ".");
-        literals.put(new Integer(Token1.NEW), "new ");
-        literals.put(new Integer(Token1.DELPROP), "delete ");
-        literals.put(new Integer(Token1.IF), "if");
-        literals.put(new Integer(Token1.ELSE), "else");
-        literals.put(new Integer(Token1.FOR), "for");
-        literals.put(new Integer(Token1.IN), " in ");
-        literals.put(new Integer(Token1.WITH), "with");
-        literals.put(new Integer(Token1.WHILE), "while");
-        literals.put(new Integer(Token1.DO), "do");
-        literals.put(new Integer(Token1.TRY), "try");
-        literals.put(new Integer(Token1.CATCH), "catch");
-        literals.put(new Integer(Token1.FINALLY), "finally");
-        literals.put(new Integer(Token1.THROW), "throw");
-        literals.put(new Integer(Token1.SWITCH), "switch");
-        literals.put(new Integer(Token1.BREAK), "break");
-        literals.put(new Integer(Token1.CONTINUE), "continue");
-        literals.put(new Integer(Token1.CASE), "case");
-        literals.put(new Integer(Token1.DEFAULT), "default");
-        literals.put(new Integer(Token1.RETURN), "return");
-        literals.put(new Integer(Token1.VAR), "var ");
-        literals.put(new Integer(Token1.SEMI), ";");
-        literals.put(new Integer(Token1.ASSIGN), "=");
-        literals.put(new Integer(Token1.ASSIGN_ADD), "+=");
-        literals.put(new Integer(Token1.ASSIGN_SUB), "-=");
-        literals.put(new Integer(Token1.ASSIGN_MUL), "*=");
-        literals.put(new Integer(Token1.ASSIGN_DIV), "/=");
-        literals.put(new Integer(Token1.ASSIGN_MOD), "%=");
-        literals.put(new Integer(Token1.ASSIGN_BITOR), "|=");
-        literals.put(new Integer(Token1.ASSIGN_BITXOR), "^=");
-        literals.put(new Integer(Token1.ASSIGN_BITAND), "&=");
-        literals.put(new Integer(Token1.ASSIGN_LSH), "<<=");
-        literals.put(new Integer(Token1.ASSIGN_RSH), ">>=");
-        literals.put(new Integer(Token1.ASSIGN_URSH), ">>>=");
-        literals.put(new Integer(Token1.HOOK), "?");
-        literals.put(new Integer(Token1.OBJECTLIT), ":");
-        literals.put(new Integer(Token1.COLON), ":");
-        literals.put(new Integer(Token1.OR), "||");
-        literals.put(new Integer(Token1.AND), "&&");
-        literals.put(new Integer(Token1.BITOR), "|");
-        literals.put(new Integer(Token1.BITXOR), "^");
-        literals.put(new Integer(Token1.BITAND), "&");
-        literals.put(new Integer(Token1.SHEQ), "===");
-        literals.put(new Integer(Token1.SHNE), "!==");
-        literals.put(new Integer(Token1.EQ), "==");
-        literals.put(new Integer(Token1.NE), "!=");
-        literals.put(new Integer(Token1.LE), "<=");
-        literals.put(new Integer(Token1.LT), "<");
-        literals.put(new Integer(Token1.GE), ">=");
-        literals.put(new Integer(Token1.GT), ">");
-        literals.put(new Integer(Token1.INSTANCEOF), " instanceof ");
-        literals.put(new Integer(Token1.LSH), "<<");
-        literals.put(new Integer(Token1.RSH), ">>");
-        literals.put(new Integer(Token1.URSH), ">>>");
-        literals.put(new Integer(Token1.TYPEOF), "typeof");
-        literals.put(new Integer(Token1.VOID), "void ");
-        literals.put(new Integer(Token1.CONST), "const ");
-        literals.put(new Integer(Token1.NOT), "!");
-        literals.put(new Integer(Token1.BITNOT), "~");
-        literals.put(new Integer(Token1.POS), "+");
-        literals.put(new Integer(Token1.NEG), "-");
-        literals.put(new Integer(Token1.INC), "++");
-        literals.put(new Integer(Token1.DEC), "--");
-        literals.put(new Integer(Token1.ADD), "+");
-        literals.put(new Integer(Token1.SUB), "-");
-        literals.put(new Integer(Token1.MUL), "*");
-        literals.put(new Integer(Token1.DIV), "/");
-        literals.put(new Integer(Token1.MOD), "%");
-        literals.put(new Integer(Token1.COLONCOLON), "::");
-        literals.put(new Integer(Token1.DOTDOT), "..");
-        literals.put(new Integer(Token1.DOTQUERY), ".(");
-        literals.put(new Integer(Token1.XMLATTR), "@");
+        literals[Token1.GET] = "get ";
+        literals[Token1.SET] = "set ";
+        literals[Token1.TRUE] = "true";
+        literals[Token1.FALSE] = "false";
+        literals[Token1.NULL] = "null";
+        literals[Token1.THIS] = "this";
+        literals[Token1.FUNCTION] = "function";
+        literals[Token1.COMMA] = ",";
+        literals[Token1.LC] = "{";
+        literals[Token1.RC] = "}";
+        literals[Token1.LP] = "(";
+        literals[Token1.RP] = ")";
+        literals[Token1.LB] = "[";
+        literals[Token1.RB] = "]";
+        literals[Token1.DOT] = ".";
+        literals[Token1.NEW] = "new ";
+        literals[Token1.DELPROP] = "delete ";
+        literals[Token1.IF] = "if";
+        literals[Token1.ELSE] = "else";
+        literals[Token1.FOR] = "for";
+        literals[Token1.IN] = " in ";
+        literals[Token1.WITH] = "with";
+        literals[Token1.WHILE] = "while";
+        literals[Token1.DO] = "do";
+        literals[Token1.TRY] = "try";
+        literals[Token1.CATCH] = "catch";
+        literals[Token1.FINALLY] = "finally";
+        literals[Token1.THROW] = "throw";
+        literals[Token1.SWITCH] = "switch";
+        literals[Token1.BREAK] = "break";
+        literals[Token1.CONTINUE] = "continue";
+        literals[Token1.CASE] = "case";
+        literals[Token1.DEFAULT] = "default";
+        literals[Token1.RETURN] = "return";
+        literals[Token1.VAR] = "var ";
+        literals[Token1.SEMI] = ";";
+        literals[Token1.ASSIGN] = "=";
+        literals[Token1.ASSIGN_ADD] = "+=";
+        literals[Token1.ASSIGN_SUB] = "-=";
+        literals[Token1.ASSIGN_MUL] = "*=";
+        literals[Token1.ASSIGN_DIV] = "/=";
+        literals[Token1.ASSIGN_MOD] = "%=";
+        literals[Token1.ASSIGN_BITOR] = "|=";
+        literals[Token1.ASSIGN_BITXOR] = "^=";
+        literals[Token1.ASSIGN_BITAND] = "&=";
+        literals[Token1.ASSIGN_LSH] = "<<=";
+        literals[Token1.ASSIGN_RSH] = ">>=";
+        literals[Token1.ASSIGN_URSH] = ">>>=";
+        literals[Token1.HOOK] = "?";
+        literals[Token1.OBJECTLIT] = ":";
+        literals[Token1.COLON] = ":";
+        literals[Token1.OR] = "||";
+        literals[Token1.AND] = "&&";
+        literals[Token1.BITOR] = "|";
+        literals[Token1.BITXOR] = "^";
+        literals[Token1.BITAND] = "&";
+        literals[Token1.SHEQ] = "===";
+        literals[Token1.SHNE] = "!==";
+        literals[Token1.EQ] = "==";
+        literals[Token1.NE] = "!=";
+        literals[Token1.LE] = "<=";
+        literals[Token1.LT] = "<";
+        literals[Token1.GE] = ">=";
+        literals[Token1.GT] = ">";
+        literals[Token1.INSTANCEOF] = " instanceof ";
+        literals[Token1.LSH] = "<<";
+        literals[Token1.RSH] = ">>";
+        literals[Token1.URSH] = ">>>";
+        literals[Token1.TYPEOF] = "typeof";
+        literals[Token1.VOID] = "void ";
+        literals[Token1.CONST] = "const ";
+        literals[Token1.NOT] = "!";
+        literals[Token1.BITNOT] = "~";
+        literals[Token1.POS] = "+";
+        literals[Token1.NEG] = "-";
+        literals[Token1.INC] = "++";
+        literals[Token1.DEC] = "--";
+        literals[Token1.ADD] = "+";
+        literals[Token1.SUB] = "-";
+        literals[Token1.MUL] = "*";
+        literals[Token1.DIV] = "/";
+        literals[Token1.MOD] = "%";
+        literals[Token1.COLONCOLON] = "::";
+        literals[Token1.DOTDOT] = "..";
+        literals[Token1.DOTQUERY] = ".(";
+        literals[Token1.XMLATTR] = "@";
 
         // See http://developer.mozilla.org/en/docs/Core_JavaScript_1.5_Reference:Reserved_Words
 
@@ -255,6 +253,10 @@ public class JavaScriptCompressor {
         reserved.add("undefined");
     }
 
+    private static String getLiteral(final int type) {
+        return type >= 0 && type < literals.length ? literals[type] : null;
+    }
+
     private static int countChar(final String haystack, final char needle) {
         int idx = 0;
         int count = 0;
@@ -350,7 +352,7 @@ public class JavaScriptCompressor {
                     break;
 
                 default:
-                    final String literal = (String) literals.get(new Integer(tt));
+                    final String literal = getLiteral(tt);
                     if (literal != null) {
                         tokens.add(new JavaScriptToken(tt, literal));
                     }
@@ -372,28 +374,28 @@ public class JavaScriptCompressor {
             // Concatenate string literals that are being appended wherever
             // it is safe to do so. Note that we take care of the case:
             //     "a" + "b".toUpperCase()
+            // The tokens are copied to a new list instead of being removed,
+            // which is quadratic for scripts concatenating many strings.
 
+            final ArrayList merged = new ArrayList(length);
             for (i = 0; i < length; i++) {
                 token = (JavaScriptToken) tokens.get(i);
-                switch (token.getType()) {
-
-                    case Token1.ADD:
-                        if (i > 0 && i < length) {
-                            prevToken = (JavaScriptToken) tokens.get(i - 1);
-                            nextToken = (JavaScriptToken) tokens.get(i + 1);
-                            if (prevToken.getType() == Token1.STRING && nextToken.getType() == Token1.STRING &&
-                                    (i == length - 1 || ((JavaScriptToken) tokens.get(i + 2)).getType() != Token1.DOT)) {
-                                tokens.set(i - 1, new JavaScriptToken(Token1.STRING,
-                                        prevToken.getValue() + nextToken.getValue()));
-                                tokens.remove(i + 1);
-                                tokens.remove(i);
-                                i = i - 1;
-                                length = length - 2;
-                                break;
-                            }
-                        }
+                if (token.getType() == Token1.ADD && i > 0) {
+                    prevToken = (JavaScriptToken) merged.get(merged.size() - 1);
+                    nextToken = (JavaScriptToken) tokens.get(i + 1);
+                    if (prevToken.getType() == Token1.STRING && nextToken.getType() == Token1.STRING &&
+                            (i == length - 1 || ((JavaScriptToken) tokens.get(i + 2)).getType() != Token1.DOT)) {
+                        merged.set(merged.size() - 1, new JavaScriptToken(Token1.STRING,
+                                prevToken.getValue() + nextToken.getValue()));
+                        i++;
+                        continue;
+                    }
                 }
+                merged.add(token);
             }
+            tokens.clear();
+            tokens.addAll(merged);
+            length = tokens.size();
 
         }
 
@@ -445,11 +447,11 @@ public class JavaScriptCompressor {
             return null;
         }
 
-        final StringBuffer sb = new StringBuffer();
+        final StringBuilder sb = new StringBuilder(s.length() + 8);
         for (int i = 0, L = s.length(); i < L; i++) {
             final int c = s.charAt(i);
             if (c == quotechar) {
-                sb.append("\\");
+                sb.append('\\');
             }
             sb.append((char) c);
         }
@@ -459,15 +461,26 @@ public class JavaScriptCompressor {
 
     /*
      * Simple check to see whether a string is a valid identifier name.
-     * If a string matches this pattern, it means it IS a valid
+     * If a string matches ^[a-zA-Z_][a-zA-Z0-9_]*$, it means it IS a valid
      * identifier name. If a string doesn't match it, it does not
-     * necessarily mean it is not a valid identifier name.
+     * necessarily mean it is not a valid identifier name. The characters
+     * are checked directly, without the cost of a regex matcher per string.
      */
-    private static final Pattern SIMPLE_IDENTIFIER_NAME_PATTERN = Pattern.compile("^[a-zA-Z_][a-zA-Z0-9_]*$");
-
     private static boolean isValidIdentifier(final String s) {
-        final Matcher m = SIMPLE_IDENTIFIER_NAME_PATTERN.matcher(s);
-        return (m.matches() && !reserved.contains(s));
+        final int length = s.length();
+        if (length == 0 || !isIdentifierChar(s.charAt(0), false)) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            if (!isIdentifierChar(s.charAt(i), true)) {
+                return false;
+            }
+        }
+        return !reserved.contains(s);
+    }
+
+    private static boolean isIdentifierChar(final char c, final boolean allowDigit) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || allowDigit && c >= '0' && c <= '9';
     }
 
     /*
@@ -479,6 +492,9 @@ public class JavaScriptCompressor {
         int i, length;
         JavaScriptToken token;
 
+        // The tokens are copied to a new list instead of being removed, which
+        // is quadratic for scripts having many member accesses.
+        final ArrayList optimized = new ArrayList(tokens.size());
         for (i = 0, length = tokens.size(); i < length; i++) {
 
             if (((JavaScriptToken) tokens.get(i)).getType() == Token1.LB &&
@@ -490,14 +506,20 @@ public class JavaScriptCompressor {
                 tv = token.getValue();
                 tv = tv.substring(1, tv.length() - 1);
                 if (isValidIdentifier(tv)) {
-                    tokens.set(i, new JavaScriptToken(Token1.DOT, "."));
-                    tokens.set(i + 1, new JavaScriptToken(Token1.NAME, tv));
-                    tokens.remove(i + 2);
-                    i = i + 2;
-                    length = length - 1;
+                    optimized.add(new JavaScriptToken(Token1.DOT, "."));
+                    optimized.add(new JavaScriptToken(Token1.NAME, tv));
+                    // The token following the removed bracket is never checked.
+                    if (i + 3 < length) {
+                        optimized.add(tokens.get(i + 3));
+                    }
+                    i = i + 3;
+                    continue;
                 }
             }
+            optimized.add(tokens.get(i));
         }
+        tokens.clear();
+        tokens.addAll(optimized);
     }
 
     /*
@@ -562,7 +584,7 @@ public class JavaScriptCompressor {
         buildSymbolTree();
         // DO NOT TOUCH this.tokens BETWEEN THESE TWO PHASES (BECAUSE OF this.indexedScopes)
         mungeSymboltree();
-        final StringBuffer sb = printSymbolTree(linebreak, preserveAllSemiColons);
+        final StringBuilder sb = printSymbolTree(linebreak, preserveAllSemiColons);
 
         out.write(sb.toString());
     }
@@ -1091,7 +1113,7 @@ public class JavaScriptCompressor {
         globalScope.munge();
     }
 
-    private StringBuffer printSymbolTree(final int linebreakpos, final boolean preserveAllSemiColons)
+    private StringBuilder printSymbolTree(final int linebreakpos, final boolean preserveAllSemiColons)
             throws IOException {
 
         offset = 0;
@@ -1104,7 +1126,7 @@ public class JavaScriptCompressor {
         JavaScriptIdentifier identifier;
 
         final int length = tokens.size();
-        final StringBuffer result = new StringBuffer();
+        final StringBuilder result = new StringBuilder(length * 4);
 
         int linestartpos = 0;
 
@@ -1151,7 +1173,7 @@ public class JavaScriptCompressor {
 
                 case Token1.ADD:
                 case Token1.SUB:
-                    result.append((String) literals.get(new Integer(token.getType())));
+                    result.append(getLiteral(token.getType()));
                     if (offset < length) {
                         token = getToken(0);
                         if (token.getType() == Token1.INC ||
@@ -1224,7 +1246,7 @@ public class JavaScriptCompressor {
 
                 case Token1.RETURN:
                 case Token1.TYPEOF:
-                    result.append(literals.get(new Integer(token.getType())));
+                    result.append(getLiteral(token.getType()));
                     // No space needed after 'return' and 'typeof' when followed
                     // by '(', '[', '{', a string or a regexp.
                     if (offset < length) {
@@ -1242,7 +1264,7 @@ public class JavaScriptCompressor {
 
                 case Token1.CASE:
                 case Token1.THROW:
-                    result.append(literals.get(new Integer(token.getType())));
+                    result.append(getLiteral(token.getType()));
                     // White-space needed after 'case' and 'throw' when not followed by a string.
                     if (offset < length && getToken(0).getType() != Token1.STRING) {
                         result.append(' ');
@@ -1251,7 +1273,7 @@ public class JavaScriptCompressor {
 
                 case Token1.BREAK:
                 case Token1.CONTINUE:
-                    result.append(literals.get(new Integer(token.getType())));
+                    result.append(getLiteral(token.getType()));
                     if (offset < length && getToken(0).getType() != Token1.SEMI) {
                         // If 'break' or 'continue' is not followed by a semi-colon, it must
                         // be followed by a label, hence the need for a white space.
@@ -1299,7 +1321,7 @@ public class JavaScriptCompressor {
 //                    break;
 
                 default:
-                    final String literal = (String) literals.get(new Integer(token.getType()));
+                    final String literal = getLiteral(token.getType());
                     if (literal != null) {
                         result.append(literal);
                     } else {
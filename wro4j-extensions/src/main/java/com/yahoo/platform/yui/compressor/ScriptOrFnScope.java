@@ -10,7 +10,9 @@ package com.yahoo.platform.yui.compressor;
 
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedList;
 
 class ScriptOrFnScope {
 
@@ -78,8 +80,12 @@ class ScriptOrFnScope {
         return result;
     }
 
-    private ArrayList getAllUsedSymbols() {
-        ArrayList result = new ArrayList();
+    /*
+     * Returns a set, since the result is used to remove the used symbols from
+     * the (up to 206,380) free symbols, which would be quadratic with a list.
+     */
+    private HashSet getAllUsedSymbols() {
+        HashSet result = new HashSet();
         ScriptOrFnScope scope = this;
         while (scope != null) {
             result.addAll(scope.getUsedSymbols());
@@ -105,7 +111,8 @@ class ScriptOrFnScope {
         // Do not munge symbols in the global scope!
         if (parentScope != null) {
 
-            ArrayList freeSymbols = new ArrayList();
+            // The free symbols are taken from the head of the list.
+            LinkedList freeSymbols = new LinkedList();
 
             freeSymbols.addAll(JavaScriptCompressor.ones);
             freeSymbols.removeAll(getAllUsedSymbols());
@@ -144,7 +151,7 @@ class ScriptOrFnScope {
                 String mungedValue;
                 JavaScriptIdentifier identifier = (JavaScriptIdentifier) elements.nextElement();
                 if (identifier.isMarkedForMunging()) {
-                    mungedValue = (String) freeSymbols.remove(0);
+                    mungedValue = (String) freeSymbols.removeFirst();
                 } else {
                     mungedValue = identifier.getValue();
                 }
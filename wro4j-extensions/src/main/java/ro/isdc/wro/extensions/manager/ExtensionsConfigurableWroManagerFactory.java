@@ -3,10 +3,15 @@
  */
 package ro.isdc.wro.extensions.manager;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.reflect.ConstructorUtils;
+import org.apache.commons.lang3.reflect.MethodUtils;
 
+import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.css.CssLintProcessor;
 import ro.isdc.wro.extensions.processor.css.LessCssProcessor;
 import ro.isdc.wro.extensions.processor.css.SassCssProcessor;
@@ -25,6 +30,9 @@ import ro.isdc.wro.extensions.processor.js.YUIJsCompressorProcessor;
 import ro.isdc.wro.manager.factory.ConfigurableWroManagerFactory;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.impl.CachingProcessorDecorator;
+import ro.isdc.wro.model.resource.processor.impl.LazyProcessorDecorator;
+import ro.isdc.wro.util.ObjectFactory;
 
 import com.google.javascript.jscomp.CompilationLevel;
 
@@ -36,6 +44,11 @@ import com.google.javascript.jscomp.CompilationLevel;
  */
 public class ExtensionsConfigurableWroManagerFactory
     extends ConfigurableWroManagerFactory {
+  /**
+   * Creates the processors existing in extensions module, keyed by alias.
+   */
+  private static final Map<String, ObjectFactory<ResourcePreProcessor>> PROCESSOR_FACTORIES =
+    createProcessorFactories();
 
   /**
    * {@inheritDoc}
@@ -54,7 +67,9 @@ public class ExtensionsConfigurableWroManagerFactory
   }
 
   /**
-   * Populates a map of processors with processors existing in extensions module.
+   * Populates a map of processors with processors existing in extensions module. The processors are not created by
+   * this method: each alias is mapped to a {@link LazyProcessorDecorator}, creating the processor only when it is used,
+   * so that only the processors actually referenced by the configuration are created.
    *
    * @param <T>
    *          type of processors (pre or post). This can be one of the following: {@link ResourcePreProcessor} or
@@ -65,25 +80,113 @@ public class ExtensionsConfigurableWroManagerFactory
   @SuppressWarnings("unchecked")
   public static <T> void pupulateMapWithExtensionsProcessors(final Map<String, T> map) {
     Validate.notNull(map);
-    map.put(YUICssCompressorProcessor.ALIAS, (T) new YUICssCompressorProcessor());
-    map.put(YUIJsCompressorProcessor.ALIAS_NO_MUNGE, (T) YUIJsCompressorProcessor.noMungeCompressor());
-    map.put(YUIJsCompressorProcessor.ALIAS_MUNGE, (T) YUIJsCompressorProcessor.doMungeCompressor());
-    map.put(DojoShrinksafeCompressorProcessor.ALIAS, (T) new DojoShrinksafeCompressorProcessor());
-    map.put(UglifyJsProcessor.ALIAS_UGLIFY, (T) new UglifyJsProcessor());
-    map.put(BeautifyJsProcessor.ALIAS_BEAUTIFY, (T) new BeautifyJsProcessor());
-    map.put(PackerJsProcessor.ALIAS, (T) new PackerJsProcessor());
-    map.put(LessCssProcessor.ALIAS, (T) new LessCssProcessor());
-    map.put(SassCssProcessor.ALIAS, (T) new SassCssProcessor());
-    map.put(GoogleClosureCompressorProcessor.ALIAS_SIMPLE, (T) new GoogleClosureCompressorProcessor());
-    map.put(GoogleClosureCompressorProcessor.ALIAS_ADVANCED, (T) new GoogleClosureCompressorProcessor(
-        CompilationLevel.ADVANCED_OPTIMIZATIONS));
-    map.put(CoffeeScriptProcessor.ALIAS, (T) new CoffeeScriptProcessor());
-    map.put(CJsonProcessor.ALIAS_PACK, (T) CJsonProcessor.packProcessor());
-    map.put(CJsonProcessor.ALIAS_UNPACK, (T) CJsonProcessor.unpackProcessor());
-    map.put(JsonHPackProcessor.ALIAS_PACK, (T) JsonHPackProcessor.packProcessor());
-    map.put(JsonHPackProcessor.ALIAS_UNPACK, (T) JsonHPackProcessor.unpackProcessor());
-    map.put(JsHintProcessor.ALIAS, (T) new JsHintProcessor());
-    map.put(JsLintProcessor.ALIAS, (T) new JsLintProcessor());
-    map.put(CssLintProcessor.ALIAS, (T) new CssLintProcessor());
+    for (final Map.Entry<String, ObjectFactory<ResourcePreProcessor>> entry : PROCESSOR_FACTORIES.entrySet()) {
+      map.put(entry.getKey(), (T) LazyProcessorDecorator.decorate(entry.getValue()));
+    }
+  }
+
+  /**
+   * @return the factories of the processors existing in extensions module, keyed by alias.
+   */
+  private static Map<String, ObjectFactory<ResourcePreProcessor>> createProcessorFactories() {
+    final Map<String, ObjectFactory<ResourcePreProcessor>> factories =
+      new LinkedHashMap<String, ObjectFactory<ResourcePreProcessor>>();
+    factories.put(YUICssCompressorProcessor.ALIAS, newFactory(YUICssCompressorProcessor.class));
+    factories.put(YUIJsCompressorProcessor.ALIAS_NO_MUNGE,
+      new ReflectiveProcessorFactory(YUIJsCompressorProcessor.class, "noMungeCompressor", false));
+    factories.put(YUIJsCompressorProcessor.ALIAS_MUNGE,
+      new ReflectiveProcessorFactory(YUIJsCompressorProcessor.class, "doMungeCompressor", false));
+    factories.put(DojoShrinksafeCompressorProcessor.ALIAS, newFactory(DojoShrinksafeCompressorProcessor.class));
+    factories.put(UglifyJsProcessor.ALIAS_UGLIFY, newCachedFactory(UglifyJsProcessor.class));
+    factories.put(BeautifyJsProcessor.ALIAS_BEAUTIFY, newFactory(BeautifyJsProcessor.class));
+    factories.put(PackerJsProcessor.ALIAS, newFactory(PackerJsProcessor.class));
+    factories.put(LessCssProcessor.ALIAS, newCachedFactory(LessCssProcessor.class));
+    factories.put(SassCssProcessor.ALIAS, newCachedFactory(SassCssProcessor.class));
+    factories.put(GoogleClosureCompressorProcessor.ALIAS_SIMPLE,
+      newCachedFactory(GoogleClosureCompressorProcessor.class));
+    factories.put(GoogleClosureCompressorProcessor.ALIAS_ADVANCED,
+      newCachedFactory(GoogleClosureCompressorProcessor.class, CompilationLevel.ADVANCED_OPTIMIZATIONS));
+    factories.put(CoffeeScriptProcessor.ALIAS, newCachedFactory(CoffeeScriptProcessor.class));
+    factories.put(CJsonProcessor.ALIAS_PACK, newFactory(CJsonProcessor.class, true));
+    factories.put(CJsonProcessor.ALIAS_UNPACK, newFactory(CJsonProcessor.class, false));
+    factories.put(JsonHPackProcessor.ALIAS_PACK, newFactory(JsonHPackProcessor.class, true));
+    factories.put(JsonHPackProcessor.ALIAS_UNPACK, newFactory(JsonHPackProcessor.class, false));
+    factories.put(JsHintProcessor.ALIAS, newFactory(JsHintProcessor.class));
+    factories.put(JsLintProcessor.ALIAS, newFactory(JsLintProcessor.class));
+    factories.put(CssLintProcessor.ALIAS, newFactory(CssLintProcessor.class));
+    return Collections.unmodifiableMap(factories);
+  }
+
+  /**
+   * @return a factory creating the processor using the constructor matching the provided arguments.
+   */
+  private static ObjectFactory<ResourcePreProcessor> newFactory(
+    final Class<? extends ResourcePreProcessor> processorClass, final Object... arguments) {
+    return new ReflectiveProcessorFactory(processorClass, null, false, arguments);
+  }
+
+  /**
+   * @return a factory creating the processor using the constructor matching the provided arguments, decorated with
+   *         {@link CachingProcessorDecorator}.
+   */
+  private static ObjectFactory<ResourcePreProcessor> newCachedFactory(
+    final Class<? extends ResourcePreProcessor> processorClass, final Object... arguments) {
+    return new ReflectiveProcessorFactory(processorClass, null, true, arguments);
+  }
+
+  /**
+   * Decorates an expensive processor, whose output depends only on the processed content, in order to reuse its
+   * previously computed outputs (after a restart or in another build too).
+   */
+  private static CachingProcessorDecorator cached(final ResourcePreProcessor processor) {
+    return CachingProcessorDecorator.decorate(processor);
+  }
+
+  /**
+   * Creates a processor by invoking, using reflection, a constructor or a static factory method of its class.
+   */
+  private static final class ReflectiveProcessorFactory
+    implements ObjectFactory<ResourcePreProcessor> {
+    private final Class<? extends ResourcePreProcessor> processorClass;
+    /**
+     * The name of the static method creating the processor, or null if the processor is created by a constructor.
+     */
+    private final String factoryMethod;
+    /**
+     * If true, the created processor is decorated with {@link CachingProcessorDecorator}.
+     */
+    private final boolean cached;
+    private final Object[] arguments;
+
+    ReflectiveProcessorFactory(final Class<? extends ResourcePreProcessor> processorClass,
+      final String factoryMethod, final boolean cached, final Object... arguments) {
+      Validate.notNull(processorClass);
+      this.processorClass = processorClass;
+      this.factoryMethod = factoryMethod;
+      this.cached = cached;
+      this.arguments = arguments;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ResourcePreProcessor create() {
+      final ResourcePreProcessor processor;
+      try {
+        processor = factoryMethod == null ? ConstructorUtils.invokeConstructor(processorClass, arguments)
+          : processorClass.cast(MethodUtils.invokeStaticMethod(processorClass, factoryMethod, arguments));
+      } catch (final Exception e) {
+        throw new WroRuntimeException("Cannot create processor of type: " + processorClass.getName(), e);
+      }
+      return cached ? cached(processor) : processor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+      return processorClass.getName();
+    }
   }
 }
@@ -7,21 +7,30 @@ package ro.isdc.wro.extensions.processor.css;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.BatchExecutor;
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.csslint.CssLint;
+import ro.isdc.wro.extensions.processor.support.csslint.CssLintError;
 import ro.isdc.wro.extensions.processor.support.csslint.CssLintException;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.Destroyable;
 import ro.isdc.wro.util.ObjectFactory;
 import ro.isdc.wro.util.WroUtil;
 
@@ -37,18 +46,36 @@ import ro.isdc.wro.util.WroUtil;
  */
 @SupportedResourceType(ResourceType.CSS)
 public class CssLintProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, Destroyable {
   private static final Logger LOG = LoggerFactory.getLogger(CssLintProcessor.class);
   public static final String ALIAS = "cssLint";
+  /**
+   * The default number of resources validated by a single csslint invocation.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 50;
   /**
    * Options to use to configure jsHint.
    */
   private String[] options;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  /**
+   * Validates the batches in parallel, reusing its threads for all the validations of this processor.
+   */
+  private final BatchExecutor batchExecutor = new BatchExecutor();
+  /**
+   * The in-memory cache owned by this processor, released when the processor is destroyed.
+   */
+  private final LintResultCache defaultResultCache = new LintResultCache(null, LintResultCache.DEFAULT_SIZE);
+  private LintResultCache resultCache = defaultResultCache;
+  /**
+   * The identity of csslint using the current options, computed lazily.
+   */
+  private volatile String cssLintIdentity;
 
   private ObjectPoolHelper<CssLint> enginePool;
 
   public CssLintProcessor() {
-    enginePool = new ObjectPoolHelper<CssLint>(new ObjectFactory<CssLint>() {
+    enginePool = new ObjectPoolHelper<CssLint>(ALIAS, new ObjectFactory<CssLint>() {
       @Override
       public CssLint create() {
         return newCssLint();
@@ -60,6 +87,29 @@ public class CssLintProcessor
 
   public CssLintProcessor setOptions(final String... options) {
     this.options = options;
+    this.cssLintIdentity = null;
+    return this;
+  }
+
+
+  /**
+   * @param resultCache where the errors found for each content are stored, allowing unchanged contents to be reported
+   *        without invoking csslint. By default, an in-memory cache owned by this processor is used. If null, each
+   *        content is validated by csslint.
+   */
+  public CssLintProcessor setResultCache(final LintResultCache resultCache) {
+    this.resultCache = resultCache;
+    return this;
+  }
+
+
+  /**
+   * @param batchSize the maximum number of resources validated by a single csslint invocation when using
+   *        {@link #validate(Map)}.
+   */
+  public CssLintProcessor setBatchSize(final int batchSize) {
+    Validate.isTrue(batchSize > 0, "The batch size must be positive");
+    this.batchSize = batchSize;
     return this;
   }
 
@@ -70,25 +120,151 @@ public class CssLintProcessor
   public void process(final Resource resource, final Reader reader, final Writer writer)
     throws IOException {
     final String content = IOUtils.toString(reader);
-    final CssLint cssLint = enginePool.getObject();
     try {
-      cssLint.setOptions(options).validate(content);
-    } catch (final CssLintException e) {
-      try {
-        LOG.error("The following resource: " + resource + " has " + e.getErrors().size() + " errors.", e);
-        onCssLintException(e, resource);
-      } catch (final Exception ex) {
-        WroUtil.wrapWithWroRuntimeException(e);
-      }
-    } catch (final WroRuntimeException e) {
-      final String resourceUri = resource == null ? StringUtils.EMPTY : "[" + resource.getUri() + "]";
-      LOG.warn("Exception while applying " + getClass().getSimpleName() + " processor on the " + resourceUri
-          + " resource, no processing applied...", e);
+      report(validateSources(Collections.singletonList(content)).get(0), resource);
     } finally {
       // don't change the processed content no matter what happens.
       writer.write(content);
       reader.close();
       writer.close();
+    }
+  }
+
+
+  private void report(final Exception e, final Resource resource) {
+    if (e instanceof CssLintException) {
+      handleCssLintException((CssLintException) e, resource);
+    } else if (e instanceof WroRuntimeException) {
+      onWroRuntimeException((WroRuntimeException) e, resource);
+    }
+  }
+
+
+  private void handleCssLintException(final CssLintException e, final Resource resource) {
+    try {
+      LOG.error("The following resource: " + resource + " has " + e.getErrors().size() + " errors.", e);
+      onCssLintException(e, resource);
+    } catch (final Exception ex) {
+      WroUtil.wrapWithWroRuntimeException(e);
+    }
+  }
+
+
+  private void onWroRuntimeException(final WroRuntimeException e, final Resource resource) {
+    final String resourceUri = resource == null ? StringUtils.EMPTY : "[" + resource.getUri() + "]";
+    LOG.warn("Exception while applying " + getClass().getSimpleName() + " processor on the " + resourceUri
+        + " resource, no processing applied...", e);
+  }
+
+
+  /**
+   * Validates many resources at once. The resources are split in batches validated by a single csslint invocation and
+   * the batches are validated in parallel, using the pooled engines. The problems are reported exactly like
+   * {@link #process(Resource, Reader, Writer)} does, in the order of the resources.
+   *
+   * @param contents the content of each resource to validate.
+   */
+  public void validate(final Map<Resource, String> contents) {
+    Validate.notNull(contents);
+    final List<Resource> resources = new ArrayList<Resource>(contents.keySet());
+    final List<String> sources = new ArrayList<String>(resources.size());
+    for (final Resource resource : resources) {
+      sources.add(contents.get(resource));
+    }
+    final List<Exception> results = validateSources(sources);
+    for (int i = 0; i < resources.size(); i++) {
+      report(results.get(i), resources.get(i));
+    }
+  }
+
+
+  /**
+   * Validates the sources whose result is not found in the result cache and stores their result.
+   *
+   * @return for each source, the exception caused by its validation or null if it is valid.
+   */
+  private List<Exception> validateSources(final List<String> sources) {
+    final LintResultCache cache = resultCache;
+    final List<Exception> results = new ArrayList<Exception>(Collections.<Exception> nCopies(sources.size(), null));
+    final List<Integer> missed = new ArrayList<Integer>();
+    final List<String> keys = new ArrayList<String>(sources.size());
+    for (int i = 0; i < sources.size(); i++) {
+      final String key = cache == null ? null : cache.getKey(getCssLintIdentity(), sources.get(i));
+      keys.add(key);
+      final List<CssLintError> errors = key == null ? null : cache.<CssLintError> get(key);
+      if (errors == null) {
+        missed.add(i);
+      } else if (!errors.isEmpty()) {
+        results.set(i, new CssLintException().setErrors(errors));
+      }
+    }
+    if (missed.isEmpty()) {
+      return results;
+    }
+    LOG.debug("Validating {} of {} sources", missed.size(), sources.size());
+    final List<Exception> missedResults = batchExecutor.execute(missed, batchSize,
+      new BatchExecutor.BatchTask<Integer, Exception>() {
+        public List<Exception> process(final List<Integer> batch) {
+          final List<String> batchSources = new ArrayList<String>(batch.size());
+          for (final Integer index : batch) {
+            batchSources.add(sources.get(index));
+          }
+          return validateBatch(batchSources);
+        }
+      });
+    for (int i = 0; i < missed.size(); i++) {
+      final int index = missed.get(i);
+      final Exception e = missedResults.get(i);
+      results.set(index, e);
+      // the failures of csslint itself are not stored
+      if (cache != null && !(e instanceof WroRuntimeException)) {
+        cache.put(keys.get(index), e == null ? Collections.<CssLintError> emptyList()
+          : ((CssLintException) e).getErrors());
+      }
+    }
+    return results;
+  }
+
+
+  private String getCssLintIdentity() {
+    if (cssLintIdentity == null) {
+      final CssLint cssLint = enginePool.getObject();
+      try {
+        cssLintIdentity = cssLint.setOptions(options).getIdentity();
+      } finally {
+        enginePool.returnObject(cssLint);
+      }
+    }
+    return cssLintIdentity;
+  }
+
+
+  /**
+   * @return for each source, the exception caused by its validation or null if it is valid.
+   */
+  private List<Exception> validateBatch(final List<String> sources) {
+    final CssLint cssLint = enginePool.getObject();
+    try {
+      return new ArrayList<Exception>(cssLint.setOptions(options).validateAll(sources));
+    } catch (final WroRuntimeException e) {
+      if (sources.size() == 1) {
+        return Collections.<Exception> singletonList(e);
+      }
+      LOG.debug("Batch validation failed, validating each resource", e);
+      // find out which resource caused the failure
+      final List<Exception> results = new ArrayList<Exception>(sources.size());
+      for (final String source : sources) {
+        try {
+          cssLint.setOptions(options).validate(source);
+          results.add(null);
+        } catch (final CssLintException le) {
+          results.add(le);
+        } catch (final WroRuntimeException we) {
+          results.add(we);
+        }
+      }
+      return results;
+    } finally {
       enginePool.returnObject(cssLint);
     }
   }
@@ -118,4 +294,14 @@ public class CssLintProcessor
   protected void onCssLintException(final CssLintException e, final Resource resource)
     throws Exception {
   }
+
+
+  /**
+   * Destroys the pool of engines, the threads and the results cached by this processor.
+   */
+  public void destroy() {
+    enginePool.destroy();
+    batchExecutor.destroy();
+    defaultResultCache.clear();
+  }
 }
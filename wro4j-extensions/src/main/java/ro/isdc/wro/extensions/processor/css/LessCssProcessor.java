@@ -19,8 +19,10 @@ import ro.isdc.wro.extensions.processor.support.less.LessCss;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.CacheKeyAware;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.Destroyable;
 import ro.isdc.wro.util.ObjectFactory;
 
 
@@ -103,7 +105,7 @@ import ro.isdc.wro.util.ObjectFactory;
  */
 @SupportedResourceType(ResourceType.CSS)
 public class LessCssProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, Destroyable, CacheKeyAware {
   private static final Logger LOG = LoggerFactory.getLogger(LessCssProcessor.class);
 
   public static final String ALIAS = "lessCss";
@@ -112,7 +114,7 @@ public class LessCssProcessor
 
 
   public LessCssProcessor() {
-    enginePool = new ObjectPoolHelper<LessCss>(new ObjectFactory<LessCss>() {
+    enginePool = new ObjectPoolHelper<LessCss>(ALIAS, new ObjectFactory<LessCss>() {
       @Override
       public LessCss create() {
         return newLessCss();
@@ -180,4 +182,20 @@ public class LessCssProcessor
     process(null, reader, writer);
   }
 
+
+  /**
+   * Destroys the pool of engines used by this processor.
+   */
+  public void destroy() {
+    enginePool.destroy();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The output depends only on the engine, which is identified by the class of the processor.
+   */
+  public String getCacheKey(final Resource resource) {
+    return "";
+  }
 }
@@ -18,6 +18,7 @@ import ro.isdc.wro.extensions.processor.support.sass.SassCss;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.CacheKeyAware;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 
@@ -30,7 +31,7 @@ import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
  */
 @SupportedResourceType(ResourceType.CSS)
 public class SassCssProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, CacheKeyAware {
   private static final Logger LOG = LoggerFactory.getLogger(SassCssProcessor.class);
   public static final String ALIAS = "sassCss";
   /**
@@ -84,4 +85,12 @@ public class SassCssProcessor
     process(null, reader, writer);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The output depends only on the engine, which is identified by the class of the processor.
+   */
+  public String getCacheKey(final Resource resource) {
+    return "";
+  }
 }
@@ -7,21 +7,30 @@ package ro.isdc.wro.extensions.processor.js;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.BatchExecutor;
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.linter.AbstractLinter;
+import ro.isdc.wro.extensions.processor.support.linter.LinterError;
 import ro.isdc.wro.extensions.processor.support.linter.LinterException;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.Destroyable;
 import ro.isdc.wro.util.ObjectFactory;
 
 
@@ -35,16 +44,41 @@ import ro.isdc.wro.util.ObjectFactory;
  */
 @SupportedResourceType(ResourceType.JS)
 public abstract class AbstractLinterProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, Destroyable {
   private static final Logger LOG = LoggerFactory.getLogger(AbstractLinterProcessor.class);
+  /**
+   * The default number of resources validated by a single linter invocation.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 50;
   private ObjectPoolHelper<AbstractLinter> enginePool;
   /**
    * Options to use to configure the linter.
    */
   private String[] options;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  /**
+   * Validates the batches in parallel, reusing its threads for all the validations of this processor.
+   */
+  private final BatchExecutor batchExecutor = new BatchExecutor();
+  /**
+   * The in-memory cache owned by this processor, released when the processor is destroyed.
+   */
+  private final LintResultCache defaultResultCache = new LintResultCache(null, LintResultCache.DEFAULT_SIZE);
+  private LintResultCache resultCache = defaultResultCache;
+  /**
+   * The identity of the linter using the current options, computed lazily.
+   */
+  private volatile String linterIdentity;
 
   public AbstractLinterProcessor() {
-    enginePool = new ObjectPoolHelper<AbstractLinter>(new ObjectFactory<AbstractLinter>() {
+    this("linter");
+  }
+
+  /**
+   * @param enginePoolName the name of the pool of linters used by this processor.
+   */
+  protected AbstractLinterProcessor(final String enginePoolName) {
+    enginePool = new ObjectPoolHelper<AbstractLinter>(enginePoolName, new ObjectFactory<AbstractLinter>() {
       @Override
       public AbstractLinter create() {
         return newLinter();
@@ -54,6 +88,27 @@ public abstract class AbstractLinterProcessor
 
   public AbstractLinterProcessor setOptions(final String... options) {
     this.options = options;
+    this.linterIdentity = null;
+    return this;
+  }
+
+  /**
+   * @param resultCache where the errors found for each content are stored, allowing unchanged contents to be reported
+   *        without invoking the linter. By default, an in-memory cache owned by this processor is used. If null, each
+   *        content is validated by the linter.
+   */
+  public AbstractLinterProcessor setResultCache(final LintResultCache resultCache) {
+    this.resultCache = resultCache;
+    return this;
+  }
+
+  /**
+   * @param batchSize the maximum number of resources validated by a single linter invocation when using
+   *        {@link #validate(Map)}.
+   */
+  public AbstractLinterProcessor setBatchSize(final int batchSize) {
+    Validate.isTrue(batchSize > 0, "The batch size must be positive");
+    this.batchSize = batchSize;
     return this;
   }
 
@@ -63,22 +118,136 @@ public abstract class AbstractLinterProcessor
   public void process(final Resource resource, final Reader reader, final Writer writer)
     throws IOException {
     final String content = IOUtils.toString(reader);
-    final AbstractLinter linter = enginePool.getObject();
     try {
-      // TODO investigate why linter fails when trying to reuse the same instance twice
-      linter.setOptions(options).validate(content);
-    } catch (final LinterException e) {
-      onLinterException(e, resource);
-    } catch (final WroRuntimeException e) {
-      onException(e);
-      final String resourceUri = resource == null ? StringUtils.EMPTY : "[" + resource.getUri() + "]";
-      LOG.warn("Exception while applying " + getClass().getSimpleName() + " processor on the " + resourceUri
-          + " resource, no processing applied...", e);
+      report(validateSources(Collections.singletonList(content)).get(0), resource);
     } finally {
       // don't change the processed content no matter what happens.
       writer.write(content);
       reader.close();
       writer.close();
+    }
+  }
+
+  private void report(final Exception e, final Resource resource) {
+    if (e instanceof LinterException) {
+      onLinterException((LinterException) e, resource);
+    } else if (e instanceof WroRuntimeException) {
+      onWroRuntimeException((WroRuntimeException) e, resource);
+    }
+  }
+
+  private void onWroRuntimeException(final WroRuntimeException e, final Resource resource) {
+    onException(e);
+    final String resourceUri = resource == null ? StringUtils.EMPTY : "[" + resource.getUri() + "]";
+    LOG.warn("Exception while applying " + getClass().getSimpleName() + " processor on the " + resourceUri
+        + " resource, no processing applied...", e);
+  }
+
+  /**
+   * Validates many resources at once. The resources are split in batches validated by a single linter invocation and
+   * the batches are validated in parallel, using the pooled linters. The problems are reported exactly like
+   * {@link #process(Resource, Reader, Writer)} does, in the order of the resources.
+   *
+   * @param contents the content of each resource to validate.
+   */
+  public void validate(final Map<Resource, String> contents) {
+    Validate.notNull(contents);
+    final List<Resource> resources = new ArrayList<Resource>(contents.keySet());
+    final List<String> sources = new ArrayList<String>(resources.size());
+    for (final Resource resource : resources) {
+      sources.add(contents.get(resource));
+    }
+    final List<Exception> results = validateSources(sources);
+    for (int i = 0; i < resources.size(); i++) {
+      report(results.get(i), resources.get(i));
+    }
+  }
+
+  /**
+   * Validates the sources whose result is not found in the result cache and stores their result.
+   *
+   * @return for each source, the exception caused by its validation or null if it is valid.
+   */
+  private List<Exception> validateSources(final List<String> sources) {
+    final LintResultCache cache = resultCache;
+    final List<Exception> results = new ArrayList<Exception>(Collections.<Exception> nCopies(sources.size(), null));
+    final List<Integer> missed = new ArrayList<Integer>();
+    final List<String> keys = new ArrayList<String>(sources.size());
+    for (int i = 0; i < sources.size(); i++) {
+      final String key = cache == null ? null : cache.getKey(getLinterIdentity(), sources.get(i));
+      keys.add(key);
+      final List<LinterError> errors = key == null ? null : cache.<LinterError> get(key);
+      if (errors == null) {
+        missed.add(i);
+      } else if (!errors.isEmpty()) {
+        results.set(i, new LinterException().setErrors(errors));
+      }
+    }
+    if (missed.isEmpty()) {
+      return results;
+    }
+    LOG.debug("Validating {} of {} sources", missed.size(), sources.size());
+    final List<Exception> missedResults = batchExecutor.execute(missed, batchSize,
+      new BatchExecutor.BatchTask<Integer, Exception>() {
+        public List<Exception> process(final List<Integer> batch) {
+          final List<String> batchSources = new ArrayList<String>(batch.size());
+          for (final Integer index : batch) {
+            batchSources.add(sources.get(index));
+          }
+          return validateBatch(batchSources);
+        }
+      });
+    for (int i = 0; i < missed.size(); i++) {
+      final int index = missed.get(i);
+      final Exception e = missedResults.get(i);
+      results.set(index, e);
+      // the failures of the linter itself are not stored
+      if (cache != null && !(e instanceof WroRuntimeException)) {
+        cache.put(keys.get(index), e == null ? Collections.<LinterError> emptyList()
+          : ((LinterException) e).getErrors());
+      }
+    }
+    return results;
+  }
+
+  private String getLinterIdentity() {
+    if (linterIdentity == null) {
+      final AbstractLinter linter = enginePool.getObject();
+      try {
+        linterIdentity = linter.setOptions(options).getIdentity();
+      } finally {
+        enginePool.returnObject(linter);
+      }
+    }
+    return linterIdentity;
+  }
+
+  /**
+   * @return for each source, the exception caused by its validation or null if it is valid.
+   */
+  private List<Exception> validateBatch(final List<String> sources) {
+    final AbstractLinter linter = enginePool.getObject();
+    try {
+      return new ArrayList<Exception>(linter.setOptions(options).validateAll(sources));
+    } catch (final WroRuntimeException e) {
+      if (sources.size() == 1) {
+        return Collections.<Exception> singletonList(e);
+      }
+      LOG.debug("Batch validation failed, validating each resource", e);
+      // find out which resource caused the failure
+      final List<Exception> results = new ArrayList<Exception>(sources.size());
+      for (final String source : sources) {
+        try {
+          linter.setOptions(options).validate(source);
+          results.add(null);
+        } catch (final LinterException le) {
+          results.add(le);
+        } catch (final WroRuntimeException we) {
+          results.add(we);
+        }
+      }
+      return results;
+    } finally {
       enginePool.returnObject(linter);
     }
   }
@@ -111,4 +280,14 @@ public abstract class AbstractLinterProcessor
   protected void onLinterException(final LinterException e, final Resource resource) {
     LOG.error("The following resource: " + resource + " has " + e.getErrors().size() + " errors.", e);
   }
+
+
+  /**
+   * Destroys the pool of engines, the threads and the results cached by this processor.
+   */
+  public void destroy() {
+    enginePool.destroy();
+    batchExecutor.destroy();
+    defaultResultCache.clear();
+  }
 }
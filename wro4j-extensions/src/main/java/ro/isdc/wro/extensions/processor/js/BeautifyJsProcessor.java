@@ -19,8 +19,10 @@ import ro.isdc.wro.extensions.processor.support.uglify.UglifyJs;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.CacheKeyAware;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.Destroyable;
 import ro.isdc.wro.util.ObjectFactory;
 
 
@@ -33,7 +35,7 @@ import ro.isdc.wro.util.ObjectFactory;
  */
 @SupportedResourceType(ResourceType.JS)
 public class BeautifyJsProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, Destroyable, CacheKeyAware {
   private static final Logger LOG = LoggerFactory.getLogger(BeautifyJsProcessor.class);
   public static final String ALIAS_BEAUTIFY = "beautifyJs";
   /**
@@ -46,7 +48,15 @@ public class BeautifyJsProcessor
    * Default constructor. Instantiates uglifyJs engine.
    */
   public BeautifyJsProcessor() {
-    enginePool = new ObjectPoolHelper<UglifyJs>(new ObjectFactory<UglifyJs>() {
+    this(ALIAS_BEAUTIFY);
+  }
+
+
+  /**
+   * @param enginePoolName the name of the pool of engines used by this processor.
+   */
+  protected BeautifyJsProcessor(final String enginePoolName) {
+    enginePool = new ObjectPoolHelper<UglifyJs>(enginePoolName, new ObjectFactory<UglifyJs>() {
       @Override
       public UglifyJs create() {
         return newEngine();
@@ -99,4 +109,21 @@ public class BeautifyJsProcessor
     throws IOException {
     process(null, reader, writer);
   }
+
+
+  /**
+   * Destroys the pool of engines used by this processor.
+   */
+  public void destroy() {
+    enginePool.destroy();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The output depends only on the engine, which is identified by the class of the processor.
+   */
+  public String getCacheKey(final Resource resource) {
+    return "";
+  }
 }
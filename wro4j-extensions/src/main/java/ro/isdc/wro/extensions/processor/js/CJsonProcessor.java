@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.cjson.CJson;
+import ro.isdc.wro.extensions.processor.support.cjson.NativeCJson;
 import ro.isdc.wro.extensions.processor.support.jsonhpack.JsonHPack;
 import ro.isdc.wro.model.group.processor.Minimize;
 import ro.isdc.wro.model.resource.Resource;
@@ -22,6 +23,7 @@ import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.Destroyable;
 import ro.isdc.wro.util.ObjectFactory;
 
 
@@ -35,7 +37,7 @@ import ro.isdc.wro.util.ObjectFactory;
 @Minimize
 @SupportedResourceType(ResourceType.JS)
 public class CJsonProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, Destroyable {
   private static final Logger LOG = LoggerFactory.getLogger(CJsonProcessor.class);
   public static final String ALIAS_PACK = "cjson-pack";
   public static final String ALIAS_UNPACK = "cjson-unpack";
@@ -47,12 +49,16 @@ public class CJsonProcessor
    * If true, the packing will be used, otherwise unpack.
    */
   private boolean pack;
+  /**
+   * If true, the engines always use the javascript library instead of the java implementation.
+   */
+  private boolean useJavaScriptEngine;
 
   /**
    * Private constructor, prevent instantiation.
    */
   public CJsonProcessor(boolean pack) {
-    enginePool = new ObjectPoolHelper<CJson>(new ObjectFactory<CJson>() {
+    enginePool = new ObjectPoolHelper<CJson>(pack ? ALIAS_PACK : ALIAS_UNPACK, new ObjectFactory<CJson>() {
       @Override
       public CJson create() {
         return newEngine();
@@ -114,9 +120,23 @@ public class CJsonProcessor
   /**
    * @return the {@link CJson} engine implementation. Override it to provide a different version of the json.hpack.js
    *         library. Useful for upgrading the processor outside the wro4j release.
+   *         The default engine is implemented in java and uses the javascript library only for inputs it cannot
+   *         handle the same way. Use {@link #setUseJavaScriptEngine(boolean)} to always use the javascript library.
    */
   protected CJson newEngine() {
-    return new CJson();
+    return useJavaScriptEngine ? new CJson() : new NativeCJson();
+  }
+
+
+  /**
+   * @param useJavaScriptEngine
+   *          true if the engines should always use the javascript library instead of the java implementation. Must be
+   *          set before the first processing.
+   * @return this processor.
+   */
+  public CJsonProcessor setUseJavaScriptEngine(final boolean useJavaScriptEngine) {
+    this.useJavaScriptEngine = useJavaScriptEngine;
+    return this;
   }
 
 
@@ -128,4 +148,11 @@ public class CJsonProcessor
     process(null, reader, writer);
   }
 
+
+  /**
+   * Destroys the pool of engines used by this processor.
+   */
+  public void destroy() {
+    enginePool.destroy();
+  }
 }
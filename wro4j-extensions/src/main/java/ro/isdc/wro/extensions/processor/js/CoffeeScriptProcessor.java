@@ -19,8 +19,10 @@ import ro.isdc.wro.extensions.processor.support.coffeescript.CoffeeScript;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.CacheKeyAware;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.Destroyable;
 import ro.isdc.wro.util.ObjectFactory;
 
 
@@ -34,14 +36,14 @@ import ro.isdc.wro.util.ObjectFactory;
  */
 @SupportedResourceType(ResourceType.JS)
 public class CoffeeScriptProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, Destroyable, CacheKeyAware {
   private static final Logger LOG = LoggerFactory.getLogger(CoffeeScriptProcessor.class);
   public static final String ALIAS = "coffeeScript";
   private ObjectPoolHelper<CoffeeScript> enginePool;
 
 
   public CoffeeScriptProcessor() {
-    enginePool = new ObjectPoolHelper<CoffeeScript>(new ObjectFactory<CoffeeScript>() {
+    enginePool = new ObjectPoolHelper<CoffeeScript>(ALIAS, new ObjectFactory<CoffeeScript>() {
       @Override
       public CoffeeScript create() {
         return newCoffeeScript();
@@ -93,4 +95,21 @@ public class CoffeeScriptProcessor
     throws IOException {
     process(null, reader, writer);
   }
+
+
+  /**
+   * Destroys the pool of engines used by this processor.
+   */
+  public void destroy() {
+    enginePool.destroy();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The output depends only on the engine, which is identified by the class of the processor.
+   */
+  public String getCacheKey(final Resource resource) {
+    return "";
+  }
 }
@@ -10,17 +10,22 @@ import java.io.Writer;
 import java.util.logging.Level;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.impl.LruMemoryCacheStrategy;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.model.group.processor.Minimize;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.CacheKeyAware;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.util.SHA1HashBuilder;
 
 import com.google.javascript.jscomp.CheckLevel;
 import com.google.javascript.jscomp.ClosureCodingConvention;
@@ -41,7 +46,7 @@ import com.google.javascript.jscomp.Result;
 @Minimize
 @SupportedResourceType(ResourceType.JS)
 public class GoogleClosureCompressorProcessor
-  implements ResourcePostProcessor, ResourcePreProcessor {
+  implements ResourcePostProcessor, ResourcePreProcessor, CacheKeyAware {
   private static final Logger LOG = LoggerFactory.getLogger(GoogleClosureCompressorProcessor.class);
   public static final String ALIAS_SIMPLE = "googleClosureSimple";
   public static final String ALIAS_ADVANCED = "googleClosureAdvanced";
@@ -50,6 +55,26 @@ public class GoogleClosureCompressorProcessor
    */
   private CompilationLevel compilationLevel;
   private CompilerOptions compilerOptions;
+  /**
+   * Serialized options having the compilation level applied, prepared once and copied for each compilation, since
+   * the compiler changes the options it uses.
+   */
+  private volatile byte[] preparedOptions;
+  /**
+   * Maximum number of resources whose externs are cached.
+   */
+  private static final int EXTERNS_CACHE_SIZE = 100;
+  /**
+   * Names and code of the externs of the recently processed resources (the key is the uri of the resource or empty
+   * string for post processing). The code is kept instead of the {@link JSSourceFile}'s, since a source file caches its
+   * code and is not meant to be shared by concurrent compilations.
+   */
+  private final CacheStrategy<String, String[][]> externsCache = new LruMemoryCacheStrategy<String, String[][]>(
+    EXTERNS_CACHE_SIZE);
+
+  static {
+    Compiler.setLoggingLevel(Level.SEVERE);
+  }
 
   /**
    * Uses google closure compiler with default compilation level: {@link CompilationLevel#SIMPLE_OPTIMIZATIONS}
@@ -71,32 +96,33 @@ public class GoogleClosureCompressorProcessor
 
   /**
    * {@inheritDoc}
+   * <p/>
+   * This method is thread-safe: each invocation uses its own compiler and a copy of the options.
    */
   public void process(final Resource resource, final Reader reader, final Writer writer)
     throws IOException {
     final String content = IOUtils.toString(reader);
     try {
-      Compiler.setLoggingLevel(Level.SEVERE);
-      final Compiler compiler = new Compiler();
-      if (compilerOptions == null) {
-        compilerOptions = newCompilerOptions();
+      final JSSourceFile[] externs;
+      try {
+        externs = newExterns(resource);
+      } catch (final IOException e) {
+        LOG.warn("Cannot read the externs of " + (resource == null ? "processed content" : resource.getUri())
+          + ", no processing applied", e);
+        writer.write(content);
+        return;
       }
-      compilationLevel.setOptionsForCompilationLevel(compilerOptions);
+      final Compiler compiler = new Compiler();
       //make it play nice with GAE
       compiler.disableThreads();
-      compiler.initOptions(compilerOptions);
+      final CompilerOptions options = copyPreparedOptions();
+      compiler.initOptions(options);
 
       final String fileName = resource == null ? "wro4j-processed-file.js" : resource.getUri();
       final JSSourceFile[] input = new JSSourceFile[] {
-        JSSourceFile.fromInputStream(fileName,
-        new ByteArrayInputStream(content.getBytes(Context.get().getConfig().getEncoding())))
+        JSSourceFile.fromCode(fileName, content)
       };
-      JSSourceFile[] externs = getExterns(resource);
-      if (externs == null) {
-        //fallback to empty array when null is provided.
-        externs = new JSSourceFile[] {};
-      }
-      final Result result = compiler.compile(externs, input, compilerOptions);
+      final Result result = compiler.compile(externs, input, options);
       if (result.success) {
         writer.write(compiler.toSource());
       } else {
@@ -110,9 +136,108 @@ public class GoogleClosureCompressorProcessor
 
 
   /**
+   * @return a copy of the options having the compilation level applied.
+   */
+  private CompilerOptions copyPreparedOptions() {
+    return (CompilerOptions) SerializationUtils.deserialize(getPreparedOptions());
+  }
+
+
+  /**
+   * @return the serialized options having the compilation level applied.
+   */
+  private byte[] getPreparedOptions() {
+    byte[] prepared = preparedOptions;
+    if (prepared == null) {
+      synchronized (this) {
+        prepared = preparedOptions;
+        if (prepared == null) {
+          final CompilerOptions options = compilerOptions == null ? newCompilerOptions()
+            : (CompilerOptions) SerializationUtils.clone(compilerOptions);
+          compilationLevel.setOptionsForCompilationLevel(options);
+          prepared = SerializationUtils.serialize(options);
+          preparedOptions = prepared;
+        }
+      }
+    }
+    return prepared;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The key contains the compilation level, the hash of the compiler options and the externs of the resource.
+   */
+  public String getCacheKey(final Resource resource) {
+    try {
+      final StringBuilder sb = new StringBuilder(compilationLevel.name());
+      sb.append(";options=").append(hash(getPreparedOptions()));
+      for (final String[] extern : getCachedExterns(resource)) {
+        sb.append(";extern=").append(extern[0]).append(":").append(hash(extern[1].getBytes("UTF-8")));
+      }
+      return sb.toString();
+    } catch (final IOException e) {
+      // the content is left unchanged when the externs cannot be read, such output is not cached anyway
+      return compilationLevel.name() + ";externs=unavailable";
+    }
+  }
+
+
+  private String hash(final byte[] bytes)
+    throws IOException {
+    return new SHA1HashBuilder().getHash(new ByteArrayInputStream(bytes));
+  }
+
+
+  /**
+   * @return new source files of the externs of the resource, since the source files cannot be shared by concurrent
+   *         compilations.
+   */
+  private JSSourceFile[] newExterns(final Resource resource)
+    throws IOException {
+    final String[][] externs = getCachedExterns(resource);
+    final JSSourceFile[] result = new JSSourceFile[externs.length];
+    for (int i = 0; i < externs.length; i++) {
+      result[i] = JSSourceFile.fromCode(externs[i][0], externs[i][1]);
+    }
+    return result;
+  }
+
+
+  /**
+   * @return the name and the code of each extern of the resource.
+   */
+  private String[][] getCachedExterns(final Resource resource)
+    throws IOException {
+    final String key = resource == null ? "" : resource.getUri();
+    String[][] externs = externsCache.get(key);
+    if (externs == null) {
+      JSSourceFile[] sourceFiles = getExterns(resource);
+      if (sourceFiles == null) {
+        //fallback to empty array when null is provided.
+        sourceFiles = new JSSourceFile[] {};
+      }
+      externs = new String[sourceFiles.length][];
+      for (int i = 0; i < sourceFiles.length; i++) {
+        externs[i] = new String[] {
+          sourceFiles[i].getName(), sourceFiles[i].getCode()
+        };
+      }
+      externsCache.put(key, externs);
+    }
+    return externs;
+  }
+
+
+  /**
+   * The externs are cached for the recently processed resources, so this method is not invoked for each compilation:
+   * it is invoked again for a resource only when its externs are evicted from the cache. The returned source files
+   * are only read (they are not passed to the compiler), so that concurrent compilations do not share them.
+   *
    * @param resource Currently processed resource. The resource can be null, when the closure compiler is used as a post
    *        processor.
-   * @return An Array of externs files for the resource to process.
+   * @return An Array of externs files for the resource to process. The externs of a resource must not change.
    */
   protected JSSourceFile[] getExterns(final Resource resource) {
     return new JSSourceFile[] {};
@@ -124,6 +249,7 @@ public class GoogleClosureCompressorProcessor
    */
   public GoogleClosureCompressorProcessor setCompilerOptions(final CompilerOptions compilerOptions) {
     this.compilerOptions = compilerOptions;
+    preparedOptions = null;
     return this;
   }
 
@@ -132,6 +258,7 @@ public class GoogleClosureCompressorProcessor
    */
   public GoogleClosureCompressorProcessor setCompilationLevel(final CompilationLevel compilationLevel) {
     this.compilationLevel = compilationLevel;
+    preparedOptions = null;
     return this;
   }
 
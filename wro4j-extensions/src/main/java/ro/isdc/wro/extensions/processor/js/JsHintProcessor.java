@@ -22,6 +22,11 @@ import ro.isdc.wro.model.resource.SupportedResourceType;
 public class JsHintProcessor
   extends AbstractLinterProcessor {
   public static final String ALIAS = "jsHint";
+
+  public JsHintProcessor() {
+    super(ALIAS);
+  }
+
   /**
    * {@inheritDoc}
    */
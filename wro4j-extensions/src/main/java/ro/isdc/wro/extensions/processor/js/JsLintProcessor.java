@@ -22,6 +22,11 @@ import ro.isdc.wro.model.resource.SupportedResourceType;
 public class JsLintProcessor
   extends AbstractLinterProcessor {
   public static final String ALIAS = "jsLint";
+
+  public JsLintProcessor() {
+    super(ALIAS);
+  }
+
   /**
    * {@inheritDoc}
    */
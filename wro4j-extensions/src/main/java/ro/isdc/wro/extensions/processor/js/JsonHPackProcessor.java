@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.jsonhpack.JsonHPack;
+import ro.isdc.wro.extensions.processor.support.jsonhpack.NativeJsonHPack;
 import ro.isdc.wro.extensions.processor.support.less.LessCss;
 import ro.isdc.wro.model.group.processor.Minimize;
 import ro.isdc.wro.model.resource.Resource;
@@ -22,6 +23,7 @@ import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.Destroyable;
 import ro.isdc.wro.util.ObjectFactory;
 
 
@@ -35,7 +37,7 @@ import ro.isdc.wro.util.ObjectFactory;
 @Minimize
 @SupportedResourceType(ResourceType.JS)
 public class JsonHPackProcessor
-    implements ResourcePreProcessor, ResourcePostProcessor {
+    implements ResourcePreProcessor, ResourcePostProcessor, Destroyable {
   private static final Logger LOG = LoggerFactory.getLogger(JsonHPackProcessor.class);
   public static final String ALIAS_PACK = "jsonh-pack";
   public static final String ALIAS_UNPACK = "jsonh-unpack";
@@ -47,10 +49,14 @@ public class JsonHPackProcessor
    * If true, the packing will be used, otherwise unpack.
    */
   private boolean pack;
+  /**
+   * If true, the engines always use the javascript library instead of the java implementation.
+   */
+  private boolean useJavaScriptEngine;
   
   public JsonHPackProcessor(boolean pack) {
     this.pack = pack;
-    enginePool = new ObjectPoolHelper<JsonHPack>(new ObjectFactory<JsonHPack>() {
+    enginePool = new ObjectPoolHelper<JsonHPack>(pack ? ALIAS_PACK : ALIAS_UNPACK, new ObjectFactory<JsonHPack>() {
       @Override
       public JsonHPack create() {
         return newEngine();
@@ -109,9 +115,23 @@ public class JsonHPackProcessor
   /**
    * @return the {@link JsonHPack} engine implementation. Override it to provide a different version of the
    *         json.hpack.js library. Useful for upgrading the processor outside the wro4j release.
+   *         The default engine is implemented in java and uses the javascript library only for inputs it cannot
+   *         handle the same way. Use {@link #setUseJavaScriptEngine(boolean)} to always use the javascript library.
    */
   protected JsonHPack newEngine() {
-    return new JsonHPack();
+    return useJavaScriptEngine ? new JsonHPack() : new NativeJsonHPack();
+  }
+
+
+  /**
+   * @param useJavaScriptEngine
+   *          true if the engines should always use the javascript library instead of the java implementation. Must be
+   *          set before the first processing.
+   * @return this processor.
+   */
+  public JsonHPackProcessor setUseJavaScriptEngine(final boolean useJavaScriptEngine) {
+    this.useJavaScriptEngine = useJavaScriptEngine;
+    return this;
   }
 
   /**
@@ -122,4 +142,11 @@ public class JsonHPackProcessor
     process(null, reader, writer);
   }
 
+
+  /**
+   * Destroys the pool of engines used by this processor.
+   */
+  public void destroy() {
+    enginePool.destroy();
+  }
 }
@@ -22,6 +22,7 @@ import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.Destroyable;
 import ro.isdc.wro.util.ObjectFactory;
 
 
@@ -34,14 +35,14 @@ import ro.isdc.wro.util.ObjectFactory;
 @Minimize
 @SupportedResourceType(ResourceType.JS)
 public class PackerJsProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, Destroyable {
   private static final Logger LOG = LoggerFactory.getLogger(PackerJsProcessor.class);
   public static final String ALIAS = "packerJs";
   private ObjectPoolHelper<PackerJs> enginePool;
 
 
   public PackerJsProcessor() {
-    enginePool = new ObjectPoolHelper<PackerJs>(new ObjectFactory<PackerJs>() {
+    enginePool = new ObjectPoolHelper<PackerJs>(ALIAS, new ObjectFactory<PackerJs>() {
       @Override
       public PackerJs create() {
         return newPackerJs();
@@ -94,4 +95,11 @@ public class PackerJsProcessor
     process(null, reader, writer);
   }
 
+
+  /**
+   * Destroys the pool of engines used by this processor.
+   */
+  public void destroy() {
+    enginePool.destroy();
+  }
 }
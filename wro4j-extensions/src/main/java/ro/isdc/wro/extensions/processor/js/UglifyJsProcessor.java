@@ -22,6 +22,11 @@ import ro.isdc.wro.model.resource.SupportedResourceType;
 @SupportedResourceType(ResourceType.JS)
 public class UglifyJsProcessor extends BeautifyJsProcessor {
   public static final String ALIAS_UGLIFY = "uglifyJs";
+
+  public UglifyJsProcessor() {
+    super(ALIAS_UGLIFY);
+  }
+
   /**
    * @return new instance of {@link UglifyJs} engine.
    */
@@ -0,0 +1,112 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.Validate;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.util.Destroyable;
+import ro.isdc.wro.util.WroUtil;
+
+
+/**
+ * Splits a list of items in batches and processes the batches in parallel, using at most one thread per available
+ * processor. Useful for engines (ex: linters) which are expensive to invoke, but can process several items in a single
+ * invocation. The threads are created when first needed and reused by all the executions, until the executor is
+ * destroyed.
+ */
+public final class BatchExecutor
+  implements Destroyable {
+  /**
+   * Processes a batch of items.
+   */
+  public interface BatchTask<I, R> {
+    /**
+     * @return the result of each item, in the same order as the items.
+     */
+    List<R> process(List<I> batch);
+  }
+
+  private ExecutorService executor;
+
+  /**
+   * @param items to process.
+   * @param batchSize the maximum number of items of a batch.
+   * @param task processing a batch.
+   * @return the result of each item, in the same order as the items.
+   */
+  public <I, R> List<R> execute(final List<I> items, final int batchSize, final BatchTask<I, R> task) {
+    Validate.notNull(items);
+    Validate.notNull(task);
+    Validate.isTrue(batchSize > 0, "The batch size must be positive");
+    final List<List<I>> batches = new ArrayList<List<I>>();
+    for (int i = 0; i < items.size(); i += batchSize) {
+      batches.add(items.subList(i, Math.min(i + batchSize, items.size())));
+    }
+    final List<R> results = new ArrayList<R>(items.size());
+    if (batches.size() <= 1 || Runtime.getRuntime().availableProcessors() <= 1) {
+      for (final List<I> batch : batches) {
+        results.addAll(task.process(batch));
+      }
+      return results;
+    }
+    final ExecutorService executor = getExecutor();
+    final List<Future<List<R>>> futures = new ArrayList<Future<List<R>>>(batches.size());
+    try {
+      for (final List<I> batch : batches) {
+        futures.add(executor.submit(new Callable<List<R>>() {
+          public List<R> call() {
+            return task.process(batch);
+          }
+        }));
+      }
+      for (final Future<List<R>> future : futures) {
+        try {
+          results.addAll(future.get());
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new WroRuntimeException("Batch processing interrupted", e);
+        } catch (final Exception e) {
+          // propagate original cause
+          final Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          throw new WroRuntimeException("Batch processing failed", cause == null ? e : cause);
+        }
+      }
+      return results;
+    } finally {
+      // the batches still running after a failure are useless
+      for (final Future<List<R>> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+        WroUtil.createDaemonThreadFactory("batchExecutor"));
+    }
+    return executor;
+  }
+
+  /**
+   * Stops the threads used by this executor. The executor creates new threads if used again.
+   */
+  public synchronized void destroy() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+}
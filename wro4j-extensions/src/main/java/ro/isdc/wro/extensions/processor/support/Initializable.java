@@ -0,0 +1,19 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support;
+
+/**
+ * Implemented by pooled engines which are expensive to initialize (ex: engines evaluating their scripts in a rhino
+ * scope). The objects created by an {@link ObjectPoolHelper} implementing this interface are initialized before being
+ * added to the pool, thus the pre-warmed objects are ready to use.
+ *
+ * @since 1.4.2
+ */
+public interface Initializable {
+  /**
+   * Performs the expensive initialization of this object eagerly, instead of when it is first used. Can be invoked
+   * more than once.
+   */
+  void initialize();
+}
@@ -0,0 +1,325 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+
+/**
+ * Reads and writes json the same way the json2.js library does it in rhino, allowing java implementations of
+ * javascript json processors to produce exactly the same output. The json values are represented as: {@link Map}
+ * (objects, keeping the order of the keys), {@link List} (arrays), {@link String}, {@link Double}, {@link Boolean},
+ * null and {@link #UNDEFINED}.
+ * <p/>
+ * When the javascript implementation would behave in a way which is not reproduced (keys colliding with properties of
+ * javascript objects, integer keys changing the order of the properties, octal numbers, not json syntax accepted by
+ * eval, etc), an {@link UnsupportedInputException} is thrown, allowing to fallback to the javascript implementation.
+ */
+public final class JavaScriptJson {
+  /**
+   * The undefined javascript value. It is skipped when serialized as object value and serialized as null in arrays.
+   */
+  public static final Object UNDEFINED = new Object() {
+    @Override
+    public String toString() {
+      return "undefined";
+    }
+  };
+  /**
+   * Properties available on any javascript object or array, which would be used instead of a missing key.
+   */
+  private static final Set<String> RESERVED_KEYS = new HashSet<String>(Arrays.asList("length", "constructor",
+    "toString", "toLocaleString", "toSource", "valueOf", "hasOwnProperty", "isPrototypeOf", "propertyIsEnumerable",
+    "__defineGetter__", "__defineSetter__", "__lookupGetter__", "__lookupSetter__", "__proto__", "__parent__",
+    "__count__", "join", "reverse", "sort", "push", "pop", "shift", "unshift", "splice", "concat", "slice", "indexOf",
+    "lastIndexOf", "every", "filter", "forEach", "map", "some", "reduce", "reduceRight", "watch", "unwatch"));
+  /**
+   * Integer keys, which are not kept in insertion order by javascript arrays.
+   */
+  private static final Pattern INDEX_KEY = Pattern.compile("0|[1-9][0-9]*");
+  /**
+   * Numbers with leading zeros, which are evaluated as octal numbers.
+   */
+  private static final Pattern OCTAL_NUMBER = Pattern.compile("-?0[0-9].*");
+
+  /**
+   * Thrown when the input is processed differently by the javascript implementation.
+   */
+  public static class UnsupportedInputException
+    extends RuntimeException {
+    public UnsupportedInputException(final String message) {
+      super(message);
+    }
+
+    public UnsupportedInputException(final String message, final Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  private JavaScriptJson() {
+  }
+
+  /**
+   * @return a new reader of the json tokens from provided reader.
+   */
+  public static JsonReader newReader(final Reader reader) {
+    final JsonReader jsonReader = new JsonReader(reader);
+    jsonReader.setLenient(false);
+    return jsonReader;
+  }
+
+  /**
+   * Parses a json document. The document must be an object or an array.
+   */
+  public static Object parse(final Reader reader) {
+    try {
+      final JsonReader jsonReader = newReader(reader);
+      final Object value = readValue(jsonReader);
+      checkEnd(jsonReader);
+      return value;
+    } catch (final UnsupportedInputException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new UnsupportedInputException("Invalid json: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Ensures there is nothing left to read.
+   */
+  public static void checkEnd(final JsonReader reader)
+    throws IOException {
+    if (reader.peek() != JsonToken.END_DOCUMENT) {
+      throw new UnsupportedInputException("Unexpected content after json value");
+    }
+  }
+
+  /**
+   * Reads the next value.
+   */
+  public static Object readValue(final JsonReader reader)
+    throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_ARRAY:
+        final List<Object> list = new ArrayList<Object>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          list.add(readValue(reader));
+        }
+        reader.endArray();
+        return list;
+      case BEGIN_OBJECT:
+        final Map<String, Object> map = new LinkedHashMap<String, Object>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+          final String key = readKey(reader);
+          map.put(key, readValue(reader));
+        }
+        reader.endObject();
+        return map;
+      default:
+        return readPrimitive(reader);
+    }
+  }
+
+  /**
+   * Reads the next value, which must be a string, number, boolean or null.
+   */
+  public static Object readPrimitive(final JsonReader reader)
+    throws IOException {
+    switch (reader.peek()) {
+      case STRING:
+        return reader.nextString();
+      case NUMBER:
+        final String number = reader.nextString();
+        if (OCTAL_NUMBER.matcher(number).matches()) {
+          throw new UnsupportedInputException("Octal number: " + number);
+        }
+        return Double.valueOf(number);
+      case BOOLEAN:
+        return reader.nextBoolean();
+      case NULL:
+        reader.nextNull();
+        return null;
+      default:
+        throw new UnsupportedInputException("Unexpected token: " + reader.peek());
+    }
+  }
+
+  /**
+   * Reads the next key of an object.
+   */
+  public static String readKey(final JsonReader reader)
+    throws IOException {
+    return checkKey(reader.nextName());
+  }
+
+  /**
+   * @return the key, if it is used as any other key by the javascript objects.
+   * @throws UnsupportedInputException otherwise.
+   */
+  public static String checkKey(final String key) {
+    if (RESERVED_KEYS.contains(key) || INDEX_KEY.matcher(key).matches()) {
+      throw new UnsupportedInputException("Unsupported key: " + key);
+    }
+    return key;
+  }
+
+  /**
+   * @return the json representation of the value, as created by JSON.stringify.
+   */
+  public static String stringify(final Object value) {
+    final StringBuilder sb = new StringBuilder();
+    stringify(value, sb);
+    return sb.toString();
+  }
+
+  /**
+   * Appends the json representation of the value, as created by JSON.stringify.
+   */
+  @SuppressWarnings("unchecked")
+  public static void stringify(final Object value, final StringBuilder sb) {
+    if (value == null || value == UNDEFINED) {
+      sb.append("null");
+    } else if (value instanceof String) {
+      quote((String) value, sb);
+    } else if (value instanceof Number) {
+      final double number = ((Number) value).doubleValue();
+      sb.append(Double.isNaN(number) || Double.isInfinite(number) ? "null" : numberToString(number));
+    } else if (value instanceof Boolean) {
+      sb.append(value);
+    } else if (value instanceof List) {
+      sb.append('[');
+      boolean first = true;
+      for (final Object item : (List<Object>) value) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        stringify(item, sb);
+      }
+      sb.append(']');
+    } else if (value instanceof Map) {
+      sb.append('{');
+      boolean first = true;
+      for (final Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+        if (entry.getValue() != UNDEFINED) {
+          if (!first) {
+            sb.append(',');
+          }
+          first = false;
+          quote(entry.getKey(), sb);
+          sb.append(':');
+          stringify(entry.getValue(), sb);
+        }
+      }
+      sb.append('}');
+    } else {
+      throw new IllegalArgumentException("Not a json value: " + value);
+    }
+  }
+
+  /**
+   * Appends the quoted string, escaping the same characters as json2.js does.
+   */
+  public static void quote(final String value, final StringBuilder sb) {
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '\b':
+          sb.append("\\b");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\f':
+          sb.append("\\f");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        default:
+          if (isEscapable(c)) {
+            final String hex = Integer.toHexString(c);
+            sb.append("\\u");
+            for (int j = hex.length(); j < 4; j++) {
+              sb.append('0');
+            }
+            sb.append(hex);
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+
+  private static boolean isEscapable(final char c) {
+    return c <= 0x1f || (c >= 0x7f && c <= 0x9f) || c == 0xad || (c >= 0x600 && c <= 0x604) || c == 0x70f
+      || c == 0x17b4 || c == 0x17b5 || (c >= 0x200c && c <= 0x200f) || (c >= 0x2028 && c <= 0x202f)
+      || (c >= 0x2060 && c <= 0x206f) || c == 0xfeff || c >= 0xfff0;
+  }
+
+  /**
+   * @return the javascript representation of a finite number (ex: 1 instead of 1.0, 1e+21 instead of 1.0E21).
+   */
+  public static String numberToString(final double number) {
+    if (number == 0) {
+      return "0";
+    }
+    final BigDecimal decimal = new BigDecimal(Double.toString(Math.abs(number))).stripTrailingZeros();
+    final String digits = decimal.unscaledValue().toString();
+    final int k = digits.length();
+    // the number is digits * 10^(n - k)
+    final int n = k - decimal.scale();
+    final StringBuilder sb = new StringBuilder();
+    if (number < 0) {
+      sb.append('-');
+    }
+    if (k <= n && n <= 21) {
+      sb.append(digits);
+      for (int i = k; i < n; i++) {
+        sb.append('0');
+      }
+    } else if (0 < n && n <= 21) {
+      sb.append(digits, 0, n).append('.').append(digits, n, k);
+    } else if (-6 < n && n <= 0) {
+      sb.append("0.");
+      for (int i = n; i < 0; i++) {
+        sb.append('0');
+      }
+      sb.append(digits);
+    } else {
+      sb.append(digits.charAt(0));
+      if (k > 1) {
+        sb.append('.').append(digits, 1, k);
+      }
+      sb.append('e').append(n - 1 > 0 ? "+" : "-").append(Math.abs(n - 1));
+    }
+    return sb.toString();
+  }
+}
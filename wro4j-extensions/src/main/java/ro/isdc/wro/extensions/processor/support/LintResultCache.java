@@ -0,0 +1,236 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+
+
+/**
+ * Stores the errors found by a linter (ex: jsHint, jsLint, cssLint) for a content, allowing unchanged contents to be
+ * reported without invoking the linter again. The results are keyed by the hash of the content and the identity of the
+ * linter (its script and options), so changing the linter script or its options invalidates the previous results.
+ * <p/>
+ * The results can be persisted to a file (using java serialization), allowing the build tools to validate only the
+ * resources changed since the previous build. The number of stored results is bounded: the least recently used results
+ * are discarded first.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class LintResultCache {
+  private static final Logger LOG = LoggerFactory.getLogger(LintResultCache.class);
+  /**
+   * The default maximum number of stored results.
+   */
+  public static final int DEFAULT_SIZE = 5000;
+  /**
+   * Changed when the format of the persisted file changes, in order to ignore the files created by older versions.
+   */
+  private static final int FORMAT_VERSION = 1;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private final File file;
+  private final Map<String, ArrayList<Serializable>> results;
+  private boolean modified;
+
+  /**
+   * @param file where the results are persisted. If null, the results are stored only in memory.
+   * @param maxSize the maximum number of stored results.
+   */
+  public LintResultCache(final File file, final int maxSize) {
+    Validate.isTrue(maxSize > 0, "The size must be positive");
+    this.file = file;
+    this.results = new LinkedHashMap<String, ArrayList<Serializable>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, ArrayList<Serializable>> eldest) {
+        return size() > maxSize;
+      }
+    };
+    if (file != null) {
+      load();
+    }
+  }
+
+  /**
+   * @param linterIdentity identifies the linter and its options, see
+   *        {@link #createIdentity(Class, InputStream, String[])}.
+   * @param content the validated content.
+   * @return the key of the results of validating the content with the linter.
+   */
+  public String getKey(final String linterIdentity, final String content) {
+    Validate.notNull(linterIdentity);
+    Validate.notNull(content);
+    final MessageDigest digest = newDigest();
+    try {
+      digest.update(linterIdentity.getBytes("UTF-8"));
+      digest.update((byte) 0);
+      digest.update(content.getBytes("UTF-8"));
+    } catch (final IOException e) {
+      throw new WroRuntimeException("Cannot compute the key of the lint result", e);
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * @param key computed with {@link #getKey(String, String)}.
+   * @return a copy of the stored errors (empty if the content is valid) or null if there is no result for this key.
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized <E> List<E> get(final String key) {
+    final ArrayList<Serializable> errors = results.get(key);
+    return errors == null ? null : new ArrayList<E>((Collection<E>) errors);
+  }
+
+  /**
+   * Stores the errors found for a content.
+   *
+   * @param key computed with {@link #getKey(String, String)}.
+   * @param errors found by the linter, an empty collection if the content is valid.
+   */
+  public synchronized void put(final String key, final Collection<? extends Serializable> errors) {
+    Validate.notNull(key);
+    Validate.notNull(errors);
+    results.put(key, new ArrayList<Serializable>(errors));
+    modified = true;
+  }
+
+  /**
+   * Removes all the stored results.
+   */
+  public synchronized void clear() {
+    results.clear();
+    modified = true;
+  }
+
+  /**
+   * @return the number of stored results.
+   */
+  public synchronized int size() {
+    return results.size();
+  }
+
+  /**
+   * Writes the results to the file of this cache, if they were changed since they were loaded or persisted. Does
+   * nothing for an in-memory cache. The file is replaced atomically, so that a failed build cannot leave a corrupted
+   * file.
+   */
+  public synchronized void persist() {
+    if (file == null || !modified) {
+      return;
+    }
+    ObjectOutputStream out = null;
+    try {
+      final File parent = file.getParentFile();
+      if (parent != null) {
+        FileUtils.forceMkdir(parent);
+      }
+      final File tempFile = new File(parent, file.getName() + ".tmp");
+      out = new ObjectOutputStream(new FileOutputStream(tempFile));
+      out.writeInt(FORMAT_VERSION);
+      out.writeObject(new LinkedHashMap<String, ArrayList<Serializable>>(results));
+      out.close();
+      if (!tempFile.renameTo(file)) {
+        FileUtils.deleteQuietly(file);
+        if (!tempFile.renameTo(file)) {
+          throw new IOException("Cannot rename " + tempFile + " to " + file);
+        }
+      }
+      modified = false;
+      LOG.debug("Persisted {} lint results to {}", results.size(), file);
+    } catch (final IOException e) {
+      LOG.warn("Cannot persist the lint results to " + file, e);
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  /**
+   * Loads the results persisted to the file. An unreadable file is ignored, the contents will be validated again.
+   */
+  @SuppressWarnings("unchecked")
+  private void load() {
+    if (!file.isFile()) {
+      return;
+    }
+    ObjectInputStream in = null;
+    try {
+      in = new ObjectInputStream(new FileInputStream(file));
+      if (in.readInt() == FORMAT_VERSION) {
+        results.putAll((Map<String, ArrayList<Serializable>>) in.readObject());
+        LOG.debug("Loaded {} lint results from {}", results.size(), file);
+      }
+    } catch (final Exception e) {
+      LOG.warn("Ignoring the lint results persisted to " + file, e);
+      results.clear();
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+  }
+
+  /**
+   * @param linterClass the class of the linter.
+   * @param script the stream of the script used by the linter, closed by this method.
+   * @param options the options of the linter.
+   * @return a string identifying the linter, which changes when the script or the options are changed.
+   */
+  public static String createIdentity(final Class<?> linterClass, final InputStream script, final String[] options) {
+    Validate.notNull(linterClass);
+    Validate.notNull(script);
+    final MessageDigest digest = newDigest();
+    final byte[] buffer = new byte[8192];
+    try {
+      for (int read = script.read(buffer); read >= 0; read = script.read(buffer)) {
+        digest.update(buffer, 0, read);
+      }
+    } catch (final IOException e) {
+      throw new WroRuntimeException("Cannot read the script of " + linterClass.getName(), e);
+    } finally {
+      IOUtils.closeQuietly(script);
+    }
+    final StringBuilder sb = new StringBuilder(linterClass.getName()).append('@').append(toHex(digest.digest()));
+    if (options != null) {
+      for (final String option : options) {
+        sb.append('|').append(option);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new WroRuntimeException("SHA-1 is not supported", e);
+    }
+  }
+
+  private static String toHex(final byte[] bytes) {
+    final char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+      chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+    }
+    return new String(chars);
+  }
+}
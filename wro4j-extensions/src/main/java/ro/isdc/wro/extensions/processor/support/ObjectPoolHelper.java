@@ -3,51 +3,235 @@
  */
 package ro.isdc.wro.extensions.processor.support;
 
+import java.lang.management.ManagementFactory;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.pool.BasePoolableObjectFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.ConfigConstants;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.util.Destroyable;
 import ro.isdc.wro.util.ObjectFactory;
 
 
 /**
  * A generic aware object pool wrapper. Probably not the best name, but it can be changed later. It helps you to avoid
- * the cast and hides the exception handling by throwing {@link RuntimeException} when borrowing or returning object to
- * the pool fails.
+ * the cast and hides the exception handling by throwing {@link WroRuntimeException} when borrowing or returning object
+ * to the pool fails.
+ * <p/>
+ * The pool is configured using the engine pool settings of {@link WroConfiguration}, which can be overridden for a
+ * pool using its name (ex: enginePoolMaxActive.lessCss). The configuration is read when the pool is created or, if no
+ * {@link Context} is available at that time, the first time an object is borrowed inside a {@link Context}. If jmx is
+ * enabled, the pool is registered as an MBean exposing its metrics and allowing to change its settings at runtime.
+ * <p/>
+ * The created objects implementing {@link Initializable} are initialized before being added to the pool, thus the
+ * engines pre-warmed in background are ready to use.
  *
  * @author Alex Objelean
  * @created 10 Nov 2011
  * @since 1.4.2
  */
-public class ObjectPoolHelper<T> {
-  private static final int MAX_ACTIVE = 4;
-  private static final int MAX_IDLE = 1;
-  private static final byte EXHAUSTED_ACTION = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
-  private static final long MAX_WAIT = 1000L * 5L;
+public class ObjectPoolHelper<T>
+  implements ObjectPoolHelperMBean, Destroyable {
+  private static final Logger LOG = LoggerFactory.getLogger(ObjectPoolHelper.class);
+  private static final String DEFAULT_NAME = "enginePool";
+  private static final String BLOCK = "block";
+  private static final String FAIL = "fail";
+  private static final String GROW = "grow";
+  /**
+   * The pools currently registered as MBeans.
+   */
+  private static final ConcurrentMap<ObjectName, ObjectPoolHelper<?>> REGISTERED_POOLS =
+    new ConcurrentHashMap<ObjectName, ObjectPoolHelper<?>>();
+  private final String name;
   // Allows using the objects from the pool in a thread-safe fashion.
-  private GenericObjectPool objectPool;
+  private final GenericObjectPool objectPool;
+  /**
+   * True when the pool was configured using the configuration of the {@link Context}.
+   */
+  private volatile boolean configured;
+  /**
+   * The name used to register the MBean of this pool, null if it is not registered.
+   */
+  private ObjectName registeredName;
+  private final AtomicLong createdCount = new AtomicLong();
+  private final AtomicLong borrowedCount = new AtomicLong();
+  private final AtomicLong borrowWaitNanos = new AtomicLong();
+  private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
 
 
   public ObjectPoolHelper(final ObjectFactory<T> objectFactory) {
+    this(DEFAULT_NAME, objectFactory);
+  }
+
+
+  /**
+   * @param name of the pool, used for looking up its settings and as jmx name. Usually the alias of the processor using
+   *        the pool.
+   * @param objectFactory creates the pooled objects.
+   */
+  public ObjectPoolHelper(final String name, final ObjectFactory<T> objectFactory) {
+    Validate.notNull(name);
     Validate.notNull(objectFactory);
-    int maxActive = Math.max(2, Runtime.getRuntime().availableProcessors());
+    this.name = name;
     objectPool = new GenericObjectPool(new BasePoolableObjectFactory() {
       @Override
       public Object makeObject()
         throws Exception {
-        return objectFactory.create();
+        final Object object = objectFactory.create();
+        if (object instanceof Initializable) {
+          ((Initializable) object).initialize();
+        }
+        createdCount.incrementAndGet();
+        return object;
       }
-    }, maxActive, EXHAUSTED_ACTION, MAX_WAIT, MAX_IDLE);
+    });
+    if (Context.isContextSet()) {
+      configure(Context.get().getConfig());
+    } else {
+      applySettings(new WroConfiguration());
+    }
+  }
+
+
+  /**
+   * Applies the settings, registers the MBean and creates the pre-warmed objects.
+   */
+  private synchronized void configure(final WroConfiguration config) {
+    if (configured) {
+      return;
+    }
+    applySettings(config);
+    configured = true;
+    if (config.isJmxEnabled()) {
+      registerMBean();
+    }
+    prewarm(Integer.parseInt(config.getEnginePoolSetting(ConfigConstants.enginePoolPrewarm, name).trim()));
+  }
+
+
+  private void applySettings(final WroConfiguration config) {
+    try {
+      setMaxActive(Integer.parseInt(config.getEnginePoolSetting(ConfigConstants.enginePoolMaxActive, name).trim()));
+      setMaxIdle(Integer.parseInt(config.getEnginePoolSetting(ConfigConstants.enginePoolMaxIdle, name).trim()));
+      setMaxWait(Long.parseLong(config.getEnginePoolSetting(ConfigConstants.enginePoolMaxWait, name).trim()));
+    } catch (final NumberFormatException e) {
+      throw new WroRuntimeException("Invalid setting of engine pool: " + name, e);
+    }
+    setExhaustedAction(config.getEnginePoolSetting(ConfigConstants.enginePoolExhaustedAction, name));
+    LOG.debug("Engine pool {} configured: maxActive={}, maxIdle={}", new Object[] {
+      name, getMaxActive(), getMaxIdle()
+    });
+  }
+
+
+  /**
+   * Registers this pool as an MBean, replacing the pool previously registered with the same name.
+   */
+  private void registerMBean() {
+    try {
+      final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName objectName = new ObjectName("ro.isdc.wro.extensions:type=EnginePool,name="
+        + ObjectName.quote(name));
+      if (mbeanServer.isRegistered(objectName)) {
+        mbeanServer.unregisterMBean(objectName);
+      }
+      mbeanServer.registerMBean(this, objectName);
+      REGISTERED_POOLS.put(objectName, this);
+      registeredName = objectName;
+    } catch (final Exception e) {
+      LOG.warn("Cannot register engine pool " + name + " MBean", e);
+    }
+  }
+
+
+  /**
+   * Creates in background the provided number of idle objects, so that they are available when first needed.
+   */
+  private void prewarm(final int count) {
+    if (count <= 0) {
+      return;
+    }
+    final Thread thread = new Thread(new Runnable() {
+      public void run() {
+        try {
+          for (int i = 0; i < count && objectPool.getNumIdle() < objectPool.getMaxIdle(); i++) {
+            objectPool.addObject();
+          }
+          LOG.debug("Engine pool {} pre-warmed with {} objects", name, objectPool.getNumIdle());
+        } catch (final Exception e) {
+          LOG.warn("Cannot pre-warm engine pool " + name, e);
+        }
+      }
+    }, "wro4j-" + name + "-prewarm");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+
+  /**
+   * Unregisters the MBean of this pool and closes the pool, destroying the idle objects. The pool cannot be used after
+   * it was destroyed.
+   */
+  public synchronized void destroy() {
+    if (registeredName != null) {
+      try {
+        final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        // a pool created later with the same name could have replaced this one
+        if (REGISTERED_POOLS.remove(registeredName, this) && mbeanServer.isRegistered(registeredName)) {
+          mbeanServer.unregisterMBean(registeredName);
+        }
+      } catch (final Exception e) {
+        LOG.warn("Cannot unregister engine pool " + name + " MBean", e);
+      }
+      registeredName = null;
+    }
+    try {
+      objectPool.close();
+    } catch (final Exception e) {
+      LOG.warn("Cannot close engine pool " + name, e);
+    }
   }
 
 
   @SuppressWarnings("unchecked")
   public T getObject() {
+    if (!configured && Context.isContextSet()) {
+      configure(Context.get().getConfig());
+    }
+    final long start = System.nanoTime();
     try {
       return (T) objectPool.borrowObject();
+    } catch (final NoSuchElementException e) {
+      throw new WroRuntimeException("No object available in the pool " + name + " (maxActive=" + getMaxActive()
+        + ", exhaustedAction=" + getExhaustedAction() + ", maxWait=" + getMaxWait()
+        + "ms). Consider increasing the enginePoolMaxActive setting.", e);
     } catch (final Exception e) {
-      // should never happen
-      throw new RuntimeException("Cannot get object from the pool", e);
+      throw new WroRuntimeException("Cannot get object from the pool " + name, e);
+    } finally {
+      recordBorrowWait(System.nanoTime() - start);
+    }
+  }
+
+
+  private void recordBorrowWait(final long nanos) {
+    borrowedCount.incrementAndGet();
+    borrowWaitNanos.addAndGet(nanos);
+    long max = maxBorrowWaitNanos.get();
+    while (nanos > max && !maxBorrowWaitNanos.compareAndSet(max, nanos)) {
+      max = maxBorrowWaitNanos.get();
     }
   }
 
@@ -58,7 +242,144 @@ public class ObjectPoolHelper<T> {
       objectPool.returnObject(engine);
     } catch (final Exception e) {
       // should never happen
-      throw new RuntimeException("Cannot get object from the pool", e);
+      throw new WroRuntimeException("Cannot return object to the pool " + name, e);
     }
   }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public String getName() {
+    return name;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getMaxActive() {
+    return objectPool.getMaxActive();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setMaxActive(final int maxActive) {
+    objectPool.setMaxActive(maxActive);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getMaxIdle() {
+    return objectPool.getMaxIdle();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setMaxIdle(final int maxIdle) {
+    objectPool.setMaxIdle(maxIdle);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getMaxWait() {
+    return objectPool.getMaxWait();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setMaxWait(final long maxWait) {
+    objectPool.setMaxWait(maxWait);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public String getExhaustedAction() {
+    switch (objectPool.getWhenExhaustedAction()) {
+      case GenericObjectPool.WHEN_EXHAUSTED_FAIL:
+        return FAIL;
+      case GenericObjectPool.WHEN_EXHAUSTED_GROW:
+        return GROW;
+      default:
+        return BLOCK;
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setExhaustedAction(final String exhaustedAction) {
+    final String action = exhaustedAction == null ? BLOCK : exhaustedAction.trim().toLowerCase();
+    if (BLOCK.equals(action)) {
+      objectPool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
+    } else if (FAIL.equals(action)) {
+      objectPool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_FAIL);
+    } else if (GROW.equals(action)) {
+      objectPool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_GROW);
+    } else {
+      throw new WroRuntimeException("Invalid exhausted action of engine pool " + name + ": " + exhaustedAction
+        + ". Use one of: block, fail, grow.");
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getNumActive() {
+    return objectPool.getNumActive();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getNumIdle() {
+    return objectPool.getNumIdle();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getCreatedCount() {
+    return createdCount.get();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getBorrowedCount() {
+    return borrowedCount.get();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getBorrowWaitTime() {
+    return borrowWaitNanos.get() / 1000000L;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getMaxBorrowWaitTime() {
+    return maxBorrowWaitNanos.get() / 1000000L;
+  }
 }
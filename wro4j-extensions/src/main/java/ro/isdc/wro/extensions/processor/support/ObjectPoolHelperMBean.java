@@ -0,0 +1,72 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support;
+
+/**
+ * Exposes the settings and the metrics of an engine pool.
+ */
+public interface ObjectPoolHelperMBean {
+  /**
+   * @return the name of the pool.
+   */
+  String getName();
+
+  /**
+   * @return maximum number of objects created by the pool.
+   */
+  int getMaxActive();
+
+  void setMaxActive(int maxActive);
+
+  /**
+   * @return maximum number of idle objects kept by the pool.
+   */
+  int getMaxIdle();
+
+  void setMaxIdle(int maxIdle);
+
+  /**
+   * @return milliseconds to wait for an object when the pool is exhausted and the exhausted action is block.
+   */
+  long getMaxWait();
+
+  void setMaxWait(long maxWait);
+
+  /**
+   * @return what the pool does when it is exhausted: block, fail or grow.
+   */
+  String getExhaustedAction();
+
+  void setExhaustedAction(String exhaustedAction);
+
+  /**
+   * @return number of objects currently borrowed.
+   */
+  int getNumActive();
+
+  /**
+   * @return number of idle objects.
+   */
+  int getNumIdle();
+
+  /**
+   * @return number of objects created since the pool was created.
+   */
+  long getCreatedCount();
+
+  /**
+   * @return number of borrow requests.
+   */
+  long getBorrowedCount();
+
+  /**
+   * @return total time (milliseconds) spent waiting for objects to borrow, including the creation of the objects.
+   */
+  long getBorrowWaitTime();
+
+  /**
+   * @return the longest time (milliseconds) spent waiting for an object to borrow.
+   */
+  long getMaxBorrowWaitTime();
+}
@@ -11,10 +11,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.Initializable;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.extensions.script.RhinoUtils;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -23,7 +23,8 @@ import ro.isdc.wro.util.WroUtil;
  * @author Alex Objelean
  * @since 1.3.8
  */
-public class CJson {
+public class CJson
+  implements Initializable {
   private static final Logger LOG = LoggerFactory.getLogger(CJson.class);
   private ScriptableObject scope;
 
@@ -33,15 +34,13 @@ public class CJson {
    */
   private RhinoScriptBuilder initScriptBuilder() {
     try {
-      RhinoScriptBuilder builder = null;
       if (scope == null) {
-        builder = RhinoScriptBuilder.newClientSideAwareChain().addJSON().evaluateChain(
-          getScriptAsStream(), "script.js");
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+        final String entryPoints = "function pack(data) { return CJSON.stringify(JSON.parse(data)); }"
+          + "function unpack(data) { return JSON.stringify(CJSON.parse(data)); }";
+        scope = RhinoScriptBuilder.newClientSideAwareChain().addJSON().evaluateChain(getScriptAsStream(),
+          "cjson.js").evaluateChain(entryPoints, "entryPoints").sealScope();
       }
-      return builder;
+      return RhinoScriptBuilder.newChain(scope);
     } catch (final Exception e) {
       LOG.error("Processing error:" + e.getMessage(), e);
       throw new WroRuntimeException("Processing error", e);
@@ -49,6 +48,15 @@ public class CJson {
   }
 
 
+  /**
+   * {@inheritDoc}
+   */
+  public void initialize() {
+    initScriptBuilder();
+    RhinoScriptBuilder.exitContext();
+  }
+
+
   /**
    * @return stream of the less.js script.
    */
@@ -68,8 +76,7 @@ public class CJson {
 
     stopWatch.start("cjson.pack");
     try {
-      final String execute = "CJSON.stringify(JSON.parse(" + WroUtil.toJSMultiLineString(data) + "));";
-      final Object result = builder.evaluate(execute, "pack");
+      final Object result = builder.call("pack", data);
       return String.valueOf(result);
     } catch (final RhinoException e) {
       throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
@@ -87,8 +94,7 @@ public class CJson {
 
     stopWatch.start("json.unpack");
     try {
-      final String execute = "JSON.stringify(CJSON.parse(" + WroUtil.toJSMultiLineString(data) + "));";
-      final Object result = builder.evaluate(execute, "unpack");
+      final Object result = builder.call("unpack", data);
       return String.valueOf(result);
     } catch (final RhinoException e) {
       throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
@@ -0,0 +1,367 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support.cjson;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.JavaScriptJson;
+import ro.isdc.wro.extensions.processor.support.JavaScriptJson.UnsupportedInputException;
+
+import com.google.gson.stream.JsonReader;
+
+
+/**
+ * Java implementation of the cjson algorithm, producing the same output as the javascript implementation (cjson.js)
+ * used by {@link CJson}, which is still used for inputs processed differently by javascript (ex: not json syntax).
+ * <p/>
+ * The objects are replaced by the list of their values while the json tokens are read, so the document is never held
+ * as a tree of maps. The keys of the objects form a tree (shared by objects having the same keys), whose nodes having
+ * more than one child or ending an object become templates.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class NativeCJson
+  extends CJson {
+  private static final Logger LOG = LoggerFactory.getLogger(NativeCJson.class);
+
+  /**
+   * A node of the tree made of object keys.
+   */
+  private static final class Node {
+    private final Node parent;
+    private final String key;
+    private final Map<String, Node> children = new LinkedHashMap<String, Node>(2);
+    private Integer templateIndex;
+    private List<Link> links;
+
+    private Node(final Node parent, final String key) {
+      this.parent = parent;
+      this.key = key;
+    }
+
+    private Node follow(final String childKey) {
+      Node child = children.get(childKey);
+      if (child == null) {
+        child = new Node(this, childKey);
+        children.put(childKey, child);
+      }
+      return child;
+    }
+
+    private void addLink(final Link link) {
+      if (links == null) {
+        links = new ArrayList<Link>(2);
+      }
+      links.add(link);
+    }
+
+    /**
+     * @return true if the key is one of the last count keys leading to this node.
+     */
+    private boolean hasKey(final String searchedKey, final int count) {
+      Node node = this;
+      for (int i = 0; i < count; i++) {
+        if (node.key.equals(searchedKey)) {
+          return true;
+        }
+        node = node.parent;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * An object replaced by the list of its values.
+   */
+  private static final class Link {
+    private final List<Object> values;
+    /**
+     * True if the link replaces a null value (which is handled as an empty object).
+     */
+    private final boolean nullValue;
+    private Integer templateIndex;
+
+    private Link(final List<Object> values, final boolean nullValue) {
+      this.values = values;
+      this.nullValue = nullValue;
+    }
+  }
+
+  /**
+   * The javascript implementation is used only for unsupported inputs, thus its scope is built only when needed.
+   */
+  @Override
+  public void initialize() {
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String pack(final String data) {
+    try {
+      return doPack(data);
+    } catch (final UnsupportedInputException e) {
+      LOG.debug("Using javascript cjson implementation: {}", e.getMessage());
+      return super.pack(data);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String unpack(final String data) {
+    try {
+      return doUnpack(data);
+    } catch (final UnsupportedInputException e) {
+      LOG.debug("Using javascript cjson implementation: {}", e.getMessage());
+      return super.unpack(data);
+    }
+  }
+
+  private String doPack(final String data) {
+    final Node root = new Node(null, "");
+    final Object value;
+    try {
+      final JsonReader reader = JavaScriptJson.newReader(new StringReader(data));
+      value = readValue(reader, root);
+      JavaScriptJson.checkEnd(reader);
+    } catch (final UnsupportedInputException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new UnsupportedInputException("Invalid json: " + e.getMessage(), e);
+    }
+    final List<List<Object>> templates = createTemplates(root);
+    final StringBuilder sb = new StringBuilder(data.length());
+    if (templates.isEmpty()) {
+      writeOriginal(value, sb);
+    } else {
+      sb.append("{\"f\":\"cjson\",\"t\":");
+      JavaScriptJson.stringify(templates, sb);
+      sb.append(",\"v\":");
+      writePacked(value, sb);
+      sb.append('}');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Reads the next value, replacing the objects with links to the node of their last key.
+   */
+  private Object readValue(final JsonReader reader, final Node root)
+    throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_ARRAY:
+        final List<Object> list = new ArrayList<Object>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          list.add(readValue(reader, root));
+        }
+        reader.endArray();
+        return list;
+      case BEGIN_OBJECT:
+        final List<Object> values = new ArrayList<Object>();
+        Node node = root;
+        reader.beginObject();
+        while (reader.hasNext()) {
+          final String key = JavaScriptJson.readKey(reader);
+          if (node.hasKey(key, values.size())) {
+            throw new UnsupportedInputException("Duplicate key: " + key);
+          }
+          node = node.follow(key);
+          values.add(readValue(reader, root));
+        }
+        reader.endObject();
+        final Link link = new Link(values, false);
+        node.addLink(link);
+        return link;
+      case NULL:
+        reader.nextNull();
+        // like an empty object, linked to the root (which never becomes a template)
+        return new Link(new ArrayList<Object>(0), true);
+      default:
+        return JavaScriptJson.readPrimitive(reader);
+    }
+  }
+
+  /**
+   * Visits the nodes breadth first and creates the templates.
+   */
+  private List<List<Object>> createTemplates(final Node root) {
+    final List<List<Object>> templates = new ArrayList<List<Object>>();
+    root.templateIndex = 0;
+    final LinkedList<Node> queue = new LinkedList<Node>(root.children.values());
+    while (!queue.isEmpty()) {
+      final Node node = queue.removeFirst();
+      queue.addAll(node.children.values());
+      if (node.children.size() > 1 || node.links != null) {
+        final LinkedList<Object> template = new LinkedList<Object>();
+        Node current = node;
+        while (current.templateIndex == null) {
+          template.addFirst(current.key);
+          current = current.parent;
+        }
+        template.addFirst(current.templateIndex);
+        templates.add(template);
+        node.templateIndex = templates.size();
+        if (node.links != null) {
+          for (final Link link : node.links) {
+            link.templateIndex = node.templateIndex;
+          }
+        }
+      }
+    }
+    return templates;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void writePacked(final Object value, final StringBuilder sb) {
+    if (value instanceof Link) {
+      final Link link = (Link) value;
+      sb.append("{\"\":[");
+      boolean first = true;
+      if (link.templateIndex != null) {
+        sb.append(link.templateIndex);
+        first = false;
+      }
+      for (final Object item : link.values) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        writePacked(item, sb);
+      }
+      sb.append("]}");
+    } else if (value instanceof List) {
+      sb.append('[');
+      boolean first = true;
+      for (final Object item : (List<Object>) value) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        writePacked(item, sb);
+      }
+      sb.append(']');
+    } else {
+      JavaScriptJson.stringify(value, sb);
+    }
+  }
+
+  /**
+   * Writes the value when there are no templates, which means that all objects are empty.
+   */
+  @SuppressWarnings("unchecked")
+  private void writeOriginal(final Object value, final StringBuilder sb) {
+    if (value instanceof Link) {
+      sb.append(((Link) value).nullValue ? "null" : "{}");
+    } else if (value instanceof List) {
+      sb.append('[');
+      boolean first = true;
+      for (final Object item : (List<Object>) value) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        writeOriginal(item, sb);
+      }
+      sb.append(']');
+    } else {
+      JavaScriptJson.stringify(value, sb);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private String doUnpack(final String data) {
+    final Object value = JavaScriptJson.parse(new StringReader(data));
+    if (value instanceof Map) {
+      final Map<String, Object> map = (Map<String, Object>) value;
+      if ("cjson".equals(map.get("f"))) {
+        if (!map.containsKey("v")) {
+          throw new UnsupportedInputException("Missing values");
+        }
+        return JavaScriptJson.stringify(expand(map.get("t"), map.get("v")));
+      }
+    }
+    return JavaScriptJson.stringify(value);
+  }
+
+  /**
+   * Replaces the packed objects with the objects created from their templates.
+   */
+  @SuppressWarnings("unchecked")
+  private Object expand(final Object templates, final Object value) {
+    if (value instanceof List) {
+      final List<Object> list = new ArrayList<Object>();
+      for (final Object item : (List<Object>) value) {
+        list.add(expand(templates, item));
+      }
+      return list;
+    } else if (value instanceof Map) {
+      final Object packed = ((Map<String, Object>) value).get("");
+      if (!(packed instanceof List)) {
+        throw new UnsupportedInputException("Invalid packed object: " + packed);
+      }
+      final List<Object> values = (List<Object>) packed;
+      final LinkedList<String> keys = new LinkedList<String>();
+      Object index = values.isEmpty() ? JavaScriptJson.UNDEFINED : values.get(0);
+      int steps = 0;
+      while (isPositive(index)) {
+        final List<Object> template = getTemplate(templates, ((Double) index).doubleValue());
+        for (int i = template.size() - 1; i > 0; i--) {
+          if (!(template.get(i) instanceof String)) {
+            throw new UnsupportedInputException("Invalid template key: " + template.get(i));
+          }
+          keys.addFirst(JavaScriptJson.checkKey((String) template.get(i)));
+        }
+        index = template.isEmpty() ? JavaScriptJson.UNDEFINED : template.get(0);
+        if (++steps > ((List<Object>) templates).size()) {
+          throw new WroRuntimeException("Invalid cjson templates: recursive template " + index);
+        }
+      }
+      final Map<String, Object> result = new LinkedHashMap<String, Object>();
+      int i = 1;
+      for (final String key : keys) {
+        result.put(key, i < values.size() ? expand(templates, values.get(i)) : JavaScriptJson.UNDEFINED);
+        i++;
+      }
+      return result;
+    } else if (value == null) {
+      throw new UnsupportedInputException("Null packed value");
+    }
+    return value;
+  }
+
+  private boolean isPositive(final Object index) {
+    if (index instanceof Double) {
+      return ((Double) index).doubleValue() > 0;
+    }
+    if (index == null || index == JavaScriptJson.UNDEFINED) {
+      return false;
+    }
+    throw new UnsupportedInputException("Invalid template index: " + index);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Object> getTemplate(final Object templates, final double index) {
+    if (templates instanceof List && index == Math.floor(index) && index <= ((List<Object>) templates).size()) {
+      final Object template = ((List<Object>) templates).get((int) index - 1);
+      if (template instanceof List) {
+        return (List<Object>) template;
+      }
+    }
+    throw new UnsupportedInputException("Invalid template index: " + index);
+  }
+}
@@ -12,11 +12,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.Initializable;
 import ro.isdc.wro.extensions.processor.support.linter.LinterException;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.extensions.script.RhinoUtils;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -30,7 +30,8 @@ import ro.isdc.wro.util.WroUtil;
  * @author Alex Objelean
  * @since 1.3.6
  */
-public class CoffeeScript {
+public class CoffeeScript
+  implements Initializable {
   private static final Logger LOG = LoggerFactory.getLogger(CoffeeScript.class);
   private String[] options;
   private ScriptableObject scope;
@@ -41,20 +42,25 @@ public class CoffeeScript {
    */
   private RhinoScriptBuilder initScriptBuilder() {
     try {
-      RhinoScriptBuilder builder = null;
       if (scope == null) {
-        builder = RhinoScriptBuilder.newChain().evaluateChain(getCoffeeScriptAsStream(), "coffee-script.js");
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+        scope = RhinoScriptBuilder.newChain().evaluateChain(getCoffeeScriptAsStream(), "coffee-script.js").sealScope();
       }
-      return builder;
+      return RhinoScriptBuilder.newChain(scope);
     } catch (final IOException ex) {
       throw new IllegalStateException("Failed reading init script", ex);
     }
   }
 
 
+  /**
+   * {@inheritDoc}
+   */
+  public void initialize() {
+    initScriptBuilder();
+    RhinoScriptBuilder.exitContext();
+  }
+
+
   /**
    * Override this method to use a different version of CoffeeScript. This method is useful for upgrading coffeeScript
    * processor independently of wro4j.
@@ -79,9 +85,8 @@ public class CoffeeScript {
       final RhinoScriptBuilder builder = initScriptBuilder();
       watch.stop();
       watch.start("compile");
-      final String compileScript = String.format("CoffeeScript.compile(%s, %s);", WroUtil.toJSMultiLineString(data),
-        buildOptions());
-      final String result = (String)builder.evaluate(compileScript, "CoffeeScript.compile");
+      final Object options = builder.evaluate("(" + buildOptions() + ")", "options");
+      final String result = (String)builder.call("CoffeeScript.compile", data, options);
       watch.stop();
       LOG.debug(watch.prettyPrint());
       return result;
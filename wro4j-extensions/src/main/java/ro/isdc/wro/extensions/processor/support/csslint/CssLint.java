@@ -5,23 +5,24 @@ package ro.isdc.wro.extensions.processor.support.csslint;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import org.mozilla.javascript.NativeArray;
 import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.Initializable;
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.extensions.script.RhinoUtils;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
-
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 
 /**
@@ -32,7 +33,8 @@ import com.google.gson.reflect.TypeToken;
  * @since 1.3.8
  * @created 19 Jun 2011
  */
-public class CssLint {
+public class CssLint
+  implements Initializable {
   private static final Logger LOG = LoggerFactory.getLogger(CssLint.class);
   /**
    * The name of the csslint script to be used by default.
@@ -43,31 +45,60 @@ public class CssLint {
    */
   private String[] options;
   private ScriptableObject scope;
+  /**
+   * The identity of csslint using the current options, computed lazily.
+   */
+  private String identity;
 
   /**
    * Initialize script builder for evaluation.
    */
   private RhinoScriptBuilder initScriptBuilder() {
     try {
-      RhinoScriptBuilder builder = null;
       if (scope == null) {
-        builder = RhinoScriptBuilder.newChain().evaluateChain(getScriptAsStream(), DEFAULT_CSSLINT_JS);
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+        // the scope is not sealed, because csslint assigns undeclared variables (ex: part) while validating
+        // the sources are received as a java array, its items are converted to javascript strings
+        final String entryPoint = "function verifyAll(sources, options) { var results = [];"
+          + "for (var i = 0; i < sources.length; i++) { var data = String(sources[i]);"
+          + "var result = options ? CSSLint.verify(data, JSON.parse(options)) : CSSLint.verify(data);"
+          + "results.push(result.messages.length == 0 ? null : result.messages); }"
+          + "return results; }";
+        scope = RhinoScriptBuilder.newChain().addJSON().evaluateChain(getScriptAsStream(),
+          DEFAULT_CSSLINT_JS).evaluateChain(entryPoint, "verifyAll").getScope();
       }
-      return builder;
+      return RhinoScriptBuilder.newChain(scope);
     } catch (final IOException ex) {
       throw new IllegalStateException("Failed reading init script", ex);
     }
   }
 
 
+  /**
+   * {@inheritDoc}
+   */
+  public void initialize() {
+    initScriptBuilder();
+    RhinoScriptBuilder.exitContext();
+  }
+
+
   /**
    * @return the stream of the csslint script. Override this method to provide a different script version.
    */
   protected InputStream getScriptAsStream() {
-    return getClass().getResourceAsStream(DEFAULT_CSSLINT_JS);
+    return CssLint.class.getResourceAsStream(DEFAULT_CSSLINT_JS);
+  }
+
+
+  /**
+   * @return a string identifying this csslint instance (its script and its options), used to store the validation
+   *         results in a {@link LintResultCache}.
+   */
+  public String getIdentity() {
+    if (identity == null) {
+      identity = LintResultCache.createIdentity(getClass(), getScriptAsStream(), options);
+    }
+    return identity;
   }
 
 
@@ -79,6 +110,22 @@ public class CssLint {
    * @throws CssLintException when parsed css has some kind of problems.
    */
   public void validate(final String data) throws CssLintException {
+    final CssLintException e = validateAll(Collections.singletonList(data)).get(0);
+    if (e != null) {
+      throw e;
+    }
+  }
+
+
+  /**
+   * Validates several css contents using a single invocation of csslint. The errors are read directly from the
+   * csslint result.
+   *
+   * @param sources the css contents to validate.
+   * @return for each css, in the same order, the {@link CssLintException} holding its errors or null if the css is
+   *         valid.
+   */
+  public List<CssLintException> validateAll(final List<String> sources) {
     try {
       final StopWatch watch = new StopWatch();
       watch.start("init");
@@ -86,21 +133,23 @@ public class CssLint {
       watch.stop();
       watch.start("cssLint");
       LOG.debug("options: {}", Arrays.toString(this.options));
-      final String script = buildCssLintScript(WroUtil.toJSMultiLineString(data), this.options);
-      LOG.debug("script: {}", script);
-      builder.evaluate(script, "CSSLint.verify").toString();
-      final boolean valid = Boolean.parseBoolean(builder.evaluate("result.length == 0", "checkNoErrors").toString());
-      if (!valid) {
-        final String json = builder.addJSON().evaluate("JSON.stringify(result)", "CssLint messages").toString();
-        LOG.debug("json {}", json);
-        final Type type = new TypeToken<List<CssLintError>>() {}.getType();
-        final List<CssLintError> errors = new Gson().fromJson(json, type);
-        LOG.debug("Errors: {}", errors);
-        throw new CssLintException().setErrors(errors);
+      final String[] contents = new String[sources.size()];
+      for (int i = 0; i < contents.length; i++) {
+        final String data = sources.get(i);
+        // csslint fails when the content has no new line
+        contents[i] = data.indexOf('\n') < 0 ? data + "\n" : data;
+      }
+      final NativeArray results = (NativeArray) builder.call("verifyAll", contents, buildOptions(this.options));
+      final List<CssLintException> exceptions = new ArrayList<CssLintException>(contents.length);
+      for (int i = 0; i < contents.length; i++) {
+        final Object result = ScriptableObject.getProperty(results, i);
+        exceptions.add(RhinoUtils.isDefined(result) ? new CssLintException().setErrors(toErrors((Scriptable) result))
+          : null);
       }
-      LOG.debug("isValid: {}", valid);
+      LOG.debug("results: {}", exceptions);
       watch.stop();
       LOG.debug(watch.prettyPrint());
+      return exceptions;
     } catch (final RhinoException e) {
       throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
     }
@@ -108,11 +157,50 @@ public class CssLint {
 
 
   /**
-   * @param data script to process.
+   * @param messages the array of messages reported by csslint.
+   */
+  private List<CssLintError> toErrors(final Scriptable messages) {
+    final int length = RhinoUtils.getInt(messages, "length");
+    final List<CssLintError> errors = new ArrayList<CssLintError>(length);
+    for (int i = 0; i < length; i++) {
+      final Object item = ScriptableObject.getProperty(messages, i);
+      if (item instanceof Scriptable) {
+        final Scriptable message = (Scriptable) item;
+        final CssLintError error = new CssLintError();
+        error.setType(RhinoUtils.getString(message, "type"));
+        error.setMessage(RhinoUtils.getString(message, "message"));
+        error.setLine(RhinoUtils.getInt(message, "line"));
+        error.setCol(RhinoUtils.getInt(message, "col"));
+        error.setEvidence(RhinoUtils.getString(message, "evidence"));
+        final Object rule = ScriptableObject.getProperty(message, "rule");
+        if (rule instanceof Scriptable) {
+          error.setRule(toRule((Scriptable) rule));
+        }
+        errors.add(error);
+      } else {
+        errors.add(null);
+      }
+    }
+    LOG.debug("Errors: {}", errors);
+    return errors;
+  }
+
+
+  private CssRule toRule(final Scriptable object) {
+    final CssRule rule = new CssRule();
+    rule.setId(RhinoUtils.getString(object, "id"));
+    rule.setName(RhinoUtils.getString(object, "name"));
+    rule.setDesc(RhinoUtils.getString(object, "desc"));
+    rule.setBrowsers(RhinoUtils.getString(object, "browsers"));
+    return rule;
+  }
+
+
+  /**
    * @param options options to set as true
-   * @return Script used to pack and return the packed result.
+   * @return the json representation of the options or null if there are no options.
    */
-  private String buildCssLintScript(final String data, final String... options) {
+  private String buildOptions(final String... options) {
     //TODO use OptionsBuilder
     final StringBuffer sb = new StringBuffer("{");
     if (options != null) {
@@ -128,9 +216,7 @@ public class CssLint {
      * Handle the following <a href="https://github.com/stubbornella/csslint/issues/79">issue</a>.
      */
     final boolean noOptions = options == null || options.length == 0;
-    final String optionsAsString = noOptions ? "" : "," + sb.toString();
-    //return "var result = CSSLint.verify(" + data + "," + sb.toString() + ").messages;";
-    return "var result = CSSLint.verify(" + data + optionsAsString + ").messages;";
+    return noOptions ? null : sb.toString();
   }
 
 
@@ -140,6 +226,7 @@ public class CssLint {
   public CssLint setOptions(final String ... options) {
     LOG.debug("setOptions: {}", options);
     this.options = options == null ? new String[] {} : options;
+    identity = null;
     return this;
   }
 }
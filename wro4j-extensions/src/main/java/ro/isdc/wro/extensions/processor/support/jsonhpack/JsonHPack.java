@@ -11,10 +11,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.Initializable;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.extensions.script.RhinoUtils;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -23,7 +23,8 @@ import ro.isdc.wro.util.WroUtil;
  * @author Alex Objelean
  * @since 1.3.8
  */
-public class JsonHPack {
+public class JsonHPack
+  implements Initializable {
   private static final Logger LOG = LoggerFactory.getLogger(JsonHPack.class);
   private ScriptableObject scope;
 
@@ -32,15 +33,13 @@ public class JsonHPack {
    */
   private RhinoScriptBuilder initScriptBuilder() {
     try {
-      RhinoScriptBuilder builder = null;
       if (scope == null) {
-        builder = RhinoScriptBuilder.newClientSideAwareChain().addJSON().evaluateChain(
-          getScriptAsStream(), "script.js");
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+        final String entryPoints = "function pack(data) { return JSON.stringify(JSON.hpack(eval(data), 4)); }"
+          + "function unpack(data) { return JSON.stringify(JSON.hunpack(eval(data))); }";
+        scope = RhinoScriptBuilder.newClientSideAwareChain().addJSON().evaluateChain(getScriptAsStream(),
+          "json.hpack.js").evaluateChain(entryPoints, "entryPoints").sealScope();
       }
-      return builder;
+      return RhinoScriptBuilder.newChain(scope);
     } catch (final Exception e) {
       LOG.error("Processing error:" + e.getMessage(), e);
       throw new WroRuntimeException("Processing error", e);
@@ -48,6 +47,15 @@ public class JsonHPack {
   }
 
 
+  /**
+   * {@inheritDoc}
+   */
+  public void initialize() {
+    initScriptBuilder();
+    RhinoScriptBuilder.exitContext();
+  }
+
+
   /**
    * @return stream of the less.js script.
    */
@@ -57,29 +65,54 @@ public class JsonHPack {
 
 
   public String unpack(final String rawData) {
-    final StopWatch stopWatch = new StopWatch();
-    stopWatch.start("initContext");
-    final RhinoScriptBuilder builder = initScriptBuilder();
-    stopWatch.stop();
-
-    stopWatch.start("json.hunpack");
-
     final boolean isEnclosedInDoubleArray = isEnclosedInDoubleArray(rawData);
     String data = rawData;
     if (!isEnclosedInDoubleArray) {
       data = "[" + data + "]";
     }
+    String resultAsString = hunpack(data);
+    if (!isEnclosedInDoubleArray) {
+      //remove [] characters in which the json is enclosed
+      resultAsString = removeEnclosedArray(resultAsString);
+    }
+    return resultAsString;
+  }
 
-    try {
-      final String execute = "JSON.stringify(JSON.hunpack(eval(" + WroUtil.toJSMultiLineString(data) + ")));";
-      final Object result = builder.evaluate(execute, "unpack");
+  /**
+   * @param data css content to process.
+   * @return processed css content.
+   */
+  public String pack(final String rawData) {
+    final boolean isEnclosedInArray = isEnclosedInArray(rawData);
+    String data = rawData;
+    if (!isEnclosedInArray) {
+      data = "[" + data + "]";
+    }
+    String resultAsString = hpack(data);
+    if (!isEnclosedInArray) {
+      //remove [] characters in which the json is enclosed
+      resultAsString = removeEnclosedArray(resultAsString);
+    }
+    return resultAsString;
+  }
 
-      String resultAsString = String.valueOf(result);
-      if (!isEnclosedInDoubleArray) {
-        //remove [] characters in which the json is enclosed
-        resultAsString = removeEnclosedArray(resultAsString);
-      }
-      return resultAsString;
+
+  /**
+   * Unpacks the data using the javascript implementation.
+   *
+   * @param data a packed json array.
+   * @return the unpacked json array.
+   */
+  protected String hunpack(final String data) {
+    final StopWatch stopWatch = new StopWatch();
+    stopWatch.start("initContext");
+    final RhinoScriptBuilder builder = initScriptBuilder();
+    stopWatch.stop();
+
+    stopWatch.start("json.hunpack");
+    try {
+      final Object result = builder.call("unpack", data);
+      return String.valueOf(result);
     } catch (final RhinoException e) {
       throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
     } finally {
@@ -88,34 +121,23 @@ public class JsonHPack {
     }
   }
 
+
   /**
-   * @param data css content to process.
-   * @return processed css content.
+   * Packs the data using the javascript implementation.
+   *
+   * @param data a json array.
+   * @return the packed json array.
    */
-  public String pack(final String rawData) {
-
+  protected String hpack(final String data) {
     final StopWatch stopWatch = new StopWatch();
     stopWatch.start("initContext");
     final RhinoScriptBuilder builder = initScriptBuilder();
     stopWatch.stop();
 
     stopWatch.start("json.hpack");
-
-    final boolean isEnclosedInArray = isEnclosedInArray(rawData);
-    String data = rawData;
-    if (!isEnclosedInArray) {
-      data = "[" + data + "]";
-    }
-
     try {
-      final String execute = "JSON.stringify(JSON.hpack(eval(" + WroUtil.toJSMultiLineString(data) + "), 4));";
-      final Object result = builder.evaluate(execute, "pack");
-      String resultAsString = String.valueOf(result);
-      if (!isEnclosedInArray) {
-        //remove [] characters in which the json is enclosed
-        resultAsString = removeEnclosedArray(resultAsString);
-      }
-      return resultAsString;
+      final Object result = builder.call("pack", data);
+      return String.valueOf(result);
     } catch (final RhinoException e) {
       throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
     } finally {
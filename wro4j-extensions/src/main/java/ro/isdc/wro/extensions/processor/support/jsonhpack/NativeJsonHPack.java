@@ -0,0 +1,309 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support.jsonhpack;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.extensions.processor.support.JavaScriptJson;
+import ro.isdc.wro.extensions.processor.support.JavaScriptJson.UnsupportedInputException;
+
+
+/**
+ * Java implementation of the json.hpack algorithm, producing the same output as the javascript implementation
+ * (json.hpack.js) used by {@link JsonHPack}, which is still used for inputs processed differently by javascript (ex: not
+ * json syntax, rows which are not objects).
+ * <p/>
+ * Like the javascript implementation, the data is packed using all the compression levels (0-3) and the shortest
+ * result is kept.
+ * <p/>
+ * This class is thread-safe.
+ */
+public class NativeJsonHPack
+  extends JsonHPack {
+  private static final Logger LOG = LoggerFactory.getLogger(NativeJsonHPack.class);
+  private static final int MAX_LEVEL = 3;
+  /**
+   * Used instead of null as key of enumerated values.
+   */
+  private static final Object NULL = new Object();
+
+  /**
+   * A column whose values are replaced by their index in the list of distinct values.
+   */
+  private static final class Column {
+    private final String key;
+    private final List<Object> values = new ArrayList<Object>();
+
+    private Column(final String key) {
+      this.key = key;
+    }
+  }
+
+  /**
+   * The javascript json.hpack is only a fallback for inputs the java implementation cannot handle, so its scope stays
+   * lazy.
+   */
+  @Override
+  public void initialize() {
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected String hpack(final String data) {
+    try {
+      return doHpack(data);
+    } catch (final UnsupportedInputException e) {
+      LOG.debug("Using javascript json.hpack implementation: {}", e.getMessage());
+      return super.hpack(data);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected String hunpack(final String data) {
+    try {
+      return doHunpack(data);
+    } catch (final UnsupportedInputException e) {
+      LOG.debug("Using javascript json.hpack implementation: {}", e.getMessage());
+      return super.hunpack(data);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private String doHpack(final String data) {
+    final Object value = JavaScriptJson.parse(new StringReader(data));
+    if (!(value instanceof List) || ((List<Object>) value).isEmpty()) {
+      throw new UnsupportedInputException("Not a json array of objects");
+    }
+    final List<Object> rows = (List<Object>) value;
+    final List<String> keys = getKeys(rows.get(0));
+    String best = null;
+    for (int level = 0; level <= MAX_LEVEL; level++) {
+      final String packed = JavaScriptJson.stringify(hpack(rows, keys, level));
+      if (best == null || packed.length() < best.length()) {
+        best = packed;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @return the keys of the first row, used for all rows. The keys of primitives (ex: toJSON method added by json2.js)
+   *         are not supported.
+   */
+  @SuppressWarnings("unchecked")
+  private List<String> getKeys(final Object firstRow) {
+    if (firstRow instanceof Map) {
+      return new ArrayList<String>(((Map<String, Object>) firstRow).keySet());
+    }
+    throw new UnsupportedInputException("Unsupported first row: " + firstRow);
+  }
+
+  /**
+   * Packs the rows using the provided compression level.
+   */
+  private List<Object> hpack(final List<Object> rows, final List<String> keys, final int level) {
+    final int keysCount = keys.size();
+    final List<Object> header = new ArrayList<Object>(keys);
+    final List<List<Object>> table = new ArrayList<List<Object>>(rows.size());
+    for (final Object row : rows) {
+      final List<Object> values = new ArrayList<Object>(keysCount);
+      for (final String key : keys) {
+        values.add(getValue(row, key));
+      }
+      table.add(values);
+    }
+    if (level > 0) {
+      final List<Object> firstRow = table.get(0);
+      for (int i = 0; i < keysCount; i++) {
+        if (!(firstRow.get(i) instanceof Double)) {
+          header.set(i, enumerate(table, i, keys.get(i)));
+        }
+      }
+    }
+    if (level == 3) {
+      for (int i = 0; i < keysCount; i++) {
+        if (header.get(i) instanceof Column) {
+          final Column column = (Column) header.get(i);
+          final List<Object> values = new ArrayList<Object>(table.size());
+          final List<Object> indexes = new ArrayList<Object>(table.size() + column.values.size());
+          for (final List<Object> row : table) {
+            indexes.add(row.get(i));
+            values.add(column.values.get((Integer) row.get(i)));
+          }
+          indexes.addAll(column.values);
+          if (JavaScriptJson.stringify(values).length() < JavaScriptJson.stringify(indexes).length()) {
+            revert(table, i, column);
+            header.set(i, column.key);
+          }
+        }
+      }
+    } else if (level == 2) {
+      final int maxValues = rows.size() - rows.size() / 2;
+      for (int i = 0; i < keysCount; i++) {
+        if (header.get(i) instanceof Column && maxValues < ((Column) header.get(i)).values.size()) {
+          revert(table, i, (Column) header.get(i));
+          header.set(i, keys.get(i));
+        }
+      }
+    }
+    final List<Object> result = new ArrayList<Object>(table.size() + 1);
+    final List<Object> packedHeader = new ArrayList<Object>(header.size());
+    for (final Object entry : header) {
+      if (entry instanceof Column) {
+        packedHeader.add(((Column) entry).key);
+        packedHeader.add(((Column) entry).values);
+      } else {
+        packedHeader.add(entry);
+      }
+    }
+    result.add(packedHeader);
+    result.addAll(table);
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object getValue(final Object row, final String key) {
+    if (row instanceof Map) {
+      final Map<String, Object> map = (Map<String, Object>) row;
+      return map.containsKey(key) ? map.get(key) : JavaScriptJson.UNDEFINED;
+    }
+    throw new UnsupportedInputException("Unsupported row: " + row);
+  }
+
+  /**
+   * Replaces the values of a column with their index in the list of distinct values, compared like javascript strict
+   * equality does (objects and arrays are never equal).
+   */
+  private Column enumerate(final List<List<Object>> table, final int columnIndex, final String key) {
+    final Column column = new Column(key);
+    final Map<Object, Integer> indexes = new HashMap<Object, Integer>();
+    for (final List<Object> row : table) {
+      final Object value = row.get(columnIndex);
+      final Object id = getIdentity(value);
+      Integer index = id == null ? null : indexes.get(id);
+      if (index == null) {
+        index = column.values.size();
+        column.values.add(value);
+        if (id != null) {
+          indexes.put(id, index);
+        }
+      }
+      row.set(columnIndex, index);
+    }
+    return column;
+  }
+
+  private Object getIdentity(final Object value) {
+    if (value == null) {
+      return NULL;
+    }
+    if (value instanceof Double) {
+      // -0 === 0
+      return ((Double) value).doubleValue() == 0 ? Double.valueOf(0) : value;
+    }
+    if (value instanceof Map || value instanceof List) {
+      return null;
+    }
+    return value;
+  }
+
+  private void revert(final List<List<Object>> table, final int columnIndex, final Column column) {
+    for (final List<Object> row : table) {
+      row.set(columnIndex, column.values.get((Integer) row.get(columnIndex)));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private String doHunpack(final String data) {
+    final Object value = JavaScriptJson.parse(new StringReader(data));
+    if (!(value instanceof List) || ((List<Object>) value).isEmpty()
+      || !(((List<Object>) value).get(0) instanceof List)) {
+      throw new UnsupportedInputException("Not a packed json array");
+    }
+    final List<Object> packed = (List<Object>) value;
+    final List<Object> header = (List<Object>) packed.get(0);
+    final List<List<Object>> rows = new ArrayList<List<Object>>(packed.size() - 1);
+    for (final Object row : packed.subList(1, packed.size())) {
+      if (!(row instanceof List)) {
+        throw new UnsupportedInputException("Unsupported row: " + row);
+      }
+      rows.add(new ArrayList<Object>((List<Object>) row));
+    }
+    final List<String> keys = new ArrayList<String>();
+    for (int i = 0; i < header.size(); i++) {
+      keys.add(checkKey(header.get(i)));
+      if (i + 1 < header.size() && isObject(header.get(i + 1))) {
+        i++;
+        if (!(header.get(i) instanceof List)) {
+          throw new UnsupportedInputException("Unsupported values: " + header.get(i));
+        }
+        final List<Object> values = (List<Object>) header.get(i);
+        final int column = keys.size() - 1;
+        for (final List<Object> row : rows) {
+          final Object index = column < row.size() ? row.get(column) : JavaScriptJson.UNDEFINED;
+          while (row.size() <= column) {
+            row.add(JavaScriptJson.UNDEFINED);
+          }
+          row.set(column, getEnumeratedValue(values, index));
+        }
+      }
+    }
+    final List<Object> result = new ArrayList<Object>(rows.size());
+    for (final List<Object> row : rows) {
+      final Map<String, Object> object = new LinkedHashMap<String, Object>();
+      for (int i = 0; i < keys.size(); i++) {
+        object.put(keys.get(i), i < row.size() ? row.get(i) : JavaScriptJson.UNDEFINED);
+      }
+      result.add(object);
+    }
+    return JavaScriptJson.stringify(result);
+  }
+
+  private boolean isObject(final Object value) {
+    return value == null || value instanceof List || value instanceof Map;
+  }
+
+  private Object getEnumeratedValue(final List<Object> values, final Object index) {
+    if (index instanceof Double) {
+      final double number = ((Double) index).doubleValue();
+      if (number == Math.floor(number) && number >= 0 && number < values.size()) {
+        return values.get((int) number);
+      }
+      return JavaScriptJson.UNDEFINED;
+    }
+    if (index == JavaScriptJson.UNDEFINED) {
+      return JavaScriptJson.UNDEFINED;
+    }
+    throw new UnsupportedInputException("Unsupported index: " + index);
+  }
+
+  /**
+   * The javascript implementation creates a function assigning the keys, which doesn't escape them.
+   */
+  private String checkKey(final Object key) {
+    if (!(key instanceof String)) {
+      throw new UnsupportedInputException("Unsupported key: " + key);
+    }
+    final String value = (String) key;
+    if (value.indexOf('\\') >= 0 || value.indexOf('"') != value.lastIndexOf('"') || value.indexOf('\n') >= 0
+      || value.indexOf('\r') >= 0 || value.indexOf(0x2028) >= 0
+      || value.indexOf(0x2029) >= 0) {
+      throw new UnsupportedInputException("Unsupported key: " + value);
+    }
+    return JavaScriptJson.checkKey(value);
+  }
+}
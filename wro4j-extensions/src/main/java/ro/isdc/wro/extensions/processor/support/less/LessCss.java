@@ -12,10 +12,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.Initializable;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.extensions.script.RhinoUtils;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -26,7 +26,8 @@ import ro.isdc.wro.util.WroUtil;
  * @author Alex Objelean
  * @since 1.3.0
  */
-public class LessCss {
+public class LessCss
+  implements Initializable {
   private static final Logger LOG = LoggerFactory.getLogger(LessCss.class);
   /**
    * The name of the sass script to be used by default.
@@ -39,20 +40,16 @@ public class LessCss {
    */
   private RhinoScriptBuilder initScriptBuilder() {
     try {
-      RhinoScriptBuilder builder = null;
       if (scope == null) {
         final String SCRIPT_INIT = "init.js";
         final InputStream initStream = getClass().getResourceAsStream(SCRIPT_INIT);
         final String SCRIPT_RUN = "run.js";
         final InputStream runStream = getClass().getResourceAsStream(SCRIPT_RUN);
 
-        builder = RhinoScriptBuilder.newClientSideAwareChain().evaluateChain(initStream, SCRIPT_INIT).evaluateChain(
-          getScriptAsStream(), DEFAULT_LESS_JS).evaluateChain(runStream, SCRIPT_RUN);
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+        scope = RhinoScriptBuilder.newClientSideAwareChain().evaluateChain(initStream, SCRIPT_INIT).evaluateChain(
+          getScriptAsStream(), DEFAULT_LESS_JS).evaluateChain(runStream, SCRIPT_RUN).sealScope();
       }
-      return builder;
+      return RhinoScriptBuilder.newChain(scope);
     } catch (final IOException ex) {
       throw new IllegalStateException("Failed reading javascript less.js", ex);
     } catch (final Exception e) {
@@ -61,6 +58,15 @@ public class LessCss {
     }
   }
 
+
+  /**
+   * {@inheritDoc}
+   */
+  public void initialize() {
+    initScriptBuilder();
+    RhinoScriptBuilder.exitContext();
+  }
+
   /**
    * @return stream of the less.js script.
    */
@@ -81,8 +87,7 @@ public class LessCss {
 
     stopWatch.start("lessify");
     try {
-      final String execute = "lessIt(" + WroUtil.toJSMultiLineString(data) + ");";
-      final Object result = builder.evaluate(execute, "lessIt");
+      final Object result = builder.call("lessIt", data);
       return String.valueOf(result);
     } catch (final RhinoException e) {
       throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
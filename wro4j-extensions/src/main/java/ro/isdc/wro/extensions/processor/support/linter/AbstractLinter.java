@@ -5,24 +5,25 @@ package ro.isdc.wro.extensions.processor.support.linter;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.mozilla.javascript.NativeArray;
 import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
-import ro.isdc.wro.extensions.processor.support.csslint.CssLint;
+import ro.isdc.wro.extensions.processor.support.Initializable;
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.extensions.script.RhinoUtils;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
-
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 
 /**
@@ -32,35 +33,65 @@ import com.google.gson.reflect.TypeToken;
  * @created 19 Sept 2011
  * @since 1.4.2
  */
-public abstract class AbstractLinter {
+public abstract class AbstractLinter
+  implements Initializable {
   private static final Logger LOG = LoggerFactory.getLogger(AbstractLinter.class);
   private OptionsBuilder optionsBuilder = new OptionsBuilder();
   /**
    * Options to apply to js hint processing
    */
   private String[] options;
+  private ScriptableObject scope;
+  /**
+   * The identity of the linter using the current options, computed lazily.
+   */
+  private String identity;
 
   /**
    * Initialize script builder for evaluation.
    */
   private RhinoScriptBuilder initScriptBuilder() {
     try {
-      RhinoScriptBuilder builder = null;
-      // reusing the scope doesn't work here. Get the following error: TypeError: Cannot find function create in object
-      // function Object() { [native code for Object.Object, arity=1] }
-      // TODO investigate why
-      builder = RhinoScriptBuilder.newChain().evaluateChain(getScriptAsStream(), "linter.js");
-      return builder;
+      if (scope == null) {
+        // the sources are received as a java array, its items are converted to javascript strings
+        final String entryPoint = String.format("function lintAll(sources, options) { var results = [];"
+          + "for (var i = 0; i < sources.length; i++) {"
+          + "results.push(%1$s(String(sources[i]), options) ? null : %1$s.errors); }"
+          + "return results; }", getLinterName());
+        scope = RhinoScriptBuilder.newChain().addJSON().evaluateChain(getScriptAsStream(),
+          getLinterName() + ".js").evaluateChain(entryPoint, "lintAll").sealScope();
+      }
+      return RhinoScriptBuilder.newChain(scope);
     } catch (final IOException e) {
       throw new WroRuntimeException("Failed reading init script", e);
     }
   }
 
+
+  /**
+   * {@inheritDoc}
+   */
+  public void initialize() {
+    initScriptBuilder();
+    RhinoScriptBuilder.exitContext();
+  }
+
   /**
    * @return the stream of the linter script. Override this method to provide a different script version.
    */
   protected abstract InputStream getScriptAsStream();
 
+  /**
+   * @return a string identifying this linter (its script and its options), used to store the validation results in a
+   *         {@link LintResultCache}.
+   */
+  public String getIdentity() {
+    if (identity == null) {
+      identity = LintResultCache.createIdentity(getClass(), getScriptAsStream(), options);
+    }
+    return identity;
+  }
+
 
   /**
    * Validates a js using jsHint and throws {@link LinterException} if the js is invalid. If no exception is thrown, the
@@ -69,6 +100,21 @@ public abstract class AbstractLinter {
    * @param data js content to process.
    */
   public void validate(final String data) throws LinterException {
+    final LinterException e = validateAll(Collections.singletonList(data)).get(0);
+    if (e != null) {
+      throw e;
+    }
+  }
+
+  /**
+   * Validates several scripts using a single invocation of the linter, which avoids the cost of preparing the linter
+   * for each script. The errors are read directly from the linter result.
+   *
+   * @param sources the js contents to validate.
+   * @return for each script, in the same order, the {@link LinterException} holding its errors or null if the script
+   *         is valid.
+   */
+  public List<LinterException> validateAll(final List<String> sources) {
     try {
       final StopWatch watch = new StopWatch();
       watch.start("init");
@@ -76,43 +122,53 @@ public abstract class AbstractLinter {
       watch.stop();
       watch.start("lint");
       LOG.debug("options: {}", Arrays.toString(this.options));
-      final String packIt = buildLinterScript(WroUtil.toJSMultiLineString(data), this.options);
-      final boolean valid = Boolean.parseBoolean(builder.evaluate(packIt, "check").toString());
-      if (!valid) {
-        final String json = builder.addJSON().evaluate(String.format("JSON.stringify(%s.errors)", getLinterName()),
-            "stringify errors").toString();
-        LOG.debug("json {}", json);
-        final Type type = new TypeToken<List<LinterError>>() {}.getType();
-        final List<LinterError> errors = new Gson().fromJson(json, type);
-        LOG.debug("errors {}", errors);
-        throw new LinterException().setErrors(errors);
+      final Object options = builder.evaluate("(" + optionsBuilder.build(this.options) + ")", "options");
+      final NativeArray results = (NativeArray) builder.call("lintAll",
+        sources.toArray(new String[sources.size()]), options);
+      final List<LinterException> exceptions = new ArrayList<LinterException>(sources.size());
+      for (int i = 0; i < sources.size(); i++) {
+        final Object result = ScriptableObject.getProperty(results, i);
+        exceptions.add(RhinoUtils.isDefined(result) ? new LinterException().setErrors(toErrors((Scriptable) result))
+          : null);
       }
-      LOG.debug("result: {}", valid);
+      LOG.debug("results: {}", exceptions);
       watch.stop();
       LOG.debug(watch.prettyPrint());
+      return exceptions;
     } catch (final RhinoException e) {
       throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
     }
   }
 
   /**
-   * @return the name of the function used to perform the lint operation.
+   * @param result the array of errors reported by the linter. It may contain null items (ex: when the linter stops
+   *        because of too many errors).
    */
-  protected abstract String getLinterName();
+  private List<LinterError> toErrors(final Scriptable result) {
+    final int length = RhinoUtils.getInt(result, "length");
+    final List<LinterError> errors = new ArrayList<LinterError>(length);
+    for (int i = 0; i < length; i++) {
+      final Object item = ScriptableObject.getProperty(result, i);
+      if (item instanceof Scriptable) {
+        final Scriptable object = (Scriptable) item;
+        final LinterError error = new LinterError();
+        error.setLine(RhinoUtils.getInt(object, "line"));
+        error.setCharacter(RhinoUtils.getInt(object, "character"));
+        error.setReason(RhinoUtils.getString(object, "reason"));
+        error.setEvidence(RhinoUtils.getString(object, "evidence"));
+        errors.add(error);
+      } else {
+        errors.add(null);
+      }
+    }
+    LOG.debug("errors {}", errors);
+    return errors;
+  }
 
   /**
-   * TODO this method is duplicated in {@link CssLint}. Extract and reuse it.
-   *
-   * @param data
-   *          script to process.
-   * @param options
-   *          options to set as true
-   * @return Script used to pack and return the packed result.
+   * @return the name of the function used to perform the lint operation.
    */
-  private String buildLinterScript(final String data, final String... options) {
-    final String script = String.format("%s(%s,%s);", getLinterName(), data, optionsBuilder.build(options));
-    return script;
-  }
+  protected abstract String getLinterName();
 
   /**
    * @param options the options to set
@@ -124,6 +180,7 @@ public abstract class AbstractLinter {
     } else {
       this.options = ArrayUtils.EMPTY_STRING_ARRAY;
     }
+    identity = null;
     return this;
   }
 }
@@ -7,14 +7,15 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.ScriptableObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.Initializable;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.extensions.script.RhinoUtils;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -23,21 +24,37 @@ import ro.isdc.wro.util.WroUtil;
  * @author Alex Objelean
  * @since 1.3.0
  */
-public class PackerJs {
+public class PackerJs
+  implements Initializable {
   private static final Logger LOG = LoggerFactory.getLogger(PackerJs.class);
+  private ScriptableObject scope;
 
   /**
    * Initialize script builder for evaluation.
    */
   private RhinoScriptBuilder initScriptBuilder() {
     try {
-      return RhinoScriptBuilder.newChain().evaluateChain(getStreamForBase2(), "base2.min.js").evaluateChain(
-        getStreamForPacker(), "packer.min.js");
+      if (scope == null) {
+        // the scope is not sealed, because packer assigns undeclared variables (ex: id) while packing
+        scope = RhinoScriptBuilder.newChain().evaluateChain(getStreamForBase2(), "base2.min.js").evaluateChain(
+          getStreamForPacker(), "packer.min.js").evaluateChain(
+          "function packIt(data) { return " + buildPackScript("data") + " }", "packIt").getScope();
+      }
+      return RhinoScriptBuilder.newChain(scope);
     } catch (final IOException ex) {
       throw new IllegalStateException("Failed reading init script", ex);
     }
   }
 
+
+  /**
+   * {@inheritDoc}
+   */
+  public void initialize() {
+    initScriptBuilder();
+    RhinoScriptBuilder.exitContext();
+  }
+
   /**
    * Override this method if you have a newer version of base2.js file.
    *
@@ -69,8 +86,7 @@ public class PackerJs {
       watch.stop();
       watch.start("pack");
 
-      final String packIt = buildPackScript(WroUtil.toJSMultiLineString(data));
-      final Object result = builder.evaluate(packIt, "packerIt");
+      final Object result = builder.call("packIt", data);
       watch.stop();
       LOG.debug(watch.prettyPrint());
       return String.valueOf(result);
@@ -80,7 +96,7 @@ public class PackerJs {
   }
 
   /**
-   * @param data script to pack.
+   * @param data the expression (a variable name) referencing the script to pack.
    * @return Script used to pack and return the packed result.
    */
   protected String buildPackScript(final String data) {
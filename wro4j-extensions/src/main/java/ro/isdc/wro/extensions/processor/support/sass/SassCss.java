@@ -15,7 +15,6 @@ import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.extensions.script.RhinoUtils;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -37,16 +36,12 @@ public class SassCss {
    */
   private RhinoScriptBuilder initScriptBuilder() {
     try {
-      RhinoScriptBuilder builder = null;
       if (scope == null) {
         final String scriptInit = "var exports = {};";
-        builder = RhinoScriptBuilder.newChain().evaluateChain(scriptInit, "initSass").evaluateChain(
-          getScriptAsStream(), DEFAULT_SASS_JS);
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+        scope = RhinoScriptBuilder.newChain().evaluateChain(scriptInit, "initSass").evaluateChain(
+          getScriptAsStream(), DEFAULT_SASS_JS).sealScope();
       }
-      return builder;
+      return RhinoScriptBuilder.newChain(scope);
     } catch (final IOException ex) {
       throw new WroRuntimeException("Failed reading javascript sass.js", ex);
     }
@@ -71,8 +66,8 @@ public class SassCss {
 
     stopWatch.start("sass rendering");
     try {
-      final String execute = "exports.render(" + WroUtil.toJSMultiLineString(data) + ");";
-      final Object result = builder.evaluate(execute, "sassRender");
+      // the sass parser is indentation based and doesn't recognize windows line endings
+      final Object result = builder.call("exports.render", data.replace("\r", ""));
       return String.valueOf(result);
     } catch (final RhinoException e) {
       throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
@@ -6,17 +6,16 @@ package ro.isdc.wro.extensions.processor.support.uglify;
 import java.io.IOException;
 import java.io.InputStream;
 
-import org.apache.commons.io.IOUtils;
 import org.mozilla.javascript.RhinoException;
 import org.mozilla.javascript.ScriptableObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.Initializable;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.extensions.script.RhinoUtils;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -31,7 +30,8 @@ import ro.isdc.wro.util.WroUtil;
  * @author Alex Objelean
  * @since 1.3.1
  */
-public class UglifyJs {
+public class UglifyJs
+  implements Initializable {
   private static final Logger LOG = LoggerFactory.getLogger(UglifyJs.class);
   /**
    * The name of the uglify script to be used by default.
@@ -73,22 +73,28 @@ public class UglifyJs {
    */
   private RhinoScriptBuilder initScriptBuilder() {
     //TODO: Find a way to encapsulate this code
-    RhinoScriptBuilder builder = null;
     try {
       if (scope == null) {
-        builder = RhinoScriptBuilder.newChain().addJSON().evaluateChain(getClass().getResourceAsStream("init.js"),
-          "initScript").evaluateChain(getScriptAsStream(), DEFAULT_UGLIFY_JS);
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+        scope = RhinoScriptBuilder.newChain().addJSON().evaluateChain(getClass().getResourceAsStream("init.js"),
+          "initScript").evaluateChain(getScriptAsStream(), DEFAULT_UGLIFY_JS).evaluateChain(
+          getClass().getResourceAsStream("invoke.js"), "invoke.js").sealScope();
       }
-      return builder;
+      return RhinoScriptBuilder.newChain(scope);
     } catch (final IOException ex) {
       throw new IllegalStateException("Failed initializing js", ex);
     }
   }
 
 
+  /**
+   * {@inheritDoc}
+   */
+  public void initialize() {
+    initScriptBuilder();
+    RhinoScriptBuilder.exitContext();
+  }
+
+
   /**
    * @return the stream of the uglify script. Override this method to provide a different script version.
    */
@@ -110,10 +116,7 @@ public class UglifyJs {
       watch.stop();
       watch.start(uglify ? "uglify" : "beautify");
 
-      final String originalCode = WroUtil.toJSMultiLineString(code);
-      final String invokeScript = String.format(IOUtils.toString(getClass().getResourceAsStream("invoke.js")),
-        originalCode, !uglify);
-      final Object result = builder.evaluate(invokeScript.toString(), "uglifyIt");
+      final Object result = builder.call("uglifyIt", code, !uglify);
 
       watch.stop();
       LOG.debug(watch.prettyPrint());
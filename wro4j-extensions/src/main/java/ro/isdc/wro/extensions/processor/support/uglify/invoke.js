@@ -50,18 +50,22 @@ function ast_squeeze_more(ast) {
 
 exports.ast_squeeze_more = ast_squeeze_more;
 
-(function() {
-  var orig_code = %s;
+/**
+ * Entry point used to process the code.
+ *
+ * @param code to process.
+ * @param beautify true for beautified (nice formatted) result, false for uglified (compressed) result.
+ */
+function uglifyIt(code, beautify) {
   //parse code and get the initial AST
-  var ast = jsp.parse(orig_code);
+  var ast = jsp.parse(code);
   //get a new AST with mangled names
   ast = exports.ast_mangle(ast);
   //get an AST with compression optimizations
   ast = exports.ast_squeeze(ast);
   ast = exports.ast_squeeze_more(ast);
-  // the second argument is true for uglify and false for beautify.
   //compressed code here
   return exports.gen_code(ast, {
-	beautify: %s,
+	beautify: beautify
   });
-})();
+}
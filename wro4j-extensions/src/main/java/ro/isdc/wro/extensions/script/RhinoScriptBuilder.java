@@ -7,11 +7,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Function;
 import org.mozilla.javascript.JavaScriptException;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.tools.ToolErrorReporter;
 import org.slf4j.Logger;
@@ -21,11 +27,24 @@ import org.slf4j.LoggerFactory;
 /**
  * Used to evaluate javascript on the serverside using rhino javascript engine. Encapsulate and hides all implementation
  * details used by rhino to evaluate javascript on the serverside.
+ * <p/>
+ * Library scripts evaluated with {@link #evaluateChain(InputStream, String)} are compiled only once per JVM, at the
+ * highest optimization level supported by the script. A scope initialized with such libraries can be sealed with
+ * {@link #sealScope()} and shared: each builder created with {@link #newChain(ScriptableObject)} uses a new scope
+ * having the shared scope as prototype, so the libraries are neither evaluated again nor altered by the invocations.
  *
  * @author Alex Objelean
  */
 public class RhinoScriptBuilder {
   private static final Logger LOG = LoggerFactory.getLogger(RhinoScriptBuilder.class);
+  /**
+   * The optimization level used for compiling library scripts.
+   */
+  private static final int MAX_OPTIMIZATION_LEVEL = 9;
+  /**
+   * Compiled library scripts shared by all builders, keyed by the name and the hash of the script.
+   */
+  private static final Map<String, CompiledScript> COMPILED_SCRIPTS = new ConcurrentHashMap<String, CompiledScript>();
   private Context context;
   private final ScriptableObject scope;
 
@@ -35,8 +54,22 @@ public class RhinoScriptBuilder {
   }
 
 
-  private RhinoScriptBuilder(final ScriptableObject scope) {
-    this.scope = createContext(scope);
+  private RhinoScriptBuilder(final ScriptableObject sharedScope) {
+    this.scope = sharedScope == null ? createContext() : createInvocationScope(sharedScope);
+  }
+
+
+  /**
+   * A compiled script along with the source it was compiled from.
+   */
+  private static class CompiledScript {
+    private final String source;
+    private final Script script;
+
+    CompiledScript(final String source, final Script script) {
+      this.source = source;
+      this.script = script;
+    }
   }
 
 
@@ -51,22 +84,80 @@ public class RhinoScriptBuilder {
   /**
    * Initialize the context.
    */
-  private ScriptableObject createContext(final ScriptableObject initialScope) {
+  private ScriptableObject createContext() {
     initContext();
-    context.setOptimizationLevel(-1);
-    // TODO redirect errors from System.err to LOG.error()
-    context.setErrorReporter(new ToolErrorReporter(false));
-    context.setLanguageVersion(Context.VERSION_1_7);
-    InputStream script = null;
-    final ScriptableObject scope = (ScriptableObject) context.initStandardObjects(initialScope);
+    final ScriptableObject scope = context.initStandardObjects();
     try {
-      script = getClass().getResourceAsStream("commons.js");
-      context.evaluateReader(scope, new InputStreamReader(script), "common.js", 1, null);
+      execute(scope, getClass().getResourceAsStream("commons.js"), "common.js");
     } catch (final IOException e) {
       throw new RuntimeException("Problem while evaluationg commons script.", e);
+    }
+    return scope;
+  }
+
+
+  /**
+   * Creates the scope of a single invocation. The shared scope is used as prototype, thus all the objects defined in
+   * the shared scope are visible, while the variables defined by the invocation do not leak into the shared scope.
+   */
+  private ScriptableObject createInvocationScope(final ScriptableObject sharedScope) {
+    initContext();
+    final ScriptableObject scope = (ScriptableObject) context.newObject(sharedScope);
+    scope.setPrototype(sharedScope);
+    scope.setParentScope(null);
+    return scope;
+  }
+
+
+  /**
+   * Executes a library script in provided scope, compiling it only if it wasn't already compiled.
+   */
+  private void execute(final ScriptableObject scope, final InputStream stream, final String sourceName)
+    throws IOException {
+    Validate.notNull(stream);
+    final String source;
+    try {
+      source = IOUtils.toString(new InputStreamReader(stream));
+    } finally {
+      IOUtils.closeQuietly(stream);
+    }
+    final String key = sourceName + "@" + Integer.toHexString(source.hashCode());
+    CompiledScript compiled = COMPILED_SCRIPTS.get(key);
+    if (compiled == null || !compiled.source.equals(source)) {
+      compiled = new CompiledScript(source, compile(source, sourceName));
+      COMPILED_SCRIPTS.put(key, compiled);
+    }
+    compiled.script.exec(context, scope);
+  }
+
+
+  /**
+   * Compiles the script using the highest optimization level. Falls back to interpreted mode when the script cannot be
+   * compiled to bytecode (ex: the generated method exceeds the 64K limit).
+   */
+  private Script compile(final String source, final String sourceName) {
+    final int optimizationLevel = context.getOptimizationLevel();
+    try {
+      context.setOptimizationLevel(MAX_OPTIMIZATION_LEVEL);
+      return context.compileString(source, sourceName, 1, null);
+    } catch (final RuntimeException e) {
+      LOG.debug("Cannot compile {}, using interpreted mode. Reason: {}", sourceName, e.getMessage());
+      context.setOptimizationLevel(-1);
+      return context.compileString(source, sourceName, 1, null);
     } finally {
-      IOUtils.closeQuietly(script);
+      context.setOptimizationLevel(optimizationLevel);
     }
+  }
+
+
+  /**
+   * Seals the scope of this builder, making it read-only. A sealed scope can be safely shared by builders created with
+   * {@link #newChain(ScriptableObject)}.
+   *
+   * @return the sealed scope.
+   */
+  public ScriptableObject sealScope() {
+    scope.sealObject();
     return scope;
   }
 
@@ -113,20 +204,27 @@ public class RhinoScriptBuilder {
     Validate.notNull(stream);
     initContext();
     try {
-      context.evaluateReader(scope, new InputStreamReader(stream), sourceName, 1, null);
+      execute(scope, stream, sourceName);
       return this;
     } catch (final RuntimeException e) {
       LOG.error("Exception caught", e);
       throw e;
-    } finally {
-      stream.close();
     }
   }
 
 
+  /**
+   * Makes sure a context is associated with the current thread.
+   */
   public void initContext() {
-    if (Context.getCurrentContext() == null) {
+    context = Context.getCurrentContext();
+    if (context == null) {
       context = Context.enter();
+      // one-off scripts are interpreted, since compiling them to bytecode is more expensive than running them
+      context.setOptimizationLevel(-1);
+      // TODO redirect errors from System.err to LOG.error()
+      context.setErrorReporter(new ToolErrorReporter(false));
+      context.setLanguageVersion(Context.VERSION_1_7);
     }
   }
 
@@ -191,6 +289,55 @@ public class RhinoScriptBuilder {
     }
   }
 
+  /**
+   * Calls a function available in the scope. The arguments are passed as java values (ex: {@link String}), thus they
+   * are neither escaped nor compiled as a script.
+   *
+   * @param functionName the name of the function to call. Can be a path to the function, ex: <code>CSSLint.verify</code>,
+   *        in which case the function is called on the object containing it.
+   * @param args arguments of the function.
+   * @return the value returned by the function.
+   */
+  public Object call(final String functionName, final Object... args) {
+    Validate.notNull(functionName);
+    // make sure we have a context associated with current thread
+    initContext();
+    try {
+      Scriptable thisObj = scope;
+      Object function = scope;
+      for (final String name : functionName.split("\\.")) {
+        if (!(function instanceof Scriptable)) {
+          throw new EvaluatorException("Cannot find function " + functionName);
+        }
+        thisObj = (Scriptable) function;
+        function = ScriptableObject.getProperty(thisObj, name);
+      }
+      if (!(function instanceof Function)) {
+        throw new EvaluatorException("Cannot find function " + functionName);
+      }
+      return ((Function) function).call(context, scope, thisObj, args);
+    } catch (final JavaScriptException e) {
+      LOG.error("JavaScriptException occured: " + e.getMessage());
+      throw e;
+    } finally {
+      // Rhino throws an exception when trying to exit twice. Make sure we don't get any exception
+      if (Context.getCurrentContext() != null) {
+        Context.exit();
+      }
+    }
+  }
+
+  /**
+   * Exits the context associated with the current thread, if any. Useful after a scope was initialized by a thread
+   * which won't evaluate any script.
+   */
+  public static void exitContext() {
+    if (Context.getCurrentContext() != null) {
+      Context.exit();
+    }
+  }
+
+
   /**
    * @return default {@link RhinoScriptBuilder} for script evaluation chaining.
    */
@@ -199,8 +346,13 @@ public class RhinoScriptBuilder {
   }
 
 
-  public static RhinoScriptBuilder newChain(final ScriptableObject scope) {
-    return new RhinoScriptBuilder(scope);
+  /**
+   * @param sharedScope a scope initialized by another builder, usually sealed with {@link #sealScope()}.
+   * @return {@link RhinoScriptBuilder} evaluating the scripts in a new scope having the shared scope as prototype.
+   */
+  public static RhinoScriptBuilder newChain(final ScriptableObject sharedScope) {
+    Validate.notNull(sharedScope);
+    return new RhinoScriptBuilder(sharedScope);
   }
 
 
@@ -11,10 +11,13 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.mozilla.javascript.Context;
 import org.mozilla.javascript.JavaScriptException;
 import org.mozilla.javascript.NativeArray;
 import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Undefined;
 
 
 
@@ -48,6 +51,30 @@ public class RhinoUtils {
     return message;
   }
 
+  /**
+   * @return the value of the property as a string or null if the property is not defined, allowing to read the objects
+   *         returned by a script without serializing them as JSON.
+   */
+  public static String getString(final Scriptable object, final String name) {
+    final Object value = ScriptableObject.getProperty(object, name);
+    return isDefined(value) ? Context.toString(value) : null;
+  }
+
+  /**
+   * @return the value of the property as an int or 0 if the property is not a number.
+   */
+  public static int getInt(final Scriptable object, final String name) {
+    final Object value = ScriptableObject.getProperty(object, name);
+    return value instanceof Number ? ((Number) value).intValue() : 0;
+  }
+
+  /**
+   * @return false if the value is null or undefined.
+   */
+  public static boolean isDefined(final Object value) {
+    return value != null && value != Scriptable.NOT_FOUND && !(value instanceof Undefined);
+  }
+
   /**
    * Recursively convert from native Rhino to JSON.
    * <p>
@@ -0,0 +1,83 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.manager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import ro.isdc.wro.extensions.processor.css.LessCssProcessor;
+import ro.isdc.wro.extensions.processor.js.UglifyJsProcessor;
+import ro.isdc.wro.extensions.processor.js.YUIJsCompressorProcessor;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.factory.ConfigurableProcessorsFactory;
+import ro.isdc.wro.model.resource.processor.impl.CachingProcessorDecorator;
+import ro.isdc.wro.model.resource.processor.impl.LazyProcessorDecorator;
+
+
+/**
+ * Test {@link ExtensionsConfigurableWroManagerFactory}.
+ */
+public class TestExtensionsConfigurableWroManagerFactory {
+  @Test
+  public void shouldNotCreateProcessorsWhenPopulatingMap() {
+    final Map<String, ResourcePreProcessor> map = new HashMap<String, ResourcePreProcessor>();
+    ExtensionsConfigurableWroManagerFactory.pupulateMapWithExtensionsProcessors(map);
+    Assert.assertTrue(map.containsKey(UglifyJsProcessor.ALIAS_UGLIFY));
+    Assert.assertTrue(map.containsKey(LessCssProcessor.ALIAS));
+    for (final ResourcePreProcessor processor : map.values()) {
+      Assert.assertFalse(((LazyProcessorDecorator) processor).isInitialized());
+    }
+  }
+
+  @Test
+  public void shouldCreateOnlyReferencedProcessors() {
+    final Map<String, ResourcePreProcessor> preProcessors = new HashMap<String, ResourcePreProcessor>();
+    final Map<String, ResourcePostProcessor> postProcessors = new HashMap<String, ResourcePostProcessor>();
+    ExtensionsConfigurableWroManagerFactory.pupulateMapWithExtensionsProcessors(preProcessors);
+    ExtensionsConfigurableWroManagerFactory.pupulateMapWithExtensionsProcessors(postProcessors);
+    final Properties properties = new Properties();
+    properties.setProperty(ConfigurableProcessorsFactory.PARAM_PRE_PROCESSORS, LessCssProcessor.ALIAS);
+    properties.setProperty(ConfigurableProcessorsFactory.PARAM_POST_PROCESSORS, UglifyJsProcessor.ALIAS_UGLIFY);
+    final ConfigurableProcessorsFactory factory = new ConfigurableProcessorsFactory().setPreProcessorsMap(
+      preProcessors).setPostProcessorsMap(postProcessors).setProperties(properties);
+
+    final Collection<ResourcePreProcessor> processors = factory.getPreProcessors();
+    Assert.assertEquals(1, processors.size());
+    Assert.assertEquals(ResourceType.CSS, ProcessorsUtils.getSupportedResourceType(processors.iterator().next()).value());
+    Assert.assertEquals(1, factory.getPostProcessors().size());
+    for (final Map.Entry<String, ResourcePreProcessor> entry : preProcessors.entrySet()) {
+      Assert.assertEquals(entry.getKey(), LessCssProcessor.ALIAS.equals(entry.getKey()),
+        ((LazyProcessorDecorator) entry.getValue()).isInitialized());
+    }
+    for (final Map.Entry<String, ResourcePostProcessor> entry : postProcessors.entrySet()) {
+      Assert.assertFalse(entry.getKey(), ((LazyProcessorDecorator) entry.getValue()).isInitialized());
+    }
+  }
+
+  @Test
+  public void shouldCreateEveryProcessor() {
+    final Map<String, ResourcePreProcessor> map = new HashMap<String, ResourcePreProcessor>();
+    ExtensionsConfigurableWroManagerFactory.pupulateMapWithExtensionsProcessors(map);
+    try {
+      for (final Map.Entry<String, ResourcePreProcessor> entry : map.entrySet()) {
+        Assert.assertNotNull(entry.getKey(), ((LazyProcessorDecorator) entry.getValue()).getDecoratedProcessor());
+      }
+      Assert.assertTrue(((LazyProcessorDecorator) map.get(UglifyJsProcessor.ALIAS_UGLIFY)).getDecoratedProcessor()
+        instanceof CachingProcessorDecorator);
+      Assert.assertTrue(((LazyProcessorDecorator) map.get(YUIJsCompressorProcessor.ALIAS_MUNGE))
+        .getDecoratedProcessor() instanceof YUIJsCompressorProcessor);
+    } finally {
+      ProcessorsUtils.destroy(map.values());
+    }
+  }
+}
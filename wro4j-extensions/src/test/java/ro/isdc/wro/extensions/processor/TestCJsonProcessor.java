@@ -41,6 +41,17 @@ public class TestCJsonProcessor {
     WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "js", processor);
   }
 
+  @Test
+  public void shouldPackWithJavaScriptEngine()
+      throws Exception {
+    final ResourcePostProcessor processor = CJsonProcessor.packProcessor().setUseJavaScriptEngine(true);
+    final URL url = getClass().getResource("cjson");
+
+    final File testFolder = new File(url.getFile(), "test");
+    final File expectedFolder = new File(url.getFile(), "pack");
+    WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "js", processor);
+  }
+
   @Test
   public void testUnpackFromFolder()
       throws Exception {
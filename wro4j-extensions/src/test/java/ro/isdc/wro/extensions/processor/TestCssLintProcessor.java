@@ -8,14 +8,21 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.junit.Test;
 
 import ro.isdc.wro.extensions.processor.css.CssLintProcessor;
+import ro.isdc.wro.extensions.processor.support.csslint.CssLintError;
 import ro.isdc.wro.extensions.processor.support.csslint.CssLintException;
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.util.Transformers;
 import ro.isdc.wro.util.WroTestUtils;
@@ -61,4 +68,38 @@ public class TestCssLintProcessor {
     WroTestUtils.runConcurrently(task);
   }
 
+  @Test
+  public void shouldReportSameErrorsInBatchMode()
+    throws Exception {
+    final Map<Resource, String> contents = new LinkedHashMap<Resource, String>();
+    contents.put(Resource.create("demo.css", ResourceType.CSS), FileUtils.readFileToString(new File(
+      getClass().getResource("csslint/demo.css").getFile())));
+    for (int i = 0; i < 10; i++) {
+      contents.put(Resource.create("generated" + i + ".css", ResourceType.CSS), i % 2 == 0 ? ".a" + i
+        + " {color: red;}" : "#a" + i + " .b {width: 10px; padding: 1px; float: left; float: left}");
+    }
+    final Map<String, String> errors = new LinkedHashMap<String, String>();
+    final CssLintProcessor processor = new CssLintProcessor() {
+      @Override
+      protected void onCssLintException(final CssLintException e, final Resource resource)
+        throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (final CssLintError error : e.getErrors()) {
+          sb.append(error.getType() + ":" + error.getLine() + ":" + error.getCol() + ":" + error.getMessage() + ":"
+            + error.getEvidence() + ":" + (error.getRule() == null ? null : error.getRule().getId())).append("\n");
+        }
+        errors.put(resource.getUri(), sb.toString());
+      }
+    };
+    // validate all the resources with csslint
+    processor.setOptions("adjoining-classes", "box-model", "ids").setBatchSize(3).setResultCache(null);
+    for (final Map.Entry<Resource, String> entry : contents.entrySet()) {
+      processor.process(entry.getKey(), new StringReader(entry.getValue()), new StringWriter());
+    }
+    final Map<String, String> expectedErrors = new LinkedHashMap<String, String>(errors);
+    errors.clear();
+    processor.validate(contents);
+    Assert.assertFalse(expectedErrors.isEmpty());
+    Assert.assertEquals(expectedErrors, errors);
+  }
 }
@@ -8,17 +8,29 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.extensions.processor.js.GoogleClosureCompressorProcessor;
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.StopWatch;
 import ro.isdc.wro.util.WroTestUtils;
 
 import com.google.javascript.jscomp.CompilationLevel;
@@ -33,6 +45,7 @@ import com.google.javascript.jscomp.JSSourceFile;
  * @created Created on Apr 18, 2010
  */
 public class TestGoogleClosureCompressorProcessor {
+  private static final Logger LOG = LoggerFactory.getLogger(TestGoogleClosureCompressorProcessor.class);
   private File testFolder;
   private GoogleClosureCompressorProcessor processor;
   @Before
@@ -117,4 +130,111 @@ public class TestGoogleClosureCompressorProcessor {
     //will leave result unchanged, because the processing is not successful.
     Assert.assertEquals("alert(1);", sw.toString());
   }
+
+  @Test
+  public void shouldUseNewExternsForEachCompilation()
+      throws IOException {
+    final AtomicInteger invocations = new AtomicInteger();
+    final List<JSSourceFile> externs = new ArrayList<JSSourceFile>();
+    processor = new GoogleClosureCompressorProcessor(CompilationLevel.ADVANCED_OPTIMIZATIONS) {
+      @Override
+      protected JSSourceFile[] getExterns(final Resource resource) {
+        invocations.incrementAndGet();
+        final JSSourceFile extern = JSSourceFile.fromCode("externs.js", "function external() {}");
+        externs.add(extern);
+        return new JSSourceFile[] { extern };
+      }
+    };
+    final Resource resource = Resource.create("script.js", ResourceType.JS);
+    for (int i = 0; i < 2; i++) {
+      final StringWriter sw = new StringWriter();
+      processor.process(resource, new StringReader("external();"), sw);
+      Assert.assertEquals("external();", sw.toString());
+    }
+    Assert.assertEquals(1, invocations.get());
+    // the extern returned by getExterns is only read, never compiled
+    Assert.assertFalse(externs.get(0).isExtern());
+  }
+
+  @Test
+  public void shouldNotChangeProvidedCompilerOptions()
+      throws IOException {
+    final CompilerOptions options = new CompilerOptions();
+    processor.setCompilerOptions(options).setCompilationLevel(CompilationLevel.ADVANCED_OPTIMIZATIONS);
+    final StringWriter sw = new StringWriter();
+    processor.process(new StringReader("function test( ) {}"), sw);
+    Assert.assertEquals("", sw.toString());
+    Assert.assertFalse(options.removeUnusedVars);
+  }
+
+  /**
+   * Compiles a corpus made of the js files of the test folder and a few copies of jquery sequentially and concurrently
+   * (like the parallel pre processing does) and logs the throughput.
+   */
+  @Test
+  public void shouldCompileConcurrently()
+      throws Exception {
+    final List<Resource> resources = new ArrayList<Resource>();
+    final List<String> contents = new ArrayList<String>();
+    for (final File file : FileUtils.listFiles(testFolder, new String[] {"js"}, false)) {
+      resources.add(Resource.create(file.getName(), ResourceType.JS));
+      contents.add(FileUtils.readFileToString(file));
+    }
+    final File jquery = new File(getClass().getResource("google/expectedWhitespaceOnly/jquery-1.5.2.js").getFile());
+    for (int i = 0; i < 2; i++) {
+      resources.add(Resource.create(i + jquery.getName(), ResourceType.JS));
+      contents.add(FileUtils.readFileToString(jquery));
+    }
+    long size = 0;
+    for (final String content : contents) {
+      size += content.length();
+    }
+    final StopWatch watch = new StopWatch();
+    watch.start("sequential");
+    final List<String> expected = new ArrayList<String>();
+    for (int i = 0; i < resources.size(); i++) {
+      expected.add(compile(resources.get(i), contents.get(i)));
+    }
+    watch.stop();
+    final long sequentialMillis = watch.getLastTaskTimeMillis();
+    final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      watch.start("concurrent (" + threads + " threads)");
+      final List<Future<String>> futures = new ArrayList<Future<String>>();
+      for (int i = 0; i < resources.size(); i++) {
+        final Resource resource = resources.get(i);
+        final String content = contents.get(i);
+        futures.add(executor.submit(new Callable<String>() {
+          public String call()
+              throws Exception {
+            Context.set(Context.standaloneContext());
+            try {
+              return compile(resource, content);
+            } finally {
+              Context.unset();
+            }
+          }
+        }));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        Assert.assertEquals(expected.get(i), futures.get(i).get());
+      }
+      watch.stop();
+    } finally {
+      executor.shutdown();
+    }
+    LOG.debug(watch.prettyPrint());
+    LOG.debug("Throughput (KB/s) of {} files ({} KB): sequential {}, concurrent {}", new Object[] {
+      resources.size(), size / 1024, size * 1000 / 1024 / Math.max(1, sequentialMillis),
+      size * 1000 / 1024 / Math.max(1, watch.getLastTaskTimeMillis())
+    });
+  }
+
+  private String compile(final Resource resource, final String content)
+      throws IOException {
+    final StringWriter sw = new StringWriter();
+    processor.process(resource, new StringReader(content), sw);
+    return sw.toString();
+  }
 }
@@ -3,18 +3,30 @@
  */
 package ro.isdc.wro.extensions.processor;
 
+import java.io.File;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.js.JsHintProcessor;
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
+import ro.isdc.wro.extensions.processor.support.linter.AbstractLinter;
+import ro.isdc.wro.extensions.processor.support.linter.JsHint;
+import ro.isdc.wro.extensions.processor.support.linter.LinterError;
 import ro.isdc.wro.extensions.processor.support.linter.LinterException;
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.util.WroTestUtils;
@@ -81,4 +93,103 @@ public class TestJsHintProcessor extends AbstractTestLinterProcessor {
     };
     WroTestUtils.runConcurrently(task);
   }
+
+
+  @Test
+  public void shouldReportSameErrorsInBatchMode()
+      throws Exception {
+    final Map<Resource, String> contents = new LinkedHashMap<Resource, String>();
+    final File folder = new File(getClass().getResource("jsHint/test").getFile());
+    for (final File file : folder.listFiles()) {
+      contents.put(Resource.create(file.getName(), ResourceType.JS), FileUtils.readFileToString(file));
+    }
+    for (int i = 0; i < 20; i++) {
+      contents.put(Resource.create("generated" + i + ".js", ResourceType.JS), i % 3 == 0 ? "alert(;" : "var a" + i
+        + " = " + i + ";");
+    }
+    final Map<String, String> errors = new LinkedHashMap<String, String>();
+    final JsHintProcessor processor = new JsHintProcessor() {
+      @Override
+      protected void onLinterException(final LinterException e, final Resource resource) {
+        final StringBuilder sb = new StringBuilder();
+        for (final LinterError error : e.getErrors()) {
+          sb.append(error == null ? null : error.getLine() + ":" + error.getCharacter() + ":" + error.getReason() + ":"
+            + error.getEvidence()).append("\n");
+        }
+        errors.put(resource.getUri(), sb.toString());
+      }
+    };
+    // validate all the resources with the linter
+    processor.setBatchSize(4).setResultCache(null);
+    for (final Map.Entry<Resource, String> entry : contents.entrySet()) {
+      processor.process(entry.getKey(), new StringReader(entry.getValue()), new StringWriter());
+    }
+    final Map<String, String> expectedErrors = new LinkedHashMap<String, String>(errors);
+    errors.clear();
+    processor.validate(contents);
+    Assert.assertFalse(expectedErrors.isEmpty());
+    Assert.assertEquals(expectedErrors, errors);
+  }
+
+
+  @Test
+  public void shouldReportCachedErrorsWithoutInvokingLinter()
+      throws Exception {
+    final AtomicInteger invocations = new AtomicInteger();
+    final List<String> errors = new ArrayList<String>();
+    final JsHintProcessor processor = new JsHintProcessor() {
+      @Override
+      protected AbstractLinter newLinter() {
+        return new JsHint() {
+          @Override
+          public List<LinterException> validateAll(final List<String> sources) {
+            invocations.addAndGet(sources.size());
+            return super.validateAll(sources);
+          }
+        };
+      }
+
+      @Override
+      protected void onLinterException(final LinterException e, final Resource resource) {
+        errors.add(e.getErrors().toString());
+      }
+    };
+    processor.setResultCache(new LintResultCache(null, 10));
+    for (int i = 0; i < 3; i++) {
+      processor.process(new StringReader("alert(;"), new StringWriter());
+      processor.process(new StringReader("alert(1);"), new StringWriter());
+    }
+    Assert.assertEquals(2, invocations.get());
+    Assert.assertEquals(3, errors.size());
+    Assert.assertEquals(errors.get(0), errors.get(2));
+    // changing the options invalidates the cached results
+    processor.setOptions("maxerr=1");
+    processor.process(new StringReader("alert(;"), new StringWriter());
+    Assert.assertEquals(3, invocations.get());
+  }
+
+
+  @Test
+  public void shouldNotShareDefaultResultCacheBetweenProcessors()
+      throws Exception {
+    final AtomicInteger invocations = new AtomicInteger();
+    for (int i = 0; i < 2; i++) {
+      final JsHintProcessor processor = new JsHintProcessor() {
+        @Override
+        protected AbstractLinter newLinter() {
+          return new JsHint() {
+            @Override
+            public List<LinterException> validateAll(final List<String> sources) {
+              invocations.addAndGet(sources.size());
+              return super.validateAll(sources);
+            }
+          };
+        }
+      };
+      processor.process(new StringReader("alert(1);"), new StringWriter());
+      processor.process(new StringReader("alert(1);"), new StringWriter());
+      processor.destroy();
+    }
+    Assert.assertEquals(2, invocations.get());
+  }
 }
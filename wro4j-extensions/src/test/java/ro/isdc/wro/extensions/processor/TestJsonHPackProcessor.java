@@ -37,6 +37,17 @@ public class TestJsonHPackProcessor {
     WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "js", processor);
   }
 
+  @Test
+  public void shouldPackWithJavaScriptEngine()
+      throws Exception {
+    final ResourcePostProcessor processor = JsonHPackProcessor.packProcessor().setUseJavaScriptEngine(true);
+    final URL url = getClass().getResource("jsonhpack");
+
+    final File testFolder = new File(url.getFile(), "test");
+    final File expectedFolder = new File(url.getFile(), "pack");
+    WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "js", processor);
+  }
+
   @Test
   public void testUnpackFromFolder()
       throws Exception {
@@ -5,13 +5,25 @@ package ro.isdc.wro.extensions.processor;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.extensions.processor.js.YUIJsCompressorProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+import ro.isdc.wro.util.StopWatch;
 import ro.isdc.wro.util.WroTestUtils;
 import ro.isdc.wro.util.WroUtil;
 
@@ -23,6 +35,7 @@ import ro.isdc.wro.util.WroUtil;
  * @created Created on Nov 28, 2008
  */
 public class TestYUIJsCompressorProcessor {
+  private static final Logger LOG = LoggerFactory.getLogger(TestYUIJsCompressorProcessor.class);
   private File testFolder;
 
   @Before
@@ -59,4 +72,40 @@ public class TestYUIJsCompressorProcessor {
     final String resourceUri = "classpath:" + WroUtil.toPackageAsFolder(getClass()) + "/invalid.js";
     WroTestUtils.compareProcessedResourceContents(resourceUri, resourceUri, processor);
   }
+
+
+  /**
+   * A scope declaring more variables than the one and two letters symbols, which was slow to munge because of the
+   * operations on the list of free symbols.
+   */
+  @Test
+  public void shouldMungeScopeExhaustingShortSymbols()
+    throws IOException {
+    final int count = 4000;
+    final StringBuilder js = new StringBuilder("function big(){var ");
+    final StringBuilder sum = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      js.append(i > 0 ? "," : "").append("variable").append(i).append("=").append(i);
+      sum.append(i > 0 ? "+" : "").append("variable").append(i);
+    }
+    js.append(";return ").append(sum).append(";}");
+    final StopWatch watch = new StopWatch();
+    watch.start("munge");
+    final StringWriter writer = new StringWriter();
+    YUIJsCompressorProcessor.doMungeCompressor().process(new StringReader(js.toString()), writer);
+    watch.stop();
+    LOG.info("Munged {} variables in {}ms", count, watch.getLastTaskTimeMillis());
+
+    final Matcher matcher = Pattern.compile("^function big\\(\\)\\{var (.*);return (.*);\\};?$").matcher(
+      writer.toString());
+    Assert.assertTrue(matcher.matches());
+    final Set<String> symbols = new HashSet<String>();
+    for (final String declaration : matcher.group(1).split(",")) {
+      final String symbol = declaration.substring(0, declaration.indexOf('='));
+      Assert.assertTrue(symbol, symbol.length() <= 3);
+      symbols.add(symbol);
+    }
+    Assert.assertEquals(count, symbols.size());
+    Assert.assertEquals(symbols, new HashSet<String>(Arrays.asList(matcher.group(2).split("\\+"))));
+  }
 }
@@ -0,0 +1,78 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+/**
+ * Test {@link BatchExecutor}.
+ */
+public class TestBatchExecutor {
+  private final BatchExecutor executor = new BatchExecutor();
+
+  @After
+  public void tearDown() {
+    executor.destroy();
+  }
+
+  private List<Integer> createItems(final int size) {
+    final List<Integer> items = new ArrayList<Integer>();
+    for (int i = 0; i < size; i++) {
+      items.add(i);
+    }
+    return items;
+  }
+
+  @Test
+  public void shouldReturnResultsInItemsOrder() {
+    final List<Integer> items = createItems(100);
+    final List<Integer> results = executor.execute(items, 7, new BatchExecutor.BatchTask<Integer, Integer>() {
+      public List<Integer> process(final List<Integer> batch) {
+        final List<Integer> result = new ArrayList<Integer>();
+        for (final Integer item : batch) {
+          result.add(item * 2);
+        }
+        return result;
+      }
+    });
+    Assert.assertEquals(100, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      Assert.assertEquals(i * 2, results.get(i).intValue());
+    }
+  }
+
+  @Test
+  public void shouldReuseThreadsBetweenExecutions() {
+    final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+    final BatchExecutor.BatchTask<Integer, Integer> task = new BatchExecutor.BatchTask<Integer, Integer>() {
+      public List<Integer> process(final List<Integer> batch) {
+        threads.add(Thread.currentThread());
+        return batch;
+      }
+    };
+    for (int i = 0; i < 5; i++) {
+      executor.execute(createItems(20), 1, task);
+    }
+    Assert.assertTrue(threads.size() <= Runtime.getRuntime().availableProcessors());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldPropagateTaskFailure() {
+    executor.execute(createItems(20), 1, new BatchExecutor.BatchTask<Integer, Integer>() {
+      public List<Integer> process(final List<Integer> batch) {
+        throw new IllegalStateException();
+      }
+    });
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.extensions.processor.support.linter.JsHint;
+import ro.isdc.wro.extensions.processor.support.linter.LinterError;
+
+
+/**
+ * Test {@link LintResultCache}.
+ */
+public class TestLintResultCache {
+  private File file;
+
+  @Before
+  public void setUp()
+    throws Exception {
+    file = File.createTempFile("lintResults", ".ser");
+    file.delete();
+  }
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteQuietly(file);
+  }
+
+  private LinterError createError(final int line, final String reason) {
+    final LinterError error = new LinterError();
+    error.setLine(line);
+    error.setReason(reason);
+    return error;
+  }
+
+  @Test
+  public void shouldComputeDifferentKeysForDifferentContentOrIdentity() {
+    final LintResultCache cache = new LintResultCache(null, 10);
+    final String key = cache.getKey("linter", "content");
+    Assert.assertEquals(key, cache.getKey("linter", "content"));
+    Assert.assertFalse(key.equals(cache.getKey("linter", "content2")));
+    Assert.assertFalse(key.equals(cache.getKey("linter2", "content")));
+  }
+
+  @Test
+  public void shouldChangeIdentityWhenScriptOrOptionsChange() {
+    final String identity = LintResultCache.createIdentity(JsHint.class, new ByteArrayInputStream("script".getBytes()),
+      new String[] { "a" });
+    Assert.assertEquals(identity, LintResultCache.createIdentity(JsHint.class,
+      new ByteArrayInputStream("script".getBytes()), new String[] { "a" }));
+    Assert.assertFalse(identity.equals(LintResultCache.createIdentity(JsHint.class,
+      new ByteArrayInputStream("script2".getBytes()), new String[] { "a" })));
+    Assert.assertFalse(identity.equals(LintResultCache.createIdentity(JsHint.class,
+      new ByteArrayInputStream("script".getBytes()), new String[] { "b" })));
+    Assert.assertFalse(identity.equals(LintResultCache.createIdentity(JsHint.class,
+      new ByteArrayInputStream("script".getBytes()), null)));
+  }
+
+  @Test
+  public void shouldDiscardLeastRecentlyUsedResults() {
+    final LintResultCache cache = new LintResultCache(null, 2);
+    cache.put("a", Collections.<LinterError> emptyList());
+    cache.put("b", Collections.<LinterError> emptyList());
+    Assert.assertNotNull(cache.get("a"));
+    cache.put("c", Collections.<LinterError> emptyList());
+    Assert.assertEquals(2, cache.size());
+    Assert.assertNotNull(cache.get("a"));
+    Assert.assertNull(cache.get("b"));
+  }
+
+  @Test
+  public void shouldPersistResultsToFile() {
+    final LintResultCache cache = new LintResultCache(file, 10);
+    cache.put("valid", Collections.<LinterError> emptyList());
+    cache.put("invalid", Arrays.asList(createError(1, "Missing semicolon"), null));
+    cache.persist();
+    Assert.assertTrue(file.isFile());
+
+    final LintResultCache loaded = new LintResultCache(file, 10);
+    Assert.assertEquals(2, loaded.size());
+    Assert.assertTrue(loaded.get("valid").isEmpty());
+    final List<LinterError> errors = loaded.get("invalid");
+    Assert.assertEquals(2, errors.size());
+    Assert.assertEquals(1, errors.get(0).getLine());
+    Assert.assertEquals("Missing semicolon", errors.get(0).getReason());
+    Assert.assertNull(errors.get(1));
+    Assert.assertNull(loaded.get("missing"));
+  }
+
+  @Test
+  public void shouldIgnoreCorruptedFile()
+    throws Exception {
+    FileUtils.writeStringToFile(file, "corrupted");
+    final LintResultCache cache = new LintResultCache(file, 10);
+    Assert.assertEquals(0, cache.size());
+    cache.put("valid", Collections.<LinterError> emptyList());
+    cache.persist();
+    Assert.assertEquals(1, new LintResultCache(file, 10).size());
+  }
+}
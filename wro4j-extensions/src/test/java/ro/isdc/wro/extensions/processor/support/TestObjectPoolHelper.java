@@ -3,16 +3,43 @@
  */
 package ro.isdc.wro.extensions.processor.support;
 
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
 import junit.framework.Assert;
 
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.ConfigConstants;
+import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.util.ObjectFactory;
 
 /**
  * @author Alex Objelean
  */
 public class TestObjectPoolHelper {
+  private static final ObjectFactory<Object> OBJECT_FACTORY = new ObjectFactory<Object>() {
+    public Object create() {
+      return new Object();
+    }
+  };
+
+  @Before
+  public void setUp() {
+    // other tests may leave a context set on this thread
+    Context.unset();
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+  }
+
   @Test(expected=NullPointerException.class)
   public void cannotAcceptNullArgument() throws Exception {
     new ObjectPoolHelper<Void>(null);
@@ -41,4 +68,105 @@ public class TestObjectPoolHelper {
     Assert.assertEquals(Integer.valueOf(3), object);
     pool.returnObject(object);
   }
+
+  @Test
+  public void shouldUseSettingsOfThePool() {
+    final WroConfiguration config = new WroConfiguration();
+    config.setJmxEnabled(false);
+    config.setEnginePoolMaxActive(3);
+    config.setEnginePoolSetting(ConfigConstants.enginePoolMaxActive, "custom", "5");
+    config.setEnginePoolSetting(ConfigConstants.enginePoolExhaustedAction, "custom", "grow");
+    Context.set(Context.standaloneContext(), config);
+    final ObjectPoolHelper<Object> pool = new ObjectPoolHelper<Object>("custom", OBJECT_FACTORY);
+    Assert.assertEquals(5, pool.getMaxActive());
+    Assert.assertEquals("grow", pool.getExhaustedAction());
+    Assert.assertEquals(3, new ObjectPoolHelper<Object>("other", OBJECT_FACTORY).getMaxActive());
+  }
+
+  @Test
+  public void shouldBeConfiguredWhenFirstUsedInContext() {
+    final ObjectPoolHelper<Object> pool = new ObjectPoolHelper<Object>("lazy", OBJECT_FACTORY);
+    final WroConfiguration config = new WroConfiguration();
+    config.setJmxEnabled(false);
+    config.setEnginePoolMaxIdle(7);
+    Context.set(Context.standaloneContext(), config);
+    pool.returnObject(pool.getObject());
+    Assert.assertEquals(7, pool.getMaxIdle());
+  }
+
+  @Test(expected = WroRuntimeException.class)
+  public void shouldFailWhenExhausted() {
+    final ObjectPoolHelper<Object> pool = new ObjectPoolHelper<Object>("exhausted", OBJECT_FACTORY);
+    pool.setMaxActive(1);
+    pool.setExhaustedAction("fail");
+    pool.getObject();
+    pool.getObject();
+  }
+
+  @Test(expected = WroRuntimeException.class)
+  public void cannotSetInvalidExhaustedAction() {
+    new ObjectPoolHelper<Object>("invalid", OBJECT_FACTORY).setExhaustedAction("wait");
+  }
+
+  @Test
+  public void shouldRecordMetrics() {
+    final ObjectPoolHelper<Object> pool = new ObjectPoolHelper<Object>("metrics", OBJECT_FACTORY);
+    final Object first = pool.getObject();
+    final Object second = pool.getObject();
+    Assert.assertEquals(2, pool.getNumActive());
+    pool.returnObject(first);
+    pool.returnObject(second);
+    pool.returnObject(pool.getObject());
+    Assert.assertEquals(0, pool.getNumActive());
+    Assert.assertEquals(2, pool.getNumIdle());
+    Assert.assertEquals(2, pool.getCreatedCount());
+    Assert.assertEquals(3, pool.getBorrowedCount());
+  }
+
+  @Test
+  public void shouldPrewarmObjectsInBackground()
+    throws Exception {
+    final WroConfiguration config = new WroConfiguration();
+    config.setEnginePoolPrewarm(2);
+    Context.set(Context.standaloneContext(), config);
+    final ObjectPoolHelper<Object> pool = new ObjectPoolHelper<Object>("prewarmed", OBJECT_FACTORY);
+    for (int i = 0; i < 100 && pool.getNumIdle() < 2; i++) {
+      Thread.sleep(20);
+    }
+    Assert.assertEquals(2, pool.getNumIdle());
+    pool.returnObject(pool.getObject());
+    Assert.assertEquals(2, pool.getCreatedCount());
+  }
+
+  @Test
+  public void shouldUnregisterMBeanWhenDestroyed()
+    throws Exception {
+    Context.set(Context.standaloneContext(), new WroConfiguration());
+    final ObjectName name = new ObjectName("ro.isdc.wro.extensions:type=EnginePool,name=" + ObjectName.quote("jmx"));
+    final ObjectPoolHelper<Object> pool = new ObjectPoolHelper<Object>("jmx", OBJECT_FACTORY);
+    Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    pool.destroy();
+    Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+  }
+
+  @Test
+  public void shouldKeepMBeanOfPoolReplacingTheDestroyedOne()
+    throws Exception {
+    Context.set(Context.standaloneContext(), new WroConfiguration());
+    final ObjectName name = new ObjectName("ro.isdc.wro.extensions:type=EnginePool,name="
+      + ObjectName.quote("replaced"));
+    final ObjectPoolHelper<Object> pool = new ObjectPoolHelper<Object>("replaced", OBJECT_FACTORY);
+    final ObjectPoolHelper<Object> newPool = new ObjectPoolHelper<Object>("replaced", OBJECT_FACTORY);
+    pool.destroy();
+    Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    newPool.destroy();
+    Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+  }
+
+  @Test(expected = WroRuntimeException.class)
+  public void cannotUseDestroyedPool() {
+    final ObjectPoolHelper<Object> pool = new ObjectPoolHelper<Object>("destroyed", OBJECT_FACTORY);
+    pool.destroy();
+    pool.getObject();
+  }
 }
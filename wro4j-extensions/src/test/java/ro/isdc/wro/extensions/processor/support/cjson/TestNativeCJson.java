@@ -0,0 +1,174 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support.cjson;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.JavaScriptJson;
+import ro.isdc.wro.util.StopWatch;
+
+
+/**
+ * Checks that {@link NativeCJson} produces the same output as the javascript implementation.
+ */
+public class TestNativeCJson {
+  private static final Logger LOG = LoggerFactory.getLogger(TestNativeCJson.class);
+  private static final String[] KEYS = {
+    "name", "id", "x", "y", "width", "height", "a\"b", "\u00e9t\u00e9", "line\nbreak", "", "f", "v", "t"
+  };
+  private static final String[] STRINGS = {
+    "", "simple", "quote\"", "back\\slash", "tab\t", "\u0000\u001f\u007f", "\u2028\u2029", "\u00e9\u4e2d", "\ufeff",
+    "</script>"
+  };
+  private static final String[] NUMBERS = {
+    "0", "-0", "1", "-1", "1.5", "0.1", "1e21", "1E-7", "123456789012345678901234", "0.000001", "-2.5e-3",
+    "3.14159265358979", "100", "2147483648"
+  };
+  private final CJson javascriptEngine = new CJson();
+  private final CJson nativeEngine = new NativeCJson();
+
+  private void assertSameAsJavascript(final String json) {
+    final String packed = pack(javascriptEngine, json);
+    Assert.assertEquals(json, packed, pack(nativeEngine, json));
+    Assert.assertEquals(packed, unpack(javascriptEngine, packed), unpack(nativeEngine, packed));
+  }
+
+  /**
+   * @return the packed json or the error message if the engine fails.
+   */
+  private String pack(final CJson engine, final String json) {
+    try {
+      return engine.pack(json);
+    } catch (final WroRuntimeException e) {
+      return e.getMessage();
+    }
+  }
+
+  private String unpack(final CJson engine, final String json) {
+    try {
+      return engine.unpack(json);
+    } catch (final WroRuntimeException e) {
+      return e.getMessage();
+    }
+  }
+
+  @Test
+  public void shouldPackTestResourcesLikeJavascript()
+    throws Exception {
+    for (final String folder : Arrays.asList("test", "pack")) {
+      final File dir = new File(getClass().getResource("/ro/isdc/wro/extensions/processor/cjson/" + folder).getFile());
+      for (final File file : dir.listFiles()) {
+        assertSameAsJavascript(FileUtils.readFileToString(file));
+      }
+    }
+  }
+
+  @Test
+  public void shouldPackEdgeCasesLikeJavascript() {
+    final List<String> inputs = Arrays.asList("[]", "{}", "[{}]", "[null]", "{\"a\":null}", "[{},{\"a\":{}}]",
+      "{\"a\":{\"b\":{\"c\":1}}}", "[{\"a\":1,\"b\":2},{\"a\":3},{\"b\":4,\"a\":5}]", "[[[]],[[{}]]]",
+      "{\"a\":[1,\"2\",true,false,null]}", "[{\"a\":1},{\"a\":1,\"b\":2},{\"a\":1,\"b\":2,\"c\":3}]",
+      " [ 1 , 2 ]\n", "[1e400]", "{\"n\":-1e400}");
+    for (final String input : inputs) {
+      assertSameAsJavascript(input);
+    }
+    for (final String number : NUMBERS) {
+      assertSameAsJavascript("[" + number + "]");
+      assertSameAsJavascript("{\"n\":" + number + "}");
+    }
+    for (final String string : STRINGS) {
+      assertSameAsJavascript("[" + JavaScriptJson.stringify(string) + "]");
+    }
+  }
+
+  @Test
+  public void shouldPackGeneratedDataLikeJavascript() {
+    final Random random = new Random(1);
+    for (int i = 0; i < 100; i++) {
+      assertSameAsJavascript("[" + generateValue(random, 4) + "]");
+    }
+  }
+
+  @Test
+  public void shouldFallbackToJavascriptForUnsupportedInput() {
+    final List<String> inputs = Arrays.asList("{p : 1}", "[{\"length\":1}]", "{\"1\":1,\"0\":2}", "[017]",
+      "{\"a\":1,\"a\":2}", "\"string\"", "1");
+    for (final String input : inputs) {
+      assertSameAsJavascript(input);
+    }
+    final String packed = "{\"f\":\"cjson\",\"t\":[[0,\"a\"]],\"v\":{\"\":[\"1\",1]}}";
+    Assert.assertEquals(unpack(javascriptEngine, packed), unpack(nativeEngine, packed));
+  }
+
+  @Test
+  public void compareTimeWithJavascript() {
+    final Random random = new Random(2);
+    final List<String> items = new ArrayList<String>();
+    int length = 0;
+    while (length < 200000) {
+      final String item = generateValue(random, 3);
+      items.add(item);
+      length += item.length();
+    }
+    final String json = items.toString();
+    // warm up
+    Assert.assertEquals(javascriptEngine.pack(json), nativeEngine.pack(json));
+    final StopWatch stopWatch = new StopWatch();
+    stopWatch.start("javascript");
+    final String packed = javascriptEngine.pack(json);
+    javascriptEngine.unpack(packed);
+    stopWatch.stop();
+    final long javascriptTime = stopWatch.getLastTaskTimeMillis();
+    stopWatch.start("native");
+    nativeEngine.unpack(nativeEngine.pack(json));
+    stopWatch.stop();
+    final long nativeTime = stopWatch.getLastTaskTimeMillis();
+    LOG.info("Pack and unpack of {} chars: javascript {}ms, native {}ms", new Object[] {
+      json.length(), javascriptTime, nativeTime
+    });
+  }
+
+  private String generateValue(final Random random, final int depth) {
+    final int type = random.nextInt(depth > 0 ? 8 : 5);
+    switch (type) {
+      case 0:
+        return NUMBERS[random.nextInt(NUMBERS.length)];
+      case 1:
+        return JavaScriptJson.stringify(STRINGS[random.nextInt(STRINGS.length)]);
+      case 2:
+        return random.nextBoolean() ? "true" : "false";
+      case 3:
+        return "null";
+      case 4:
+        return "{}";
+      case 5:
+        final StringBuilder array = new StringBuilder("[");
+        for (int i = random.nextInt(5); i > 0; i--) {
+          array.append(generateValue(random, depth - 1)).append(i > 1 ? "," : "");
+        }
+        return array.append("]").toString();
+      default:
+        final StringBuilder object = new StringBuilder("{");
+        final List<String> keys = new ArrayList<String>(Arrays.asList(KEYS));
+        for (int i = random.nextInt(5); i > 0; i--) {
+          final String key = keys.remove(random.nextInt(keys.size()));
+          object.append(JavaScriptJson.stringify(key)).append(":").append(generateValue(random, depth - 1)).append(
+            i > 1 ? "," : "");
+        }
+        return object.append("}").toString();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support.jsonhpack;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.processor.support.JavaScriptJson;
+import ro.isdc.wro.util.StopWatch;
+
+
+/**
+ * Checks that {@link NativeJsonHPack} produces the same output as the javascript implementation.
+ */
+public class TestNativeJsonHPack {
+  private static final Logger LOG = LoggerFactory.getLogger(TestNativeJsonHPack.class);
+  private static final String[] KEYS = {
+    "id", "name", "age", "sex", "a\"b", "\u00e9t\u00e9", "", "with space"
+  };
+  private static final String[] VALUES = {
+    "0", "-0", "1", "2", "1.5", "1e21", "-2.5e-3", "\"\"", "\"Male\"", "\"Female\"", "\"quote\\\"\"", "\"\\u2028\"",
+    "true", "false", "null", "{}", "[]", "{\"a\":1}", "[1,2]"
+  };
+  private final JsonHPack javascriptEngine = new JsonHPack();
+  private final JsonHPack nativeEngine = new NativeJsonHPack();
+
+  private void assertSameAsJavascript(final String json) {
+    final String packed = pack(javascriptEngine, json);
+    Assert.assertEquals(json, packed, pack(nativeEngine, json));
+    Assert.assertEquals(packed, unpack(javascriptEngine, packed), unpack(nativeEngine, packed));
+  }
+
+  /**
+   * @return the packed json or the error message if the engine fails.
+   */
+  private String pack(final JsonHPack engine, final String json) {
+    try {
+      return engine.pack(json);
+    } catch (final WroRuntimeException e) {
+      return e.getMessage();
+    }
+  }
+
+  private String unpack(final JsonHPack engine, final String json) {
+    try {
+      return engine.unpack(json);
+    } catch (final WroRuntimeException e) {
+      return e.getMessage();
+    }
+  }
+
+  @Test
+  public void shouldPackTestResourcesLikeJavascript()
+    throws Exception {
+    for (final String folder : Arrays.asList("test", "unpack")) {
+      final File dir = new File(getClass().getResource("/ro/isdc/wro/extensions/processor/jsonhpack/" + folder).getFile());
+      for (final File file : dir.listFiles()) {
+        assertSameAsJavascript(FileUtils.readFileToString(file));
+      }
+    }
+  }
+
+  @Test
+  public void shouldPackEdgeCasesLikeJavascript() {
+    final List<String> inputs = Arrays.asList("[{}]", "[{},{}]", "{\"a\":1}", "[{\"a\":1},{\"b\":2}]",
+      "[{\"a\":\"x\"},{\"a\":\"x\"},{\"a\":\"y\"}]", "[{\"a\":-0},{\"a\":0}]", "[{\"a\":null},{\"a\":null}]",
+      "[{\"a\":{}},{\"a\":{}}]", "[1,2]", "[true]", "[{\"a\":1e400}]");
+    for (final String input : inputs) {
+      assertSameAsJavascript(input);
+    }
+  }
+
+  @Test
+  public void shouldPackGeneratedDataLikeJavascript() {
+    final Random random = new Random(1);
+    for (int i = 0; i < 100; i++) {
+      assertSameAsJavascript(generateRows(random, 1 + random.nextInt(10)));
+    }
+  }
+
+  @Test
+  public void shouldFallbackToJavascriptForUnsupportedInput() {
+    final List<String> inputs = Arrays.asList("{p : 1}", "[{\"length\":1}]", "[{\"a\":1}, 2]", "[\"a\"]", "[[1]]",
+      "[{\"a\\\\b\":1}]", "[{\"a\":017}]");
+    for (final String input : inputs) {
+      assertSameAsJavascript(input);
+    }
+    for (final String packed : Arrays.asList("[[\"a\",[\"x\"]],[\"0\"]]", "[[\"a\",null],[0]]", "[[1],[0]]",
+      "[[\"a\",[\"x\"]],[0],[1],[]]")) {
+      Assert.assertEquals(unpack(javascriptEngine, packed), unpack(nativeEngine, packed));
+    }
+  }
+
+  @Test
+  public void compareTimeWithJavascript() {
+    final String json = generateRows(new Random(2), 2000);
+    // warm up
+    Assert.assertEquals(javascriptEngine.pack(json), nativeEngine.pack(json));
+    final StopWatch stopWatch = new StopWatch();
+    stopWatch.start("javascript");
+    javascriptEngine.unpack(javascriptEngine.pack(json));
+    stopWatch.stop();
+    final long javascriptTime = stopWatch.getLastTaskTimeMillis();
+    stopWatch.start("native");
+    nativeEngine.unpack(nativeEngine.pack(json));
+    stopWatch.stop();
+    final long nativeTime = stopWatch.getLastTaskTimeMillis();
+    LOG.info("Pack and unpack of {} chars: javascript {}ms, native {}ms", new Object[] {
+      json.length(), javascriptTime, nativeTime
+    });
+  }
+
+  /**
+   * @return a json array of objects, having mostly the same keys and values from a small set.
+   */
+  private String generateRows(final Random random, final int count) {
+    final List<String> keys = new ArrayList<String>(Arrays.asList(KEYS).subList(0, 1 + random.nextInt(KEYS.length)));
+    final List<String> rows = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      final StringBuilder row = new StringBuilder("{");
+      for (final String key : keys) {
+        // some rows have missing keys
+        if (i == 0 || random.nextInt(20) > 0) {
+          final String value = random.nextInt(3) == 0 ? String.valueOf(random.nextInt(1000))
+            : VALUES[random.nextInt(VALUES.length)];
+          row.append(row.length() > 1 ? "," : "").append(JavaScriptJson.stringify(key)).append(":").append(value);
+        }
+      }
+      rows.add(row.append("}").toString());
+    }
+    return rows.toString();
+  }
+}
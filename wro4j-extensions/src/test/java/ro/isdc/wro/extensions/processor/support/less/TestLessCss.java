@@ -0,0 +1,69 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.processor.support.less;
+
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
+import ro.isdc.wro.util.ObjectFactory;
+
+
+/**
+ * Test for {@link LessCss}.
+ */
+public class TestLessCss {
+  @After
+  public void tearDown() {
+    Context.unset();
+  }
+
+  /**
+   * The scope of a pre-warmed engine is built by the pre-warm thread, not when the first content is processed.
+   */
+  @Test
+  public void shouldInitializeScopeOfPrewarmedEngine()
+    throws Exception {
+    final WroConfiguration config = new WroConfiguration();
+    config.setEnginePoolPrewarm(1);
+    Context.set(Context.standaloneContext(), config);
+    final AtomicInteger scopesBuilt = new AtomicInteger();
+    final ObjectPoolHelper<LessCss> pool = new ObjectPoolHelper<LessCss>("prewarmedLessCss",
+      new ObjectFactory<LessCss>() {
+        public LessCss create() {
+          return new LessCss() {
+            @Override
+            protected InputStream getScriptAsStream() {
+              scopesBuilt.incrementAndGet();
+              return super.getScriptAsStream();
+            }
+          };
+        }
+      });
+    try {
+      for (int i = 0; i < 500 && pool.getNumIdle() < 1; i++) {
+        Thread.sleep(20);
+      }
+      Assert.assertEquals(1, pool.getNumIdle());
+      Assert.assertEquals(1, scopesBuilt.get());
+      final LessCss engine = pool.getObject();
+      try {
+        Assert.assertTrue(engine.less(".a { color: red; }").contains("color: red"));
+      } finally {
+        pool.returnObject(engine);
+      }
+      Assert.assertEquals(1, scopesBuilt.get());
+      Assert.assertEquals(1, pool.getCreatedCount());
+    } finally {
+      pool.destroy();
+    }
+  }
+}
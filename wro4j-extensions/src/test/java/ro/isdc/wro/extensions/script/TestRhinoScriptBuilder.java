@@ -0,0 +1,195 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.extensions.script;
+
+import java.io.ByteArrayInputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.ScriptableObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.extensions.processor.support.cjson.CJson;
+import ro.isdc.wro.extensions.processor.support.coffeescript.CoffeeScript;
+import ro.isdc.wro.extensions.processor.support.csslint.CssLint;
+import ro.isdc.wro.extensions.processor.support.jsonhpack.JsonHPack;
+import ro.isdc.wro.extensions.processor.support.less.LessCss;
+import ro.isdc.wro.extensions.processor.support.linter.JsHint;
+import ro.isdc.wro.extensions.processor.support.linter.JsLint;
+import ro.isdc.wro.extensions.processor.support.linter.LinterException;
+import ro.isdc.wro.extensions.processor.support.packer.PackerJs;
+import ro.isdc.wro.extensions.processor.support.sass.SassCss;
+import ro.isdc.wro.extensions.processor.support.uglify.UglifyJs;
+import ro.isdc.wro.util.StopWatch;
+
+
+/**
+ * Test for {@link RhinoScriptBuilder}. Also measures the per file latency of each rhino based engine, when a new engine
+ * is created for each file (cold) and when the engine is reused (warm).
+ */
+public class TestRhinoScriptBuilder {
+  private static final Logger LOG = LoggerFactory.getLogger(TestRhinoScriptBuilder.class);
+  private static final int ITERATIONS = 5;
+  private static final String JS = "function sum(first, second) {\n  var result = first + second;\n  return result;\n}\n";
+  private static final String CSS = ".header {\n  color: red;\n}\n";
+  private static final String JSON = "[{\"name\": \"a\", \"value\": 1}, {\"name\": \"b\", \"value\": 2}]";
+
+  /**
+   * Runs an engine on a file.
+   */
+  private static interface EngineCallback {
+    /**
+     * @param reuse true if the previously created engine should be reused.
+     */
+    String run(boolean reuse)
+      throws Exception;
+  }
+
+  @Test
+  public void invocationShouldNotAlterSharedScope() {
+    final ScriptableObject sharedScope = RhinoScriptBuilder.newChain().evaluateChain(
+      "var counter = 1; function next() { return counter + 1; }", "shared").sealScope();
+    final RhinoScriptBuilder builder = RhinoScriptBuilder.newChain(sharedScope);
+    Assert.assertEquals(2, ((Number)builder.evaluate("var counter = 5; next();", "invocation")).intValue());
+    Assert.assertEquals(1, ((Number)sharedScope.get("counter", sharedScope)).intValue());
+    Assert.assertEquals(ScriptableObject.NOT_FOUND,
+      RhinoScriptBuilder.newChain(sharedScope).getScope().get("counter", null));
+  }
+
+  @Test
+  public void shouldEvaluateDifferentSourcesWithSameName()
+    throws Exception {
+    final RhinoScriptBuilder first = RhinoScriptBuilder.newChain().evaluateChain(
+      new ByteArrayInputStream("var version = 1;".getBytes()), "library.js");
+    final RhinoScriptBuilder second = RhinoScriptBuilder.newChain().evaluateChain(
+      new ByteArrayInputStream("var version = 2;".getBytes()), "library.js");
+    Assert.assertEquals(1, ((Number)first.evaluate("version", "check")).intValue());
+    Assert.assertEquals(2, ((Number)second.evaluate("version", "check")).intValue());
+  }
+
+  @Test
+  public void shouldCallFunctionsWithUnescapedArguments() {
+    final ScriptableObject sharedScope = RhinoScriptBuilder.newChain().evaluateChain(
+      "var util = { wrap: function(value) { return this.prefix + value; }, prefix: '>' };", "util").sealScope();
+    final String value = "a \"quoted\" 'value'\r\n with \\ backslash\n";
+    Assert.assertEquals(">" + value, RhinoScriptBuilder.newChain(sharedScope).call("util.wrap", value));
+  }
+
+  @Test(expected = EvaluatorException.class)
+  public void cannotCallMissingFunction() {
+    RhinoScriptBuilder.newChain().call("util.missing", "value");
+  }
+
+  @Test
+  public void compareColdAndWarmLatencyOfEngines()
+    throws Exception {
+    final Map<String, EngineCallback> engines = new LinkedHashMap<String, EngineCallback>();
+    engines.put("less", new EngineCallback() {
+      private LessCss engine;
+      public String run(final boolean reuse) {
+        engine = reuse && engine != null ? engine : new LessCss();
+        return engine.less(CSS);
+      }
+    });
+    engines.put("sass", new EngineCallback() {
+      private SassCss engine;
+      public String run(final boolean reuse) {
+        engine = reuse && engine != null ? engine : new SassCss();
+        return engine.process(CSS);
+      }
+    });
+    engines.put("uglify", new EngineCallback() {
+      private UglifyJs engine;
+      public String run(final boolean reuse)
+        throws Exception {
+        engine = reuse && engine != null ? engine : UglifyJs.uglifyJs();
+        return engine.process(JS);
+      }
+    });
+    engines.put("coffeeScript", new EngineCallback() {
+      private CoffeeScript engine;
+      public String run(final boolean reuse) {
+        engine = reuse && engine != null ? engine : new CoffeeScript();
+        return engine.compile("square = (x) -> x * x");
+      }
+    });
+    engines.put("packer", new EngineCallback() {
+      private PackerJs engine;
+      public String run(final boolean reuse)
+        throws Exception {
+        engine = reuse && engine != null ? engine : new PackerJs();
+        return engine.pack(JS);
+      }
+    });
+    engines.put("cssLint", new EngineCallback() {
+      private CssLint engine;
+      public String run(final boolean reuse)
+        throws Exception {
+        engine = reuse && engine != null ? engine : new CssLint();
+        engine.validate(CSS);
+        return "valid";
+      }
+    });
+    engines.put("jsHint", new EngineCallback() {
+      private JsHint engine;
+      public String run(final boolean reuse) {
+        engine = reuse && engine != null ? engine : new JsHint();
+        try {
+          engine.validate(JS);
+          return "valid";
+        } catch (final LinterException e) {
+          return "errors: " + e.getErrors().size();
+        }
+      }
+    });
+    engines.put("jsLint", new EngineCallback() {
+      private JsLint engine;
+      public String run(final boolean reuse) {
+        engine = reuse && engine != null ? engine : new JsLint();
+        try {
+          engine.validate(JS);
+          return "valid";
+        } catch (final LinterException e) {
+          return "errors: " + e.getErrors().size();
+        }
+      }
+    });
+    engines.put("cjson", new EngineCallback() {
+      private CJson engine;
+      public String run(final boolean reuse) {
+        engine = reuse && engine != null ? engine : new CJson();
+        return engine.pack(JSON);
+      }
+    });
+    engines.put("jsonHPack", new EngineCallback() {
+      private JsonHPack engine;
+      public String run(final boolean reuse) {
+        engine = reuse && engine != null ? engine : new JsonHPack();
+        return engine.pack(JSON);
+      }
+    });
+    final StopWatch watch = new StopWatch();
+    for (final Map.Entry<String, EngineCallback> entry : engines.entrySet()) {
+      final EngineCallback engine = entry.getValue();
+      // compiles the library scripts
+      final String expected = engine.run(false);
+      watch.start(entry.getKey() + " cold x" + ITERATIONS);
+      for (int i = 0; i < ITERATIONS; i++) {
+        Assert.assertEquals(expected, engine.run(false));
+      }
+      watch.stop();
+      watch.start(entry.getKey() + " warm x" + ITERATIONS);
+      for (int i = 0; i < ITERATIONS; i++) {
+        Assert.assertEquals(expected, engine.run(true));
+      }
+      watch.stop();
+    }
+    LOG.debug(watch.prettyPrint());
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright wro4j@2011
+ */
+package ro.isdc.wro.maven.plugin;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.impl.AbstractProcessorDecorator;
+
+
+/**
+ * Maven plugin validating the resources with a linter. The resources are collected while the groups are processed and
+ * are validated at once afterwards, using the batch mode of the linter processor.
+ *
+ * @param <T> the type of the linter processor.
+ * @since 1.4.2
+ */
+public abstract class AbstractLinterMojo<T extends ResourcePreProcessor>
+    extends AbstractSingleProcessorMojo {
+  /**
+   * The content of the processed resources, validated at once after all the groups are processed.
+   */
+  private final Map<Resource, String> contents = Collections.synchronizedMap(new LinkedHashMap<Resource, String>());
+  private T processor;
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected final ResourcePreProcessor createResourceProcessor() {
+    processor = newLinterProcessor();
+    return new AbstractProcessorDecorator(processor) {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+          throws IOException {
+        if (resource == null) {
+          getDecoratedProcessor().process(resource, reader, writer);
+          return;
+        }
+        getLog().info("processing resource: " + resource.getUri());
+        final String content = IOUtils.toString(reader);
+        contents.put(resource, content);
+        writer.write(content);
+        reader.close();
+        writer.close();
+      }
+    };
+  }
+
+  /**
+   * @return the configured linter processor, created once per execution of the mojo.
+   */
+  protected abstract T newLinterProcessor();
+
+  /**
+   * Validates at once the provided resources.
+   *
+   * @param processor the linter processor created by {@link #newLinterProcessor()}.
+   * @param contents the content of each resource to validate.
+   */
+  protected abstract void validate(T processor, Map<Resource, String> contents);
+
+  /**
+   * Validates the collected resources using the batch mode of the processor. Only the resources changed since the
+   * previous build are validated by the linter, the results being persisted even if the validation fails.
+   */
+  @Override
+  protected final void onAfterProcessing() {
+    if (processor != null) {
+      try {
+        validate(processor, new LinkedHashMap<Resource, String>(contents));
+      } finally {
+        contents.clear();
+        final LintResultCache resultCache = getResultCache();
+        if (resultCache != null) {
+          resultCache.persist();
+        }
+      }
+    }
+  }
+}
@@ -4,6 +4,7 @@
 package ro.isdc.wro.maven.plugin;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.util.Collection;
 
 import javax.servlet.FilterConfig;
@@ -14,9 +15,11 @@ import org.mockito.Mockito;
 
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
 import ro.isdc.wro.http.DelegatingServletOutputStream;
 import ro.isdc.wro.manager.factory.standalone.StandaloneContextAwareManagerFactory;
 import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
 import ro.isdc.wro.model.resource.processor.factory.SimpleProcessorsFactory;
@@ -42,6 +45,22 @@ public abstract class AbstractSingleProcessorMojo extends AbstractWro4jMojo {
    * @optional
    */
   private boolean failNever;
+  /**
+   * The file where the validation results are stored between builds, allowing to validate only the resources changed
+   * since the previous build. Delete this file to validate all the resources again.
+   *
+   * @parameter default-value="${project.build.directory}/wro4j-lint-results.ser" expression="${resultCacheFile}"
+   * @optional
+   */
+  private File resultCacheFile;
+  /**
+   * Holds the processor used by this mojo, created once per execution.
+   */
+  private ProcessorsFactory processorsFactory;
+  /**
+   * The cache of the validation results, loaded once per execution.
+   */
+  private LintResultCache resultCache;
 
   /**
    * {@inheritDoc}
@@ -52,15 +71,32 @@ public abstract class AbstractSingleProcessorMojo extends AbstractWro4jMojo {
     getLog().info("options: " + options);
     getLog().info("failNever: " + failNever);
 
-    final Collection<String> groupsAsList = getTargetGroupsAsList();
-    for (final String group : groupsAsList) {
-      for (final ResourceType resourceType : ResourceType.values()) {
-        final String groupWithExtension = group + "." + resourceType.name().toLowerCase();
-        processGroup(groupWithExtension);
+    try {
+      final Collection<String> groupsAsList = getTargetGroupsAsList();
+      for (final String group : groupsAsList) {
+        for (final ResourceType resourceType : ResourceType.values()) {
+          final String groupWithExtension = group + "." + resourceType.name().toLowerCase();
+          processGroup(groupWithExtension);
+        }
+      }
+      onAfterProcessing();
+    } finally {
+      if (processorsFactory != null) {
+        ProcessorsUtils.destroy(processorsFactory.getPreProcessors());
+        processorsFactory = null;
       }
+      resultCache = null;
     }
   }
 
+  /**
+   * Invoked after all the target groups were processed. Allows validating at once the resources collected while
+   * processing the groups.
+   */
+  protected void onAfterProcessing()
+    throws Exception {
+  }
+
   /**
    * @param group the name of the group to process.
    */
@@ -91,7 +127,10 @@ public abstract class AbstractSingleProcessorMojo extends AbstractWro4jMojo {
   protected StandaloneContextAwareManagerFactory getManagerFactory()
     throws Exception {
     final StandaloneContextAwareManagerFactory factory = super.getManagerFactory();
-    factory.setProcessorsFactory(createSingleProcessorsFactory());
+    if (processorsFactory == null) {
+      processorsFactory = createSingleProcessorsFactory();
+    }
+    factory.setProcessorsFactory(processorsFactory);
     return factory;
   }
 
@@ -119,6 +158,24 @@ public abstract class AbstractSingleProcessorMojo extends AbstractWro4jMojo {
     this.options = options;
   }
 
+  /**
+   * @return the cache of the validation results persisted to the result cache file or null if no file is configured.
+   */
+  protected final LintResultCache getResultCache() {
+    if (resultCache == null && resultCacheFile != null) {
+      resultCache = new LintResultCache(resultCacheFile, LintResultCache.DEFAULT_SIZE);
+    }
+    return resultCache;
+  }
+
+  /**
+   * Used for tests only.
+   * @param resultCacheFile the resultCacheFile to set
+   */
+  void setResultCacheFile(final File resultCacheFile) {
+    this.resultCacheFile = resultCacheFile;
+  }
+
   /**
    * @param failNever the failFast to set
    */
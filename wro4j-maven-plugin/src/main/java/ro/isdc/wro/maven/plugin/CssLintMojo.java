@@ -3,16 +3,14 @@
  */
 package ro.isdc.wro.maven.plugin;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
+import java.util.Map;
 
 import org.apache.maven.plugin.MojoExecutionException;
 
 import ro.isdc.wro.extensions.processor.css.CssLintProcessor;
 import ro.isdc.wro.extensions.processor.support.csslint.CssLintException;
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
 import ro.isdc.wro.model.resource.Resource;
-import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 
 
 /**
@@ -26,21 +24,13 @@ import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
  * @since 1.3.8
  * @created 20 Jun 2011
  */
-public class CssLintMojo extends AbstractSingleProcessorMojo {
+public class CssLintMojo extends AbstractLinterMojo<CssLintProcessor> {
   /**
    * {@inheritDoc}
    */
   @Override
-  protected ResourcePreProcessor createResourceProcessor() {
-    final ResourcePreProcessor processor = new CssLintProcessor() {
-      @Override
-      public void process(final Resource resource, final Reader reader, final Writer writer) throws IOException {
-        if (resource != null) {
-          getLog().info("processing resource: " + resource.getUri());
-        }
-        super.process(resource, reader, writer);
-      }
-
+  protected CssLintProcessor newLinterProcessor() {
+    final CssLintProcessor processor = new CssLintProcessor() {
       @Override
       protected void onCssLintException(final CssLintException e, final Resource resource) throws Exception {
         getLog().error(
@@ -50,7 +40,20 @@ public class CssLintMojo extends AbstractSingleProcessorMojo {
             throw new MojoExecutionException("Errors found when validating resource: " + resource);
           }
       };
-    }.setOptions(getOptions());
+    };
+    processor.setOptions(getOptions());
+    final LintResultCache resultCache = getResultCache();
+    if (resultCache != null) {
+      processor.setResultCache(resultCache);
+    }
     return processor;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void validate(final CssLintProcessor processor, final Map<Resource, String> contents) {
+    processor.validate(contents);
+  }
 }
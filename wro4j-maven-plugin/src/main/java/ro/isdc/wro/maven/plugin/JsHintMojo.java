@@ -3,15 +3,13 @@
  */
 package ro.isdc.wro.maven.plugin;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
+import java.util.Map;
 
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.js.JsHintProcessor;
 import ro.isdc.wro.extensions.processor.support.linter.LinterException;
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
 import ro.isdc.wro.model.resource.Resource;
-import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 
 
 /**
@@ -24,23 +22,13 @@ import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
  * @since 1.3.5
  */
 public class JsHintMojo
-    extends AbstractSingleProcessorMojo {
+    extends AbstractLinterMojo<JsHintProcessor> {
   /**
    * {@inheritDoc}
    */
   @Override
-  protected ResourcePreProcessor createResourceProcessor() {
-    final ResourcePreProcessor processor = new JsHintProcessor() {
-      @Override
-      public void process(final Resource resource, final Reader reader, final Writer writer)
-          throws IOException {
-        getLog().info("processing resource: " + resource);
-        if (resource != null) {
-          getLog().info("processing resource: " + resource.getUri());
-        }
-        super.process(resource, reader, writer);
-      }
-
+  protected JsHintProcessor newLinterProcessor() {
+    final JsHintProcessor processor = new JsHintProcessor() {
       @Override
       protected void onException(final Exception e) {
         JsHintMojo.this.onException(e);
@@ -56,10 +44,23 @@ public class JsHintMojo
           throw new WroRuntimeException("Errors found when validating resource: " + resource);
         }
       };
-    }.setOptions(getOptions());
+    };
+    processor.setOptions(getOptions());
+    final LintResultCache resultCache = getResultCache();
+    if (resultCache != null) {
+      processor.setResultCache(resultCache);
+    }
     return processor;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void validate(final JsHintProcessor processor, final Map<Resource, String> contents) {
+    processor.validate(contents);
+  }
+
   /**
    * Used by unit test to check if mojo doesn't fail.
    */
@@ -3,15 +3,13 @@
  */
 package ro.isdc.wro.maven.plugin;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
+import java.util.Map;
 
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.js.JsLintProcessor;
 import ro.isdc.wro.extensions.processor.support.linter.LinterException;
+import ro.isdc.wro.extensions.processor.support.LintResultCache;
 import ro.isdc.wro.model.resource.Resource;
-import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 
 
 /**
@@ -25,23 +23,13 @@ import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
  * @since 1.4.2
  */
 public class JsLintMojo
-    extends AbstractSingleProcessorMojo {
+    extends AbstractLinterMojo<JsLintProcessor> {
   /**
    * {@inheritDoc}
    */
   @Override
-  protected ResourcePreProcessor createResourceProcessor() {
-    final ResourcePreProcessor processor = new JsLintProcessor() {
-      @Override
-      public void process(final Resource resource, final Reader reader, final Writer writer)
-          throws IOException {
-        getLog().info("processing resource: " + resource);
-        if (resource != null) {
-          getLog().info("processing resource: " + resource.getUri());
-        }
-        super.process(resource, reader, writer);
-      }
-
+  protected JsLintProcessor newLinterProcessor() {
+    final JsLintProcessor processor = new JsLintProcessor() {
       @Override
       protected void onException(final Exception e) {
         JsLintMojo.this.onException(e);
@@ -57,10 +45,23 @@ public class JsLintMojo
           throw new WroRuntimeException("Errors found when validating resource: " + resource);
         }
       };
-    }.setOptions(getOptions());
+    };
+    processor.setOptions(getOptions());
+    final LintResultCache resultCache = getResultCache();
+    if (resultCache != null) {
+      processor.setResultCache(resultCache);
+    }
     return processor;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void validate(final JsLintProcessor processor, final Map<Resource, String> contents) {
+    processor.validate(contents);
+  }
+
   /**
    * Used by unit test to check if mojo doesn't fail.
    */